@@ -0,0 +1,52 @@
+package com.example.demo.benchmarks;
+
+import com.example.demo.ArchiveService;
+import com.example.demo.FleetAnalytics;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The archiver once it has caught up, and fleet analytics over a period that is mostly archived.
+ * Setup archives every seeded rental that has ended, so {@code Booking} keeps only the running
+ * and future ones; compare {@code analyticsAcrossArchive} with {@code ReportBenchmark.fleetAnalytics}
+ * for the cost of reading both tables.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ArchiveBenchmark extends RentalDatabaseState {
+
+    private ArchiveService archiver;
+    private FleetAnalytics analytics;
+
+    // Runs after the superclass has opened and seeded the database
+    @Setup(Level.Trial)
+    public void archiveEnded() throws SQLException {
+        archiver = new ArchiveService(pool, changes);
+        analytics = new FleetAnalytics(pool);
+        archiver.archive(LocalDate.now().plusYears(1)); // A year ahead, so the cutoff is today with the default age
+    }
+
+    @Benchmark
+    public ArchiveService.Run idleRun() throws SQLException {
+        return archiver.archive(LocalDate.now().plusYears(1));
+    }
+
+    @Benchmark
+    public FleetAnalytics.Report analyticsAcrossArchive() throws SQLException {
+        return analytics.analyze(seededFrom, LocalDate.now());
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.demo.benchmarks;
+
+import com.example.demo.PricingEngine;
+import com.example.demo.VehicleRow;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * "Find Available Vehicles" on the booking tab for a one-week window inside the seeded year, bare
+ * and with every free vehicle priced, as the tab shows them.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AvailabilityBenchmark extends RentalDatabaseState {
+
+    private static final int FREE_VEHICLE_LIMIT = 200;
+
+    @Benchmark
+    public List<VehicleRow> freeVehicles() throws SQLException {
+        LocalDate start = seededFrom.plusDays(ThreadLocalRandom.current().nextInt(358));
+        return availabilityService.freeVehicles(start, start.plusDays(7), FREE_VEHICLE_LIMIT);
+    }
+
+    @Benchmark
+    public List<PricingEngine.Quote> quotedFreeVehicles() throws SQLException {
+        LocalDate start = seededFrom.plusDays(ThreadLocalRandom.current().nextInt(358));
+        LocalDate end = start.plusDays(7);
+        return pricing.quote(availabilityService.freeVehicles(start, end, FREE_VEHICLE_LIMIT), start, end, Set.of("GPS"));
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.demo.benchmarks;
+
+import com.example.demo.BookingService;
+import com.example.demo.PooledConnection;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The booking tab's "Book Vehicle": lock, overlap check, booking, payment and rollup in one
+ * transaction. Both benchmarks book after the seeded year, so they never collide with seed data.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookingBenchmark extends RentalDatabaseState {
+
+    private static final int CONTESTED_VEHICLES = 10;
+    private static final int CONTESTED_WINDOW_DAYS = 60;
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    /** Every booking succeeds: each vehicle gets consecutive non-overlapping periods. */
+    @Benchmark
+    public BookingService.Result bookAndPay() throws SQLException {
+        long n = sequence.getAndIncrement();
+        int vehicleId = (int) (n % vehicles) + 1;
+        LocalDate start = seededFrom.plusYears(3).plusDays(n / vehicles * 3);
+        return bookingService.book(vehicleId, vehicleId, start, start.plusDays(2), "Cash");
+    }
+
+    /**
+     * Clerks racing for a handful of vehicles with overlapping dates. Most attempts lose and are
+     * refused as {@code TAKEN}; the teardown fails the run if two winners ever overlap.
+     */
+    @Benchmark
+    @Threads(8)
+    public BookingService.Result contendedBooking() throws SQLException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int vehicleId = random.nextInt(CONTESTED_VEHICLES) + 1;
+        LocalDate start = seededFrom.plusYears(2).plusDays(random.nextInt(CONTESTED_WINDOW_DAYS));
+        return bookingService.book(random.nextInt(vehicles) + 1, vehicleId, start, start.plusDays(random.nextInt(7) + 1), "Credit Card");
+    }
+
+    @TearDown(Level.Iteration)
+    public void verifyNoOverlappingBookings() throws SQLException {
+        try (PooledConnection c = pool.acquire()) {
+            PreparedStatement ps = c.prepare("SELECT COUNT(*) FROM Booking a JOIN Booking b "
+                    + "ON b.vehicle_id = a.vehicle_id AND b.id > a.id AND b.start_date < a.end_date AND b.end_date > a.start_date "
+                    + "WHERE a.start_date >= ?");
+            ps.setDate(1, Date.valueOf(seededFrom.plusYears(1)));
+            try (ResultSet rs = ps.executeQuery()) {
+                rs.next();
+                if (rs.getLong(1) > 0) {
+                    throw new IllegalStateException(rs.getLong(1) + " overlapping bookings after concurrent booking");
+                }
+            }
+        }
+    }
+}
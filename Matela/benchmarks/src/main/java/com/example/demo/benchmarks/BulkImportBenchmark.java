@@ -0,0 +1,87 @@
+package com.example.demo.benchmarks;
+
+import com.example.demo.CsvImporter;
+import com.example.demo.ProgressListener;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Customer CSV import in rows per second: the batched {@link CsvImporter} at several batch sizes
+ * against one autocommitted insert per row, which is what typing the rows into the form amounts to.
+ * {@code singleRowInserts} ignores {@code batchSize}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class BulkImportBenchmark extends RentalDatabaseState {
+
+    private static final int ROWS = 10_000;
+
+    @Param({"50", "500", "5000"})
+    public int batchSize;
+
+    private Path csv;
+
+    @Setup(Level.Trial)
+    public void writeCsv() throws IOException {
+        csv = Files.createTempFile("customers", ".csv");
+        try (BufferedWriter out = Files.newBufferedWriter(csv, StandardCharsets.UTF_8)) {
+            out.write("name,contact,license");
+            out.newLine();
+            for (int i = 0; i < ROWS; i++) {
+                out.write("\"Imported, Customer " + i + "\",555-" + i + ",IMP" + i);
+                out.newLine();
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteCsv() throws IOException {
+        Files.deleteIfExists(csv);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public long batchedImport() throws IOException, SQLException {
+        return new CsvImporter(pool, changes, batchSize).importFile(csv, CsvImporter.CUSTOMERS, ProgressListener.NONE).imported();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public long singleRowInserts() throws IOException, SQLException {
+        long rows = 0;
+        try (BufferedReader in = Files.newBufferedReader(csv, StandardCharsets.UTF_8)) {
+            in.readLine();
+            String line;
+            while ((line = in.readLine()) != null) {
+                // Same rows as above; the quoted name is the only field that needs unquoting
+                int nameEnd = line.indexOf("\",");
+                String[] rest = line.substring(nameEnd + 2).split(",");
+                repository.addCustomer(line.substring(1, nameEnd), rest[0], rest[1]);
+                rows++;
+            }
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.demo.benchmarks;
+
+import com.example.demo.FleetAnalytics;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The fleet analytics sums over millions of bookings, fork/join against a single thread. The
+ * snapshot is generated in memory, so this measures the arithmetic alone; the database side,
+ * streaming the rows in, is {@link ReportBenchmark#fleetAnalytics}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FleetAnalyticsBenchmark {
+
+    private static final int VEHICLES = 10_000;
+    private static final String[] CATEGORIES = {"Sedan", "SUV", "Hatchback", "Luxury", "Truck"};
+
+    @Param({"1000000", "5000000"})
+    public int bookings;
+
+    private FleetAnalytics.Snapshot snapshot;
+    private LocalDate from;
+    private LocalDate to;
+
+    @Setup(Level.Trial)
+    public void generate() {
+        SplittableRandom random = new SplittableRandom(42);
+        to = LocalDate.now();
+        from = to.minusYears(3);
+        int firstDay = (int) from.toEpochDay();
+
+        int[] vehicleIds = new int[VEHICLES];
+        String[] labels = new String[VEHICLES];
+        int[] vehicleCategories = new int[VEHICLES];
+        for (int i = 0; i < VEHICLES; i++) {
+            vehicleIds[i] = i + 1;
+            labels[i] = "Brand " + (i + 1);
+            vehicleCategories[i] = random.nextInt(CATEGORIES.length);
+        }
+        // One payment per booking, as the booking desk takes them
+        int[] bookingVehicles = new int[bookings];
+        int[] starts = new int[bookings];
+        int[] ends = new int[bookings];
+        long[] cents = new long[bookings];
+        for (int i = 0; i < bookings; i++) {
+            bookingVehicles[i] = random.nextInt(VEHICLES);
+            starts[i] = firstDay + random.nextInt(3 * 365);
+            ends[i] = starts[i] + 1 + random.nextInt(14);
+            cents[i] = 5_000L * (ends[i] - starts[i]);
+        }
+        snapshot = new FleetAnalytics.Snapshot(vehicleIds, labels, vehicleCategories, CATEGORIES,
+                bookingVehicles, starts, ends, bookingVehicles.clone(), cents);
+    }
+
+    @Benchmark
+    public FleetAnalytics.Report forkJoin() {
+        return FleetAnalytics.analyze(snapshot, from, to, true);
+    }
+
+    @Benchmark
+    public FleetAnalytics.Report singleThread() {
+        return FleetAnalytics.analyze(snapshot, from, to, false);
+    }
+}
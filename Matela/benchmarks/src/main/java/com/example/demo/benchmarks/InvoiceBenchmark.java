@@ -0,0 +1,55 @@
+package com.example.demo.benchmarks;
+
+import com.example.demo.InvoiceService;
+import com.example.demo.ProgressListener;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Month-end billing: re-issuing every invoice for a month of payments, rendered to HTML files on
+ * the bounded worker queue. The seed pays one booking per vehicle in the chosen month, so a run
+ * renders {@code vehicles} invoices. The rows are created once in setup.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class InvoiceBenchmark extends RentalDatabaseState {
+
+    private InvoiceService invoiceService;
+    private LocalDate from;
+    private LocalDate to;
+
+    @Setup(Level.Trial)
+    public void createInvoices() throws SQLException, IOException {
+        // The fifth seeded booking of every vehicle starts 292 days in; nothing else falls in this window
+        from = seededFrom.plusDays(280);
+        to = seededFrom.plusDays(310);
+        invoiceService = new InvoiceService(pool, workDir.resolve("invoices"));
+        invoiceService.issueRange(from, to, false, ProgressListener.NONE);
+    }
+
+    @TearDown(Level.Trial)
+    public void stopRenderers() {
+        invoiceService.shutdown();
+    }
+
+    @Benchmark
+    public InvoiceService.Run monthEndReissue() throws SQLException, IOException {
+        return invoiceService.issueRange(from, to, true, ProgressListener.NONE);
+    }
+}
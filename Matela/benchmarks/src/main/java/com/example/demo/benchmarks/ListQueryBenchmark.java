@@ -0,0 +1,41 @@
+package com.example.demo.benchmarks;
+
+import com.example.demo.CustomerRow;
+import com.example.demo.PageRequest;
+import com.example.demo.PaymentRow;
+import com.example.demo.VehicleRow;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/** The first page each list tab loads on refresh, unfiltered and in id order. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ListQueryBenchmark extends RentalDatabaseState {
+
+    @Benchmark
+    public List<VehicleRow> availableVehicles() throws SQLException {
+        return repository.availableVehiclePage(new PageRequest<>(null, null, true, null, PAGE_SIZE));
+    }
+
+    @Benchmark
+    public List<CustomerRow> customers() throws SQLException {
+        return repository.customerPage(new PageRequest<>(null, null, true, null, PAGE_SIZE));
+    }
+
+    @Benchmark
+    public List<PaymentRow> payments() throws SQLException {
+        return repository.paymentPage(new PageRequest<>(null, null, true, null, PAGE_SIZE));
+    }
+}
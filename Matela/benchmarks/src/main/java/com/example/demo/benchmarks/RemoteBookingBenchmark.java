@@ -0,0 +1,71 @@
+package com.example.demo.benchmarks;
+
+import com.example.demo.BookingService;
+import com.example.demo.ChangeFeed;
+import com.example.demo.RemoteBackend;
+import com.example.demo.RentalServer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sustained booking throughput with many terminals sharing one {@link RentalServer}: each JMH
+ * thread is a clerk booking through the HTTP API, against the same load booked in-process as the
+ * ceiling. Like {@link BookingBenchmark#bookAndPay}, every booking succeeds.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 5)
+@Threads(64)
+@Fork(1)
+public class RemoteBookingBenchmark extends RentalDatabaseState {
+
+    private final AtomicLong sequence = new AtomicLong();
+    private RentalServer server;
+    private RemoteBackend remote;
+
+    @Setup(Level.Trial)
+    public void startServer() throws IOException {
+        server = new RentalServer(pool, new InetSocketAddress("127.0.0.1", 0));
+        server.start();
+        remote = new RemoteBackend("http://127.0.0.1:" + server.port(), new ChangeFeed());
+    }
+
+    @TearDown(Level.Trial)
+    public void stopServer() {
+        remote.close();
+        server.close();
+    }
+
+    @Benchmark
+    public BookingService.Result remoteBookAndPay() throws SQLException {
+        long n = sequence.getAndIncrement();
+        int vehicleId = (int) (n % vehicles) + 1;
+        LocalDate start = seededFrom.plusYears(3).plusDays(n / vehicles * 3);
+        return remote.book(vehicleId, vehicleId, start, start.plusDays(2), "Cash");
+    }
+
+    @Benchmark
+    public BookingService.Result embeddedBookAndPay() throws SQLException {
+        long n = sequence.getAndIncrement();
+        int vehicleId = (int) (n % vehicles) + 1;
+        LocalDate start = seededFrom.plusYears(3).plusDays(n / vehicles * 3);
+        return bookingService.book(vehicleId, vehicleId, start, start.plusDays(2), "Cash");
+    }
+}
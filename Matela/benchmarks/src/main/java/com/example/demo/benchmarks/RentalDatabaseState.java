@@ -0,0 +1,116 @@
+package com.example.demo.benchmarks;
+
+import com.example.demo.AvailabilityService;
+import com.example.demo.BookingService;
+import com.example.demo.ChangeFeed;
+import com.example.demo.ConnectionPool;
+import com.example.demo.HistoryExporter;
+import com.example.demo.Migrations;
+import com.example.demo.PooledConnection;
+import com.example.demo.PricingEngine;
+import com.example.demo.RentalRepository;
+import com.example.demo.SchemaMigrator;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * A freshly migrated and seeded rental database, shared by all threads of one benchmark trial.
+ * <p>
+ * {@code storage} picks an in-memory database or a file in a temporary directory, and
+ * {@code vehicles} sets the dataset size: that many vehicles and customers, and five bookings
+ * (each with its payment) per vehicle spread over the past year.
+ */
+@State(Scope.Benchmark)
+public abstract class RentalDatabaseState {
+
+    static final int BOOKINGS_PER_VEHICLE = 5;
+    static final int PAGE_SIZE = 100;
+
+    @Param({"memory", "file"})
+    public String storage;
+
+    @Param({"1000", "10000", "100000"})
+    public int vehicles;
+
+    protected final ChangeFeed changes = new ChangeFeed(); // Never subscribed: publishing is free
+    protected ConnectionPool pool;
+    protected RentalRepository repository;
+    protected PricingEngine pricing;
+    protected BookingService bookingService;
+    protected AvailabilityService availabilityService;
+    protected HistoryExporter historyExporter;
+    protected Path workDir;
+    protected LocalDate seededFrom;
+
+    @Setup(Level.Trial)
+    public void openDatabase() throws SQLException, IOException {
+        workDir = Files.createTempDirectory("rental-bench");
+        String url = storage.equals("file")
+                ? "jdbc:h2:" + workDir.resolve("vehiclerental").toAbsolutePath()
+                : "jdbc:h2:mem:bench-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1";
+        pool = new ConnectionPool(url, "sa", "", 16);
+        new SchemaMigrator(pool, Migrations.ALL).migrate();
+        seededFrom = LocalDate.now().minusYears(1);
+        seed();
+
+        repository = new RentalRepository(pool, changes);
+        pricing = new PricingEngine(pool);
+        bookingService = new BookingService(pool, repository.vehicleCache(), changes, pricing);
+        availabilityService = new AvailabilityService(pool);
+        historyExporter = new HistoryExporter(pool);
+    }
+
+    @TearDown(Level.Trial)
+    public void closeDatabase() throws SQLException, IOException {
+        try (PooledConnection c = pool.acquire(); Statement stmt = c.connection().createStatement()) {
+            stmt.execute("SHUTDOWN");
+        }
+        pool.close();
+        try (Stream<Path> files = Files.walk(workDir)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    // Bulk-loads through SYSTEM_RANGE; row-by-row inserts would dominate the setup time
+    private void seed() throws SQLException {
+        try (PooledConnection c = pool.acquire(); Statement stmt = c.connection().createStatement()) {
+            stmt.execute("INSERT INTO Vehicle(brand, category, price_cents, available) "
+                    + "SELECT 'Brand ' || MOD(X, 50), CASEWHEN(MOD(X, 4) = 0, 'SUV', CASEWHEN(MOD(X, 4) = 1, 'Sedan', CASEWHEN(MOD(X, 4) = 2, 'Truck', 'Van'))), "
+                    + "(20 + MOD(X, 180)) * 100 + MOD(X, 100), MOD(X, 10) <> 0 FROM SYSTEM_RANGE(1, " + vehicles + ")");
+            stmt.execute("INSERT INTO Customer(name, contact, license) "
+                    + "SELECT 'Customer ' || X, '555-' || X, 'LIC' || X FROM SYSTEM_RANGE(1, " + vehicles + ")");
+
+            // Back-to-back bookings per vehicle, so the seeded data never overlaps itself
+            String from = "DATE '" + seededFrom + "'";
+            stmt.execute("INSERT INTO Booking(customer_id, vehicle_id, start_date, end_date) "
+                    + "SELECT MOD(X * 7, " + vehicles + ") + 1, MOD(X, " + vehicles + ") + 1, "
+                    + "DATEADD(DAY, (X / " + vehicles + ") * 73, " + from + "), DATEADD(DAY, (X / " + vehicles + ") * 73 + 1 + MOD(X, 5), " + from + ") "
+                    + "FROM SYSTEM_RANGE(0, " + ((long) vehicles * BOOKINGS_PER_VEHICLE - 1) + ")");
+            // As migration 7 leaves them: rentals that have ended came back on time
+            stmt.execute("UPDATE Booking SET status = 'RETURNED', returned_on = end_date WHERE end_date <= CURRENT_DATE");
+            stmt.execute("UPDATE Booking SET status = 'OUT' WHERE start_date <= CURRENT_DATE AND end_date > CURRENT_DATE");
+            stmt.execute("INSERT INTO Payment(booking_id, amount_cents, method, paid_on) "
+                    + "SELECT b.id, DATEDIFF(DAY, b.start_date, b.end_date) * v.price_cents, CASEWHEN(MOD(b.id, 3) = 0, 'Cash', CASEWHEN(MOD(b.id, 3) = 1, 'Credit Card', 'Online')), b.start_date "
+                    + "FROM Booking b JOIN Vehicle v ON v.id = b.vehicle_id");
+            stmt.execute("INSERT INTO RevenueDaily(period, currency, total_cents, payments) SELECT paid_on, currency, SUM(amount_cents), COUNT(*) FROM Payment GROUP BY paid_on, currency");
+            stmt.execute("INSERT INTO RevenueMonthly(period, currency, total_cents, payments) SELECT CAST(DATE_TRUNC('MONTH', paid_on) AS DATE) m, currency, SUM(amount_cents), COUNT(*) FROM Payment GROUP BY m, currency");
+            stmt.execute("ANALYZE");
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.demo.benchmarks;
+
+import com.example.demo.FleetAnalytics;
+import com.example.demo.HistoryExporter;
+import com.example.demo.Money;
+import com.example.demo.ProgressListener;
+import com.example.demo.RevenuePoint;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/** The reports tabs: revenue total, the monthly chart, the full rental-history export and fleet analytics. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReportBenchmark extends RentalDatabaseState {
+
+    @Benchmark
+    public Money totalRevenue() throws SQLException {
+        return repository.totalRevenue();
+    }
+
+    @Benchmark
+    public List<RevenuePoint> monthlyRevenue() throws SQLException {
+        return repository.monthlyRevenue(12);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public long rentalHistoryExport() throws SQLException, IOException {
+        return historyExporter.export(workDir.resolve("history.csv"), HistoryExporter.Format.CSV, null, null, ProgressListener.NONE);
+    }
+
+    /** The whole year of bookings and payments streamed into arrays and summed, as the Analyze button does. */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public FleetAnalytics.Report fleetAnalytics() throws SQLException {
+        return new FleetAnalytics(pool).analyze(seededFrom, LocalDate.now());
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.demo.benchmarks;
+
+import com.example.demo.ReturnService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The scheduled return sweep once it has caught up: nothing is due, so this is what every sweep
+ * costs between pickups and returns. It should stay flat as the booking history grows, since
+ * the due rows are found through the status indexes rather than by scanning bookings.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReturnSweepBenchmark extends RentalDatabaseState {
+
+    private ReturnService returns;
+
+    // Runs after the superclass has opened and seeded the database
+    @Setup(Level.Trial)
+    public void catchUp() throws SQLException {
+        returns = new ReturnService(pool, pricing, repository.vehicleCache(), changes);
+        returns.sweep(LocalDate.now()); // Releases the seeded vehicles that are marked out with no rental running
+    }
+
+    @Benchmark
+    public ReturnService.Sweep idleSweep() throws SQLException {
+        return returns.sweep(LocalDate.now());
+    }
+}
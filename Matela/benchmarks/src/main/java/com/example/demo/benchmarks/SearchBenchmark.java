@@ -0,0 +1,67 @@
+package com.example.demo.benchmarks;
+
+import com.example.demo.CustomerRow;
+import com.example.demo.PageRequest;
+import com.example.demo.SearchService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Customer search-as-you-type: the trigram index for a selective query (one license) and for a
+ * term every row contains, against the {@code LIKE} filter the customer table uses. The index is
+ * loaded once in setup, as the app does in the background after start-up.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SearchBenchmark extends RentalDatabaseState {
+
+    private static final int SEARCH_LIMIT = 10;
+
+    private SearchService searchService;
+
+    @Setup(Level.Trial)
+    public void loadIndex() throws SQLException {
+        searchService = new SearchService(pool);
+        searchService.search(SearchService.Kind.CUSTOMER, "warm", SEARCH_LIMIT);
+    }
+
+    @TearDown(Level.Trial)
+    public void stopIndex() {
+        searchService.shutdown();
+    }
+
+    @Benchmark
+    public List<SearchService.Hit> indexedSelective() throws SQLException {
+        return searchService.search(SearchService.Kind.CUSTOMER, "LIC" + randomId(), SEARCH_LIMIT);
+    }
+
+    @Benchmark
+    public List<SearchService.Hit> indexedCommonTerm() throws SQLException {
+        return searchService.search(SearchService.Kind.CUSTOMER, "customer", SEARCH_LIMIT);
+    }
+
+    @Benchmark
+    public List<CustomerRow> likeFilterSelective() throws SQLException {
+        return repository.customerPage(new PageRequest<>("LIC" + randomId(), null, true, null, SEARCH_LIMIT));
+    }
+
+    private int randomId() {
+        return 1 + ThreadLocalRandom.current().nextInt(vehicles);
+    }
+}
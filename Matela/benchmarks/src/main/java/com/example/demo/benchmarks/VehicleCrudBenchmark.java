@@ -0,0 +1,40 @@
+package com.example.demo.benchmarks;
+
+import com.example.demo.Money;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.SQLException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/** The vehicle tab's add, update and delete buttons. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VehicleCrudBenchmark extends RentalDatabaseState {
+
+    @Benchmark
+    public int insertVehicle() throws SQLException {
+        return repository.addVehicle("Bench", "SUV", Money.of(7_500));
+    }
+
+    @Benchmark
+    public int updateVehicle() throws SQLException {
+        int id = ThreadLocalRandom.current().nextInt(vehicles) + 1;
+        return repository.updateVehicle(id, "Brand " + (id % 50), "Sedan", Money.of((20 + id % 180) * 100L));
+    }
+
+    // Seeded vehicles are referenced by bookings, so delete one this invocation added
+    @Benchmark
+    public int insertAndDeleteVehicle() throws SQLException {
+        return repository.deleteVehicle(repository.addVehicle("Bench", "Van", Money.of(6_000)));
+    }
+}
@@ -0,0 +1,164 @@
+package com.example.demo;
+
+import java.sql.Array;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Moves closed rentals out of the live tables. A booking that was returned and ended more than
+ * {@link #ARCHIVE_AFTER_DAYS} days ago goes to {@code BookingArchive}, together with its payments
+ * and invoices, so {@code Booking} and {@code Payment} only hold the rentals the desk still works
+ * with, and the lists, availability checks and sweeps stay as fast as the fleet is small.
+ * <p>
+ * A run every {@link #ARCHIVE_MINUTES} minutes moves {@link #ARCHIVE_BATCH} bookings per transaction
+ * until none are due, so it never holds locks for long. Rows keep their ids, and the revenue
+ * rollups are left alone since they already count every payment. Reports that cover old periods
+ * read the archive as well: {@link FleetAnalytics} and the fleet calendar whenever the period
+ * reaches into it, the history export when asked, and {@link InvoiceService} to re-issue an
+ * archived payment's invoice. Runs are timed as {@code archive.run} and counted under {@code archive.*}.
+ */
+public class ArchiveService {
+
+    /** {@code -Drental.archiveAfterDays} overrides it. */
+    static final long ARCHIVE_AFTER_DAYS = Long.getLong("rental.archiveAfterDays", 365);
+    /** {@code -Drental.archiveMinutes} overrides it. */
+    static final long ARCHIVE_MINUTES = Long.getLong("rental.archiveMinutes", 60);
+    static final int ARCHIVE_BATCH = 500;
+    private static final long FIRST_RUN_SECONDS = 60; // After startup and the first return sweep
+
+    /** What one run moved. */
+    public record Run(int bookings, int payments, int invoices) {
+    }
+
+    // What one transaction moved, for publishing once it has committed
+    private record Batch(List<Integer> bookings, List<Integer> payments, int invoices) {
+    }
+
+    private final ConnectionPool pool;
+    private final ChangeFeed changes;
+    private final ScheduledExecutorService scheduler =
+            Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().daemon().name("archiver").factory());
+
+    public ArchiveService(ConnectionPool pool, ChangeFeed changes) {
+        this.pool = pool;
+        this.changes = changes;
+    }
+
+    /** Starts archiving in the background until {@link #shutdown}. */
+    public void start() {
+        scheduler.scheduleWithFixedDelay(this::archiveQuietly, FIRST_RUN_SECONDS, TimeUnit.MINUTES.toSeconds(ARCHIVE_MINUTES), TimeUnit.SECONDS);
+    }
+
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    /** Archives every rental returned and ended before {@code today - ARCHIVE_AFTER_DAYS}. */
+    public Run archive(LocalDate today) throws SQLException {
+        long start = System.nanoTime();
+        LocalDate cutoff = today.minusDays(ARCHIVE_AFTER_DAYS);
+        int[] moved = new int[3];
+        int read;
+        do {
+            read = archiveBatch(cutoff, moved);
+        } while (read == ARCHIVE_BATCH);
+        Metrics.record("archive.run", System.nanoTime() - start);
+        Metrics.add("archive.bookings", moved[0]);
+        Metrics.add("archive.payments", moved[1]);
+        return new Run(moved[0], moved[1], moved[2]);
+    }
+
+    /** Whether archived bookings may overlap periods ending after {@code from}; an index lookup. */
+    static boolean bookingsReach(PooledConnection c, LocalDate from) throws SQLException {
+        try (ResultSet rs = c.prepare("SELECT MAX(end_date) FROM BookingArchive").executeQuery()) {
+            Date last = rs.next() ? rs.getDate(1) : null;
+            return last != null && last.toLocalDate().isAfter(from);
+        }
+    }
+
+    /** Whether archived payments may have been made on or after {@code from}; an index lookup. */
+    static boolean paymentsReach(PooledConnection c, LocalDate from) throws SQLException {
+        try (ResultSet rs = c.prepare("SELECT MAX(paid_on) FROM PaymentArchive").executeQuery()) {
+            Date last = rs.next() ? rs.getDate(1) : null;
+            return last != null && !last.toLocalDate().isBefore(from);
+        }
+    }
+
+    private void archiveQuietly() {
+        try {
+            archive(LocalDate.now());
+        } catch (Exception e) {
+            Metrics.error("Archive run", e); // The next run picks up where this one failed
+        }
+    }
+
+    // Up to one batch of due bookings, with their payments and invoices, copied and then deleted in one transaction
+    private int archiveBatch(LocalDate cutoff, int[] moved) throws SQLException {
+        Batch batch = pool.inTransaction(c -> {
+            List<Integer> bookings = new ArrayList<>();
+            PreparedStatement due = c.prepare("SELECT id FROM Booking WHERE status = ? AND end_date < ? LIMIT ?");
+            due.setString(1, ReturnService.RETURNED);
+            due.setDate(2, Date.valueOf(cutoff));
+            due.setInt(3, ARCHIVE_BATCH);
+            try (ResultSet rs = due.executeQuery()) {
+                while (rs.next()) {
+                    bookings.add(rs.getInt(1));
+                }
+            }
+            if (bookings.isEmpty()) {
+                return new Batch(List.of(), List.of(), 0);
+            }
+            Array ids = c.connection().createArrayOf("INTEGER", bookings.toArray());
+            List<Integer> payments = new ArrayList<>();
+            PreparedStatement paid = c.prepare("SELECT id FROM Payment WHERE booking_id = ANY(?)");
+            paid.setArray(1, ids);
+            try (ResultSet rs = paid.executeQuery()) {
+                while (rs.next()) {
+                    payments.add(rs.getInt(1));
+                }
+            }
+
+            // Parents first on the way in, children first on the way out, so the foreign keys hold throughout
+            update(c, ids, "INSERT INTO BookingArchive(id, customer_id, vehicle_id, start_date, end_date, status, returned_on, late_fee_through) "
+                    + "SELECT id, customer_id, vehicle_id, start_date, end_date, status, returned_on, late_fee_through FROM Booking WHERE id = ANY(?)");
+            update(c, ids, "INSERT INTO PaymentArchive(id, booking_id, amount_cents, currency, method, paid_on) "
+                    + "SELECT id, booking_id, amount_cents, currency, method, paid_on FROM Payment WHERE booking_id = ANY(?)");
+            int invoices = update(c, ids, "INSERT INTO InvoiceArchive(id, payment_id, booking_id, issued_on, file, rendered_at) "
+                    + "SELECT id, payment_id, booking_id, issued_on, file, rendered_at FROM Invoice WHERE booking_id = ANY(?)");
+            update(c, ids, "DELETE FROM Invoice WHERE booking_id = ANY(?)");
+            update(c, ids, "DELETE FROM Payment WHERE booking_id = ANY(?)");
+            if (update(c, ids, "DELETE FROM Booking WHERE id = ANY(?)") != bookings.size()) {
+                throw new SQLException("Bookings changed while being archived"); // Rolled back; the next run retries
+            }
+            return new Batch(bookings, payments, invoices);
+        });
+        moved[0] += batch.bookings().size();
+        moved[1] += batch.payments().size();
+        moved[2] += batch.invoices();
+        // The rows are gone from the live tables, so lists showing them drop them
+        publish(ChangeFeed.Table.BOOKING, batch.bookings());
+        publish(ChangeFeed.Table.PAYMENT, batch.payments());
+        return batch.bookings().size();
+    }
+
+    private static int update(PooledConnection c, Array bookingIds, String sql) throws SQLException {
+        PreparedStatement ps = c.prepare(sql);
+        ps.setArray(1, bookingIds);
+        return ps.executeUpdate();
+    }
+
+    // After commit only, like every other writer
+    private void publish(ChangeFeed.Table table, List<Integer> ids) {
+        for (int id : ids) {
+            changes.publish(table, ChangeFeed.Op.DELETE, id);
+        }
+    }
+}
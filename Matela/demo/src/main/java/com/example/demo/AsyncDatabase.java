@@ -0,0 +1,150 @@
+package com.example.demo;
+
+import javafx.beans.property.ReadOnlyBooleanProperty;
+import javafx.beans.property.ReadOnlyBooleanWrapper;
+import javafx.concurrent.Task;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * Runs blocking database work on virtual threads and hands the result back on the
+ * JavaFX Application Thread. All public methods must be called from the FX thread.
+ */
+public class AsyncDatabase {
+
+    @FunctionalInterface
+    public interface Work<T> {
+        T run() throws Exception;
+    }
+
+    @FunctionalInterface
+    public interface TrackedWork<T> {
+        T run(ProgressListener progress) throws Exception;
+    }
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Set<Task<?>> inFlight = new HashSet<>();
+    private final Set<Task<?>> writes = new HashSet<>();
+    private final Map<Object, Task<?>> latestByKey = new HashMap<>();
+    private final ReadOnlyBooleanWrapper busy = new ReadOnlyBooleanWrapper(false);
+
+    public AsyncDatabase() {
+    }
+
+    /**
+     * Runs {@code work} in the background. Exactly one of the callbacks is invoked on the
+     * FX thread, unless the task is cancelled first, in which case neither is.
+     */
+    public <T> Task<T> submit(Work<T> work, Consumer<T> onSuccess, Consumer<Throwable> onFailure) {
+        return start(new Task<>() {
+            @Override
+            protected T call() throws Exception {
+                return work.run();
+            }
+        }, onSuccess, onFailure);
+    }
+
+    /**
+     * Like {@link #submit}, for writes: the task is left out of {@link #cancelAll}, since the
+     * transaction commits on its thread either way, so one of the callbacks always reports how it went.
+     */
+    public <T> Task<T> submitWrite(Work<T> work, Consumer<T> onSuccess, Consumer<Throwable> onFailure) {
+        Task<T> task = submit(work, onSuccess, onFailure);
+        writes.add(task);
+        return task;
+    }
+
+    /**
+     * Like {@link #submit}, for long jobs: the work reports progress through the task's
+     * {@code progressProperty()} and should poll {@link ProgressListener#isCancelled()} to stop early.
+     */
+    public <T> Task<T> submitTracked(TrackedWork<T> work, Consumer<T> onSuccess, Consumer<Throwable> onFailure) {
+        return start(new Task<>() {
+            @Override
+            protected T call() throws Exception {
+                Task<T> self = this;
+                return work.run(new ProgressListener() {
+                    @Override
+                    public void update(long done, long total) {
+                        updateProgress(done, total);
+                    }
+
+                    @Override
+                    public boolean isCancelled() {
+                        return self.isCancelled();
+                    }
+                });
+            }
+        }, onSuccess, onFailure);
+    }
+
+    private <T> Task<T> start(Task<T> task, Consumer<T> onSuccess, Consumer<Throwable> onFailure) {
+        long submitted = System.nanoTime();
+        task.setOnSucceeded(_ -> {
+            finished(task);
+            Metrics.record("db.task", System.nanoTime() - submitted); // Submit to result, as the user waits for it
+            onSuccess.accept(task.getValue());
+        });
+        task.setOnFailed(_ -> {
+            finished(task);
+            Metrics.record("db.task", System.nanoTime() - submitted);
+            Metrics.error("background task", task.getException());
+            onFailure.accept(task.getException());
+        });
+        task.setOnCancelled(_ -> finished(task));
+
+        inFlight.add(task);
+        busy.set(true);
+        executor.execute(task);
+        return task;
+    }
+
+    /**
+     * Like {@link #submit}, but first cancels any earlier task submitted under the same key,
+     * so only the most recent request (e.g. a list refresh) gets applied to the UI.
+     */
+    public <T> Task<T> submitLatest(Object key, Work<T> work, Consumer<T> onSuccess, Consumer<Throwable> onFailure) {
+        Task<?> previous = latestByKey.remove(key);
+        if (previous != null) {
+            previous.cancel(false);
+        }
+        Task<T> task = submit(work, onSuccess, onFailure);
+        latestByKey.put(key, task);
+        return task;
+    }
+
+    /**
+     * Cancels everything still in flight except writes. Running JDBC calls are left to finish on their
+     * own thread (interrupting H2 mid-I/O can close the database file); their results are dropped.
+     */
+    public void cancelAll() {
+        for (Task<?> task : new ArrayList<>(inFlight)) {
+            if (!writes.contains(task)) {
+                task.cancel(false);
+            }
+        }
+    }
+
+    public ReadOnlyBooleanProperty busyProperty() {
+        return busy.getReadOnlyProperty();
+    }
+
+    public void shutdown() {
+        cancelAll();
+        executor.shutdown();
+    }
+
+    private void finished(Task<?> task) {
+        inFlight.remove(task);
+        writes.remove(task);
+        latestByKey.values().remove(task);
+        busy.set(!inFlight.isEmpty());
+    }
+}
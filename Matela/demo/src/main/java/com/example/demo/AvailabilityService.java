@@ -0,0 +1,77 @@
+package com.example.demo;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Answers "which vehicles are free between start and end" from the bookings themselves rather
+ * than the single {@code Vehicle.available} flag, so a vehicle that is out this week can still be
+ * booked for next week.
+ * <p>
+ * Rental periods are half-open: a booking covers {@code [start_date, end_date)}, so a vehicle
+ * returned on the 4th can be picked up again on the 4th. Two periods overlap when each starts
+ * before the other ends. A rental still {@code OUT} or {@code OVERDUE} after its end date holds its
+ * vehicle until it is returned, so an overdue vehicle is never handed out twice; one that is out and
+ * on time only blocks its own period, and one returned early stops blocking on the day it came back.
+ * The two cases are separate index range reads, on {@code (vehicle_id, end_date, start_date)} and
+ * {@code (status, end_date)}, joined by {@code UNION ALL} rather than one {@code OR} that would scan
+ * all of the vehicle's bookings; {@link ArchiveService} keeps those to the recent ones, however long
+ * a vehicle's history is.
+ */
+public class AvailabilityService {
+
+    /**
+     * The bookings keeping vehicle {@code %1$s} from being rented over {@code [start, end)}; after
+     * each vehicle placeholder, binds start, end, start. The first branch is the period overlap, skipping rentals returned by the
+     * start; the second is a rental past its end date and not yet returned, which is still out. H2
+     * runs in this JVM, so CURRENT_DATE is today here.
+     */
+    static final String BLOCKING = "SELECT b.id FROM Booking b WHERE b.vehicle_id = %1$s AND b.end_date > ? AND b.start_date < ? "
+            + "AND NOT (b.status = '" + ReturnService.RETURNED + "' AND COALESCE(b.returned_on, b.end_date) <= ?) "
+            + "UNION ALL SELECT b.id FROM Booking b WHERE b.vehicle_id = %1$s AND b.end_date < CURRENT_DATE "
+            + "AND b.status IN ('" + ReturnService.OUT + "', '" + ReturnService.OVERDUE + "')";
+
+    private final ConnectionPool pool;
+
+    public AvailabilityService(ConnectionPool pool) {
+        this.pool = pool;
+    }
+
+    /** Vehicles with no booking overlapping {@code [start, end)} and none overdue, lowest id first. */
+    public List<VehicleRow> freeVehicles(LocalDate start, LocalDate end, int limit) throws SQLException {
+        try (PooledConnection c = pool.acquire()) {
+            PreparedStatement ps = c.prepare("SELECT v.id, v.brand, v.category, v.price_cents, v.currency, v.available FROM Vehicle v "
+                    + "WHERE NOT EXISTS (" + BLOCKING.formatted("v.id") + ") ORDER BY v.id LIMIT ?");
+            ps.setDate(1, Date.valueOf(start));
+            ps.setDate(2, Date.valueOf(end));
+            ps.setDate(3, Date.valueOf(start));
+            ps.setInt(4, limit);
+            List<VehicleRow> free = new ArrayList<>();
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    free.add(new VehicleRow(rs.getInt("id"), rs.getString("brand"), rs.getString("category"),
+                            Money.of(rs.getLong("price_cents"), rs.getString("currency")), rs.getBoolean("available")));
+                }
+            }
+            return free;
+        }
+    }
+
+    /** Whether {@code vehicleId} has no booking overlapping {@code [start, end)} and is not overdue from an earlier one. */
+    public static boolean isFree(PooledConnection c, int vehicleId, LocalDate start, LocalDate end) throws SQLException {
+        PreparedStatement ps = c.prepare("SELECT 1 FROM (" + BLOCKING.formatted("?") + ") LIMIT 1");
+        ps.setInt(1, vehicleId);
+        ps.setDate(2, Date.valueOf(start));
+        ps.setDate(3, Date.valueOf(end));
+        ps.setDate(4, Date.valueOf(start));
+        ps.setInt(5, vehicleId);
+        try (ResultSet rs = ps.executeQuery()) {
+            return !rs.next();
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.example.demo;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.Set;
+
+/**
+ * Books a vehicle and takes the payment for it in one transaction. The vehicle row is locked
+ * before the overlap check, so two clerks booking the same vehicle for overlapping dates cannot
+ * both win, and the booking and payment rows are linked through the generated keys rather than
+ * a lookup. {@code Vehicle.available} only tracks whether the vehicle is out right now. The amount
+ * is priced by {@link PricingEngine} from the vehicle row read under the lock; later bookings are
+ * picked up and returned by {@link ReturnService}. Rentals cannot start in the past, since the
+ * sweeper would take them for overdue at once.
+ */
+public class BookingService {
+
+    /** What a successful booking produced. */
+    public record Confirmation(int bookingId, int paymentId, Money pricePerDay, long days, Money amount) {
+    }
+
+    /** Why a booking was not made. */
+    public enum Refusal {
+        NO_CUSTOMER,
+        NO_VEHICLE,
+        /** The vehicle is booked, or still out, for part of the period. */
+        TAKEN
+    }
+
+    /** A booking attempt: the confirmation if it was made, otherwise why not. */
+    public record Result(Confirmation confirmation, Refusal refusal) {
+
+        public static Result of(Confirmation confirmation) {
+            return new Result(confirmation, null);
+        }
+
+        public static Result refused(Refusal refusal) {
+            return new Result(null, refusal);
+        }
+
+        public boolean isBooked() {
+            return confirmation != null;
+        }
+    }
+
+    private final ConnectionPool pool;
+    private final EntityCache<Integer, VehicleRow> vehicleCache;
+    private final ChangeFeed changes;
+    private final PricingEngine pricing;
+
+    public BookingService(ConnectionPool pool, EntityCache<Integer, VehicleRow> vehicleCache, ChangeFeed changes, PricingEngine pricing) {
+        this.pool = pool;
+        this.vehicleCache = vehicleCache;
+        this.changes = changes;
+        this.pricing = pricing;
+    }
+
+    /** {@link #book(int, int, LocalDate, LocalDate, Set, String)} without extras. */
+    public Result book(int customerId, int vehicleId, LocalDate startDate, LocalDate endDate, String method) throws SQLException {
+        return book(customerId, vehicleId, startDate, endDate, Set.of(), method);
+    }
+
+    /**
+     * Reserves the vehicle, records the booking and its payment, and updates the revenue rollup.
+     *
+     * @return the confirmation, or the refusal if the customer or vehicle does not exist or the
+     *         vehicle is taken for part of the period
+     * @throws IllegalArgumentException if the period is empty or starts before today
+     */
+    public Result book(int customerId, int vehicleId, LocalDate startDate, LocalDate endDate, Set<String> extras,
+                       String method) throws SQLException {
+        if (!endDate.isAfter(startDate)) {
+            throw new IllegalArgumentException("End date must be after start date.");
+        }
+        LocalDate today = LocalDate.now();
+        if (startDate.isBefore(today)) {
+            throw new IllegalArgumentException("Start date is in the past.");
+        }
+        long days = ChronoUnit.DAYS.between(startDate, endDate);
+        // Read before the transaction, so loading the rules never needs a second connection inside it
+        PricingEngine.Rates rates = pricing.rates();
+        Money extrasPerDay = rates.extrasPerDay(extras);
+        boolean runningNow = !startDate.isAfter(today);
+
+        Result result = pool.inTransaction(c -> {
+            PreparedStatement customer = c.prepare("SELECT 1 FROM Customer WHERE id = ?");
+            customer.setInt(1, customerId);
+            try (ResultSet rs = customer.executeQuery()) {
+                if (!rs.next()) {
+                    return Result.refused(Refusal.NO_CUSTOMER);
+                }
+            }
+
+            // Lock the vehicle so concurrent bookings for it queue up behind this one
+            PreparedStatement lock = c.prepare("SELECT id, brand, category, price_cents, currency, available FROM Vehicle WHERE id = ? FOR UPDATE");
+            lock.setInt(1, vehicleId);
+            VehicleRow vehicle;
+            try (ResultSet rs = lock.executeQuery()) {
+                if (!rs.next()) {
+                    return Result.refused(Refusal.NO_VEHICLE);
+                }
+                vehicle = new VehicleRow(rs.getInt("id"), rs.getString("brand"), rs.getString("category"),
+                        Money.of(rs.getLong("price_cents"), rs.getString("currency")), rs.getBoolean("available"));
+            }
+            if (!AvailabilityService.isFree(c, vehicleId, startDate, endDate)) {
+                return Result.refused(Refusal.TAKEN);
+            }
+
+            PreparedStatement book = c.prepare("INSERT INTO Booking(customer_id, vehicle_id, start_date, end_date, status) VALUES (?, ?, ?, ?, ?)",
+                    Statement.RETURN_GENERATED_KEYS);
+            book.setInt(1, customerId);
+            book.setInt(2, vehicleId);
+            book.setDate(3, Date.valueOf(startDate));
+            book.setDate(4, Date.valueOf(endDate));
+            book.setString(5, runningNow ? ReturnService.OUT : ReturnService.BOOKED);
+            book.executeUpdate();
+            int bookingId = generatedKey(book);
+
+            if (runningNow) {
+                // The rental is running now, so the vehicle leaves the lot
+                PreparedStatement out = c.prepare("UPDATE Vehicle SET available = FALSE WHERE id = ?");
+                out.setInt(1, vehicleId);
+                out.executeUpdate();
+            }
+
+            Money amount = rates.quote(vehicle, startDate, endDate, extrasPerDay).total();
+            PreparedStatement pay = c.prepare("INSERT INTO Payment(booking_id, amount_cents, currency, method, paid_on) VALUES (?, ?, ?, ?, ?)",
+                    Statement.RETURN_GENERATED_KEYS);
+            pay.setInt(1, bookingId);
+            pay.setLong(2, amount.cents());
+            pay.setString(3, amount.currency().getCurrencyCode());
+            pay.setString(4, method);
+            pay.setDate(5, Date.valueOf(today));
+            pay.executeUpdate();
+            int paymentId = generatedKey(pay);
+
+            RevenueRollup.record(c, today, amount);
+            return Result.of(new Confirmation(bookingId, paymentId, vehicle.price(), days, amount));
+        });
+        if (!result.isBooked()) {
+            return result;
+        }
+        Confirmation confirmation = result.confirmation();
+        // Only after commit, so nobody re-caches the old flag or reloads a row that is not there yet
+        if (runningNow) {
+            vehicleCache.invalidate(vehicleId);
+            changes.publish(ChangeFeed.Table.VEHICLE, ChangeFeed.Op.UPDATE, vehicleId);
+        }
+        changes.publish(ChangeFeed.Table.BOOKING, ChangeFeed.Op.INSERT, confirmation.bookingId());
+        changes.publish(ChangeFeed.Table.PAYMENT, ChangeFeed.Op.INSERT, confirmation.paymentId());
+        return result;
+    }
+
+    private static int generatedKey(Statement statement) throws SQLException {
+        try (ResultSet keys = statement.getGeneratedKeys()) {
+            if (!keys.next()) {
+                throw new SQLException("No generated key returned");
+            }
+            return keys.getInt(1);
+        }
+    }
+}
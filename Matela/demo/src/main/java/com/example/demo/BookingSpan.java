@@ -0,0 +1,7 @@
+package com.example.demo;
+
+import java.time.LocalDate;
+
+/** One booking as the fleet calendar draws it: a vehicle taken for {@code [start, end)}. */
+public record BookingSpan(int bookingId, int vehicleId, int customerId, LocalDate start, LocalDate end) {
+}
@@ -0,0 +1,98 @@
+package com.example.demo;
+
+import javafx.animation.AnimationTimer;
+import javafx.application.Platform;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Row-level change notifications from the data layer to the UI. Writers publish from any thread
+ * once their change has committed; listeners run on the JavaFX Application Thread and receive all
+ * changes published since the previous pulse as one batch, so a burst of writes costs one layout.
+ * <p>
+ * With no listeners (e.g. in benchmarks or the headless server) publishing never touches the FX
+ * toolkit. Taps see every change at once on the publishing thread and need no toolkit at all.
+ */
+public class ChangeFeed {
+
+    public enum Table { VEHICLE, CUSTOMER, BOOKING, PAYMENT }
+
+    /** {@code RELOAD} means too many rows changed to list; listeners should reload everything. */
+    public enum Op { INSERT, UPDATE, DELETE, RELOAD }
+
+    public record Change(Table table, Op op, int id) {
+    }
+
+    @FunctionalInterface
+    public interface Listener {
+        void onChanges(List<Change> batch);
+    }
+
+    private final Map<Table, List<Listener>> listeners = new ConcurrentHashMap<>();
+    private final List<Consumer<Change>> taps = new CopyOnWriteArrayList<>();
+    private final ConcurrentLinkedQueue<Change> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private volatile AnimationTimer pulse; // Created on the FX thread by the first subscribe
+
+    public ChangeFeed() {
+    }
+
+    /** Must be called on the FX thread. */
+    public void subscribe(Table table, Listener listener) {
+        if (pulse == null) {
+            pulse = new AnimationTimer() {
+                @Override
+                public void handle(long now) {
+                    stop();
+                    dispatch();
+                }
+            };
+        }
+        listeners.computeIfAbsent(table, _ -> new CopyOnWriteArrayList<>()).add(listener);
+    }
+
+    /** Calls {@code tap} for every change, synchronously on the publishing thread; keep it short. */
+    public void tap(Consumer<Change> tap) {
+        taps.add(tap);
+    }
+
+    public void publish(Table table, Op op, int id) {
+        Change change = new Change(table, op, id);
+        for (Consumer<Change> tap : taps) {
+            tap.accept(change);
+        }
+        if (listeners.isEmpty()) {
+            return;
+        }
+        queue.add(change);
+        if (scheduled.compareAndSet(false, true)) {
+            Platform.runLater(pulse::start); // Delivered on the next pulse, together with whatever else arrives
+        }
+    }
+
+    public void publishReload(Table table) {
+        publish(table, Op.RELOAD, 0);
+    }
+
+    private void dispatch() {
+        scheduled.set(false); // Anything published from here on schedules the next pulse
+        Map<Table, List<Change>> byTable = new EnumMap<>(Table.class);
+        Change change;
+        while ((change = queue.poll()) != null) {
+            byTable.computeIfAbsent(change.table(), _ -> new ArrayList<>()).add(change);
+        }
+        byTable.forEach((table, batch) -> {
+            for (Listener listener : listeners.getOrDefault(table, List.of())) {
+                listener.onChanges(batch);
+            }
+        });
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.demo;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The server's recent {@link ChangeFeed} history, numbered, so remote terminals can long-poll for
+ * what changed since they last asked. Only the latest {@link #CAPACITY} changes are kept; a
+ * terminal that fell further behind is told to reload instead.
+ */
+public class ChangeLog {
+
+    static final int CAPACITY = 8192;
+
+    /** {@code next} is the sequence number to ask for next time. */
+    public record Batch(long next, boolean reset, List<ChangeFeed.Change> changes) {
+    }
+
+    private final ChangeFeed.Change[] ring = new ChangeFeed.Change[CAPACITY];
+    private final ReentrantLock lock = new ReentrantLock(); // Not synchronized: waiters are virtual threads
+    private final Condition appended = lock.newCondition();
+    private long next; // Sequence number of the next change; guarded by lock
+
+    public ChangeLog() {
+    }
+
+    public void append(ChangeFeed.Change change) {
+        lock.lock();
+        try {
+            ring[(int) (next % CAPACITY)] = change;
+            next++;
+            appended.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Changes numbered {@code since} and later, waiting up to {@code timeoutMillis} for one to
+     * arrive if there are none yet. A negative {@code since} just returns the current position.
+     */
+    public Batch since(long since, long timeoutMillis) throws InterruptedException {
+        lock.lock();
+        try {
+            if (since < 0 || since > next) {
+                return new Batch(next, since > next, List.of()); // A client from before a server restart resets
+            }
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+            while (since == next) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return new Batch(next, false, List.of());
+                }
+                appended.awaitNanos(remaining);
+            }
+            if (next - since > CAPACITY) {
+                return new Batch(next, true, List.of());
+            }
+            List<ChangeFeed.Change> changes = new ArrayList<>((int) (next - since));
+            for (long seq = since; seq < next; seq++) {
+                changes.add(ring[(int) (seq % CAPACITY)]);
+            }
+            return new Batch(next, false, changes);
+        } finally {
+            lock.unlock();
+        }
+    }
+}
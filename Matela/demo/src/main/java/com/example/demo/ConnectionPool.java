@@ -0,0 +1,200 @@
+package com.example.demo;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Small fixed-size JDBC connection pool with per-connection prepared-statement caching.
+ * Idle connections are health-checked before they are handed out and periodically in the
+ * background, and broken ones are replaced transparently.
+ */
+public class ConnectionPool implements AutoCloseable {
+
+    @FunctionalInterface
+    public interface TransactionWork<T> {
+        T run(PooledConnection connection) throws SQLException;
+    }
+
+    private static final long VALIDATE_AFTER_IDLE_NANOS = TimeUnit.SECONDS.toNanos(30);
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+
+    private final String url;
+    private final String user;
+    private final String password;
+    private final int statementCacheSize;
+    private final long acquireTimeoutMillis;
+    private final int maxSize;
+
+    private final Semaphore permits;
+    private final ConcurrentLinkedDeque<PooledConnection> idle = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger open = new AtomicInteger();
+    private final LongAdder statementHits = new LongAdder();
+    private final LongAdder statementMisses = new LongAdder();
+    private final ScheduledExecutorService housekeeper;
+    private volatile boolean closed;
+
+    public ConnectionPool(String url, String user, String password, int maxSize) {
+        this(url, user, password, maxSize, 64, 10_000);
+    }
+
+    public ConnectionPool(String url, String user, String password, int maxSize, int statementCacheSize, long acquireTimeoutMillis) {
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.statementCacheSize = statementCacheSize;
+        this.acquireTimeoutMillis = acquireTimeoutMillis;
+        this.maxSize = maxSize;
+        this.permits = new Semaphore(maxSize, true);
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().daemon().name("db-pool-health").factory());
+        housekeeper.scheduleWithFixedDelay(this::checkIdleConnections, 60, 60, TimeUnit.SECONDS);
+    }
+
+    /** Borrows a connection, waiting up to the acquire timeout if all are in use. */
+    public PooledConnection acquire() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed");
+        }
+        long waitStart = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(acquireTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                Metrics.increment("pool.timeouts");
+                throw new SQLTimeoutException("Timed out waiting for a database connection");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", e);
+        }
+        Metrics.record("pool.acquire", System.nanoTime() - waitStart);
+
+        try {
+            PooledConnection pc;
+            while ((pc = idle.pollFirst()) != null) {
+                if (pc.idleNanos() < VALIDATE_AFTER_IDLE_NANOS || isValid(pc)) {
+                    return pc.borrow();
+                }
+                discard(pc);
+            }
+            return newConnection().borrow();
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /** Runs {@code work} on one connection in a single transaction, rolling back if it throws. */
+    public <T> T inTransaction(TransactionWork<T> work) throws SQLException {
+        try (PooledConnection pc = acquire()) {
+            Connection connection = pc.connection();
+            connection.setAutoCommit(false);
+            try {
+                T result = work.run(pc);
+                connection.commit();
+                return result;
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        }
+    }
+
+    void release(PooledConnection pc) {
+        if (closed || !pc.reset()) {
+            discard(pc);
+        } else {
+            idle.offerFirst(pc); // Most recently used first keeps the working set warm
+        }
+        permits.release();
+    }
+
+    void statementHit() {
+        statementHits.increment();
+    }
+
+    void statementMiss() {
+        statementMisses.increment();
+    }
+
+    public int openConnections() {
+        return open.get();
+    }
+
+    public int idleConnections() {
+        return idle.size();
+    }
+
+    /** Connections currently borrowed, i.e. between {@code acquire()} and {@code close()}. */
+    public int busyConnections() {
+        return maxSize - permits.availablePermits();
+    }
+
+    public long statementCacheHits() {
+        return statementHits.sum();
+    }
+
+    public long statementCacheMisses() {
+        return statementMisses.sum();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        housekeeper.shutdownNow();
+        PooledConnection pc;
+        while ((pc = idle.pollFirst()) != null) {
+            discard(pc);
+        }
+    }
+
+    private PooledConnection newConnection() throws SQLException {
+        Connection connection = DriverManager.getConnection(url, user, password);
+        open.incrementAndGet();
+        return new PooledConnection(this, connection, statementCacheSize);
+    }
+
+    private void discard(PooledConnection pc) {
+        pc.destroy();
+        open.decrementAndGet();
+    }
+
+    private boolean isValid(PooledConnection pc) {
+        try {
+            return pc.connection().isValid(VALIDATION_TIMEOUT_SECONDS);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    // Background health check: drop idle connections that no longer respond. Each one is taken out of
+    // the idle deque, under a permit like any borrower, before it is touched, so acquire() cannot hand it out meanwhile.
+    private void checkIdleConnections() {
+        for (PooledConnection pc : List.copyOf(idle)) { // A snapshot, as healthy ones go back on the end
+            if (pc.idleNanos() < VALIDATE_AFTER_IDLE_NANOS || !permits.tryAcquire()) {
+                continue;
+            }
+            try {
+                if (!idle.remove(pc)) {
+                    continue; // Borrowed since we looked
+                }
+                if (closed || !isValid(pc)) {
+                    discard(pc);
+                } else {
+                    idle.offerLast(pc); // Still idle the longest, so it stays at the cold end
+                }
+            } finally {
+                permits.release();
+            }
+        }
+    }
+}
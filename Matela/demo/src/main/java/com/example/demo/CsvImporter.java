@@ -0,0 +1,273 @@
+package com.example.demo;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+
+/**
+ * Bulk-loads vehicles or customers from a CSV file with a header row. The file is read a chunk of
+ * lines at a time; each chunk is validated in parallel and its valid rows are written with one JDBC
+ * batch in one transaction, so a failure only loses the chunk in flight. Rows that fail validation
+ * are skipped and written, with the reason, to a {@code .rejected.csv} file next to the input.
+ */
+public class CsvImporter {
+
+    /** The table, header columns that must be present, the insert, and the validation for one importable table. */
+    public record Spec(ChangeFeed.Table table, List<String> requiredColumns, String insertSql, RowParser parser) {
+    }
+
+    @FunctionalInterface
+    public interface RowParser {
+        /** Binds one row's values, throwing {@link IllegalArgumentException} with a readable reason if invalid. */
+        Binder parse(Map<String, String> row);
+    }
+
+    @FunctionalInterface
+    public interface Binder {
+        void bind(PreparedStatement ps) throws SQLException;
+    }
+
+    public record Rejected(long line, String reason, String text) {
+    }
+
+    /** What an import did; {@code rejectedFile} is {@code null} when every row was accepted. */
+    public record Result(long imported, List<Rejected> rejected, Path rejectedFile) {
+    }
+
+    public static final Spec VEHICLES = new Spec(ChangeFeed.Table.VEHICLE, List.of("brand", "category", "price"),
+            "INSERT INTO Vehicle(brand, category, price_cents, currency, available) VALUES (?, ?, ?, ?, true)",
+            row -> {
+                String brand = required(row, "brand");
+                String category = required(row, "category");
+                String priceText = required(row, "price");
+                Money price;
+                try {
+                    price = Money.parse(priceText);
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException("price is not an amount to the cent");
+                }
+                if (!price.isPositive()) {
+                    throw new IllegalArgumentException("price must be positive");
+                }
+                return ps -> {
+                    ps.setString(1, brand);
+                    ps.setString(2, category);
+                    ps.setLong(3, price.cents());
+                    ps.setString(4, price.currency().getCurrencyCode());
+                };
+            });
+
+    public static final Spec CUSTOMERS = new Spec(ChangeFeed.Table.CUSTOMER, List.of("name", "license"),
+            "INSERT INTO Customer(name, contact, license) VALUES (?, ?, ?)",
+            row -> {
+                String name = required(row, "name");
+                String contact = row.getOrDefault("contact", "");
+                String license = required(row, "license");
+                return ps -> {
+                    ps.setString(1, name);
+                    ps.setString(2, contact);
+                    ps.setString(3, license);
+                };
+            });
+
+    public static final int DEFAULT_BATCH_SIZE = 500;
+
+    private record Line(long number, String text) {
+    }
+
+    private record Parsed(Line line, Binder binder, String error) {
+    }
+
+    private final ConnectionPool pool;
+    private final ChangeFeed changes;
+    private final int batchSize;
+
+    public CsvImporter(ConnectionPool pool, ChangeFeed changes) {
+        this(pool, changes, DEFAULT_BATCH_SIZE);
+    }
+
+    public CsvImporter(ConnectionPool pool, ChangeFeed changes, int batchSize) {
+        this.pool = pool;
+        this.changes = changes;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Imports {@code file} into the table described by {@code spec}. Chunks committed before a
+     * cancellation or failure stay imported.
+     *
+     * @throws CancellationException if {@code progress} reported cancellation
+     */
+    public Result importFile(Path file, Spec spec, ProgressListener progress) throws IOException, SQLException {
+        long totalBytes = Files.size(file);
+        try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            return importRows(in, file, spec, totalBytes, progress);
+        } finally {
+            // Too many rows to patch one by one; committed chunks stay even if the import stopped early
+            changes.publishReload(spec.table());
+        }
+    }
+
+    private Result importRows(BufferedReader in, Path file, Spec spec, long totalBytes, ProgressListener progress) throws IOException, SQLException {
+        long bytesRead = 0;
+        long imported = 0;
+        List<Rejected> rejected = new ArrayList<>();
+        String headerLine = in.readLine();
+        if (headerLine == null) {
+            return new Result(0, List.of(), null);
+        }
+        bytesRead += headerLine.length() + 1; // Characters, not bytes: close enough for a progress bar
+        List<String> header = parseHeader(headerLine, spec);
+
+        long lineNumber = 1;
+        List<Line> chunk = new ArrayList<>(batchSize);
+        String text;
+        while (true) {
+            text = in.readLine();
+            if (text != null) {
+                bytesRead += text.length() + 1;
+                lineNumber++;
+                if (!text.isBlank()) {
+                    chunk.add(new Line(lineNumber, text));
+                }
+            }
+            if (chunk.size() == batchSize || (text == null && !chunk.isEmpty())) {
+                if (progress.isCancelled()) {
+                    throw new CancellationException("Import cancelled");
+                }
+                imported += writeChunk(chunk, header, spec, rejected);
+                progress.update(Math.min(bytesRead, totalBytes), totalBytes);
+                chunk = new ArrayList<>(batchSize);
+            }
+            if (text == null) {
+                break;
+            }
+        }
+        progress.update(totalBytes, totalBytes);
+        return new Result(imported, rejected, rejected.isEmpty() ? null : writeRejected(file, rejected));
+    }
+
+    private int writeChunk(List<Line> chunk, List<String> header, Spec spec, List<Rejected> rejected) throws SQLException {
+        // Validation is CPU-only, so it runs on the common pool while this thread waits
+        List<Parsed> parsed = chunk.parallelStream().map(line -> parse(line, header, spec)).toList();
+
+        List<Binder> valid = new ArrayList<>(parsed.size());
+        for (Parsed p : parsed) {
+            if (p.error() != null) {
+                rejected.add(new Rejected(p.line().number(), p.error(), p.line().text()));
+            } else {
+                valid.add(p.binder());
+            }
+        }
+        if (valid.isEmpty()) {
+            return 0;
+        }
+        return pool.inTransaction(c -> {
+            PreparedStatement ps = c.prepare(spec.insertSql());
+            ps.clearBatch(); // The statement is cached; drop anything left by a batch that failed earlier
+            for (Binder binder : valid) {
+                binder.bind(ps);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+            return valid.size();
+        });
+    }
+
+    private static Parsed parse(Line line, List<String> header, Spec spec) {
+        try {
+            List<String> fields = splitCsv(line.text());
+            if (fields.size() != header.size()) {
+                throw new IllegalArgumentException("expected " + header.size() + " fields but found " + fields.size());
+            }
+            Map<String, String> row = new HashMap<>();
+            for (int i = 0; i < header.size(); i++) {
+                row.put(header.get(i), fields.get(i).trim());
+            }
+            return new Parsed(line, spec.parser().parse(row), null);
+        } catch (IllegalArgumentException e) {
+            return new Parsed(line, null, e.getMessage());
+        }
+    }
+
+    private static List<String> parseHeader(String headerLine, Spec spec) throws IOException {
+        List<String> header = new ArrayList<>();
+        for (String column : splitCsv(headerLine.replace("\uFEFF", ""))) {
+            header.add(column.trim().toLowerCase(Locale.ROOT));
+        }
+        for (String column : spec.requiredColumns()) {
+            if (!header.contains(column)) {
+                throw new IOException("CSV header must contain the columns " + String.join(", ", spec.requiredColumns()));
+            }
+        }
+        return header;
+    }
+
+    /** Splits one CSV record, honouring double-quoted fields with embedded commas and {@code ""} escapes. */
+    static List<String> splitCsv(String text) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < text.length(); i++) {
+            char ch = text.charAt(i);
+            if (quoted) {
+                if (ch == '"' && i + 1 < text.length() && text.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (ch == '"') {
+                    quoted = false;
+                } else {
+                    field.append(ch);
+                }
+            } else if (ch == '"') {
+                quoted = true;
+            } else if (ch == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(ch);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("unterminated quoted field");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private static String required(Map<String, String> row, String column) {
+        String value = row.get(column);
+        if (value == null || value.isEmpty()) {
+            throw new IllegalArgumentException(column + " is required");
+        }
+        return value;
+    }
+
+    private static Path writeRejected(Path file, List<Rejected> rejected) throws IOException {
+        Path report = file.resolveSibling(file.getFileName() + ".rejected.csv");
+        try (BufferedWriter out = Files.newBufferedWriter(report, StandardCharsets.UTF_8)) {
+            out.write("line,reason,row");
+            out.newLine();
+            for (Rejected r : rejected) {
+                out.write(r.line() + "," + quote(r.reason()) + "," + quote(r.text()));
+                out.newLine();
+            }
+        }
+        return report;
+    }
+
+    private static String quote(String value) {
+        return "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+}
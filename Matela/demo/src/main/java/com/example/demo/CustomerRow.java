@@ -0,0 +1,5 @@
+package com.example.demo;
+
+/** One row of the {@code Customer} table. */
+public record CustomerRow(int id, String name, String contact, String license) {
+}
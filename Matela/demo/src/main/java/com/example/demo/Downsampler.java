@@ -0,0 +1,61 @@
+package com.example.demo;
+
+/**
+ * Largest-Triangle-Three-Buckets downsampling (Steinarsson, 2013): picks the points of a line that
+ * keep its visual shape, one per bucket, so a chart never draws more points than it has pixels.
+ * Unlike averaging it keeps peaks and dips, which are what a revenue chart is read for.
+ */
+public final class Downsampler {
+
+    private Downsampler() {
+    }
+
+    /**
+     * Indices of at most {@code threshold} points of {@code [from, to)} to draw, ascending. The
+     * first and last points are always kept; {@code x} must be ascending.
+     */
+    public static int[] lttb(double[] x, double[] y, int from, int to, int threshold) {
+        int count = to - from;
+        if (count <= threshold || threshold < 3) {
+            int[] all = new int[Math.max(count, 0)];
+            for (int i = 0; i < all.length; i++) {
+                all[i] = from + i;
+            }
+            return all;
+        }
+        int[] sampled = new int[threshold];
+        sampled[0] = from;
+        double every = (double) (count - 2) / (threshold - 2); // Buckets between the fixed first and last points
+        int a = from;
+        for (int bucket = 0; bucket < threshold - 2; bucket++) {
+            // Average of the next bucket is the third corner of the triangle
+            int nextStart = from + (int) ((bucket + 1) * every) + 1;
+            int nextEnd = Math.min(from + (int) ((bucket + 2) * every) + 1, to);
+            double avgX = 0;
+            double avgY = 0;
+            for (int i = nextStart; i < nextEnd; i++) {
+                avgX += x[i];
+                avgY += y[i];
+            }
+            int nextCount = Math.max(nextEnd - nextStart, 1);
+            avgX /= nextCount;
+            avgY /= nextCount;
+
+            int start = from + (int) (bucket * every) + 1;
+            int end = from + (int) ((bucket + 1) * every) + 1;
+            double bestArea = -1;
+            int best = start;
+            for (int i = start; i < end; i++) {
+                double area = Math.abs((x[a] - avgX) * (y[i] - y[a]) - (x[a] - x[i]) * (avgY - y[a]));
+                if (area > bestArea) {
+                    bestArea = area;
+                    best = i;
+                }
+            }
+            sampled[bucket + 1] = best;
+            a = best;
+        }
+        sampled[threshold - 1] = to - 1;
+        return sampled;
+    }
+}
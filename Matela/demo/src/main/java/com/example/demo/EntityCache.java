@@ -0,0 +1,100 @@
+package com.example.demo;
+
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Size-bounded, least-recently-used read-through cache for rows looked up by id. Safe to use from
+ * any thread. Writers must call {@link #invalidate} after their change is committed; a load that
+ * was already running when an invalidation happened is returned to its caller but not cached, so
+ * a slow reader cannot put a stale row back.
+ */
+public class EntityCache<K, V> {
+
+    @FunctionalInterface
+    public interface Loader<K, V> {
+        /** Returns the row for {@code key}, or {@code null} if there is none. */
+        V load(K key) throws SQLException;
+    }
+
+    public record Stats(long hits, long misses, long evictions, int size, int capacity) {
+        public double hitRatio() {
+            long lookups = hits + misses;
+            return lookups == 0 ? 0 : (double) hits / lookups;
+        }
+    }
+
+    private final int capacity;
+    private final Map<K, V> entries;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private long generation; // Bumped by every invalidation, guarded by this
+
+    public EntityCache(int capacity) {
+        this.capacity = capacity;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                if (size() <= EntityCache.this.capacity) {
+                    return false;
+                }
+                evictions.increment();
+                return true;
+            }
+        };
+    }
+
+    /** Returns the cached row, loading it on a miss. Missing rows ({@code null}) are not cached. */
+    public V get(K key, Loader<K, V> loader) throws SQLException {
+        long seenGeneration;
+        synchronized (this) {
+            V cached = entries.get(key);
+            if (cached != null) {
+                hits.increment();
+                return cached;
+            }
+            seenGeneration = generation;
+        }
+        misses.increment();
+
+        // Load outside the lock so one slow query does not block every other lookup
+        V loaded = loader.load(key);
+        if (loaded != null) {
+            synchronized (this) {
+                if (generation == seenGeneration) {
+                    entries.put(key, loaded);
+                }
+            }
+        }
+        return loaded;
+    }
+
+    /** Caches rows that were read anyway, e.g. a list page, so later lookups by id hit. */
+    public synchronized void putIfCurrent(K key, V value, long seenGeneration) {
+        if (generation == seenGeneration) {
+            entries.put(key, value);
+        }
+    }
+
+    /** The token to pass to {@link #putIfCurrent}; take it before running the query. */
+    public synchronized long generation() {
+        return generation;
+    }
+
+    public synchronized void invalidate(K key) {
+        generation++;
+        entries.remove(key);
+    }
+
+    public synchronized void invalidateAll() {
+        generation++;
+        entries.clear();
+    }
+
+    public synchronized Stats stats() {
+        return new Stats(hits.sum(), misses.sum(), evictions.sum(), entries.size(), capacity);
+    }
+}
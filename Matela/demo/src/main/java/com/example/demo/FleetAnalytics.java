@@ -0,0 +1,342 @@
+package com.example.demo;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Fleet utilization, revenue per vehicle and per category, and idle time, over any period.
+ * <p>
+ * The period's vehicles, bookings and payments are streamed once into primitive arrays (a
+ * {@link Snapshot}), with vehicles referred to by row rather than id. The totals are then summed
+ * with fork/join: each leaf task adds a slice of the rows into its own per-vehicle arrays, and
+ * the halves are merged on the way back up, so no two threads ever write the same array.
+ * <p>
+ * A vehicle counts as available on every day of the period, since the schema does not record
+ * when it joined or left the fleet: utilization is days rented over days in the period. Rental
+ * days are clipped to the period; revenue is the payments made in it, as in the revenue rollup,
+ * summed as {@code long} cents of {@link Money#DEFAULT_CURRENCY}. Periods reaching back past
+ * {@link ArchiveService}'s cutoff read the archive tables as well.
+ */
+public class FleetAnalytics {
+
+    private static final int LEAF_SIZE = 32_768; // Rows per leaf task; smaller slices cost more to merge than they save
+    private static final int FETCH_SIZE = 10_000;
+    private static final int INITIAL_CAPACITY = 4_096;
+
+    /** One vehicle over the period; {@code utilization} is a fraction, not a percentage. */
+    public record VehicleStats(int vehicleId, String label, String category, int bookings, int rentedDays, int idleDays,
+                               double utilization, long revenueCents) {
+    }
+
+    /** The vehicles of one category over the period, summed. */
+    public record CategoryStats(String category, int vehicles, int bookings, long rentedDays, long idleDays,
+                                double utilization, long revenueCents) {
+    }
+
+    /** Everything computed for {@code [from, to]}; vehicles by id, categories by name. */
+    public record Report(LocalDate from, LocalDate to, int days, List<VehicleStats> vehicles, List<CategoryStats> categories) {
+
+        /** Vehicles with the most idle days first, then the least revenue. */
+        public List<VehicleStats> idleRanking(int limit) {
+            return vehicles.stream()
+                    .sorted(Comparator.comparingInt(VehicleStats::idleDays).reversed().thenComparingLong(VehicleStats::revenueCents))
+                    .limit(limit)
+                    .toList();
+        }
+
+        public double utilization() {
+            long rented = 0;
+            for (CategoryStats category : categories) {
+                rented += category.rentedDays();
+            }
+            return vehicles.isEmpty() ? 0 : (double) rented / ((long) vehicles.size() * days);
+        }
+
+        public long revenueCents() {
+            long revenue = 0;
+            for (CategoryStats category : categories) {
+                revenue += category.revenueCents();
+            }
+            return revenue;
+        }
+    }
+
+    /**
+     * The rows one analysis reads, as parallel arrays. Vehicles are sorted by id; bookings and
+     * payments refer to them by row. Booking days are epoch days, the end exclusive.
+     */
+    public record Snapshot(int[] vehicleIds, String[] vehicleLabels, int[] vehicleCategories, String[] categories,
+                           int[] bookingVehicles, int[] bookingStarts, int[] bookingEnds,
+                           int[] paymentVehicles, long[] paymentCents) {
+    }
+
+    private final ConnectionPool pool;
+
+    public FleetAnalytics(ConnectionPool pool) {
+        this.pool = pool;
+    }
+
+    /** Loads the period and analyzes it on the common fork/join pool. */
+    public Report analyze(LocalDate from, LocalDate to) throws SQLException {
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("The period ends before it starts");
+        }
+        return analyze(load(from, to), from, to, true);
+    }
+
+    /** Streams the vehicles, and the bookings and payments of {@code [from, to]}, into arrays. */
+    public Snapshot load(LocalDate from, LocalDate to) throws SQLException {
+        try (PooledConnection c = pool.acquire()) {
+            // Without lazy execution embedded H2 materialises the whole result before returning it
+            setLazyExecution(c, true);
+            try {
+                IntColumn ids = new IntColumn();
+                List<String> labels = new ArrayList<>();
+                IntColumn vehicleCategories = new IntColumn();
+                Map<String, Integer> categoryIndex = new HashMap<>();
+                List<String> categories = new ArrayList<>();
+                PreparedStatement vehicles = c.prepare("SELECT id, brand, category FROM Vehicle ORDER BY id");
+                vehicles.setFetchSize(FETCH_SIZE);
+                try (ResultSet rs = vehicles.executeQuery()) {
+                    while (rs.next()) {
+                        ids.add(rs.getInt(1));
+                        labels.add(rs.getString(2));
+                        String category = rs.getString(3) == null ? "(none)" : rs.getString(3);
+                        vehicleCategories.add(categoryIndex.computeIfAbsent(category, name -> {
+                            categories.add(name);
+                            return categories.size() - 1;
+                        }));
+                    }
+                }
+                int[] vehicleIds = ids.toArray();
+
+                IntColumn bookingVehicles = new IntColumn();
+                IntColumn bookingStarts = new IntColumn();
+                IntColumn bookingEnds = new IntColumn();
+                // The archive is read too when the period reaches back into it
+                List<String> bookingTables = ArchiveService.bookingsReach(c, from) ? List.of("Booking", "BookingArchive") : List.of("Booking");
+                for (String table : bookingTables) {
+                    PreparedStatement bookings = c.prepare("SELECT vehicle_id, DATEDIFF('DAY', DATE '1970-01-01', start_date), "
+                            + "DATEDIFF('DAY', DATE '1970-01-01', end_date) FROM " + table + " WHERE end_date > ? AND start_date <= ?");
+                    bookings.setDate(1, Date.valueOf(from));
+                    bookings.setDate(2, Date.valueOf(to));
+                    bookings.setFetchSize(FETCH_SIZE);
+                    try (ResultSet rs = bookings.executeQuery()) {
+                        while (rs.next()) {
+                            int row = Arrays.binarySearch(vehicleIds, rs.getInt(1));
+                            if (row >= 0) {
+                                bookingVehicles.add(row);
+                                bookingStarts.add(rs.getInt(2));
+                                bookingEnds.add(rs.getInt(3));
+                            }
+                        }
+                    }
+                }
+
+                IntColumn paymentVehicles = new IntColumn();
+                LongColumn paymentCents = new LongColumn();
+                // Archived payments always belong to archived bookings
+                List<String> paymentJoins = ArchiveService.paymentsReach(c, from)
+                        ? List.of("Payment p JOIN Booking b", "PaymentArchive p JOIN BookingArchive b") : List.of("Payment p JOIN Booking b");
+                for (String join : paymentJoins) {
+                    PreparedStatement payments = c.prepare("SELECT b.vehicle_id, p.amount_cents FROM " + join + " ON b.id = p.booking_id "
+                            + "WHERE p.paid_on BETWEEN ? AND ?");
+                    payments.setDate(1, Date.valueOf(from));
+                    payments.setDate(2, Date.valueOf(to));
+                    payments.setFetchSize(FETCH_SIZE);
+                    try (ResultSet rs = payments.executeQuery()) {
+                        while (rs.next()) {
+                            int row = Arrays.binarySearch(vehicleIds, rs.getInt(1));
+                            if (row >= 0) {
+                                paymentVehicles.add(row);
+                                paymentCents.add(rs.getLong(2));
+                            }
+                        }
+                    }
+                }
+
+                return new Snapshot(vehicleIds, labels.toArray(String[]::new), vehicleCategories.toArray(), categories.toArray(String[]::new),
+                        bookingVehicles.toArray(), bookingStarts.toArray(), bookingEnds.toArray(),
+                        paymentVehicles.toArray(), paymentCents.toArray());
+            } finally {
+                setLazyExecution(c, false);
+            }
+        }
+    }
+
+    /**
+     * Sums {@code snapshot} for {@code [from, to]}; in parallel on the common fork/join pool, or on
+     * the calling thread alone, which is what the benchmark compares against.
+     */
+    public static Report analyze(Snapshot snapshot, LocalDate from, LocalDate to, boolean parallel) {
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("The period ends before it starts");
+        }
+        long started = System.nanoTime();
+        int fromDay = (int) from.toEpochDay();
+        int toDay = (int) to.toEpochDay() + 1;
+        int days = (int) ChronoUnit.DAYS.between(from, to) + 1;
+        TotalsTask task = new TotalsTask(snapshot, fromDay, toDay, 0,
+                snapshot.bookingVehicles().length + snapshot.paymentVehicles().length, parallel ? LEAF_SIZE : Integer.MAX_VALUE);
+        Totals totals = parallel ? ForkJoinPool.commonPool().invoke(task) : task.compute();
+
+        int vehicleCount = snapshot.vehicleIds().length;
+        List<VehicleStats> vehicles = new ArrayList<>(vehicleCount);
+        int categoryCount = snapshot.categories().length;
+        int[] categoryVehicles = new int[categoryCount];
+        int[] categoryBookings = new int[categoryCount];
+        long[] categoryDays = new long[categoryCount];
+        long[] categoryRevenue = new long[categoryCount];
+        for (int row = 0; row < vehicleCount; row++) {
+            int category = snapshot.vehicleCategories()[row];
+            int rented = Math.min(totals.days[row], days); // Overlapping legacy bookings could exceed the period
+            vehicles.add(new VehicleStats(snapshot.vehicleIds()[row], snapshot.vehicleLabels()[row], snapshot.categories()[category],
+                    totals.bookings[row], rented, days - rented, (double) rented / days, totals.revenue[row]));
+            categoryVehicles[category]++;
+            categoryBookings[category] += totals.bookings[row];
+            categoryDays[category] += rented;
+            categoryRevenue[category] += totals.revenue[row];
+        }
+        List<CategoryStats> categories = new ArrayList<>(categoryCount);
+        for (int category = 0; category < categoryCount; category++) {
+            long available = (long) categoryVehicles[category] * days;
+            categories.add(new CategoryStats(snapshot.categories()[category], categoryVehicles[category], categoryBookings[category],
+                    categoryDays[category], available - categoryDays[category], (double) categoryDays[category] / available,
+                    categoryRevenue[category]));
+        }
+        categories.sort(Comparator.comparing(CategoryStats::category));
+        Metrics.record("analytics.compute", System.nanoTime() - started);
+        return new Report(from, to, days, vehicles, categories);
+    }
+
+    // ----- Fork/join -----
+
+    // Per-vehicle sums over a slice of the rows
+    private static final class Totals {
+        final int[] bookings;
+        final int[] days;
+        final long[] revenue;
+
+        Totals(int vehicles) {
+            bookings = new int[vehicles];
+            days = new int[vehicles];
+            revenue = new long[vehicles];
+        }
+
+        void add(Totals other) {
+            for (int i = 0; i < bookings.length; i++) {
+                bookings[i] += other.bookings[i];
+                days[i] += other.days[i];
+                revenue[i] += other.revenue[i];
+            }
+        }
+    }
+
+    // Rows [lo, hi) of the bookings followed by the payments, halved until a slice fits a leaf
+    private static final class TotalsTask extends RecursiveTask<Totals> {
+        private static final long serialVersionUID = 1L;
+
+        private final transient Snapshot snapshot; // Tasks only ever run in this JVM
+        private final int fromDay;
+        private final int toDay;
+        private final int lo;
+        private final int hi;
+        private final int leafSize;
+
+        TotalsTask(Snapshot snapshot, int fromDay, int toDay, int lo, int hi, int leafSize) {
+            this.snapshot = snapshot;
+            this.fromDay = fromDay;
+            this.toDay = toDay;
+            this.lo = lo;
+            this.hi = hi;
+            this.leafSize = leafSize;
+        }
+
+        @Override
+        protected Totals compute() {
+            if (hi - lo <= leafSize) {
+                return sum();
+            }
+            int mid = (lo + hi) >>> 1;
+            TotalsTask left = new TotalsTask(snapshot, fromDay, toDay, lo, mid, leafSize);
+            left.fork();
+            Totals right = new TotalsTask(snapshot, fromDay, toDay, mid, hi, leafSize).compute();
+            Totals totals = left.join();
+            totals.add(right);
+            return totals;
+        }
+
+        private Totals sum() {
+            Totals totals = new Totals(snapshot.vehicleIds().length);
+            int[] bookingVehicles = snapshot.bookingVehicles();
+            int[] starts = snapshot.bookingStarts();
+            int[] ends = snapshot.bookingEnds();
+            int bookingCount = bookingVehicles.length;
+            for (int i = lo, end = Math.min(hi, bookingCount); i < end; i++) {
+                int row = bookingVehicles[i];
+                totals.bookings[row]++;
+                totals.days[row] += Math.max(Math.min(ends[i], toDay) - Math.max(starts[i], fromDay), 0);
+            }
+            int[] paymentVehicles = snapshot.paymentVehicles();
+            long[] cents = snapshot.paymentCents();
+            for (int i = Math.max(lo, bookingCount); i < hi; i++) {
+                totals.revenue[paymentVehicles[i - bookingCount]] += cents[i - bookingCount];
+            }
+            return totals;
+        }
+    }
+
+    // ----- Loading -----
+
+    private static void setLazyExecution(PooledConnection c, boolean lazy) throws SQLException {
+        try (Statement stmt = c.connection().createStatement()) {
+            stmt.execute("SET LAZY_QUERY_EXECUTION " + (lazy ? "TRUE" : "FALSE"));
+        }
+    }
+
+    // Growable int array, so millions of rows are read without boxing
+    private static final class IntColumn {
+        private int[] values = new int[INITIAL_CAPACITY];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+
+    private static final class LongColumn {
+        private long[] values = new long[INITIAL_CAPACITY];
+        private int size;
+
+        void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        long[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
@@ -0,0 +1,562 @@
+package com.example.demo;
+
+import javafx.animation.AnimationTimer;
+import javafx.geometry.Insets;
+import javafx.geometry.Orientation;
+import javafx.geometry.Pos;
+import javafx.geometry.VPos;
+import javafx.scene.Node;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.control.Button;
+import javafx.scene.control.Label;
+import javafx.scene.control.ScrollBar;
+import javafx.scene.input.MouseButton;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.input.ScrollEvent;
+import javafx.scene.layout.Background;
+import javafx.scene.layout.BorderPane;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.Pane;
+import javafx.scene.layout.Region;
+import javafx.scene.paint.Color;
+import javafx.scene.paint.Paint;
+import javafx.scene.text.TextAlignment;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Fleet occupancy over time: one row per vehicle, one bar per booking from its start date to its
+ * end date. Everything is painted on a single {@link Canvas}, at most once per pulse, and only the
+ * rows and days in view are drawn, so the cost of a frame follows the window size rather than the
+ * size of the fleet or its history.
+ * <p>
+ * Bookings are loaded in windows of {@link #ROWS_PER_WINDOW} vehicles by {@link #DAYS_PER_WINDOW}
+ * days as they scroll into view, and kept in a small LRU cache. A booking change marks the cached
+ * windows stale; they are still drawn until their reload arrives, so the calendar never blanks.
+ * <p>
+ * Scroll to move through the fleet, Shift+scroll or the lower bar to move in time, Ctrl+scroll
+ * to zoom around the pointer, and drag to pan. FX thread only.
+ */
+public final class FleetCalendar {
+
+    private static final double ROW_HEIGHT = 20;
+    private static final double HEADER_HEIGHT = 24;
+    private static final double GUTTER_WIDTH = 170;
+    private static final double MIN_DAY_WIDTH = 0.25; // About eight years across a typical plot
+    private static final double MAX_DAY_WIDTH = 48;
+    private static final double INITIAL_DAY_WIDTH = 8;
+    private static final double SCROLL_ZOOM = 1.25;
+    private static final double LABEL_MIN_WIDTH = 44; // Bars narrower than this get no booking number
+    private static final int HISTORY_DAYS = 3650; // The time bar's reach behind today
+    private static final int FUTURE_DAYS = 730; // ... and ahead of today
+    private static final int ROWS_PER_WINDOW = 128;
+    private static final int DAYS_PER_WINDOW = 91;
+    private static final int MAX_WINDOWS = 256; // Several screens even fully zoomed out
+    private static final DateTimeFormatter DAY_LABEL = DateTimeFormatter.ofPattern("d MMM yyyy", Locale.ROOT);
+    private static final DateTimeFormatter MONTH_LABEL = DateTimeFormatter.ofPattern("MMM yyyy", Locale.ROOT);
+    private static final DateTimeFormatter SHORT_MONTH_LABEL = DateTimeFormatter.ofPattern("MMM", Locale.ROOT);
+
+    /** Bookings of one window as parallel arrays, by row then start; days are epoch days. */
+    private record Window(long generation, int[] rows, int[] starts, int[] ends, int[] bookingIds, int[] customerIds) {
+    }
+
+    private final AsyncDatabase db;
+    private final RentalBackend backend;
+    private final Canvas canvas = new Canvas();
+    private final Pane host;
+    private final ScrollBar rowBar = new ScrollBar();
+    private final ScrollBar dayBar = new ScrollBar();
+    private final Label summary = new Label();
+    private final Label status = new Label();
+    private final BorderPane node;
+    // Colours come from the theme's stylesheet through these unshown nodes
+    private final Region barProbe = probe("fleet-bar");
+    private final Region stripeProbe = probe("fleet-stripe");
+    private final Region gridProbe = probe("fleet-grid");
+    private final Region todayProbe = probe("fleet-today");
+    private final Label textProbe = new Label();
+    private final Label barTextProbe = new Label();
+
+    private final AnimationTimer painter = new AnimationTimer() {
+        @Override
+        public void handle(long now) {
+            stop(); // Runs for one pulse only; requestPaint starts it again
+            paint();
+        }
+    };
+
+    // The fleet by id; row i is vehicleIds[i]
+    private int[] vehicleIds = new int[0];
+    private String[] vehicleLabels = new String[0];
+    private final Map<Long, Window> windows = new LinkedHashMap<>(64, 0.75f, true);
+    private final Set<Long> loading = new HashSet<>();
+    private long generation; // Bumped by booking changes; windows from before are stale
+    private long fleetGeneration; // Bumped by fleet reloads, which renumber the rows
+
+    private double firstDay; // Epoch day at the plot's left edge
+    private double firstRow;
+    private double dayWidth = INITIAL_DAY_WIDTH;
+    private double dragX = Double.NaN;
+    private double dragY;
+
+    public FleetCalendar(AsyncDatabase db, RentalBackend backend, ChangeFeed changes) {
+        this.db = db;
+        this.backend = backend;
+
+        textProbe.getStyleClass().add("fleet-text");
+        barTextProbe.getStyleClass().add("fleet-bar-text");
+        for (Node probe : List.of(barProbe, stripeProbe, gridProbe, todayProbe, textProbe, barTextProbe)) {
+            probe.setManaged(false);
+            probe.setVisible(false);
+        }
+        // A theme switch restyles the probes; the canvas has to be repainted by hand
+        barProbe.backgroundProperty().addListener((_, _, _) -> requestPaint());
+
+        canvas.setManaged(false); // Sized to the host below, never the other way round
+        host = new Pane(canvas, barProbe, stripeProbe, gridProbe, todayProbe, textProbe, barTextProbe);
+        host.getStyleClass().add("fleet-calendar");
+        host.setMinSize(0, 0);
+        host.setPrefSize(800, 400);
+        canvas.widthProperty().bind(host.widthProperty());
+        canvas.heightProperty().bind(host.heightProperty());
+        canvas.widthProperty().addListener((_, _, _) -> viewportChanged());
+        canvas.heightProperty().addListener((_, _, _) -> viewportChanged());
+
+        canvas.addEventHandler(MouseEvent.MOUSE_PRESSED, this::startDrag);
+        canvas.addEventHandler(MouseEvent.MOUSE_DRAGGED, this::drag);
+        canvas.addEventHandler(MouseEvent.MOUSE_RELEASED, _ -> dragX = Double.NaN);
+        canvas.addEventHandler(MouseEvent.MOUSE_MOVED, this::describeBookingAt);
+        canvas.addEventHandler(ScrollEvent.SCROLL, this::scroll);
+
+        rowBar.setOrientation(Orientation.VERTICAL);
+        rowBar.valueProperty().addListener((_, _, value) -> {
+            firstRow = value.doubleValue();
+            requestPaint();
+        });
+        dayBar.valueProperty().addListener((_, _, value) -> {
+            firstDay = value.doubleValue();
+            requestPaint();
+        });
+        long today = LocalDate.now().toEpochDay();
+        dayBar.setMin(today - HISTORY_DAYS);
+        firstDay = today - 14;
+
+        Button zoomOutBtn = new Button("−");
+        zoomOutBtn.getStyleClass().addAll("primary", "compact");
+        zoomOutBtn.setOnAction(_ -> zoomAround(plotWidth() / 2, 1 / SCROLL_ZOOM));
+        Button zoomInBtn = new Button("+");
+        zoomInBtn.getStyleClass().addAll("primary", "compact");
+        zoomInBtn.setOnAction(_ -> zoomAround(plotWidth() / 2, SCROLL_ZOOM));
+        Button todayBtn = new Button("Today");
+        todayBtn.getStyleClass().addAll("primary", "compact");
+        todayBtn.setOnAction(_ -> {
+            firstDay = LocalDate.now().toEpochDay() - visibleDays() / 3;
+            viewportChanged();
+        });
+        Button reloadBtn = new Button("Reload");
+        reloadBtn.getStyleClass().addAll("primary", "compact");
+        reloadBtn.setOnAction(_ -> reload());
+        summary.getStyleClass().add("hint");
+        status.getStyleClass().add("status");
+        HBox controls = new HBox(10, zoomOutBtn, zoomInBtn, todayBtn, reloadBtn, summary, status);
+        controls.setAlignment(Pos.CENTER_LEFT);
+
+        node = new BorderPane(host, controls, rowBar, dayBar, null);
+        BorderPane.setMargin(controls, new Insets(0, 0, 5, 0));
+
+        changes.subscribe(ChangeFeed.Table.BOOKING, _ -> {
+            generation++;
+            requestPaint();
+        });
+        changes.subscribe(ChangeFeed.Table.VEHICLE, _ -> reload());
+    }
+
+    public Node node() {
+        return node;
+    }
+
+    /** Reloads the fleet and forgets every loaded window. */
+    public void reload() {
+        db.submit(backend::fleet, fleet -> {
+            int[] ids = new int[fleet.size()];
+            String[] labels = new String[fleet.size()];
+            for (int i = 0; i < ids.length; i++) {
+                VehicleRow v = fleet.get(i);
+                ids[i] = v.id();
+                labels[i] = "#" + v.id() + "  " + (v.brand() == null ? "" : v.brand())
+                        + (v.category() == null ? "" : " (" + v.category() + ")");
+            }
+            vehicleIds = ids;
+            vehicleLabels = labels;
+            fleetGeneration++;
+            windows.clear();
+            loading.clear();
+            status.setText("");
+            Theme.Status.NEUTRAL.applyTo(status);
+            viewportChanged();
+        }, ex -> failed("Loading the fleet", ex));
+    }
+
+    // ----- Viewport -----
+
+    private double plotWidth() {
+        return Math.max(canvas.getWidth() - GUTTER_WIDTH, 1);
+    }
+
+    private double plotHeight() {
+        return Math.max(canvas.getHeight() - HEADER_HEIGHT, 1);
+    }
+
+    private double visibleDays() {
+        return plotWidth() / dayWidth;
+    }
+
+    private double visibleRows() {
+        return plotHeight() / ROW_HEIGHT;
+    }
+
+    // Clamps the viewport and moves the scroll bars to it; their listeners then repaint
+    private void viewportChanged() {
+        double rows = visibleRows();
+        rowBar.setMax(Math.max(vehicleIds.length - rows, 0));
+        rowBar.setVisibleAmount(Math.min(rows, Math.max(vehicleIds.length, 1)));
+        rowBar.setBlockIncrement(Math.max(rows - 1, 1));
+        firstRow = Math.clamp(firstRow, 0, rowBar.getMax());
+        rowBar.setValue(firstRow);
+
+        double days = visibleDays();
+        dayBar.setMax(Math.max(LocalDate.now().toEpochDay() + FUTURE_DAYS - days, dayBar.getMin()));
+        dayBar.setVisibleAmount(days);
+        dayBar.setUnitIncrement(Math.max(1, days / 20));
+        dayBar.setBlockIncrement(Math.max(1, days * 0.9));
+        firstDay = Math.clamp(firstDay, dayBar.getMin(), dayBar.getMax());
+        dayBar.setValue(firstDay);
+        requestPaint();
+    }
+
+    private void zoomAround(double plotX, double factor) {
+        double anchor = firstDay + plotX / dayWidth;
+        dayWidth = Math.clamp(dayWidth * factor, MIN_DAY_WIDTH, MAX_DAY_WIDTH);
+        firstDay = anchor - plotX / dayWidth;
+        viewportChanged();
+    }
+
+    private void startDrag(MouseEvent e) {
+        if (e.getButton() == MouseButton.PRIMARY) {
+            dragX = e.getX();
+            dragY = e.getY();
+        }
+    }
+
+    private void drag(MouseEvent e) {
+        if (Double.isNaN(dragX)) {
+            return;
+        }
+        firstDay -= (e.getX() - dragX) / dayWidth;
+        firstRow -= (e.getY() - dragY) / ROW_HEIGHT;
+        dragX = e.getX();
+        dragY = e.getY();
+        viewportChanged();
+    }
+
+    private void scroll(ScrollEvent e) {
+        if (e.isControlDown()) {
+            if (e.getDeltaY() != 0) {
+                zoomAround(Math.max(e.getX() - GUTTER_WIDTH, 0), e.getDeltaY() > 0 ? SCROLL_ZOOM : 1 / SCROLL_ZOOM);
+            }
+        } else if (e.isShiftDown() || e.getDeltaX() != 0) {
+            // Some platforms turn Shift+wheel into a horizontal delta, others leave it vertical
+            double delta = e.getDeltaX() != 0 ? e.getDeltaX() : e.getDeltaY();
+            firstDay -= delta / dayWidth;
+            viewportChanged();
+        } else {
+            firstRow -= e.getDeltaY() / ROW_HEIGHT;
+            viewportChanged();
+        }
+        e.consume();
+    }
+
+    // ----- Loading -----
+
+    private static long windowKey(int rowWindow, int dayWindow) {
+        return ((long) rowWindow << 32) | (dayWindow & 0xffffffffL);
+    }
+
+    private void load(int rowWindow, int dayWindow) {
+        long key = windowKey(rowWindow, dayWindow);
+        if (!loading.add(key)) {
+            return;
+        }
+        int[] ids = vehicleIds;
+        int firstRowOfWindow = rowWindow * ROWS_PER_WINDOW;
+        int lastRowOfWindow = Math.min(firstRowOfWindow + ROWS_PER_WINDOW, ids.length) - 1;
+        LocalDate from = LocalDate.ofEpochDay((long) dayWindow * DAYS_PER_WINDOW);
+        LocalDate to = from.plusDays(DAYS_PER_WINDOW);
+        long loadGeneration = generation;
+        long loadFleet = fleetGeneration;
+        db.submit(() -> toWindow(backend.bookingSpans(ids[firstRowOfWindow], ids[lastRowOfWindow], from, to), ids, loadGeneration), window -> {
+            if (loadFleet != fleetGeneration) {
+                return; // Rows were renumbered meanwhile; reload() already cleared the cache
+            }
+            loading.remove(key);
+            windows.put(key, window);
+            if (windows.size() > MAX_WINDOWS) {
+                windows.remove(windows.keySet().iterator().next()); // Least recently drawn
+            }
+            requestPaint();
+        }, ex -> {
+            if (loadFleet == fleetGeneration) {
+                loading.remove(key);
+            }
+            failed("Loading bookings", ex);
+        });
+    }
+
+    // AsyncDatabase has already recorded the failure in Metrics
+    private void failed(String what, Throwable ex) {
+        status.setText("❌ " + what + " failed: " + ex.getMessage());
+        Theme.Status.ERROR.applyTo(status);
+    }
+
+    // Runs on the worker: maps vehicle ids to rows so painting never searches
+    private static Window toWindow(List<BookingSpan> spans, int[] ids, long generation) {
+        int n = spans.size();
+        int[] rows = new int[n];
+        int[] starts = new int[n];
+        int[] ends = new int[n];
+        int[] bookingIds = new int[n];
+        int[] customerIds = new int[n];
+        int count = 0;
+        for (BookingSpan span : spans) {
+            int row = Arrays.binarySearch(ids, span.vehicleId());
+            if (row < 0) {
+                continue; // Added after the fleet was read; shows after the next reload
+            }
+            rows[count] = row;
+            starts[count] = (int) span.start().toEpochDay();
+            ends[count] = (int) span.end().toEpochDay();
+            bookingIds[count] = span.bookingId();
+            customerIds[count] = span.customerId();
+            count++;
+        }
+        return new Window(generation, rows, starts, ends, bookingIds, customerIds);
+    }
+
+    // ----- Painting -----
+
+    private void requestPaint() {
+        painter.start(); // Idempotent; however many requests arrive, the next pulse paints once
+    }
+
+    private void paint() {
+        long started = System.nanoTime();
+        GraphicsContext g = canvas.getGraphicsContext2D();
+        double width = canvas.getWidth();
+        double height = canvas.getHeight();
+        Paint background = fill(host, Color.WHITE);
+        Paint text = textProbe.getTextFill();
+        Paint grid = fill(gridProbe, Color.LIGHTGRAY);
+
+        g.setFill(background);
+        g.fillRect(0, 0, width, height);
+        if (vehicleIds.length == 0) {
+            g.setFill(text);
+            g.setTextAlign(TextAlignment.LEFT);
+            g.setTextBaseline(VPos.TOP);
+            g.fillText("No vehicles yet.", 10, 10);
+            summary.setText("");
+            return;
+        }
+
+        int rowFrom = (int) Math.floor(firstRow);
+        int rowTo = Math.min(vehicleIds.length, (int) Math.ceil(firstRow + visibleRows()));
+        double dayTo = firstDay + visibleDays();
+
+        // Plot: stripes, then bars, clipped to the area right of the gutter and under the header
+        g.save();
+        g.beginPath();
+        g.rect(GUTTER_WIDTH, HEADER_HEIGHT, plotWidth(), plotHeight());
+        g.clip();
+        g.setFill(fill(stripeProbe, Color.WHITESMOKE));
+        for (int row = rowFrom; row < rowTo; row++) {
+            if (row % 2 == 1) {
+                g.fillRect(GUTTER_WIDTH, rowY(row), plotWidth(), ROW_HEIGHT);
+            }
+        }
+        paintMonthLines(g, grid, dayTo);
+        int drawn = paintBars(g, rowFrom, rowTo, dayTo);
+        double todayX = dayX(LocalDate.now().toEpochDay());
+        g.setStroke(fill(todayProbe, Color.RED));
+        g.setLineWidth(2);
+        g.strokeLine(todayX, HEADER_HEIGHT, todayX, height);
+        g.setLineWidth(1);
+        g.restore();
+
+        paintHeader(g, text, grid, dayTo);
+        paintGutter(g, background, text, grid, rowFrom, rowTo);
+
+        summary.setText("Vehicles " + (rowFrom + 1) + "–" + rowTo + " of " + vehicleIds.length + ", "
+                + DAY_LABEL.format(LocalDate.ofEpochDay((long) Math.floor(firstDay))) + " – "
+                + DAY_LABEL.format(LocalDate.ofEpochDay((long) Math.floor(dayTo))) + ", " + drawn + " bookings drawn");
+        Metrics.record("fx.calendar", System.nanoTime() - started);
+    }
+
+    // Draws the bars of every window in view and loads the missing or stale ones, plus one window
+    // of days either side so a scroll in time usually finds its data already there
+    private int paintBars(GraphicsContext g, int rowFrom, int rowTo, double dayTo) {
+        Paint bar = fill(barProbe, Color.STEELBLUE);
+        Paint barText = barTextProbe.getTextFill();
+        g.setTextAlign(TextAlignment.LEFT);
+        g.setTextBaseline(VPos.CENTER);
+        long firstVisibleDay = (long) Math.floor(firstDay);
+        int firstDayWindow = Math.floorDiv((int) firstVisibleDay, DAYS_PER_WINDOW);
+        int lastDayWindow = Math.floorDiv((int) Math.ceil(dayTo), DAYS_PER_WINDOW);
+        int drawn = 0;
+        for (int rowWindow = rowFrom / ROWS_PER_WINDOW; rowWindow <= (rowTo - 1) / ROWS_PER_WINDOW; rowWindow++) {
+            for (int dayWindow = firstDayWindow - 1; dayWindow <= lastDayWindow + 1; dayWindow++) {
+                Window window = windows.get(windowKey(rowWindow, dayWindow));
+                if (window == null || window.generation() != generation) {
+                    load(rowWindow, dayWindow);
+                }
+                if (window == null || dayWindow < firstDayWindow || dayWindow > lastDayWindow) {
+                    continue;
+                }
+                // A booking crossing windows is in each; every window draws only its own days
+                int windowStart = dayWindow * DAYS_PER_WINDOW;
+                int windowEnd = windowStart + DAYS_PER_WINDOW;
+                int[] rows = window.rows();
+                for (int i = 0; i < rows.length; i++) {
+                    int row = rows[i];
+                    if (row < rowFrom || row >= rowTo) {
+                        continue;
+                    }
+                    int start = window.starts()[i];
+                    int end = window.ends()[i];
+                    if (end <= firstDay || start >= dayTo) {
+                        continue;
+                    }
+                    double x1 = dayX(Math.max(start, windowStart));
+                    double x2 = dayX(Math.min(end, windowEnd));
+                    double y = rowY(row) + 3;
+                    g.setFill(bar);
+                    g.fillRect(x1, y, Math.max(x2 - x1 - (end <= windowEnd ? 1 : 0), 1), ROW_HEIGHT - 6);
+                    drawn++;
+                    // The number goes where the bar first shows, once, if the whole bar is wide enough
+                    long labelDay = Math.max(start, firstVisibleDay);
+                    if ((end - start) * dayWidth >= LABEL_MIN_WIDTH && labelDay >= windowStart && labelDay < windowEnd) {
+                        g.setFill(barText);
+                        g.fillText("#" + window.bookingIds()[i], Math.max(dayX(start), GUTTER_WIDTH) + 4, y + (ROW_HEIGHT - 6) / 2);
+                    }
+                }
+            }
+        }
+        return drawn;
+    }
+
+    private void paintMonthLines(GraphicsContext g, Paint grid, double dayTo) {
+        g.setStroke(grid);
+        LocalDate month = LocalDate.ofEpochDay((long) Math.floor(firstDay)).withDayOfMonth(1);
+        for (; month.toEpochDay() < dayTo; month = month.plusMonths(1)) {
+            double x = Math.floor(dayX(month.toEpochDay())) + 0.5;
+            g.strokeLine(x, HEADER_HEIGHT, x, canvas.getHeight());
+        }
+    }
+
+    // Month names, or years when months are too narrow to name, and day numbers when there is room
+    private void paintHeader(GraphicsContext g, Paint text, Paint grid, double dayTo) {
+        g.setFill(fill(host, Color.WHITE));
+        g.fillRect(GUTTER_WIDTH, 0, plotWidth(), HEADER_HEIGHT);
+        g.setFill(text);
+        g.setTextBaseline(VPos.CENTER);
+        g.setTextAlign(TextAlignment.LEFT);
+        double monthWidth = dayWidth * 30;
+        LocalDate month = LocalDate.ofEpochDay((long) Math.floor(firstDay)).withDayOfMonth(1);
+        for (; month.toEpochDay() < dayTo; month = month.plusMonths(1)) {
+            double x = Math.max(dayX(month.toEpochDay()), GUTTER_WIDTH);
+            String label = monthWidth >= 70 ? MONTH_LABEL.format(month)
+                    : monthWidth >= 28 ? SHORT_MONTH_LABEL.format(month)
+                    : month.getMonthValue() == 1 ? String.valueOf(month.getYear()) : null;
+            if (label != null) {
+                g.fillText(label, x + 3, dayWidth >= 18 ? HEADER_HEIGHT / 4 : HEADER_HEIGHT / 2);
+            }
+        }
+        if (dayWidth >= 18) {
+            g.setTextAlign(TextAlignment.CENTER);
+            for (long day = (long) Math.floor(firstDay); day < dayTo; day++) {
+                g.fillText(String.valueOf(LocalDate.ofEpochDay(day).getDayOfMonth()), dayX(day) + dayWidth / 2, HEADER_HEIGHT * 3 / 4);
+            }
+        }
+        g.setStroke(grid);
+        g.strokeLine(GUTTER_WIDTH, HEADER_HEIGHT - 0.5, canvas.getWidth(), HEADER_HEIGHT - 0.5);
+    }
+
+    private void paintGutter(GraphicsContext g, Paint background, Paint text, Paint grid, int rowFrom, int rowTo) {
+        g.setFill(background);
+        g.fillRect(0, 0, GUTTER_WIDTH, canvas.getHeight());
+        g.save();
+        g.beginPath();
+        g.rect(0, HEADER_HEIGHT, GUTTER_WIDTH, plotHeight());
+        g.clip();
+        g.setFill(text);
+        g.setTextAlign(TextAlignment.LEFT);
+        g.setTextBaseline(VPos.CENTER);
+        for (int row = rowFrom; row < rowTo; row++) {
+            g.fillText(vehicleLabels[row], 6, rowY(row) + ROW_HEIGHT / 2, GUTTER_WIDTH - 12);
+        }
+        g.restore();
+        g.setStroke(grid);
+        g.strokeLine(GUTTER_WIDTH - 0.5, 0, GUTTER_WIDTH - 0.5, canvas.getHeight());
+    }
+
+    private double dayX(double epochDay) {
+        return GUTTER_WIDTH + (epochDay - firstDay) * dayWidth;
+    }
+
+    private double rowY(int row) {
+        return HEADER_HEIGHT + (row - firstRow) * ROW_HEIGHT;
+    }
+
+    // Shows the booking under the pointer in the summary line
+    private void describeBookingAt(MouseEvent e) {
+        if (e.getX() < GUTTER_WIDTH || e.getY() < HEADER_HEIGHT || vehicleIds.length == 0) {
+            return;
+        }
+        int row = (int) Math.floor(firstRow + (e.getY() - HEADER_HEIGHT) / ROW_HEIGHT);
+        double day = firstDay + (e.getX() - GUTTER_WIDTH) / dayWidth;
+        if (row < 0 || row >= vehicleIds.length) {
+            return;
+        }
+        Window window = windows.get(windowKey(row / ROWS_PER_WINDOW, Math.floorDiv((int) Math.floor(day), DAYS_PER_WINDOW)));
+        if (window == null) {
+            return;
+        }
+        for (int i = 0; i < window.rows().length; i++) {
+            if (window.rows()[i] == row && window.starts()[i] <= day && day < window.ends()[i]) {
+                summary.setText("Booking #" + window.bookingIds()[i] + ": vehicle #" + vehicleIds[row] + ", customer #"
+                        + window.customerIds()[i] + ", " + DAY_LABEL.format(LocalDate.ofEpochDay(window.starts()[i]))
+                        + " – " + DAY_LABEL.format(LocalDate.ofEpochDay(window.ends()[i])));
+                return;
+            }
+        }
+    }
+
+    private static Region probe(String styleClass) {
+        Region probe = new Region();
+        probe.getStyleClass().add(styleClass);
+        return probe;
+    }
+
+    private static Paint fill(Region region, Paint fallback) {
+        Background background = region.getBackground();
+        return background == null || background.getFills().isEmpty() ? fallback : background.getFills().getFirst().getFill();
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.demo;
+
+import javafx.application.Platform;
+import javafx.event.ActionEvent;
+import javafx.event.EventTarget;
+import javafx.scene.Node;
+import javafx.scene.Scene;
+import javafx.scene.control.Labeled;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Feeds {@link Metrics} from the JavaFX side: how long each action handler runs, how long the
+ * CSS and layout part of a pulse takes, and how long work queued for the FX thread waits before it
+ * runs. A wait above {@link #STALL_MILLIS} counts as a stall, i.e. a frozen window.
+ */
+public final class FxMonitor {
+
+    private static final long PROBE_INTERVAL_MILLIS = 100;
+    private static final long STALL_MILLIS = 250;
+
+    private record Running(EventTarget target, Metrics.UiActionEvent event, long start) {
+    }
+
+    private FxMonitor() {
+    }
+
+    /** Starts measuring {@code scene}; must be called on the FX thread. */
+    public static void install(Scene scene) {
+        // Action events bubble from the control to the scene, so the filter runs before the
+        // control's own handler and the scene handler after it
+        Deque<Running> running = new ArrayDeque<>();
+        scene.addEventFilter(ActionEvent.ACTION, e -> {
+            Metrics.UiActionEvent event = new Metrics.UiActionEvent();
+            event.begin();
+            running.push(new Running(e.getTarget(), event, System.nanoTime()));
+        });
+        scene.addEventHandler(ActionEvent.ACTION, e -> {
+            Running top;
+            while ((top = running.poll()) != null) {
+                if (top.target() == e.getTarget()) {
+                    Metrics.uiAction(actionName(top.target()), top.event(), top.start());
+                    return;
+                }
+                // Otherwise a handler consumed its event and the scene never saw it; drop it
+            }
+        });
+
+        long[] layoutStart = new long[1];
+        scene.addPreLayoutPulseListener(() -> layoutStart[0] = System.nanoTime());
+        scene.addPostLayoutPulseListener(() -> Metrics.record("fx.layout", System.nanoTime() - layoutStart[0]));
+
+        Thread.ofPlatform().daemon().name("fx-watchdog").start(FxMonitor::probeLoop);
+    }
+
+    // Posts a probe every interval (never more than one queued) and times how long it waits
+    private static void probeLoop() {
+        AtomicBoolean queued = new AtomicBoolean();
+        while (true) {
+            try {
+                Thread.sleep(PROBE_INTERVAL_MILLIS);
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (queued.compareAndSet(false, true)) {
+                long posted = System.nanoTime();
+                Platform.runLater(() -> {
+                    long delay = System.nanoTime() - posted;
+                    Metrics.record("fx.queue", delay);
+                    if (delay > TimeUnit.MILLISECONDS.toNanos(STALL_MILLIS)) {
+                        Metrics.fxStall(delay);
+                    }
+                    queued.set(false);
+                });
+            }
+        }
+    }
+
+    private static String actionName(EventTarget target) {
+        if (target instanceof Labeled labeled && labeled.getText() != null && !labeled.getText().isBlank()) {
+            return labeled.getText().strip();
+        }
+        if (target instanceof Node node && node.getId() != null) {
+            return node.getId();
+        }
+        return target.getClass().getSimpleName();
+    }
+}
@@ -4,30 +4,72 @@ import javafx.application.Application;
 import javafx.collections.FXCollections;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
+import javafx.scene.Node;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
 import javafx.scene.layout.*;
-import javafx.scene.chart.*;
-import javafx.scene.effect.DropShadow;
-import javafx.scene.paint.Color;
-import javafx.scene.paint.CycleMethod;
-import javafx.scene.paint.LinearGradient;
-import javafx.scene.paint.Stop;
-import javafx.scene.text.Font;
-import javafx.scene.text.FontWeight;
+import javafx.stage.Modality;
 import javafx.stage.Stage;
 import javafx.animation.FadeTransition;
+import javafx.animation.KeyFrame;
+import javafx.animation.PauseTransition;
+import javafx.animation.Timeline;
+import javafx.beans.binding.Bindings;
+import javafx.beans.property.BooleanProperty;
+import javafx.beans.property.ReadOnlyObjectWrapper;
+import javafx.beans.property.SimpleBooleanProperty;
+import javafx.concurrent.Task;
+import javafx.concurrent.WorkerStateEvent;
+import javafx.stage.FileChooser;
 import javafx.util.Duration;
 
+import java.io.File;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.sql.*;
-import java.text.DecimalFormat;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 public class HelloApplication extends Application {
 
-    private Connection connection;
+    private static final String DB_URL = "jdbc:h2:~/vehiclerental";
+    private static final int DB_POOL_SIZE = 8;
+    private static final int PAGE_SIZE = 100;
+    private static final int FREE_VEHICLE_LIMIT = 200;
+    private static final int SEARCH_LIMIT = 10;
+    private static final int REVENUE_CHART_YEARS = 5;
+
+    private RentalBackend backend;
+    private ConnectionPool pool; // Only with an embedded database, as are the exporter and importer
+    private HistoryExporter historyExporter;
+    private CsvImporter csvImporter;
+    private InvoiceService invoiceService;
+    private final AsyncDatabase db = new AsyncDatabase();
+    private final ChangeFeed changeFeed = new ChangeFeed();
     private String currentUserRole = ""; // Admin or Employee
     private TabPane tabPane;
+    private final Map<Integer, Supplier<Tab>> pendingTabs = new HashMap<>();
+    private final BooleanProperty databaseStarting = new SimpleBooleanProperty(true);
+    private String startupError = ""; // Why the database could not be opened, shown on the login tab
+    private Theme theme = Theme.fromSystemProperty();
+
+    /** Customer and vehicle checked before a booking; {@code null} when the id does not exist. */
+    private record BookingParties(CustomerRow customer, VehicleRow vehicle, PricingEngine.Quote quote) {
+    }
+
+    /** Called by the JavaFX launcher. */
+    public HelloApplication() {
+    }
 
     public static void main(String[] args) {
         launch(args);
@@ -35,72 +77,130 @@ public class HelloApplication extends Application {
 
     @Override
     public void start(Stage primaryStage) {
-        connectDatabase();
         primaryStage.setTitle("🚗 Vehicle Rental System");
 
         tabPane = new TabPane();
-        tabPane.setStyle("-fx-background-color: #ffffff; -fx-padding: 0;");
-
-        Tab vehicleTab = vehicleTab();
-        Tab customerTab = customerTab();
-        Tab bookingTab = bookingTab();
-        Tab paymentTab = paymentTab();
-        Tab loginTab = loginTab();
-        Tab reportTab = reportTab();
-
-        // Disable tabs initially, only Login is active
-        vehicleTab.setDisable(true);
-        customerTab.setDisable(true);
-        bookingTab.setDisable(true);
-        paymentTab.setDisable(true);
-        reportTab.setDisable(true);
-
-        tabPane.getTabs().addAll(vehicleTab, customerTab, bookingTab, paymentTab, loginTab, reportTab);
-
+        tabPane.getStyleClass().add("app-tabs");
+
+        // Only Login is usable before signing in; the role-gated tabs are built on first enable
+        tabPane.getTabs().addAll(
+                deferredTab(0, "Vehicle Management", this::vehicleTab),
+                deferredTab(1, "Customer Management", this::customerTab),
+                deferredTab(2, "Booking", this::bookingTab),
+                deferredTab(3, "Payment & Billing", this::paymentTab),
+                loginTab(),
+                deferredTab(5, "Reports", this::reportTab),
+                deferredTab(6, "Diagnostics", this::diagnosticsTab),
+                deferredTab(7, "Fleet Calendar", this::calendarTab),
+                deferredTab(8, "Fleet Analytics", this::analyticsTab));
+
+        // Gradient backdrop, shadow and fonts come from the theme's stylesheet
         VBox root = new VBox();
-        root.setPadding(new Insets(20));
-        // Apply gradient background with shadow effect
-        LinearGradient gradient = new LinearGradient(0, 0, 1, 1, true, CycleMethod.NO_CYCLE,
-                new Stop(0, Color.web("#d6eaff")),
-                new Stop(1, Color.web("#a3c9ff")));
-        root.setBackground(new Background(new BackgroundFill(gradient, CornerRadii.EMPTY, Insets.EMPTY)));
-        root.setStyle("-fx-font-family: 'Segoe UI', Arial, sans-serif;");
-        DropShadow shadow = new DropShadow(10, 5, 5, Color.GRAY);
-        root.setEffect(shadow);
-        root.getChildren().add(tabPane);
+        root.getStyleClass().add("app-root");
+        root.getChildren().addAll(tabPane, createBusyBar());
 
         Scene scene = new Scene(root, 900, 600);
+        theme.applyTo(scene);
+        StartupTimer.reportFirstFrame(scene);
+        FxMonitor.install(scene);
         primaryStage.setScene(scene);
         primaryStage.show();
+
+        connectDatabase();
     }
 
+    @Override
+    public void stop() throws Exception {
+        db.shutdown();
+        if (backend != null) {
+            backend.close();
+        }
+        if (pool != null) {
+            pool.close();
+        }
+    }
+
+    // In-flight indicator shown while any database work runs in the background
+    private HBox createBusyBar() {
+        ProgressIndicator progress = new ProgressIndicator();
+        progress.setPrefSize(20, 20);
+
+        Label busyLabel = new Label("Working...");
+        busyLabel.getStyleClass().add("busy-label");
+
+        Button cancelBtn = new Button("Cancel");
+        cancelBtn.getStyleClass().addAll("danger", "compact");
+        cancelBtn.setOnAction(_ -> db.cancelAll());
+
+        HBox busyBar = new HBox(10, progress, busyLabel, cancelBtn);
+        busyBar.setAlignment(Pos.CENTER_LEFT);
+        busyBar.setPadding(new Insets(8, 0, 0, 0));
+        busyBar.visibleProperty().bind(db.busyProperty());
+        busyBar.managedProperty().bind(busyBar.visibleProperty());
+        return busyBar;
+    }
+
+    // Opens the pool and migrates the schema on a background thread, so the window shows at once.
+    // With -Drental.server=http://host:port the terminal uses that RentalServer's database instead.
     private void connectDatabase() {
-        try {
-            Class.forName("org.h2.Driver");
-            connection = DriverManager.getConnection("jdbc:h2:~/vehiclerental", "sa", "1234");
-
-            if (connection != null) {
-                Statement stmt = connection.createStatement();
-                // Create tables if they do not exist
-                stmt.execute("CREATE TABLE IF NOT EXISTS Vehicle(id INT AUTO_INCREMENT PRIMARY KEY, brand VARCHAR(255), category VARCHAR(100), price DOUBLE, available BOOLEAN)");
-                stmt.execute("CREATE TABLE IF NOT EXISTS Customer(id INT AUTO_INCREMENT PRIMARY KEY, name VARCHAR(255), contact VARCHAR(100), license VARCHAR(100))");
-                stmt.execute("CREATE TABLE IF NOT EXISTS Booking(id INT AUTO_INCREMENT PRIMARY KEY, customer_id INT, vehicle_id INT, start_date DATE, end_date DATE, FOREIGN KEY(customer_id) REFERENCES Customer(id), FOREIGN KEY(vehicle_id) REFERENCES Vehicle(id))");
-                stmt.execute("CREATE TABLE IF NOT EXISTS Payment(id INT AUTO_INCREMENT PRIMARY KEY, booking_id INT, amount DOUBLE, method VARCHAR(100), FOREIGN KEY(booking_id) REFERENCES Booking(id))");
-            } else {
-                System.out.println("❌ Failed to connect to the database.");
+        String server = System.getProperty("rental.server");
+        Task<RentalBackend> open = new Task<>() {
+            @Override
+            protected RentalBackend call() throws Exception {
+                if (server != null) {
+                    RemoteBackend remote = new RemoteBackend(server, changeFeed);
+                    try {
+                        remote.checkHealth();
+                        return remote;
+                    } catch (Exception e) {
+                        remote.close();
+                        throw e;
+                    }
+                }
+                Class.forName("org.h2.Driver");
+                ConnectionPool opened = new ConnectionPool(DB_URL, "sa", "1234", DB_POOL_SIZE);
+                try {
+                    // Create or upgrade the schema to the latest version
+                    new SchemaMigrator(opened, Migrations.ALL).migrate();
+                    return new LocalBackend(opened, changeFeed);
+                } catch (Exception e) {
+                    opened.close();
+                    throw e;
+                }
             }
-        } catch (Exception e) {
-            System.out.println("❌ Database connection error: " + e.getMessage());
-            connection = null;
-        }
+        };
+        open.setOnSucceeded(_ -> {
+            backend = open.getValue();
+            if (backend instanceof LocalBackend local) {
+                pool = local.pool();
+                historyExporter = new HistoryExporter(pool);
+                csvImporter = new CsvImporter(pool, changeFeed);
+                invoiceService = local.invoices();
+                registerGauges(local);
+            }
+            databaseStarting.set(false);
+            StartupTimer.reportReady();
+        });
+        open.setOnFailed(_ -> {
+            Metrics.error("Opening the database", open.getException());
+            startupError = open.getException().getMessage();
+            databaseStarting.set(false);
+            StartupTimer.reportReady();
+        });
+        // Not submitted through AsyncDatabase: the busy bar's Cancel must not abort startup
+        Thread.ofVirtual().name("db-startup").start(open);
+    }
+
+    private Tab deferredTab(int index, String title, Supplier<Tab> builder) {
+        Tab tab = new Tab(title);
+        tab.setDisable(true);
+        pendingTabs.put(index, builder);
+        return tab;
     }
 
     private Button createLogoutButton() {
         Button logoutBtn = new Button("Logout");
-        logoutBtn.setStyle("-fx-background-color: #e74c3c; -fx-text-fill: white; -fx-font-weight: bold; -fx-background-radius: 5; -fx-padding: 8 15 8 15; -fx-font-size: 14px; -fx-cursor: hand;");
-
-        // Hover and click effects
-        setButtonHoverEffect(logoutBtn);
+        logoutBtn.getStyleClass().addAll("danger", "logout");
 
         // Fade transition for click effect
         FadeTransition fadeTransition = new FadeTransition(Duration.millis(200), logoutBtn);
@@ -109,10 +209,11 @@ public class HelloApplication extends Application {
         fadeTransition.setAutoReverse(true);
         fadeTransition.setCycleCount(2);
 
-        logoutBtn.setOnMousePressed(e -> fadeTransition.play());
-        logoutBtn.setOnAction(e -> {
+        logoutBtn.setOnMousePressed(_ -> fadeTransition.play());
+        logoutBtn.setOnAction(_ -> {
             currentUserRole = ""; // Reset the role
-            setTabAccess(false, false, false, false, false); // Disable all tabs
+            db.cancelAll(); // Drop any work still running for this session
+            setTabAccess(false, false, false, false, false, false, false, false); // Disable all tabs
             tabPane.getSelectionModel().select(tabPane.getTabs().get(4)); // Switch to login tab
         });
 
@@ -121,90 +222,102 @@ public class HelloApplication extends Application {
 
     private Tab vehicleTab() {
         Tab tab = new Tab("Vehicle Management");
-        tab.setStyle("-fx-background-color: #e0e0e0; -fx-background-insets: 0 1 0 1; -fx-background-radius: 5 5 0 0;");
 
         VBox vbox = new VBox(10);
         vbox.setPadding(new Insets(15));
-        vbox.setStyle("-fx-background-color: lightblue; -fx-border-color: #dddddd; -fx-border-radius: 10; -fx-background-radius: 10;");
+        vbox.getStyleClass().addAll("card", "tinted");
 
         // Dashboard Elements
         Label dashboardLabel = new Label("🌟 Vehicle Dashboard");
-        dashboardLabel.setStyle("-fx-font-size: 18px; -fx-font-weight: bold; -fx-text-fill: #2c3e50;");
-
-        ListView<String> vehicleListView = new ListView<>();
-        vehicleListView.setStyle("-fx-background-color: lightblue; -fx-border-color: #dddddd; -fx-border-radius: 5; -fx-background-radius: 5;");
+        dashboardLabel.getStyleClass().add("title");
+
+        LazyTableModel<VehicleRow> vehicleModel = new LazyTableModel<>(db, backend.availableVehicles(), PAGE_SIZE);
+        changeFeed.subscribe(ChangeFeed.Table.VEHICLE, vehicleModel::applyChanges);
+        TableView<VehicleRow> vehicleTable = new TableView<>();
+        vehicleTable.getColumns().addAll(List.of(
+                tableColumn("ID", VehicleRow::id, "id"),
+                tableColumn("Brand", VehicleRow::brand, "brand"),
+                tableColumn("Category", VehicleRow::category, "category"),
+                tableColumn("Price/day", VehicleRow::price, "price")));
+        vehicleTable.setColumnResizePolicy(TableView.CONSTRAINED_RESIZE_POLICY_FLEX_LAST_COLUMN);
+        vehicleTable.getStyleClass().addAll("panel", "tinted");
+        vehicleModel.attach(vehicleTable);
+
+        TextField vehicleFilterField = filterField("Filter by brand or category", vehicleModel);
 
         Button refreshVehicleBtn = new Button("Refresh Vehicles");
-        refreshVehicleBtn.setStyle("-fx-background-color: #4a90e2; -fx-text-fill: white; -fx-font-weight: bold; -fx-background-radius: 5; -fx-padding: 8 15 8 15;");
+        refreshVehicleBtn.getStyleClass().add("primary");
 
         // Vehicle Input Fields with Categories
         TextField brandField = new TextField();
         brandField.setPromptText("Brand & Model");
-        brandField.setStyle("-fx-background-color: white; -fx-border-color: #cccccc; -fx-border-radius: 5; -fx-background-radius: 5; -fx-padding: 8;");
+        brandField.getStyleClass().add("input");
 
         ComboBox<String> categoryCombo = new ComboBox<>(FXCollections.observableArrayList("Sedan", "SUV", "Hatchback", "Luxury", "Truck"));
-        categoryCombo.setStyle("-fx-background-color: white; -fx-border-color: #cccccc; -fx-border-radius: 5; -fx-background-radius: 5; -fx-padding: 8;");
+        categoryCombo.getStyleClass().add("input");
 
         TextField priceField = new TextField();
         priceField.setPromptText("Price per Day");
-        priceField.setStyle("-fx-background-color: white; -fx-border-color: #cccccc; -fx-border-radius: 5; -fx-background-radius: 5; -fx-padding: 8;");
+        priceField.getStyleClass().add("input");
 
         TextField idField = new TextField();
         idField.setPromptText("Vehicle ID (for update/delete)");
-        idField.setStyle("-fx-background-color: white; -fx-border-color: #cccccc; -fx-border-radius: 5; -fx-background-radius: 5; -fx-padding: 8;");
+        idField.getStyleClass().add("input");
 
         // Action Buttons
         Button addBtn = new Button("Add Vehicle");
-        addBtn.setStyle("-fx-background-color: #4a90e2; -fx-text-fill: white; -fx-font-weight: bold; -fx-background-radius: 5; -fx-padding: 8 15 8 15;");
+        addBtn.getStyleClass().add("primary");
 
         Button updateBtn = new Button("Update Vehicle");
-        updateBtn.setStyle("-fx-background-color: #4a90e2; -fx-text-fill: white; -fx-font-weight: bold; -fx-background-radius: 5; -fx-padding: 8 15 8 15;");
+        updateBtn.getStyleClass().add("primary");
 
         Button deleteBtn = new Button("Delete Vehicle");
-        deleteBtn.setStyle("-fx-background-color: #4a90e2; -fx-text-fill: white; -fx-font-weight: bold; -fx-background-radius: 5; -fx-padding: 8 15 8 15;");
+        deleteBtn.getStyleClass().add("primary");
 
         Button logoutBtn = createLogoutButton();
 
         Label vehicleMessage = new Label("");
-        vehicleMessage.setStyle("-fx-font-size: 14px;");
+        vehicleMessage.getStyleClass().add("status");
+        vehicleModel.reportErrorsTo(vehicleMessage);
 
-        // Button hover effects
-        setButtonHoverEffect(addBtn);
-        setButtonHoverEffect(updateBtn);
-        setButtonHoverEffect(deleteBtn);
-        setButtonHoverEffect(refreshVehicleBtn);
 
         // Handler for Adding Vehicle
-        addBtn.setOnAction(e -> {
-            if (connection == null) {
+        addBtn.setOnAction(_ -> {
+            if (backend == null) {
                 vehicleMessage.setText("❌ No database connection.");
-                vehicleMessage.setStyle("-fx-text-fill: #e74c3c; -fx-font-weight: bold;");
+                Theme.Status.ERROR.applyTo(vehicleMessage);
                 return;
             }
 
             try {
-                PreparedStatement ps = connection.prepareStatement("INSERT INTO Vehicle(brand, category, price, available) VALUES (?, ?, ?, true)");
-                ps.setString(1, brandField.getText());
-                ps.setString(2, categoryCombo.getValue());
-                ps.setDouble(3, Double.parseDouble(priceField.getText()));
-                ps.execute();
-
-                refreshVehicleList(vehicleListView); // Refresh the list
-                vehicleMessage.setText("✅ Vehicle Added Successfully!");
-                vehicleMessage.setStyle("-fx-text-fill: #27ae60; -fx-font-weight: bold;");
-
-                clearVehicleFields(brandField, categoryCombo, priceField); // Clear fields after adding
+                String brand = brandField.getText();
+                String category = categoryCombo.getValue();
+                Money price = Money.parse(priceField.getText());
+                if (!price.isPositive()) {
+                    vehicleMessage.setText("❌ Price must be positive.");
+                    Theme.Status.ERROR.applyTo(vehicleMessage);
+                    return;
+                }
+                db.submitWrite(() -> backend.addVehicle(brand, category, price), _ -> {
+                    vehicleMessage.setText("✅ Vehicle Added Successfully!");
+                    Theme.Status.SUCCESS.applyTo(vehicleMessage);
+
+                    clearVehicleFields(brandField, categoryCombo, priceField); // Clear fields after adding
+                }, ex -> {
+                    vehicleMessage.setText("❌ Error: " + ex.getMessage());
+                    Theme.Status.ERROR.applyTo(vehicleMessage);
+                });
             } catch (Exception ex) {
                 vehicleMessage.setText("❌ Error: " + ex.getMessage());
-                vehicleMessage.setStyle("-fx-text-fill: #e74c3c; -fx-font-weight: bold;");
+                Theme.Status.ERROR.applyTo(vehicleMessage);
             }
         });
 
         // Handler for Updating Vehicle
-        updateBtn.setOnAction(e -> {
-            if (connection == null) {
+        updateBtn.setOnAction(_ -> {
+            if (backend == null) {
                 vehicleMessage.setText("❌ No database connection.");
-                vehicleMessage.setStyle("-fx-text-fill: #e74c3c; -fx-font-weight: bold;");
+                Theme.Status.ERROR.applyTo(vehicleMessage);
                 return;
             }
 
@@ -212,54 +325,51 @@ public class HelloApplication extends Application {
             String idText = idField.getText().trim();
             if (idText.isEmpty()) {
                 vehicleMessage.setText("❌ Please enter a Vehicle ID.");
-                vehicleMessage.setStyle("-fx-text-fill: #e74c3c; -fx-font-weight: bold;");
+                Theme.Status.ERROR.applyTo(vehicleMessage);
                 return;
             }
             if (brandField.getText().isEmpty() || categoryCombo.getValue() == null || priceField.getText().isEmpty()) {
                 vehicleMessage.setText("❌ All fields (Brand, Category, Price) are required.");
-                vehicleMessage.setStyle("-fx-text-fill: #e74c3c; -fx-font-weight: bold;");
+                Theme.Status.ERROR.applyTo(vehicleMessage);
                 return;
             }
 
             try {
                 int vehicleId = Integer.parseInt(idText);
-                double price = Double.parseDouble(priceField.getText());
-                if (price <= 0) {
+                Money price = Money.parse(priceField.getText());
+                if (!price.isPositive()) {
                     vehicleMessage.setText("❌ Price must be positive.");
-                    vehicleMessage.setStyle("-fx-text-fill: #e74c3c; -fx-font-weight: bold;");
+                    Theme.Status.ERROR.applyTo(vehicleMessage);
                     return;
                 }
 
-                PreparedStatement ps = connection.prepareStatement("UPDATE Vehicle SET brand=?, category=?, price=? WHERE id=?");
-                ps.setString(1, brandField.getText());
-                ps.setString(2, categoryCombo.getValue());
-                ps.setDouble(3, price);
-                ps.setInt(4, vehicleId);
-                int rowsAffected = ps.executeUpdate();
-                if (rowsAffected > 0) {
-                    vehicleMessage.setText("✅ Vehicle Updated Successfully!");
-                    vehicleMessage.setStyle("-fx-text-fill: #27ae60; -fx-font-weight: bold;");
-                    refreshVehicleList(vehicleListView); // Refresh the list
-                    clearVehicleFields(brandField, categoryCombo, priceField);
-                    idField.clear();
-                } else {
-                    vehicleMessage.setText("❌ No vehicle found with ID: " + vehicleId);
-                    vehicleMessage.setStyle("-fx-text-fill: #e74c3c; -fx-font-weight: bold;");
-                }
+                String brand = brandField.getText();
+                String category = categoryCombo.getValue();
+                db.submitWrite(() -> backend.updateVehicle(vehicleId, brand, category, price), rowsAffected -> {
+                    if (rowsAffected > 0) {
+                        vehicleMessage.setText("✅ Vehicle Updated Successfully!");
+                        Theme.Status.SUCCESS.applyTo(vehicleMessage);
+                        clearVehicleFields(brandField, categoryCombo, priceField);
+                        idField.clear();
+                    } else {
+                        vehicleMessage.setText("❌ No vehicle found with ID: " + vehicleId);
+                        Theme.Status.ERROR.applyTo(vehicleMessage);
+                    }
+                }, ex -> {
+                    vehicleMessage.setText("❌ Database error: " + ex.getMessage());
+                    Theme.Status.ERROR.applyTo(vehicleMessage);
+                });
             } catch (NumberFormatException ex) {
                 vehicleMessage.setText("❌ Invalid ID or Price format.");
-                vehicleMessage.setStyle("-fx-text-fill: #e74c3c; -fx-font-weight: bold;");
-            } catch (SQLException ex) {
-                vehicleMessage.setText("❌ Database error: " + ex.getMessage());
-                vehicleMessage.setStyle("-fx-text-fill: #e74c3c; -fx-font-weight: bold;");
+                Theme.Status.ERROR.applyTo(vehicleMessage);
             }
         });
 
         // Handler for Deleting Vehicle
-        deleteBtn.setOnAction(e -> {
-            if (connection == null) {
+        deleteBtn.setOnAction(_ -> {
+            if (backend == null) {
                 vehicleMessage.setText("❌ No database connection.");
-                vehicleMessage.setStyle("-fx-text-fill: #e74c3c; -fx-font-weight: bold;");
+                Theme.Status.ERROR.applyTo(vehicleMessage);
                 return;
             }
 
@@ -267,67 +377,166 @@ public class HelloApplication extends Application {
             String idText = idField.getText().trim();
             if (idText.isEmpty()) {
                 vehicleMessage.setText("❌ Please enter a Vehicle ID.");
-                vehicleMessage.setStyle("-fx-text-fill: #e74c3c; -fx-font-weight: bold;");
+                Theme.Status.ERROR.applyTo(vehicleMessage);
                 return;
             }
 
             try {
                 int vehicleId = Integer.parseInt(idText);
-                PreparedStatement ps = connection.prepareStatement("DELETE FROM Vehicle WHERE id=?");
-                ps.setInt(1, vehicleId);
-                int rowsAffected = ps.executeUpdate();
-                if (rowsAffected > 0) {
-                    vehicleMessage.setText("✅ Vehicle Deleted Successfully!");
-                    vehicleMessage.setStyle("-fx-text-fill: #27ae60; -fx-font-weight: bold;");
-                    refreshVehicleList(vehicleListView);
-                    idField.clear();
-                } else {
-                    vehicleMessage.setText("❌ No vehicle found with ID: " + vehicleId);
-                    vehicleMessage.setStyle("-fx-text-fill: #e74c3c; -fx-font-weight: bold;");
-                }
+                db.submitWrite(() -> backend.deleteVehicle(vehicleId), rowsAffected -> {
+                    if (rowsAffected > 0) {
+                        vehicleMessage.setText("✅ Vehicle Deleted Successfully!");
+                        Theme.Status.SUCCESS.applyTo(vehicleMessage);
+                        idField.clear();
+                    } else {
+                        vehicleMessage.setText("❌ No vehicle found with ID: " + vehicleId);
+                        Theme.Status.ERROR.applyTo(vehicleMessage);
+                    }
+                }, ex -> {
+                    vehicleMessage.setText("❌ Database error: " + ex.getMessage());
+                    Theme.Status.ERROR.applyTo(vehicleMessage);
+                });
             } catch (NumberFormatException ex) {
                 vehicleMessage.setText("❌ Please enter a valid Vehicle ID.");
-                vehicleMessage.setStyle("-fx-text-fill: #e74c3c; -fx-font-weight: bold;");
-            } catch (SQLException ex) {
-                vehicleMessage.setText("❌ Database error: " + ex.getMessage());
-                vehicleMessage.setStyle("-fx-text-fill: #e74c3c; -fx-font-weight: bold;");
+                Theme.Status.ERROR.applyTo(vehicleMessage);
             }
         });
 
         // Refresh List Action
-        refreshVehicleBtn.setOnAction(e -> refreshVehicleList(vehicleListView));
+        refreshVehicleBtn.setOnAction(_ -> vehicleModel.refresh());
 
         HBox buttonBox = new HBox(10, addBtn, updateBtn, deleteBtn, logoutBtn);
         buttonBox.setAlignment(javafx.geometry.Pos.CENTER_LEFT);
 
-        vbox.getChildren().addAll(dashboardLabel, refreshVehicleBtn, vehicleListView,
+        vbox.getChildren().addAll(dashboardLabel, new HBox(10, refreshVehicleBtn, vehicleFilterField,
+                        importControls("Import Vehicles CSV", CsvImporter.VEHICLES, vehicleMessage)), vehicleTable,
                 new Label("Add/Update/Delete Vehicle"), brandField,
-                categoryCombo, priceField, idField,
+                categoryCombo, priceField,
+                searchBox(SearchService.Kind.VEHICLE, "Find vehicle by brand or category", idField), idField,
                 buttonBox, vehicleMessage);
         tab.setContent(vbox);
         return tab;
     }
 
-    private void setButtonHoverEffect(Button button) {
-        String originalColor = button.getText().equals("Logout") ? "#e74c3c" : "#4a90e2";
-        String hoverColor = button.getText().equals("Logout") ? "#c0392b" : "#3a7bc8";
+    private <T> TableColumn<T, Object> tableColumn(String title, Function<T, Object> value, String sortColumn) {
+        TableColumn<T, Object> column = new TableColumn<>(title);
+        column.setCellValueFactory(cd -> new ReadOnlyObjectWrapper<>(value.apply(cd.getValue())));
+        column.setUserData(sortColumn); // Sorting is done by the database, see LazyTableModel
+        return column;
+    }
 
-        button.setOnMouseEntered(_ -> button.setStyle("-fx-background-color: " + hoverColor + "; -fx-text-fill: white; -fx-font-weight: bold; -fx-background-radius: 5; -fx-padding: 8 15 8 15; -fx-cursor: hand; -fx-effect: dropshadow(gaussian, rgba(0,0,0,0.2), 5, 0, 0, 2);"));
-        button.setOnMouseExited(_ -> button.setStyle("-fx-background-color: " + originalColor + "; -fx-text-fill: white; -fx-font-weight: bold; -fx-background-radius: 5; -fx-padding: 8 15 8 15; -fx-cursor: hand;"));
+    private TextField filterField(String prompt, LazyTableModel<?> model) {
+        TextField filterField = new TextField();
+        filterField.setPromptText(prompt);
+        filterField.setPrefWidth(280);
+        filterField.getStyleClass().add("input");
+
+        // Wait for a pause in typing before querying
+        PauseTransition debounce = new PauseTransition(Duration.millis(300));
+        debounce.setOnFinished(_ -> model.setFilter(filterField.getText()));
+        filterField.textProperty().addListener((_, _, _) -> debounce.playFromStart());
+        return filterField;
     }
 
-    private void refreshVehicleList(ListView<String> vehicleListView) {
-        vehicleListView.getItems().clear();
-        try {
-            Statement stmt = connection.createStatement();
-            ResultSet rs = stmt.executeQuery("SELECT id, brand, category, price FROM Vehicle WHERE available = true");
-            while (rs.next()) {
-                vehicleListView.getItems().add("ID: " + rs.getInt("id") + ", Brand: " + rs.getString("brand") +
-                        ", Category: " + rs.getString("category") + ", Price: $" + rs.getDouble("price"));
+    // Search-as-you-type box; picking a match fills in idField so the operator never has to know the ID
+    private VBox searchBox(SearchService.Kind kind, String prompt, TextField idField) {
+        TextField searchField = new TextField();
+        searchField.setPromptText("🔍 " + prompt);
+        searchField.getStyleClass().add("input");
+
+        ListView<SearchService.Hit> results = new ListView<>();
+        results.setPrefHeight(110);
+        results.visibleProperty().bind(Bindings.isNotEmpty(results.getItems()));
+        results.managedProperty().bind(results.visibleProperty());
+        results.getSelectionModel().selectedItemProperty().addListener((_, _, hit) -> {
+            if (hit != null) {
+                idField.setText(String.valueOf(hit.id()));
             }
-        } catch (SQLException ex) {
-            ex.printStackTrace();
-        }
+        });
+
+        // Shorter pause than the table filters: the index answers in a few milliseconds.
+        // submitLatest drops the previous search, so a slow one never overwrites newer matches.
+        PauseTransition debounce = new PauseTransition(Duration.millis(150));
+        debounce.setOnFinished(_ -> {
+            String query = searchField.getText();
+            db.submitLatest(results, () -> backend.search(kind, query, SEARCH_LIMIT),
+                    hits -> results.getItems().setAll(hits), _ -> results.getItems().clear());
+        });
+        searchField.textProperty().addListener((_, _, _) -> debounce.playFromStart());
+        return new VBox(5, searchField, results);
+    }
+
+    // Import button with its own progress bar and cancel; results are reported in the tab's message label.
+    // The importer tells the feed when it is done, so the table reloads itself.
+    private HBox importControls(String text, CsvImporter.Spec spec, Label message) {
+        Button importBtn = new Button(text);
+        importBtn.getStyleClass().add("primary");
+
+        ProgressBar importProgress = new ProgressBar(0);
+        importProgress.setPrefWidth(150);
+
+        Button cancelImportBtn = new Button("Cancel");
+        cancelImportBtn.getStyleClass().add("danger");
+
+        HBox progressBox = new HBox(10, importProgress, cancelImportBtn);
+        progressBox.setAlignment(Pos.CENTER_LEFT);
+        progressBox.setVisible(false);
+        progressBox.managedProperty().bind(progressBox.visibleProperty());
+
+        importBtn.setOnAction(_ -> {
+            if (backend == null) {
+                message.setText("❌ No database connection.");
+                Theme.Status.ERROR.applyTo(message);
+                return;
+            }
+            if (csvImporter == null) {
+                message.setText("❌ Import runs on the computer that holds the database, not on a server terminal.");
+                Theme.Status.ERROR.applyTo(message);
+                return;
+            }
+            FileChooser chooser = new FileChooser();
+            chooser.setTitle(text);
+            chooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("CSV (*.csv)", "*.csv"));
+            File file = chooser.showOpenDialog(tabPane.getScene().getWindow());
+            if (file == null) {
+                return;
+            }
+
+            importBtn.setDisable(true);
+            progressBox.setVisible(true);
+            message.setText("Importing " + file.getName() + "...");
+            Theme.Status.NEUTRAL.applyTo(message);
+
+            Task<CsvImporter.Result> task = db.submitTracked(progress -> csvImporter.importFile(file.toPath(), spec, progress), result -> {
+                importBtn.setDisable(false);
+                progressBox.setVisible(false);
+                if (result.rejected().isEmpty()) {
+                    message.setText("✅ Imported " + result.imported() + " rows.");
+                    Theme.Status.SUCCESS.applyTo(message);
+                } else {
+                    message.setText("⚠ Imported " + result.imported() + " rows, rejected " + result.rejected().size()
+                            + " (see " + result.rejectedFile().getFileName() + ").");
+                    Theme.Status.WARNING.applyTo(message);
+                }
+            }, ex -> {
+                importBtn.setDisable(false);
+                progressBox.setVisible(false);
+                message.setText("❌ Import failed: " + ex.getMessage());
+                Theme.Status.ERROR.applyTo(message);
+            });
+            importProgress.progressProperty().bind(task.progressProperty());
+            task.addEventHandler(WorkerStateEvent.WORKER_STATE_CANCELLED, _ -> {
+                importBtn.setDisable(false);
+                progressBox.setVisible(false);
+                message.setText("Import cancelled; rows already committed were kept.");
+                Theme.Status.ERROR.applyTo(message);
+            });
+            cancelImportBtn.setOnAction(_ -> task.cancel(false));
+        });
+
+        HBox box = new HBox(10, importBtn, progressBox);
+        box.setAlignment(Pos.CENTER_LEFT);
+        return box;
     }
 
     private void clearVehicleFields(TextField brandField, ComboBox<String> categoryCombo, TextField priceField) {
@@ -338,91 +547,93 @@ public class HelloApplication extends Application {
 
     private Tab customerTab() {
         Tab tab = new Tab("Customer Management");
-        tab.setStyle("-fx-background-color: #e0e0e0; -fx-background-insets: 0 1 0 1; -fx-background-radius: 5 5 0 0;");
 
         VBox vbox = new VBox(10);
         vbox.setPadding(new Insets(15));
-        vbox.setStyle("-fx-background-color: white; -fx-border-color: #dddddd; -fx-border-radius: 10; -fx-background-radius: 10;");
+        vbox.getStyleClass().add("card");
 
         // Customer Dashboard
         Label dashboardLabel = new Label("🌟 Customer Dashboard");
-        dashboardLabel.setStyle("-fx-font-size: 18px; -fx-font-weight: bold; -fx-text-fill: #2c3e50;");
-
-        ListView<String> customerListView = new ListView<>();
-        customerListView.setStyle("-fx-background-color: lightblue; -fx-border-color: #dddddd; -fx-border-radius: 5; -fx-background-radius: 5;");
+        dashboardLabel.getStyleClass().add("title");
+
+        LazyTableModel<CustomerRow> customerModel = new LazyTableModel<>(db, backend.customers(), PAGE_SIZE);
+        changeFeed.subscribe(ChangeFeed.Table.CUSTOMER, customerModel::applyChanges);
+        TableView<CustomerRow> customerTable = new TableView<>();
+        customerTable.getColumns().addAll(List.of(
+                tableColumn("ID", CustomerRow::id, "id"),
+                tableColumn("Name", CustomerRow::name, "name"),
+                tableColumn("Contact", CustomerRow::contact, null),
+                tableColumn("License", CustomerRow::license, "license")));
+        customerTable.setColumnResizePolicy(TableView.CONSTRAINED_RESIZE_POLICY_FLEX_LAST_COLUMN);
+        customerTable.getStyleClass().addAll("panel", "tinted");
+        customerModel.attach(customerTable);
+
+        TextField customerFilterField = filterField("Filter by name, contact or license", customerModel);
 
         Button refreshCustomerBtn = new Button("Refresh Customers");
-        refreshCustomerBtn.setStyle("-fx-background-color: #4a90e2; -fx-text-fill: white; -fx-font-weight: bold; -fx-background-radius: 5; -fx-padding: 8 15 8 15;");
+        refreshCustomerBtn.getStyleClass().add("primary");
 
         // Customer Input Fields
         TextField nameField = new TextField();
         nameField.setPromptText("Full Name");
-        nameField.setStyle("-fx-background-color: lightblue; -fx-border-color: #cccccc; -fx-border-radius: 5; -fx-background-radius: 5; -fx-padding: 8;");
+        nameField.getStyleClass().addAll("input", "tinted");
 
         TextField contactField = new TextField();
         contactField.setPromptText("Contact Number");
-        contactField.setStyle("-fx-background-color: lightblue; -fx-border-color: #cccccc; -fx-border-radius: 5; -fx-background-radius: 5; -fx-padding: 8;");
+        contactField.getStyleClass().addAll("input", "tinted");
 
         TextField licenseField = new TextField();
         licenseField.setPromptText("License Number");
-        licenseField.setStyle("-fx-background-color: lightblue; -fx-border-color: #cccccc; -fx-border-radius: 5; -fx-background-radius: 5; -fx-padding: 8;");
+        licenseField.getStyleClass().addAll("input", "tinted");
 
         TextField idField = new TextField();
         idField.setPromptText("Customer ID (for update/delete)");
-        idField.setStyle("-fx-background-color: white; -fx-border-color: #cccccc; -fx-border-radius: 5; -fx-background-radius: 5; -fx-padding: 8;");
+        idField.getStyleClass().add("input");
 
         // Action Buttons
         Button registerBtn = new Button("Register Customer");
-        registerBtn.setStyle("-fx-background-color: #4a90e2; -fx-text-fill: white; -fx-font-weight: bold; -fx-background-radius: 5; -fx-padding: 8 15 8 15;");
+        registerBtn.getStyleClass().add("primary");
 
         Button updateBtn = new Button("Update Customer");
-        updateBtn.setStyle("-fx-background-color: #4a90e2; -fx-text-fill: white; -fx-font-weight: bold; -fx-background-radius: 5; -fx-padding: 8 15 8 15;");
+        updateBtn.getStyleClass().add("primary");
 
         Button deleteBtn = new Button("Delete Customer");
-        deleteBtn.setStyle("-fx-background-color: #4a90e2; -fx-text-fill: white; -fx-font-weight: bold; -fx-background-radius: 5; -fx-padding: 8 15 8 15;");
+        deleteBtn.getStyleClass().add("primary");
 
         Button logoutBtn = createLogoutButton();
 
         Label customerMessage = new Label("");
-        customerMessage.setStyle("-fx-font-size: 14px;");
+        customerMessage.getStyleClass().add("status");
+        customerModel.reportErrorsTo(customerMessage);
 
-        // Button hover effects
-        setButtonHoverEffect(registerBtn);
-        setButtonHoverEffect(updateBtn);
-        setButtonHoverEffect(deleteBtn);
-        setButtonHoverEffect(refreshCustomerBtn);
 
         // Handler for Registering Customer
-        registerBtn.setOnAction(e -> {
-            if (connection == null) {
+        registerBtn.setOnAction(_ -> {
+            if (backend == null) {
                 customerMessage.setText("❌ No database connection.");
-                customerMessage.setStyle("-fx-text-fill: #e74c3c; -fx-font-weight: bold;");
+                Theme.Status.ERROR.applyTo(customerMessage);
                 return;
             }
 
-            try {
-                PreparedStatement ps = connection.prepareStatement("INSERT INTO Customer(name, contact, license) VALUES (?, ?, ?)");
-                ps.setString(1, nameField.getText());
-                ps.setString(2, contactField.getText());
-                ps.setString(3, licenseField.getText());
-                ps.execute();
-
-                refreshCustomerList(customerListView);
+            String name = nameField.getText();
+            String contact = contactField.getText();
+            String license = licenseField.getText();
+            db.submitWrite(() -> backend.addCustomer(name, contact, license), _ -> {
                 customerMessage.setText("✅ Customer Registered!");
-                customerMessage.setStyle("-fx-text-fill: #27ae60; -fx-font-weight: bold;");
+                Theme.Status.SUCCESS.applyTo(customerMessage);
 
                 clearCustomerFields(nameField, contactField, licenseField);
-            } catch (Exception ex) {
+            }, ex -> {
                 customerMessage.setText("❌ Error: " + ex.getMessage());
-                customerMessage.setStyle("-fx-text-fill: #e74c3c; -fx-font-weight: bold;");
-            }
+                Theme.Status.ERROR.applyTo(customerMessage);
+            });
         });
 
         // Handler for Updating Customer
-        updateBtn.setOnAction(e -> {
-            if (connection == null) {
+        updateBtn.setOnAction(_ -> {
+            if (backend == null) {
                 customerMessage.setText("❌ No database connection.");
-                customerMessage.setStyle("-fx-text-fill: #e74c3c; -fx-font-weight: bold;");
+                Theme.Status.ERROR.applyTo(customerMessage);
                 return;
             }
 
@@ -430,47 +641,45 @@ public class HelloApplication extends Application {
             String idText = idField.getText().trim();
             if (idText.isEmpty()) {
                 customerMessage.setText("❌ Please enter a Customer ID.");
-                customerMessage.setStyle("-fx-text-fill: #e74c3c; -fx-font-weight: bold;");
+                Theme.Status.ERROR.applyTo(customerMessage);
                 return;
             }
             if (nameField.getText().isEmpty() || contactField.getText().isEmpty() || licenseField.getText().isEmpty()) {
                 customerMessage.setText("❌ All fields (Name, Contact, License) are required.");
-                customerMessage.setStyle("-fx-text-fill: #e74c3c; -fx-font-weight: bold;");
+                Theme.Status.ERROR.applyTo(customerMessage);
                 return;
             }
 
             try {
                 int customerId = Integer.parseInt(idText);
-                PreparedStatement ps = connection.prepareStatement("UPDATE Customer SET name=?, contact=?, license=? WHERE id=?");
-                ps.setString(1, nameField.getText());
-                ps.setString(2, contactField.getText());
-                ps.setString(3, licenseField.getText());
-                ps.setInt(4, customerId);
-                int rowsAffected = ps.executeUpdate();
-                if (rowsAffected > 0) {
-                    customerMessage.setText("✅ Customer Updated Successfully!");
-                    customerMessage.setStyle("-fx-text-fill: #27ae60; -fx-font-weight: bold;");
-                    refreshCustomerList(customerListView);
-                    clearCustomerFields(nameField, contactField, licenseField);
-                    idField.clear();
-                } else {
-                    customerMessage.setText("❌ No customer found with ID: " + customerId);
-                    customerMessage.setStyle("-fx-text-fill: #e74c3c; -fx-font-weight: bold;");
-                }
+                String name = nameField.getText();
+                String contact = contactField.getText();
+                String license = licenseField.getText();
+                db.submitWrite(() -> backend.updateCustomer(customerId, name, contact, license), rowsAffected -> {
+                    if (rowsAffected > 0) {
+                        customerMessage.setText("✅ Customer Updated Successfully!");
+                        Theme.Status.SUCCESS.applyTo(customerMessage);
+                        clearCustomerFields(nameField, contactField, licenseField);
+                        idField.clear();
+                    } else {
+                        customerMessage.setText("❌ No customer found with ID: " + customerId);
+                        Theme.Status.ERROR.applyTo(customerMessage);
+                    }
+                }, ex -> {
+                    customerMessage.setText("❌ Database error: " + ex.getMessage());
+                    Theme.Status.ERROR.applyTo(customerMessage);
+                });
             } catch (NumberFormatException ex) {
                 customerMessage.setText("❌ Invalid Customer ID format.");
-                customerMessage.setStyle("-fx-text-fill: #e74c3c; -fx-font-weight: bold;");
-            } catch (SQLException ex) {
-                customerMessage.setText("❌ Database error: " + ex.getMessage());
-                customerMessage.setStyle("-fx-text-fill: #e74c3c; -fx-font-weight: bold;");
+                Theme.Status.ERROR.applyTo(customerMessage);
             }
         });
 
         // Handler for Deleting Customer
-        deleteBtn.setOnAction(e -> {
-            if (connection == null) {
+        deleteBtn.setOnAction(_ -> {
+            if (backend == null) {
                 customerMessage.setText("❌ No database connection.");
-                customerMessage.setStyle("-fx-text-fill: #e74c3c; -fx-font-weight: bold;");
+                Theme.Status.ERROR.applyTo(customerMessage);
                 return;
             }
 
@@ -478,61 +687,47 @@ public class HelloApplication extends Application {
             String idText = idField.getText().trim();
             if (idText.isEmpty()) {
                 customerMessage.setText("❌ Please enter a Customer ID.");
-                customerMessage.setStyle("-fx-text-fill: #e74c3c; -fx-font-weight: bold;");
+                Theme.Status.ERROR.applyTo(customerMessage);
                 return;
             }
 
             try {
                 int customerId = Integer.parseInt(idText);
-                PreparedStatement ps = connection.prepareStatement("DELETE FROM Customer WHERE id=?");
-                ps.setInt(1, customerId);
-                int rowsAffected = ps.executeUpdate();
-                if (rowsAffected > 0) {
-                    customerMessage.setText("✅ Customer Deleted Successfully!");
-                    customerMessage.setStyle("-fx-text-fill: #27ae60; -fx-font-weight: bold;");
-                    refreshCustomerList(customerListView);
-                    idField.clear();
-                } else {
-                    customerMessage.setText("❌ No customer found with ID: " + customerId);
-                    customerMessage.setStyle("-fx-text-fill: #e74c3c; -fx-font-weight: bold;");
-                }
+                db.submitWrite(() -> backend.deleteCustomer(customerId), rowsAffected -> {
+                    if (rowsAffected > 0) {
+                        customerMessage.setText("✅ Customer Deleted Successfully!");
+                        Theme.Status.SUCCESS.applyTo(customerMessage);
+                        idField.clear();
+                    } else {
+                        customerMessage.setText("❌ No customer found with ID: " + customerId);
+                        Theme.Status.ERROR.applyTo(customerMessage);
+                    }
+                }, ex -> {
+                    customerMessage.setText("❌ Database error: " + ex.getMessage());
+                    Theme.Status.ERROR.applyTo(customerMessage);
+                });
             } catch (NumberFormatException ex) {
                 customerMessage.setText("❌ Please enter a valid Customer ID.");
-                customerMessage.setStyle("-fx-text-fill: #e74c3c; -fx-font-weight: bold;");
-            } catch (SQLException ex) {
-                customerMessage.setText("❌ Database error: " + ex.getMessage());
-                customerMessage.setStyle("-fx-text-fill: #e74c3c; -fx-font-weight: bold;");
+                Theme.Status.ERROR.applyTo(customerMessage);
             }
         });
 
         // Refresh List Action
-        refreshCustomerBtn.setOnAction(e -> refreshCustomerList(customerListView));
+        refreshCustomerBtn.setOnAction(_ -> customerModel.refresh());
 
         HBox buttonBox = new HBox(10, registerBtn, updateBtn, deleteBtn, logoutBtn);
         buttonBox.setAlignment(javafx.geometry.Pos.CENTER_LEFT);
 
-        vbox.getChildren().addAll(dashboardLabel, refreshCustomerBtn, customerListView,
+        vbox.getChildren().addAll(dashboardLabel, new HBox(10, refreshCustomerBtn, customerFilterField,
+                        importControls("Import Customers CSV", CsvImporter.CUSTOMERS, customerMessage)), customerTable,
                 new Label("Register/Update/Delete Customer"), nameField,
-                contactField, licenseField, idField,
+                contactField, licenseField,
+                searchBox(SearchService.Kind.CUSTOMER, "Find customer by name, contact or license", idField), idField,
                 buttonBox, customerMessage);
         tab.setContent(vbox);
         return tab;
     }
 
-    private void refreshCustomerList(ListView<String> customerListView) {
-        customerListView.getItems().clear();
-        try {
-            Statement stmt = connection.createStatement();
-            ResultSet rs = stmt.executeQuery("SELECT id, name, contact, license FROM Customer");
-            while (rs.next()) {
-                customerListView.getItems().add("ID: " + rs.getInt("id") + ", Name: " + rs.getString("name") +
-                        ", Contact: " + rs.getString("contact") + ", License: " + rs.getString("license"));
-            }
-        } catch (SQLException ex) {
-            ex.printStackTrace();
-        }
-    }
-
     private void clearCustomerFields(TextField nameField, TextField contactField, TextField licenseField) {
         nameField.clear();
         contactField.clear();
@@ -541,431 +736,970 @@ public class HelloApplication extends Application {
 
     private Tab bookingTab() {
         Tab tab = new Tab("Booking");
-        tab.setStyle("-fx-background-color: #e0e0e0; -fx-background-insets: 0 1 0 1; -fx-background-radius: 5 5 0 0;");
 
         VBox vbox = new VBox(10);
         vbox.setPadding(new Insets(15));
-        vbox.setStyle("-fx-background-color: white; -fx-border-color: #dddddd; -fx-border-radius: 10; -fx-background-radius: 10;");
+        vbox.getStyleClass().add("card");
 
         TextField customerIdField = new TextField();
         customerIdField.setPromptText("Customer ID");
-        customerIdField.setStyle("-fx-background-color: white; -fx-border-color: #cccccc; -fx-border-radius: 5; -fx-background-radius: 5; -fx-padding: 8;");
+        customerIdField.getStyleClass().add("input");
 
         TextField vehicleIdField = new TextField();
         vehicleIdField.setPromptText("Vehicle ID");
-        vehicleIdField.setStyle("-fx-background-color: white; -fx-border-color: #cccccc; -fx-border-radius: 5; -fx-background-radius: 5; -fx-padding: 8;");
+        vehicleIdField.getStyleClass().add("input");
 
         TextField startDateField = new TextField();
         startDateField.setPromptText("Start Date (YYYY-MM-DD)");
-        startDateField.setStyle("-fx-background-color: white; -fx-border-color: #cccccc; -fx-border-radius: 5; -fx-background-radius: 5; -fx-padding: 8;");
+        startDateField.getStyleClass().add("input");
 
         TextField endDateField = new TextField();
         endDateField.setPromptText("End Date (YYYY-MM-DD)");
-        endDateField.setStyle("-fx-background-color: white; -fx-border-color: #cccccc; -fx-border-radius: 5; -fx-background-radius: 5; -fx-padding: 8;");
+        endDateField.getStyleClass().add("input");
 
         Button bookBtn = new Button("Book Vehicle");
-        bookBtn.setStyle("-fx-background-color: #4a90e2; -fx-text-fill: white; -fx-font-weight: bold; -fx-background-radius: 5; -fx-padding: 8 15 8 15;");
+        bookBtn.getStyleClass().add("primary");
 
-        Button logoutBtn = createLogoutButton();
+        Button findFreeBtn = new Button("Find Available Vehicles");
+        findFreeBtn.getStyleClass().add("primary");
 
         Label status = new Label("");
-        status.setStyle("-fx-font-size: 14px;");
+        status.getStyleClass().add("status");
+
+        // Extras offered by the pricing rules, loaded once the tab is first shown
+        HBox extrasBox = new HBox(10, new Label("Extras:"));
+        extrasBox.setAlignment(Pos.CENTER_LEFT);
+        if (backend != null) {
+            db.submit(backend::extras, extras -> {
+                for (PricingEngine.Extra extra : extras) {
+                    CheckBox check = new CheckBox(extra.name() + " (" + extra.perDay() + "/day)");
+                    check.setUserData(extra.name());
+                    extrasBox.getChildren().add(check);
+                }
+            }, ex -> {
+                status.setText("❌ Extras could not be loaded: " + ex.getMessage());
+                Theme.Status.ERROR.applyTo(status);
+            });
+        }
 
-        // Button hover effect
-        setButtonHoverEffect(bookBtn);
+        // Vehicles free for the whole requested period, priced; picking one fills in the Vehicle ID
+        TableView<PricingEngine.Quote> freeVehicleTable = new TableView<>();
+        freeVehicleTable.getColumns().addAll(List.of(
+                tableColumn("ID", PricingEngine.Quote::vehicleId, "id"),
+                tableColumn("Brand", PricingEngine.Quote::brand, "brand"),
+                tableColumn("Category", PricingEngine.Quote::category, "category"),
+                tableColumn("Price/day", PricingEngine.Quote::pricePerDay, "price"),
+                tableColumn("Discount", PricingEngine.Quote::discount, null),
+                tableColumn("Extras", PricingEngine.Quote::extras, null),
+                tableColumn("Total", PricingEngine.Quote::total, null)));
+        freeVehicleTable.setColumnResizePolicy(TableView.CONSTRAINED_RESIZE_POLICY_FLEX_LAST_COLUMN);
+        freeVehicleTable.setPlaceholder(new Label("Enter dates and search to see free vehicles"));
+        freeVehicleTable.setPrefHeight(180);
+        freeVehicleTable.getSelectionModel().selectedItemProperty().addListener((_, _, row) -> {
+            if (row != null) {
+                vehicleIdField.setText(String.valueOf(row.vehicleId()));
+            }
+        });
 
-        bookBtn.setOnAction(e -> {
-            if (connection == null) {
+        Button logoutBtn = createLogoutButton();
+
+        findFreeBtn.setOnAction(_ -> {
+            if (backend == null) {
                 status.setText("❌ No database connection.");
-                status.setStyle("-fx-text-fill: #e74c3c; -fx-font-weight: bold;");
+                Theme.Status.ERROR.applyTo(status);
                 return;
             }
 
             try {
-                int vid = Integer.parseInt(vehicleIdField.getText());
-                PreparedStatement check = connection.prepareStatement("SELECT available, price FROM Vehicle WHERE id=?");
-                check.setInt(1, vid);
-                ResultSet rs = check.executeQuery();
-                if (rs.next() && rs.getBoolean("available")) {
-                    int customerId = Integer.parseInt(customerIdField.getText());
-                    double pricePerDay = rs.getDouble("price");
-                    PreparedStatement book = connection.prepareStatement("INSERT INTO Booking(customer_id, vehicle_id, start_date, end_date) VALUES (?, ?, ?, ?)", Statement.RETURN_GENERATED_KEYS);
-                    book.setInt(1, customerId);
-                    book.setInt(2, vid);
-                    book.setDate(3, Date.valueOf(startDateField.getText()));
-                    book.setDate(4, Date.valueOf(endDateField.getText()));
-                    book.executeUpdate();
-
-                    // Update vehicle availability
-                    PreparedStatement update = connection.prepareStatement("UPDATE Vehicle SET available=false WHERE id=?");
-                    update.setInt(1, vid);
-                    update.execute();
-
-                    // Generate Payment
-                    generatePayment(customerId, vid, pricePerDay, startDateField.getText(), endDateField.getText());
-
-                    status.setText("✅ Booking Successful!");
-                    status.setStyle("-fx-text-fill: #27ae60; -fx-font-weight: bold;");
-                } else {
-                    status.setText("❌ Vehicle not available.");
-                    status.setStyle("-fx-text-fill: #e74c3c; -fx-font-weight: bold;");
-                }
+                LocalDate start = LocalDate.parse(startDateField.getText());
+                LocalDate end = LocalDate.parse(endDateField.getText());
+                Set<String> extras = selectedExtras(extrasBox);
+                db.submitLatest(freeVehicleTable, () -> backend.quoteFree(start, end, extras, FREE_VEHICLE_LIMIT), free -> {
+                    freeVehicleTable.getItems().setAll(free);
+                    status.setText(free.isEmpty() ? "❌ No vehicles free for those dates." : "✅ " + free.size() + " vehicle(s) free for those dates.");
+                    (free.isEmpty() ? Theme.Status.ERROR : Theme.Status.SUCCESS).applyTo(status);
+                }, ex -> {
+                    status.setText("❌ Error: " + ex.getMessage());
+                    Theme.Status.ERROR.applyTo(status);
+                });
             } catch (Exception ex) {
-                status.setText("❌ Error: " + ex.getMessage());
-                status.setStyle("-fx-text-fill: #e74c3c; -fx-font-weight: bold;");
+                status.setText("❌ Please enter valid dates (YYYY-MM-DD).");
+                Theme.Status.ERROR.applyTo(status);
             }
         });
 
-        HBox buttonBox = new HBox(10, bookBtn, logoutBtn);
-        buttonBox.setAlignment(javafx.geometry.Pos.CENTER_LEFT);
-
-        vbox.getChildren().addAll(new Label("📅 Book Vehicle"), customerIdField, vehicleIdField,
-                startDateField, endDateField, buttonBox, status);
-        tab.setContent(vbox);
-        return tab;
-    }
+        bookBtn.setOnAction(_ -> {
+            if (backend == null) {
+                status.setText("❌ No database connection.");
+                Theme.Status.ERROR.applyTo(status);
+                return;
+            }
 
-    private void generatePayment(int customerId, int vehicleId, double pricePerDay, String startDate, String endDate) {
-        try {
-            // Calculate rental duration (in days)
-            long duration = getDaysBetween(java.sql.Date.valueOf(startDate), java.sql.Date.valueOf(endDate));
-            var ref = new Object() {
-                double totalAmount = duration * pricePerDay;
-            };
+            try {
+                int vid = Integer.parseInt(vehicleIdField.getText());
+                int customerId = Integer.parseInt(customerIdField.getText());
+                LocalDate start = LocalDate.parse(startDateField.getText());
+                LocalDate end = LocalDate.parse(endDateField.getText());
 
-            // Include additional services and late fees
-            double additionalServices = 0; // Assume fetching from user input as needed
-            double lateFees = 0; // Assume fetching from user input as needed
+                if (!end.isAfter(start)) {
+                    status.setText("❌ End date must be after start date.");
+                    Theme.Status.ERROR.applyTo(status);
+                    return;
+                }
+                if (start.isBefore(LocalDate.now())) {
+                    status.setText("❌ Start date is in the past.");
+                    Theme.Status.ERROR.applyTo(status);
+                    return;
+                }
 
-            ref.totalAmount += additionalServices + lateFees;
+                Set<String> extras = selectedExtras(extrasBox);
+                bookBtn.setDisable(true); // Prevent double submits while the booking is in flight
+                // Check customer and vehicle against the entity cache and price the rental before anything is written
+                db.submit(() -> new BookingParties(backend.findCustomer(customerId), backend.findVehicle(vid), backend.quote(vid, start, end, extras)), parties -> {
+                    if (parties.customer() == null || parties.vehicle() == null || parties.quote() == null) {
+                        bookBtn.setDisable(false);
+                        if (parties.customer() == null) {
+                            status.setText("❌ No customer with ID " + customerId + ".");
+                        } else if (parties.vehicle() == null) {
+                            status.setText("❌ No vehicle with ID " + vid + ".");
+                        } else {
+                            status.setText("❌ No price could be quoted for vehicle " + vid + "; it may have just been removed.");
+                        }
+                        Theme.Status.ERROR.applyTo(status);
+                        return;
+                    }
+
+                    // Payment method is chosen up front so booking and payment commit together
+                    Optional<String> method = askPaymentMethod(parties.quote());
+                    if (method.isEmpty()) {
+                        bookBtn.setDisable(false);
+                        return;
+                    }
+
+                    db.submitWrite(() -> backend.book(customerId, vid, start, end, extras, method.get()), result -> {
+                        bookBtn.setDisable(false);
+                        if (result.isBooked()) {
+                            BookingService.Confirmation confirmation = result.confirmation();
+                            status.setText("✅ Booking " + confirmation.bookingId() + " Successful! Preparing invoice...");
+                            Theme.Status.SUCCESS.applyTo(status);
+
+                            // Rendered and saved in the background; the booking already stands if this fails
+                            db.submitWrite(() -> backend.issueInvoice(confirmation.paymentId()), invoice -> {
+                                status.setText("✅ Booking " + confirmation.bookingId() + " Successful! Invoice " + invoice.number() + " saved.");
+                                generateInvoice(customerId, vid, confirmation.days(), confirmation.amount(), method.get(), invoice);
+                            }, ex -> {
+                                status.setText("✅ Booking Successful, but the invoice could not be saved: " + ex.getMessage());
+                                Theme.Status.WARNING.applyTo(status);
+                            });
+                        } else {
+                            status.setText(switch (result.refusal()) {
+                                case NO_CUSTOMER -> "❌ No customer with ID " + customerId + ".";
+                                case NO_VEHICLE -> "❌ No vehicle with ID " + vid + ".";
+                                case TAKEN -> "❌ Vehicle not available for those dates.";
+                            });
+                            Theme.Status.ERROR.applyTo(status);
+                        }
+                    }, ex -> {
+                        bookBtn.setDisable(false);
+                        status.setText("❌ Error: " + ex.getMessage());
+                        Theme.Status.ERROR.applyTo(status);
+                    });
+                }, ex -> {
+                    bookBtn.setDisable(false);
+                    status.setText("❌ Error: " + ex.getMessage());
+                    Theme.Status.ERROR.applyTo(status);
+                }).addEventHandler(WorkerStateEvent.WORKER_STATE_CANCELLED, _ -> bookBtn.setDisable(false)); // Nothing written yet
+            } catch (Exception ex) {
+                status.setText("❌ Error: " + ex.getMessage());
+                Theme.Status.ERROR.applyTo(status);
+            }
+        });
 
-            // Ask for payment method
-            ChoiceDialog<String> dialog = new ChoiceDialog<>("Cash", "Cash", "Credit Card", "Online");
-            dialog.setTitle("Payment Method");
-            dialog.setHeaderText("Choose Payment Method");
-            dialog.getDialogPane().setStyle("-fx-background-color: lightblue; -fx-border-color: #dddddd;");
-            Optional<String> result = dialog.showAndWait();
+        // Check-in: the return sweeper only charges overdue rentals, the desk records when they come back
+        TextField returnBookingField = new TextField();
+        returnBookingField.setPromptText("Booking ID");
+        returnBookingField.getStyleClass().add("input");
 
-            result.ifPresent(method -> {
-                try {
-                    PreparedStatement payStmt = connection.prepareStatement("INSERT INTO Payment(booking_id, amount, method) VALUES (?, ?, ?)", Statement.RETURN_GENERATED_KEYS);
-                    payStmt.setInt(1, getLatestBookingId(customerId, vehicleId));
-                    payStmt.setDouble(2, ref.totalAmount);
-                    payStmt.setString(3, method);
-                    payStmt.executeUpdate();
-
-                    // Generate Invoice
-                    generateInvoice(customerId, vehicleId, ref.totalAmount, method, startDate, endDate);
-                } catch (SQLException ex) {
-                    ex.printStackTrace();
+        Button returnBtn = new Button("Return Vehicle");
+        returnBtn.getStyleClass().add("primary");
+        returnBtn.setOnAction(_ -> {
+            if (backend == null) {
+                status.setText("❌ No database connection.");
+                Theme.Status.ERROR.applyTo(status);
+                return;
+            }
+            int bookingId;
+            try {
+                bookingId = Integer.parseInt(returnBookingField.getText().strip());
+            } catch (NumberFormatException ex) {
+                status.setText("❌ Please enter a valid Booking ID.");
+                Theme.Status.ERROR.applyTo(status);
+                return;
+            }
+            returnBtn.setDisable(true);
+            db.submitWrite(() -> backend.returnVehicle(bookingId), done -> {
+                returnBtn.setDisable(false);
+                if (done == null) {
+                    status.setText("❌ No booking with ID " + bookingId + ".");
+                    Theme.Status.ERROR.applyTo(status);
+                } else if (done.daysLate() > 0) {
+                    returnBookingField.clear();
+                    status.setText("⚠ Vehicle " + done.vehicleId() + " returned " + done.daysLate() + " day(s) late; late fee " + done.lateFee() + " charged.");
+                    Theme.Status.WARNING.applyTo(status);
+                } else {
+                    returnBookingField.clear();
+                    status.setText("✅ Vehicle " + done.vehicleId() + " returned.");
+                    Theme.Status.SUCCESS.applyTo(status);
                 }
+            }, ex -> {
+                returnBtn.setDisable(false);
+                status.setText("❌ Error: " + ex.getMessage());
+                Theme.Status.ERROR.applyTo(status);
             });
+        });
 
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
+        HBox returnBox = new HBox(10, returnBookingField, returnBtn);
+        returnBox.setAlignment(Pos.CENTER_LEFT);
+
+        HBox buttonBox = new HBox(10, findFreeBtn, bookBtn, logoutBtn);
+        buttonBox.setAlignment(javafx.geometry.Pos.CENTER_LEFT);
+
+        vbox.getChildren().addAll(new Label("📅 Book Vehicle"),
+                searchBox(SearchService.Kind.CUSTOMER, "Find customer by name, contact or license", customerIdField), customerIdField,
+                startDateField, endDateField, extrasBox, freeVehicleTable,
+                searchBox(SearchService.Kind.VEHICLE, "Find vehicle by brand or category", vehicleIdField), vehicleIdField, buttonBox,
+                new Label("🔑 Return Vehicle"), returnBox, status);
+        tab.setContent(vbox);
+        return tab;
     }
 
-    private long getDaysBetween(Date startDate, Date endDate) {
-        long diffInMillies = endDate.getTime() - startDate.getTime();
-        return java.util.concurrent.TimeUnit.DAYS.convert(diffInMillies, java.util.concurrent.TimeUnit.MILLISECONDS);
+    private Optional<String> askPaymentMethod(PricingEngine.Quote quote) {
+        ChoiceDialog<String> dialog = new ChoiceDialog<>("Cash", "Cash", "Credit Card", "Online");
+        dialog.setTitle("Payment Method");
+        dialog.setHeaderText("Choose Payment Method\nAmount due: " + quote.total() + "\n"
+                + quote.days() + " days " + quote.rental()
+                + (quote.discount().isPositive() ? ", long-rental discount -" + quote.discount() : "")
+                + (quote.extras().isPositive() ? ", extras " + quote.extras() : ""));
+        theme.applyTo(dialog.getDialogPane());
+        return dialog.showAndWait();
     }
 
-    private int getLatestBookingId(int customerId, int vehicleId) throws SQLException {
-        Statement stmt = connection.createStatement();
-        ResultSet rs = stmt.executeQuery("SELECT MAX(id) as max_id FROM Booking WHERE customer_id = " + customerId + " AND vehicle_id = " + vehicleId);
-        if (rs.next()) {
-            return rs.getInt("max_id");
+    // The names of the ticked extras
+    private static Set<String> selectedExtras(HBox extrasBox) {
+        Set<String> selected = new HashSet<>();
+        for (Node node : extrasBox.getChildren()) {
+            if (node instanceof CheckBox check && check.isSelected()) {
+                selected.add((String) check.getUserData());
+            }
         }
-        return -1; // Error or not found
+        return selected;
     }
 
-    private void generateInvoice(int customerId, int vehicleId, double totalAmount, String method, String startDate, String endDate) {
+    // Not modal: the invoice is already on file, so the desk can carry on while it is shown
+    private void generateInvoice(int customerId, int vehicleId, long days, Money totalAmount, String method,
+                                 InvoiceService.Invoice invoice) {
         Alert alert = new Alert(Alert.AlertType.INFORMATION);
         alert.setTitle("Invoice");
-        alert.setHeaderText("Rental Invoice");
+        alert.setHeaderText("Rental Invoice " + invoice.number());
         alert.setContentText("Customer ID: " + customerId + "\n" +
                 "Vehicle ID: " + vehicleId + "\n" +
-                "Rental Duration: " + getDaysBetween(java.sql.Date.valueOf(startDate), java.sql.Date.valueOf(endDate)) + " days\n" +
-                "Total Amount: $" + new DecimalFormat("#.##").format(totalAmount) + "\n" +
-                "Payment Method: " + method);
-
-        alert.getDialogPane().setStyle("-fx-background-color: lightblue; -fx-border-color: #dddddd;");
-        alert.showAndWait();
+                "Rental Duration: " + days + " days\n" +
+                "Total Amount: " + totalAmount + "\n" +
+                "Payment Method: " + method + "\n" +
+                "Saved to: " + invoice.file());
+
+        theme.applyTo(alert.getDialogPane());
+        alert.initModality(Modality.NONE);
+        alert.show();
     }
 
     private Tab reportTab() {
         Tab tab = new Tab("Reports");
-        tab.setStyle("-fx-background-color: #e0e0e0; -fx-background-insets: 0 1 0 1; -fx-background-radius: 5 5 0 0;");
 
         VBox vbox = new VBox(10);
         vbox.setPadding(new Insets(15));
-        vbox.setStyle("-fx-background-color: white; -fx-border-color: #dddddd; -fx-border-radius: 10; -fx-background-radius: 10;");
+        vbox.getStyleClass().add("card");
 
         Button revenueReportBtn = new Button("Generate Revenue Report");
-        revenueReportBtn.setStyle("-fx-background-color: #4a90e2; -fx-text-fill: white; -fx-font-weight: bold; -fx-background-radius: 5; -fx-padding: 8 15 8 15;");
+        revenueReportBtn.getStyleClass().add("primary");
 
         Button rentalHistoryReportBtn = new Button("Generate Rental History Report");
-        rentalHistoryReportBtn.setStyle("-fx-background-color: #4a90e2; -fx-text-fill: white; -fx-font-weight: bold; -fx-background-radius: 5; -fx-padding: 8 15 8 15;");
+        rentalHistoryReportBtn.getStyleClass().add("primary");
 
         Button logoutBtn = createLogoutButton();
 
-        LineChart<String, Number> revenueChart = createRevenueChart();
+        RevenueChart revenueChart = new RevenueChart();
+
+        Label revenueMessage = new Label("");
+        revenueMessage.getStyleClass().add("status");
+        revenueMessage.setVisible(false);
+        revenueMessage.managedProperty().bind(revenueMessage.visibleProperty());
+        Consumer<Throwable> revenueFailed = ex -> {
+            revenueReportBtn.setDisable(false);
+            revenueMessage.setVisible(true);
+            revenueMessage.setText("❌ Revenue report failed: " + ex.getMessage());
+            Theme.Status.ERROR.applyTo(revenueMessage);
+        };
+
+        revenueReportBtn.setOnAction(_ -> {
+            // Disabled until the chart is in, so repeated clicks do not stack up queries and dialogs
+            revenueReportBtn.setDisable(true);
+            revenueMessage.setVisible(false);
+            db.submit(backend::totalRevenue, totalRevenue -> {
+                // The last few years of the daily rollup, bucketed and downsampled by the chart
+                LocalDate today = LocalDate.now();
+                db.submit(() -> backend.dailyRevenue(today.minusYears(REVENUE_CHART_YEARS).withDayOfMonth(1), today), days -> {
+                    revenueChart.setData(days);
+                    revenueReportBtn.setDisable(false);
+                }, revenueFailed).addEventHandler(WorkerStateEvent.WORKER_STATE_CANCELLED, _ -> revenueReportBtn.setDisable(false));
+
+                // Not showAndWait: the chart loads behind the dialog instead of waiting for it to close
+                Alert alert = new Alert(Alert.AlertType.INFORMATION, "Total Revenue: " + totalRevenue
+                        + "\nThe chart shows the last " + REVENUE_CHART_YEARS + " years.");
+                theme.applyTo(alert.getDialogPane());
+                alert.getDialogPane().getStyleClass().add("plain");
+                alert.show();
+            }, revenueFailed).addEventHandler(WorkerStateEvent.WORKER_STATE_CANCELLED, _ -> revenueReportBtn.setDisable(false));
+        });
+
+        // Rental history export: optional start-date range, streamed to a file in the background
+        TextField historyFromField = new TextField();
+        historyFromField.setPromptText("From (YYYY-MM-DD, optional)");
+        historyFromField.getStyleClass().add("input");
+
+        TextField historyToField = new TextField();
+        historyToField.setPromptText("To (YYYY-MM-DD, optional)");
+        historyToField.getStyleClass().add("input");
+
+        // Closed rentals older than the archive cutoff live in separate tables; reading them is opt-in
+        CheckBox includeArchiveBox = new CheckBox("Include archived rentals");
+
+        ProgressBar exportProgress = new ProgressBar(0);
+        exportProgress.setPrefWidth(200);
+
+        Button cancelExportBtn = new Button("Cancel Export");
+        cancelExportBtn.getStyleClass().add("danger");
+
+        Label exportMessage = new Label("");
+        exportMessage.getStyleClass().add("status");
 
-        // Button hover effects
-        setButtonHoverEffect(revenueReportBtn);
-        setButtonHoverEffect(rentalHistoryReportBtn);
+        HBox exportBox = new HBox(10, exportProgress, cancelExportBtn, exportMessage);
+        exportBox.setAlignment(Pos.CENTER_LEFT);
+        exportBox.setVisible(false);
+        exportBox.managedProperty().bind(exportBox.visibleProperty());
 
-        revenueReportBtn.setOnAction(e -> {
-            // Logic to generate revenue report
+        rentalHistoryReportBtn.setOnAction(_ -> {
+            if (backend == null) {
+                exportMessage.setText("❌ Database is not available.");
+                Theme.Status.ERROR.applyTo(exportMessage);
+                exportBox.setVisible(true);
+                return;
+            }
+            if (historyExporter == null) {
+                exportMessage.setText("❌ Export runs on the computer that holds the database, not on a server terminal.");
+                Theme.Status.ERROR.applyTo(exportMessage);
+                exportBox.setVisible(true);
+                return;
+            }
+            LocalDate from;
+            LocalDate to;
             try {
-                Statement stmt = connection.createStatement();
-                ResultSet revenueRs = stmt.executeQuery("SELECT SUM(amount) AS total_revenue FROM Payment");
-                if (revenueRs.next()) {
-                    double totalRevenue = revenueRs.getDouble("total_revenue");
-                    Alert alert = new Alert(Alert.AlertType.INFORMATION, "Total Revenue: $" + totalRevenue);
-                    alert.getDialogPane().setStyle("-fx-background-color: white; -fx-border-color: #dddddd;");
-                    alert.showAndWait();
-                }
-                // Populate revenue chart with dummy data
-                populateRevenueChart(revenueChart);
-            } catch (SQLException ex) {
-                ex.printStackTrace();
+                from = historyFromField.getText().isBlank() ? null : LocalDate.parse(historyFromField.getText().trim());
+                to = historyToField.getText().isBlank() ? null : LocalDate.parse(historyToField.getText().trim());
+            } catch (DateTimeParseException ex) {
+                exportMessage.setText("❌ Invalid date. Use YYYY-MM-DD.");
+                Theme.Status.ERROR.applyTo(exportMessage);
+                exportBox.setVisible(true);
+                return;
             }
+
+            FileChooser chooser = new FileChooser();
+            chooser.setTitle("Export Rental History");
+            chooser.setInitialFileName("rental-history.csv");
+            FileChooser.ExtensionFilter csv = new FileChooser.ExtensionFilter("CSV (*.csv)", "*.csv");
+            FileChooser.ExtensionFilter jsonLines = new FileChooser.ExtensionFilter("JSON Lines (*.jsonl)", "*.jsonl");
+            chooser.getExtensionFilters().addAll(csv, jsonLines);
+            File file = chooser.showSaveDialog(tabPane.getScene().getWindow());
+            if (file == null) {
+                return;
+            }
+            HistoryExporter.Format format = chooser.getSelectedExtensionFilter() == jsonLines || file.getName().endsWith(".jsonl")
+                    ? HistoryExporter.Format.JSON_LINES : HistoryExporter.Format.CSV;
+
+            exportMessage.setText("Exporting...");
+            Theme.Status.NEUTRAL.applyTo(exportMessage);
+            exportBox.setVisible(true);
+            rentalHistoryReportBtn.setDisable(true);
+            cancelExportBtn.setDisable(false);
+
+            boolean includeArchive = includeArchiveBox.isSelected();
+            Task<Long> export = db.submitTracked(progress -> historyExporter.export(file.toPath(), format, from, to, includeArchive, progress), rows -> {
+                rentalHistoryReportBtn.setDisable(false);
+                cancelExportBtn.setDisable(true);
+                exportMessage.setText("✅ Exported " + rows + " bookings to " + file.getName());
+                Theme.Status.SUCCESS.applyTo(exportMessage);
+            }, ex -> {
+                rentalHistoryReportBtn.setDisable(false);
+                cancelExportBtn.setDisable(true);
+                exportMessage.setText("❌ Export failed: " + ex.getMessage());
+                Theme.Status.ERROR.applyTo(exportMessage);
+            });
+            exportProgress.progressProperty().bind(export.progressProperty());
+            // Added as a handler so the AsyncDatabase bookkeeping on cancel still runs
+            export.addEventHandler(WorkerStateEvent.WORKER_STATE_CANCELLED, _ -> {
+                rentalHistoryReportBtn.setDisable(false);
+                cancelExportBtn.setDisable(true);
+                exportMessage.setText("Export cancelled.");
+                Theme.Status.ERROR.applyTo(exportMessage);
+            });
+            // Cooperative cancel: the exporter notices between rows and removes its partial file
+            cancelExportBtn.setOnAction(_ -> export.cancel(false));
         });
 
-        rentalHistoryReportBtn.setOnAction(e -> {
-            // Logic to generate rental history report
+        // Month-end billing: invoices every payment in the range (last month when blank) in the background
+        Button invoiceRunBtn = new Button("Issue Invoices");
+        invoiceRunBtn.getStyleClass().add("primary");
+
+        CheckBox reissueBox = new CheckBox("Re-issue existing invoices");
+
+        ProgressBar invoiceProgress = new ProgressBar(0);
+        invoiceProgress.setPrefWidth(200);
+
+        Button cancelInvoicesBtn = new Button("Cancel Invoices");
+        cancelInvoicesBtn.getStyleClass().add("danger");
+
+        Label invoiceMessage = new Label("");
+        invoiceMessage.getStyleClass().add("status");
+
+        HBox invoiceBox = new HBox(10, invoiceProgress, cancelInvoicesBtn, invoiceMessage);
+        invoiceBox.setAlignment(Pos.CENTER_LEFT);
+        invoiceBox.setVisible(false);
+        invoiceBox.managedProperty().bind(invoiceBox.visibleProperty());
+
+        invoiceRunBtn.setOnAction(_ -> {
+            invoiceBox.setVisible(true);
+            if (invoiceService == null) {
+                invoiceMessage.setText(backend == null ? "❌ Database is not available."
+                        : "❌ Invoice runs happen on the computer that holds the database, not on a server terminal.");
+                Theme.Status.ERROR.applyTo(invoiceMessage);
+                return;
+            }
+            LocalDate lastMonth = LocalDate.now().withDayOfMonth(1).minusMonths(1);
+            LocalDate from;
+            LocalDate to;
             try {
-                Statement stmt = connection.createStatement();
-                ResultSet historyRs = stmt.executeQuery("SELECT * FROM Booking");
-                StringBuilder history = new StringBuilder("Rental History:\n");
-                while (historyRs.next()) {
-                    history.append("Booking ID: ").append(historyRs.getInt("id"))
-                            .append(", Customer ID: ").append(historyRs.getInt("customer_id"))
-                            .append(", Vehicle ID: ").append(historyRs.getInt("vehicle_id"))
-                            .append(", Start Date: ").append(historyRs.getDate("start_date"))
-                            .append(", End Date: ").append(historyRs.getDate("end_date")).append("\n");
-                }
-                Alert alert = new Alert(Alert.AlertType.INFORMATION, history.toString());
-                alert.getDialogPane().setStyle("-fx-background-color: lightblue; -fx-border-color: #dddddd;");
-                alert.showAndWait();
-            } catch (SQLException ex) {
-                ex.printStackTrace();
+                from = historyFromField.getText().isBlank() ? lastMonth : LocalDate.parse(historyFromField.getText().trim());
+                to = historyToField.getText().isBlank() ? lastMonth.plusMonths(1).minusDays(1) : LocalDate.parse(historyToField.getText().trim());
+            } catch (DateTimeParseException ex) {
+                invoiceMessage.setText("❌ Invalid date. Use YYYY-MM-DD.");
+                Theme.Status.ERROR.applyTo(invoiceMessage);
+                return;
             }
+            boolean reissue = reissueBox.isSelected();
+
+            invoiceMessage.setText("Issuing invoices for " + from + " to " + to + "...");
+            Theme.Status.NEUTRAL.applyTo(invoiceMessage);
+            invoiceRunBtn.setDisable(true);
+            cancelInvoicesBtn.setDisable(false);
+
+            Task<InvoiceService.Run> run = db.submitTracked(progress -> invoiceService.issueRange(from, to, reissue, progress), result -> {
+                invoiceRunBtn.setDisable(false);
+                cancelInvoicesBtn.setDisable(true);
+                invoiceMessage.setText("✅ Rendered " + result.rendered() + " invoices (" + result.created() + " new) to " + InvoiceService.DEFAULT_DIRECTORY);
+                Theme.Status.SUCCESS.applyTo(invoiceMessage);
+            }, ex -> {
+                invoiceRunBtn.setDisable(false);
+                cancelInvoicesBtn.setDisable(true);
+                invoiceMessage.setText("❌ Invoice run failed: " + ex.getMessage());
+                Theme.Status.ERROR.applyTo(invoiceMessage);
+            });
+            invoiceProgress.progressProperty().bind(run.progressProperty());
+            run.addEventHandler(WorkerStateEvent.WORKER_STATE_CANCELLED, _ -> {
+                invoiceRunBtn.setDisable(false);
+                cancelInvoicesBtn.setDisable(true);
+                invoiceMessage.setText("Invoice run cancelled; invoices already rendered are kept.");
+                Theme.Status.ERROR.applyTo(invoiceMessage);
+            });
+            cancelInvoicesBtn.setOnAction(_ -> run.cancel(false));
         });
 
-        HBox buttonBox = new HBox(10, revenueReportBtn, rentalHistoryReportBtn, logoutBtn);
+        HBox buttonBox = new HBox(10, revenueReportBtn, rentalHistoryReportBtn, invoiceRunBtn, logoutBtn);
         buttonBox.setAlignment(javafx.geometry.Pos.CENTER_LEFT);
 
-        vbox.getChildren().addAll(buttonBox, revenueChart);
+        HBox historyRangeBox = new HBox(10, historyFromField, historyToField, includeArchiveBox, reissueBox);
+        historyRangeBox.setAlignment(Pos.CENTER_LEFT);
+
+        vbox.getChildren().addAll(buttonBox, revenueMessage, historyRangeBox, exportBox, invoiceBox, revenueChart.node());
+        tab.setContent(vbox);
+        return tab;
+    }
+
+    // Pool and cache figures for the Diagnostics tab and its export; heap gauges are built into Metrics
+    private void registerGauges(LocalBackend local) {
+        RentalRepository repository = local.repository();
+        Metrics.gauge("pool.open", pool::openConnections);
+        Metrics.gauge("pool.idle", pool::idleConnections);
+        Metrics.gauge("pool.busy", pool::busyConnections);
+        Metrics.gauge("statements.cache.hits", pool::statementCacheHits);
+        Metrics.gauge("statements.cache.misses", pool::statementCacheMisses);
+        Metrics.gauge("cache.vehicles.hits", () -> repository.vehicleCache().stats().hits());
+        Metrics.gauge("cache.vehicles.misses", () -> repository.vehicleCache().stats().misses());
+        Metrics.gauge("cache.vehicles.size", () -> repository.vehicleCache().stats().size());
+        Metrics.gauge("cache.customers.hits", () -> repository.customerCache().stats().hits());
+        Metrics.gauge("cache.customers.misses", () -> repository.customerCache().stats().misses());
+        Metrics.gauge("cache.customers.size", () -> repository.customerCache().stats().size());
+    }
+
+    // Occupancy of the whole fleet over time, painted on a canvas; see FleetCalendar
+    private Tab calendarTab() {
+        Tab tab = new Tab("Fleet Calendar");
+
+        VBox vbox = new VBox(10);
+        vbox.setPadding(new Insets(15));
+        vbox.getStyleClass().add("card");
+
+        Label titleLabel = new Label("🗓 Fleet Calendar");
+        titleLabel.getStyleClass().add("title");
+
+        FleetCalendar calendar = new FleetCalendar(db, backend, changeFeed);
+        VBox.setVgrow(calendar.node(), Priority.ALWAYS);
+        calendar.reload();
+
+        vbox.getChildren().addAll(titleLabel, calendar.node(), createLogoutButton());
         tab.setContent(vbox);
         return tab;
     }
 
-    private LineChart<String, Number> createRevenueChart() {
-        CategoryAxis xAxis = new CategoryAxis();
-        NumberAxis yAxis = new NumberAxis();
-        xAxis.setLabel("Month");
-        yAxis.setLabel("Revenue ($)");
+    // Utilization, revenue and idle time per vehicle and per category, over a chosen period
+    private Tab analyticsTab() {
+        Tab tab = new Tab("Fleet Analytics");
 
-        LineChart<String, Number> lineChart = new LineChart<>(xAxis, yAxis);
-        lineChart.setTitle("Monthly Revenue");
-        lineChart.setStyle("-fx-background-color: lightblue; -fx-border-color: #dddddd; -fx-border-radius: 5; -fx-background-radius: 5; -fx-padding: 15;");
-        return lineChart;
+        VBox vbox = new VBox(10);
+        vbox.setPadding(new Insets(15));
+        vbox.getStyleClass().add("card");
+
+        Label titleLabel = new Label("📊 Fleet Analytics");
+        titleLabel.getStyleClass().add("title");
+
+        TextField fromField = new TextField();
+        fromField.setPromptText("From (YYYY-MM-DD, default a year ago)");
+        fromField.getStyleClass().add("input");
+        TextField toField = new TextField();
+        toField.setPromptText("To (YYYY-MM-DD, default today)");
+        toField.getStyleClass().add("input");
+        Button analyzeBtn = new Button("Analyze Fleet");
+        analyzeBtn.getStyleClass().add("primary");
+        Label analyticsMessage = new Label();
+        analyticsMessage.getStyleClass().add("status");
+
+        TableView<FleetAnalytics.CategoryStats> categoryTable = new TableView<>();
+        categoryTable.getColumns().addAll(List.of(
+                tableColumn("Category", FleetAnalytics.CategoryStats::category, null),
+                tableColumn("Vehicles", FleetAnalytics.CategoryStats::vehicles, null),
+                tableColumn("Bookings", FleetAnalytics.CategoryStats::bookings, null),
+                tableColumn("Days rented", FleetAnalytics.CategoryStats::rentedDays, null),
+                tableColumn("Days idle", FleetAnalytics.CategoryStats::idleDays, null),
+                tableColumn("Utilization (%)", c -> percent(c.utilization()), null),
+                tableColumn("Revenue", c -> Money.of(c.revenueCents()), null)));
+        categoryTable.setColumnResizePolicy(TableView.CONSTRAINED_RESIZE_POLICY_FLEX_LAST_COLUMN);
+        categoryTable.setPrefHeight(150);
+        categoryTable.getStyleClass().add("panel");
+
+        // Most idle first: the ranking fleet managers asked for; any column re-ranks it
+        TableView<FleetAnalytics.VehicleStats> vehicleTable = new TableView<>();
+        TableColumn<FleetAnalytics.VehicleStats, Object> idleColumn = tableColumn("Days idle", FleetAnalytics.VehicleStats::idleDays, null);
+        idleColumn.setSortType(TableColumn.SortType.DESCENDING);
+        vehicleTable.getColumns().addAll(List.of(
+                tableColumn("ID", FleetAnalytics.VehicleStats::vehicleId, null),
+                tableColumn("Brand", FleetAnalytics.VehicleStats::label, null),
+                tableColumn("Category", FleetAnalytics.VehicleStats::category, null),
+                tableColumn("Bookings", FleetAnalytics.VehicleStats::bookings, null),
+                tableColumn("Days rented", FleetAnalytics.VehicleStats::rentedDays, null),
+                idleColumn,
+                tableColumn("Utilization (%)", v -> percent(v.utilization()), null),
+                tableColumn("Revenue", v -> Money.of(v.revenueCents()), null)));
+        vehicleTable.getSortOrder().add(idleColumn);
+        vehicleTable.setColumnResizePolicy(TableView.CONSTRAINED_RESIZE_POLICY_FLEX_LAST_COLUMN);
+        vehicleTable.getStyleClass().add("panel");
+        VBox.setVgrow(vehicleTable, Priority.ALWAYS);
+
+        analyzeBtn.setOnAction(_ -> {
+            LocalDate from;
+            LocalDate to;
+            try {
+                to = toField.getText().isBlank() ? LocalDate.now() : LocalDate.parse(toField.getText().trim());
+                from = fromField.getText().isBlank() ? to.minusYears(1).plusDays(1) : LocalDate.parse(fromField.getText().trim());
+            } catch (DateTimeParseException ex) {
+                analyticsMessage.setText("❌ Dates must be YYYY-MM-DD.");
+                Theme.Status.ERROR.applyTo(analyticsMessage);
+                return;
+            }
+            if (to.isBefore(from)) {
+                analyticsMessage.setText("❌ The period ends before it starts.");
+                Theme.Status.ERROR.applyTo(analyticsMessage);
+                return;
+            }
+
+            analyzeBtn.setDisable(true);
+            analyticsMessage.setText("Analyzing " + from + " to " + to + "...");
+            Theme.Status.NEUTRAL.applyTo(analyticsMessage);
+            long started = System.nanoTime();
+            db.submit(() -> backend.fleetAnalytics(from, to), report -> {
+                analyzeBtn.setDisable(false);
+                categoryTable.getItems().setAll(report.categories());
+                vehicleTable.getItems().setAll(report.vehicles());
+                vehicleTable.sort();
+                analyticsMessage.setText("✅ " + report.vehicles().size() + " vehicles over " + report.days() + " days: "
+                        + percent(report.utilization()) + "% utilized, " + Money.of(report.revenueCents()) + " revenue ("
+                        + (System.nanoTime() - started) / 1_000_000 + " ms).");
+                Theme.Status.SUCCESS.applyTo(analyticsMessage);
+            }, ex -> {
+                analyzeBtn.setDisable(false);
+                analyticsMessage.setText("❌ Analysis failed: " + ex.getMessage());
+                Theme.Status.ERROR.applyTo(analyticsMessage);
+            }).addEventHandler(WorkerStateEvent.WORKER_STATE_CANCELLED, _ -> {
+                analyzeBtn.setDisable(false);
+                analyticsMessage.setText("Analysis cancelled.");
+                Theme.Status.NEUTRAL.applyTo(analyticsMessage);
+            });
+        });
+
+        HBox rangeBox = new HBox(10, fromField, toField, analyzeBtn, createLogoutButton());
+        rangeBox.setAlignment(Pos.CENTER_LEFT);
+
+        vbox.getChildren().addAll(titleLabel, rangeBox, analyticsMessage, new Label("By category"), categoryTable,
+                new Label("By vehicle"), vehicleTable);
+        tab.setContent(vbox);
+        return tab;
     }
 
-    private void populateRevenueChart(LineChart<String, Number> chart) {
-        // Dummy data for chart
-        XYChart.Series<String, Number> series = new XYChart.Series<>();
-        series.setName("2023 Revenue");
-        series.getData().add(new XYChart.Data<>("January", 5000));
-        series.getData().add(new XYChart.Data<>("February", 7000));
-        series.getData().add(new XYChart.Data<>("March", 8000));
-        chart.getData().add(series);
+    // Rounded for display but still numbers, so the columns sort numerically; BigDecimal never prints as 1.2E7
+    private static BigDecimal percent(double fraction) {
+        return BigDecimal.valueOf(fraction * 100).setScale(1, RoundingMode.HALF_UP);
+    }
+
+    private Tab diagnosticsTab() {
+        Tab tab = new Tab("Diagnostics");
+
+        VBox vbox = new VBox(10);
+        vbox.setPadding(new Insets(15));
+        vbox.getStyleClass().add("card");
+
+        Label titleLabel = new Label("📈 Diagnostics");
+        titleLabel.getStyleClass().add("title");
+
+        Label summaryLabel = new Label();
+        summaryLabel.getStyleClass().add("status");
+
+        // Latency per SQL statement, UI action and FX measurement; sorted by total time until the user re-sorts
+        TableView<LatencyHistogram.Snapshot> timerTable = new TableView<>();
+        timerTable.getColumns().addAll(List.of(
+                tableColumn("Operation", LatencyHistogram.Snapshot::name, null),
+                tableColumn("Count", LatencyHistogram.Snapshot::count, null),
+                tableColumn("Total (ms)", t -> millis(t.totalNanos()), null),
+                tableColumn("Mean (ms)", t -> millis(t.meanNanos()), null),
+                tableColumn("p50 (ms)", t -> millis(t.p50()), null),
+                tableColumn("p95 (ms)", t -> millis(t.p95()), null),
+                tableColumn("p99 (ms)", t -> millis(t.p99()), null),
+                tableColumn("Max (ms)", t -> millis(t.max()), null)));
+        timerTable.getColumns().get(0).setPrefWidth(320);
+        timerTable.setPrefHeight(300);
+        timerTable.getStyleClass().add("panel");
+
+        ListView<String> figuresList = new ListView<>();
+        figuresList.setPrefHeight(150);
+        ListView<String> errorsList = new ListView<>();
+        errorsList.setPrefHeight(150);
+        HBox listsBox = new HBox(10, new VBox(5, new Label("Counters and gauges"), figuresList), new VBox(5, new Label("Recent errors"), errorsList));
+        HBox.setHgrow(listsBox.getChildren().get(0), Priority.ALWAYS);
+        HBox.setHgrow(listsBox.getChildren().get(1), Priority.ALWAYS);
+
+        Runnable update = () -> {
+            Map<String, Long> counters = Metrics.counters();
+            Map<String, Long> gauges = Metrics.gauges();
+            summaryLabel.setText("Heap " + gauges.get("heap.used.mb") + " / " + gauges.get("heap.committed.mb") + " MB"
+                    + "   Connections " + gauges.getOrDefault("pool.busy", 0L) + " busy / " + gauges.getOrDefault("pool.open", 0L) + " open"
+                    + "   FX stalls " + counters.getOrDefault("fx.stalls", 0L)
+                    + "   Errors " + counters.getOrDefault("errors", 0L));
+            timerTable.getItems().setAll(Metrics.timers());
+            timerTable.sort();
+            List<String> figures = new ArrayList<>();
+            counters.forEach((name, value) -> figures.add(name + " = " + value));
+            gauges.forEach((name, value) -> figures.add(name + " = " + value));
+            figuresList.getItems().setAll(figures);
+            errorsList.getItems().setAll(Metrics.recentErrors());
+        };
+
+        // Live while the tab is showing, idle otherwise
+        Timeline ticker = new Timeline(new KeyFrame(Duration.seconds(1), _ -> update.run()));
+        ticker.setCycleCount(Timeline.INDEFINITE);
+        tab.selectedProperty().addListener((_, _, selected) -> {
+            if (selected) {
+                update.run();
+                ticker.play();
+            } else {
+                ticker.stop();
+            }
+        });
+
+        Label diagnosticsMessage = new Label("");
+        diagnosticsMessage.getStyleClass().add("status");
+
+        Button exportBtn = new Button("Export CSV...");
+        exportBtn.getStyleClass().add("primary");
+        exportBtn.setOnAction(_ -> {
+            FileChooser chooser = new FileChooser();
+            chooser.setTitle("Export Diagnostics");
+            chooser.setInitialFileName("diagnostics.csv");
+            chooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("CSV (*.csv)", "*.csv"));
+            File file = chooser.showSaveDialog(tabPane.getScene().getWindow());
+            if (file == null) {
+                return;
+            }
+            db.submit(() -> {
+                Metrics.export(file.toPath());
+                return null;
+            }, _ -> {
+                diagnosticsMessage.setText("✅ Exported to " + file.getName());
+                Theme.Status.SUCCESS.applyTo(diagnosticsMessage);
+            }, ex -> {
+                diagnosticsMessage.setText("❌ Export failed: " + ex.getMessage());
+                Theme.Status.ERROR.applyTo(diagnosticsMessage);
+            });
+        });
+
+        Button resetBtn = new Button("Reset");
+        resetBtn.getStyleClass().add("danger");
+        resetBtn.setOnAction(_ -> {
+            Metrics.reset();
+            update.run();
+        });
+
+        Button logoutBtn = createLogoutButton();
+
+        HBox buttonBox = new HBox(10, exportBtn, resetBtn, logoutBtn, diagnosticsMessage);
+        buttonBox.setAlignment(Pos.CENTER_LEFT);
+
+        vbox.getChildren().addAll(titleLabel, summaryLabel, timerTable, listsBox, buttonBox);
+        tab.setContent(vbox);
+        return tab;
+    }
+
+    // Milliseconds with three decimals, as a number so the column sorts numerically
+    private static double millis(long nanos) {
+        return Math.round(nanos / 1_000.0) / 1_000.0;
     }
 
     private Tab paymentTab() {
         Tab tab = new Tab("Payment & Billing");
-        tab.setStyle("-fx-background-color: #e0e0e0; -fx-background-insets: 0 1 0 1; -fx-background-radius: 5 5 0 0;");
 
         VBox vbox = new VBox(10);
         vbox.setPadding(new Insets(15));
-        vbox.setStyle("-fx-background-color: white; -fx-border-color: #dddddd; -fx-border-radius: 10; -fx-background-radius: 10;");
+        vbox.getStyleClass().add("card");
 
         Label dashboardLabel = new Label("💰 Payment & Billing Dashboard");
-        dashboardLabel.setStyle("-fx-font-size: 18px; -fx-font-weight: bold; -fx-text-fill: #2c3e50;");
-
-        ListView<String> paymentListView = new ListView<>();
-        paymentListView.setStyle("-fx-background-color: white; -fx-border-color: #dddddd; -fx-border-radius: 5; -fx-background-radius: 5;");
+        dashboardLabel.getStyleClass().add("title");
+
+        LazyTableModel<PaymentRow> paymentModel = new LazyTableModel<>(db, backend.payments(), PAGE_SIZE);
+        changeFeed.subscribe(ChangeFeed.Table.PAYMENT, paymentModel::applyChanges);
+        TableView<PaymentRow> paymentTable = new TableView<>();
+        paymentTable.getColumns().addAll(List.of(
+                tableColumn("Payment ID", PaymentRow::id, "id"),
+                tableColumn("Booking ID", PaymentRow::bookingId, "booking_id"),
+                tableColumn("Amount", PaymentRow::amount, "amount"),
+                tableColumn("Method", PaymentRow::method, "method")));
+        paymentTable.setColumnResizePolicy(TableView.CONSTRAINED_RESIZE_POLICY_FLEX_LAST_COLUMN);
+        paymentTable.getStyleClass().add("panel");
+        paymentModel.attach(paymentTable);
+
+        TextField paymentFilterField = filterField("Filter by method", paymentModel);
 
         Button refreshPaymentBtn = new Button("Refresh Payments");
-        refreshPaymentBtn.setStyle("-fx-background-color: #4a90e2; -fx-text-fill: white; -fx-font-weight: bold; -fx-background-radius: 5; -fx-padding: 8 15 8 15;");
+        refreshPaymentBtn.getStyleClass().add("primary");
 
         // Payment Input Fields
         TextField bookingIdField = new TextField();
         bookingIdField.setPromptText("Booking ID");
-        bookingIdField.setStyle("-fx-background-color: white; -fx-border-color: #cccccc; -fx-border-radius: 5; -fx-background-radius: 5; -fx-padding: 8;");
+        bookingIdField.getStyleClass().add("input");
 
         TextField amountField = new TextField();
         amountField.setPromptText("Amount");
-        amountField.setStyle("-fx-background-color: white; -fx-border-color: #cccccc; -fx-border-radius: 5; -fx-background-radius: 5; -fx-padding: 8;");
+        amountField.getStyleClass().add("input");
 
         ComboBox<String> paymentMethodCombo = new ComboBox<>(FXCollections.observableArrayList("Cash", "Credit Card", "Online"));
-        paymentMethodCombo.setStyle("-fx-background-color: white; -fx-border-color: #cccccc; -fx-border-radius: 5; -fx-background-radius: 5; -fx-padding: 8;");
+        paymentMethodCombo.getStyleClass().add("input");
 
         Button submitPaymentBtn = new Button("Submit Payment");
-        submitPaymentBtn.setStyle("-fx-background-color: #4a90e2; -fx-text-fill: white; -fx-font-weight: bold; -fx-background-radius: 5; -fx-padding: 8 15 8 15;");
+        submitPaymentBtn.getStyleClass().add("primary");
 
         Button logoutBtn = createLogoutButton();
 
         Label paymentMessage = new Label("");
-        paymentMessage.setStyle("-fx-font-size: 14px;");
+        paymentMessage.getStyleClass().add("status");
+        paymentModel.reportErrorsTo(paymentMessage);
 
-        // Button hover effects
-        setButtonHoverEffect(refreshPaymentBtn);
-        setButtonHoverEffect(submitPaymentBtn);
 
         // Handler for Submitting Payments
-        submitPaymentBtn.setOnAction(e -> {
-            if (connection == null) {
+        submitPaymentBtn.setOnAction(_ -> {
+            if (backend == null) {
                 paymentMessage.setText("❌ No database connection.");
-                paymentMessage.setStyle("-fx-text-fill: #e74c3c; -fx-font-weight: bold;");
+                Theme.Status.ERROR.applyTo(paymentMessage);
                 return;
             }
 
             try {
                 int bookingId = Integer.parseInt(bookingIdField.getText());
-                double amount = Double.parseDouble(amountField.getText());
+                Money amount = Money.parse(amountField.getText());
+                if (!amount.isPositive()) {
+                    paymentMessage.setText("❌ Amount must be positive.");
+                    Theme.Status.ERROR.applyTo(paymentMessage);
+                    return;
+                }
                 String paymentMethod = paymentMethodCombo.getValue();
 
-                PreparedStatement ps = connection.prepareStatement("INSERT INTO Payment(booking_id, amount, method) VALUES (?, ?, ?)");
-                ps.setInt(1, bookingId);
-                ps.setDouble(2, amount);
-                ps.setString(3, paymentMethod);
-                ps.executeUpdate();
-
-                paymentMessage.setText("✅ Payment Successful!");
-                paymentMessage.setStyle("-fx-text-fill: #27ae60; -fx-font-weight: bold;");
-
-                // Refresh Payment List
-                refreshPaymentList(paymentListView);
+                db.submitWrite(() -> backend.addPayment(bookingId, amount, paymentMethod), _ -> {
+                    paymentMessage.setText("✅ Payment Successful!");
+                    Theme.Status.SUCCESS.applyTo(paymentMessage);
+                }, ex -> {
+                    paymentMessage.setText("❌ Error: " + ex.getMessage());
+                    Theme.Status.ERROR.applyTo(paymentMessage);
+                });
             } catch (Exception ex) {
                 paymentMessage.setText("❌ Error: " + ex.getMessage());
-                paymentMessage.setStyle("-fx-text-fill: #e74c3c; -fx-font-weight: bold;");
+                Theme.Status.ERROR.applyTo(paymentMessage);
             }
         });
 
         // Refresh Payments Action
-        refreshPaymentBtn.setOnAction(e -> refreshPaymentList(paymentListView));
+        refreshPaymentBtn.setOnAction(_ -> paymentModel.refresh());
 
         HBox buttonBox = new HBox(10, submitPaymentBtn, logoutBtn);
         buttonBox.setAlignment(javafx.geometry.Pos.CENTER_LEFT);
 
-        vbox.getChildren().addAll(dashboardLabel, refreshPaymentBtn, paymentListView,
-                new Label("Process Payment"), bookingIdField, amountField, paymentMethodCombo,
+        vbox.getChildren().addAll(dashboardLabel, new HBox(10, refreshPaymentBtn, paymentFilterField), paymentTable,
+                new Label("Process Payment"),
+                searchBox(SearchService.Kind.BOOKING, "Find booking by customer, vehicle or date", bookingIdField), bookingIdField,
+                amountField, paymentMethodCombo,
                 buttonBox, paymentMessage);
         tab.setContent(vbox);
         return tab;
     }
 
-    private void refreshPaymentList(ListView<String> paymentListView) {
-        paymentListView.getItems().clear();
-        try {
-            Statement stmt = connection.createStatement();
-            ResultSet rs = stmt.executeQuery("SELECT id, booking_id, amount, method FROM Payment");
-            while (rs.next()) {
-                paymentListView.getItems().add("Payment ID: " + rs.getInt("id") + ", Booking ID: " + rs.getInt("booking_id") +
-                        ", Amount: $" + rs.getDouble("amount") + ", Method: " + rs.getString("method"));
-            }
-        } catch (SQLException ex) {
-            ex.printStackTrace();
-        }
-    }
-
     private Tab loginTab() {
         Tab tab = new Tab("Login");
-        tab.setStyle("-fx-background-color: #e0e0e0; -fx-background-insets: 0 1 0 1; -fx-background-radius: 5 5 0 0;");
 
         VBox vbox = new VBox(10);
         vbox.setPadding(new Insets(15));
-        vbox.setStyle("-fx-background-color: blue; -fx-border-color: #dddddd; -fx-border-radius: 10; -fx-background-radius: 10;");
+        vbox.getStyleClass().addAll("card", "hero");
         vbox.setAlignment(Pos.CENTER);
 
         // Add logo
         Label logoLabel = new Label("🚗 Rent a Car with affodable Prices");
-        logoLabel.setFont(Font.font("Segoe UI", FontWeight.BOLD, 36));
-        logoLabel.setTextFill(Color.web("#2c3e50"));
-        DropShadow logoShadow = new DropShadow(8, 3, 3, Color.GRAY);
-        logoLabel.setEffect(logoShadow);
+        logoLabel.getStyleClass().add("logo");
 
         TextField userField = new TextField();
         userField.setPromptText("Username");
-        userField.setStyle("-fx-background-color: white; -fx-border-color: #cccccc; -fx-border-radius: 5; -fx-background-radius: 5; -fx-padding: 8;");
+        userField.getStyleClass().add("input");
 
         PasswordField passField = new PasswordField();
         passField.setPromptText("Password");
-        passField.setStyle("-fx-background-color: white; -fx-border-color: #cccccc; -fx-border-radius: 5; -fx-background-radius: 5; -fx-padding: 8;");
+        passField.getStyleClass().add("input");
 
         Button loginBtn = new Button("Login");
-        loginBtn.setStyle("-fx-background-color: #4a90e2; -fx-text-fill: white; -fx-font-weight: bold; -fx-background-radius: 5; -fx-padding: 8 15 8 15;");
+        loginBtn.getStyleClass().add("primary");
 
         Button logoutBtn = new Button("Logout");
-        logoutBtn.setStyle("-fx-background-color: #e74c3c; -fx-text-fill: white; -fx-font-weight: bold; -fx-background-radius: 5; -fx-padding: 8 15 8 15;");
+        logoutBtn.getStyleClass().add("danger");
 
         Label loginMsg = new Label("");
-        loginMsg.setStyle("-fx-font-size: 14px;");
-
-        // Button hover effect
-        setButtonHoverEffect(loginBtn);
-        setButtonHoverEffect(logoutBtn);
+        loginMsg.getStyleClass().add("status");
+
+
+        // Logging in builds the role's tabs, which need the database; wait until it is open, and stay
+        // locked out if it could not be, so no tab or handler ever runs without a backend
+        loginBtn.setDisable(true);
+        loginMsg.setText("⏳ Opening database...");
+        databaseStarting.addListener((_, _, starting) -> {
+            if (!starting) {
+                loginBtn.setDisable(backend == null);
+                loginMsg.setText(backend == null ? "❌ Database connection error: " + startupError + " Restart the application to try again." : "");
+                (backend == null ? Theme.Status.ERROR : Theme.Status.NEUTRAL).applyTo(loginMsg);
+            }
+        });
 
-        loginBtn.setOnAction(e -> {
+        loginBtn.setOnAction(_ -> {
             String user = userField.getText();
             String pass = passField.getText();
             if ("admin".equals(user) && "admin123".equals(pass)) {
                 currentUserRole = "admin";
                 loginMsg.setText("✅ Admin Login Successful! Role: " + currentUserRole);
-                loginMsg.setStyle("-fx-text-fill: #27ae60; -fx-font-weight: bold;");
-                setTabAccess(true, true, false, false, true); // Admin: Vehicle, Customer, Reports
+                Theme.Status.SUCCESS.applyTo(loginMsg);
+                setTabAccess(true, true, false, false, true, true, true, true); // Admin: Vehicle, Customer, Reports, Diagnostics, Calendar, Analytics
                 userField.clear();
                 passField.clear();
             } else if ("employee".equals(user) && "emp123".equals(pass)) {
                 currentUserRole = "employee";
                 loginMsg.setText("✅ Employee Login Successful! Role: " + currentUserRole);
-                loginMsg.setStyle("-fx-text-fill: #27ae60; -fx-font-weight: bold;");
-                setTabAccess(false, false, true, true, false); // Employee: Booking, Payment
+                Theme.Status.SUCCESS.applyTo(loginMsg);
+                setTabAccess(false, false, true, true, false, false, true, false); // Employee: Booking, Payment, Calendar
                 userField.clear();
                 passField.clear();
             } else {
                 loginMsg.setText("❌ Invalid credentials.");
-                loginMsg.setStyle("-fx-text-fill: #e74c3c; -fx-font-weight: bold;");
+                Theme.Status.ERROR.applyTo(loginMsg);
             }
         });
 
-        logoutBtn.setOnAction(e -> {
+        logoutBtn.setOnAction(_ -> {
             currentUserRole = ""; // Reset the role
+            db.cancelAll(); // Drop any work still running for this session
             loginMsg.setText(""); // Clear the login message
             userField.clear(); // Clear username field
             passField.clear(); // Clear password field
-            setTabAccess(false, false, false, false, false); // Disable all tabs
+            setTabAccess(false, false, false, false, false, false, false, false); // Disable all tabs
             tabPane.getSelectionModel().select(tab); // Reset to the login tab
         });
 
         HBox buttonBox = new HBox(10, loginBtn, logoutBtn);
         buttonBox.setAlignment(javafx.geometry.Pos.CENTER_LEFT);
 
-        vbox.getChildren().addAll(logoLabel, new Label("🔐 User Login"), userField, passField, buttonBox, loginMsg);
+        // Switches the whole window at once, including dialogs opened afterwards
+        ChoiceBox<Theme> themeChoice = new ChoiceBox<>(FXCollections.observableArrayList(Theme.values()));
+        themeChoice.setValue(theme);
+        themeChoice.setOnAction(_ -> {
+            if (themeChoice.getValue() != theme) {
+                theme = themeChoice.getValue();
+                theme.applyTo(tabPane.getScene());
+            }
+        });
+        HBox themeBox = new HBox(10, new Label("🎨 Theme"), themeChoice);
+        themeBox.setAlignment(Pos.CENTER_LEFT);
+
+        vbox.getChildren().addAll(logoLabel, new Label("🔐 User Login"), userField, passField, buttonBox, loginMsg, themeBox);
         tab.setContent(vbox);
         return tab;
     }
 
-    private void setTabAccess(boolean vehicle, boolean customer, boolean booking, boolean payment, boolean report) {
-        tabPane.getTabs().get(0).setDisable(!vehicle);   // Vehicle Tab
-        tabPane.getTabs().get(1).setDisable(!customer);  // Customer Tab
-        tabPane.getTabs().get(2).setDisable(!booking);   // Booking Tab
-        tabPane.getTabs().get(3).setDisable(!payment);   // Payment Tab
-        tabPane.getTabs().get(5).setDisable(!report);    // Report Tab
+    private void setTabAccess(boolean vehicle, boolean customer, boolean booking, boolean payment, boolean report, boolean diagnostics,
+                              boolean calendar, boolean analytics) {
+        enableTab(0, vehicle);   // Vehicle Tab
+        enableTab(1, customer);  // Customer Tab
+        enableTab(2, booking);   // Booking Tab
+        enableTab(3, payment);   // Payment Tab
+        enableTab(5, report);    // Report Tab
+        enableTab(6, diagnostics); // Diagnostics Tab
+        enableTab(7, calendar);  // Fleet Calendar Tab
+        enableTab(8, analytics); // Fleet Analytics Tab
         tabPane.getTabs().get(4).setDisable(false);      // Login Tab always enabled
     }
-}
\ No newline at end of file
+
+    private void enableTab(int index, boolean enabled) {
+        if (enabled) {
+            Supplier<Tab> builder = pendingTabs.remove(index);
+            if (builder != null) {
+                tabPane.getTabs().set(index, builder.get()); // First use: swap the placeholder for the real tab
+            }
+        }
+        tabPane.getTabs().get(index).setDisable(!enabled);
+    }
+}
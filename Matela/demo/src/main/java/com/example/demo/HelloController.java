@@ -7,6 +7,10 @@ public class HelloController {
     @FXML
     private Label welcomeText;
 
+    /** Called by the FXML loader. */
+    public HelloController() {
+    }
+
     @FXML
     protected void onHelloButtonClick() {
         welcomeText.setText("Welcome to JavaFX Application!");
@@ -0,0 +1,162 @@
+package com.example.demo;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+
+/**
+ * Streams the rental history to a CSV or JSON Lines file. Rows go straight from the result set to
+ * a buffered writer, so memory use does not grow with the number of bookings. The file is written
+ * to a temporary sibling and only moved into place once complete, so a cancelled or failed export
+ * never leaves a truncated file behind. Rentals moved out by {@link ArchiveService} are included
+ * when asked for, ahead of the live ones.
+ */
+public class HistoryExporter {
+
+    public enum Format {
+        CSV("csv"), JSON_LINES("jsonl");
+
+        private final String extension;
+
+        Format(String extension) {
+            this.extension = extension;
+        }
+
+        public String extension() {
+            return extension;
+        }
+    }
+
+    private static final int FETCH_SIZE = 500;
+    private static final int PROGRESS_EVERY = 1_000;
+
+    private final ConnectionPool pool;
+
+    public HistoryExporter(ConnectionPool pool) {
+        this.pool = pool;
+    }
+
+    /** {@link #export(Path, Format, LocalDate, LocalDate, boolean, ProgressListener)} of the live bookings only. */
+    public long export(Path target, Format format, LocalDate from, LocalDate to, ProgressListener progress) throws SQLException, IOException {
+        return export(target, format, from, to, false, progress);
+    }
+
+    /**
+     * Writes every booking starting in {@code [from, to]} to {@code target}.
+     *
+     * @param from           first start date to include, or {@code null} for no lower bound
+     * @param to             last start date to include, or {@code null} for no upper bound
+     * @param includeArchive whether archived bookings are written too; they come first, each part in id order
+     * @return the number of bookings written
+     * @throws CancellationException if {@code progress} reported cancellation
+     */
+    public long export(Path target, Format format, LocalDate from, LocalDate to, boolean includeArchive, ProgressListener progress)
+            throws SQLException, IOException {
+        List<String> conditions = new ArrayList<>();
+        List<LocalDate> params = new ArrayList<>();
+        if (from != null) {
+            conditions.add("start_date >= ?");
+            params.add(from);
+        }
+        if (to != null) {
+            conditions.add("start_date <= ?");
+            params.add(to);
+        }
+        String where = conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions);
+        // One query per table rather than a UNION, whose ORDER BY would have to sort everything before the first row
+        List<String> tables = includeArchive ? List.of("BookingArchive", "Booking") : List.of("Booking");
+
+        Path tmp = target.resolveSibling(target.getFileName() + ".part");
+        long written = 0;
+        try (PooledConnection c = pool.acquire()) {
+            long total = 0;
+            for (String table : tables) {
+                total += count(c, table, where, params);
+            }
+            progress.update(0, total);
+
+            // Without lazy execution embedded H2 materialises the whole result before returning it
+            setLazyExecution(c, true);
+            try (BufferedWriter out = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+                if (format == Format.CSV) {
+                    out.write("booking_id,customer_id,vehicle_id,start_date,end_date");
+                    out.newLine();
+                }
+                for (String table : tables) {
+                    PreparedStatement ps = c.prepare("SELECT id, customer_id, vehicle_id, start_date, end_date FROM " + table + where + " ORDER BY id");
+                    bind(ps, params);
+                    ps.setFetchSize(FETCH_SIZE);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) {
+                            writeRow(out, format, rs.getInt(1), rs.getInt(2), rs.getInt(3), rs.getDate(4), rs.getDate(5));
+                            written++;
+                            if (written % PROGRESS_EVERY == 0) {
+                                if (progress.isCancelled()) {
+                                    throw new CancellationException("Export cancelled");
+                                }
+                                progress.update(written, Math.max(total, written));
+                            }
+                        }
+                    }
+                }
+            } finally {
+                setLazyExecution(c, false);
+            }
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+            progress.update(written, written);
+            return written;
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    private static long count(PooledConnection c, String table, String where, List<LocalDate> params) throws SQLException {
+        PreparedStatement ps = c.prepare("SELECT COUNT(*) FROM " + table + where);
+        bind(ps, params);
+        try (ResultSet rs = ps.executeQuery()) {
+            return rs.next() ? rs.getLong(1) : -1;
+        }
+    }
+
+    private static void bind(PreparedStatement ps, List<LocalDate> params) throws SQLException {
+        for (int i = 0; i < params.size(); i++) {
+            ps.setDate(i + 1, Date.valueOf(params.get(i)));
+        }
+    }
+
+    private static void setLazyExecution(PooledConnection c, boolean lazy) throws SQLException {
+        try (Statement stmt = c.connection().createStatement()) {
+            stmt.execute("SET LAZY_QUERY_EXECUTION " + (lazy ? "TRUE" : "FALSE"));
+        }
+    }
+
+    private static void writeRow(BufferedWriter out, Format format, int id, int customerId, int vehicleId, Date start, Date end) throws IOException {
+        if (format == Format.CSV) {
+            out.write(id + "," + customerId + "," + vehicleId + "," + nullToEmpty(start) + "," + nullToEmpty(end));
+        } else {
+            out.write("{\"booking_id\":" + id + ",\"customer_id\":" + customerId + ",\"vehicle_id\":" + vehicleId
+                    + ",\"start_date\":" + jsonDate(start) + ",\"end_date\":" + jsonDate(end) + "}");
+        }
+        out.newLine();
+    }
+
+    private static String nullToEmpty(Date date) {
+        return date == null ? "" : date.toString();
+    }
+
+    private static String jsonDate(Date date) {
+        return date == null ? "null" : "\"" + date + "\"";
+    }
+}
@@ -0,0 +1,371 @@
+package com.example.demo;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Invoices for payments: a row in {@code Invoice} per payment, rendered to an HTML file under
+ * {@code directory/yyyy-MM/}. Rendering runs on virtual threads, at most {@link #RENDER_CONCURRENCY}
+ * at a time across single invoices and month-end runs together, so a run never starves the desk.
+ * <p>
+ * A month-end run ({@link #issueRange}) creates the missing rows with one set-based insert, streams
+ * the invoice details through a single query and renders while it reads; the file names are written
+ * back in one batch at the end. Files are written to a temporary sibling and moved into place, so
+ * a failed or cancelled run never leaves a half-written invoice.
+ * <p>
+ * A single payment that {@link ArchiveService} has moved is re-issued from the archive tables.
+ * It can only be re-issued, not invoiced for the first time: archived invoices keep their ids,
+ * and new ones are numbered from the live table only. Month-end runs cover live payments only.
+ */
+public class InvoiceService {
+
+    /** The default, {@code ~/vehiclerental-invoices}; {@code -Drental.invoices} overrides it. */
+    public static final Path DEFAULT_DIRECTORY = Path.of(System.getProperty("rental.invoices",
+            System.getProperty("user.home") + "/vehiclerental-invoices"));
+
+    static final int RENDER_CONCURRENCY = Math.max(2, Runtime.getRuntime().availableProcessors());
+    private static final int FETCH_SIZE = 500;
+    private static final int UPDATE_BATCH = 1_000;
+
+    private static final String DETAILS_COLUMNS = "SELECT i.id, i.payment_id, i.issued_on, p.amount_cents, p.method, p.paid_on, "
+            + "b.id, b.start_date, b.end_date, c.name, c.contact, c.license, v.id, v.brand, v.category, p.currency ";
+    private static final String DETAILS = DETAILS_COLUMNS
+            + "FROM Invoice i JOIN Payment p ON p.id = i.payment_id JOIN Booking b ON b.id = i.booking_id "
+            + "JOIN Customer c ON c.id = b.customer_id JOIN Vehicle v ON v.id = b.vehicle_id";
+    // The same, for a payment ArchiveService has moved; ids are kept, so the joins are unchanged
+    private static final String ARCHIVED_DETAILS = DETAILS_COLUMNS
+            + "FROM InvoiceArchive i JOIN PaymentArchive p ON p.id = i.payment_id JOIN BookingArchive b ON b.id = i.booking_id "
+            + "JOIN Customer c ON c.id = b.customer_id JOIN Vehicle v ON v.id = b.vehicle_id";
+
+    public record Invoice(int id, int paymentId, String number, Path file) {
+    }
+
+    /** @param created rows added by this run; {@code rendered} also counts re-issued ones */
+    public record Run(int created, int rendered) {
+    }
+
+    // Everything printed on an invoice, read in one query
+    private record Details(int invoiceId, int paymentId, LocalDate issuedOn, Money amount, String method, LocalDate paidOn,
+                           int bookingId, LocalDate start, LocalDate end, String customer, String contact, String license,
+                           int vehicleId, String brand, String category, boolean archived) {
+    }
+
+    private record Rendered(int invoiceId, Path file) {
+    }
+
+    private final ConnectionPool pool;
+    private final Path directory;
+    private final ExecutorService renderers = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("invoice-", 0).factory());
+    private final Semaphore permits = new Semaphore(RENDER_CONCURRENCY, true); // Fair, so a desk invoice takes its turn during a run
+    private final Set<Path> monthDirectories = ConcurrentHashMap.newKeySet();
+
+    public InvoiceService(ConnectionPool pool, Path directory) {
+        this.pool = pool;
+        this.directory = directory;
+    }
+
+    public static String number(int invoiceId) {
+        return String.format("INV-%06d", invoiceId);
+    }
+
+    /** Creates the payment's invoice if needed and renders it on the worker queue. */
+    public CompletableFuture<Invoice> issue(int paymentId) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                permits.acquire();
+                try {
+                    Details details = createAndRead(paymentId);
+                    Rendered rendered = render(details);
+                    markRendered(details.archived() ? "InvoiceArchive" : "Invoice", List.of(rendered));
+                    return new Invoice(details.invoiceId(), paymentId, number(details.invoiceId()), rendered.file());
+                } finally {
+                    permits.release();
+                }
+            } catch (SQLException | IOException e) {
+                throw new InvoiceException(e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CancellationException("Invoice rendering interrupted");
+            }
+        }, renderers);
+    }
+
+    /** Blocking {@link #issue}, with failures unwrapped; for callers already on a background thread. */
+    public Invoice issueNow(int paymentId) throws SQLException, IOException {
+        try {
+            return issue(paymentId).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted waiting for invoice");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof InvoiceException failure) {
+                failure.rethrow();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Month-end billing: invoices every payment made in {@code [from, to]} that has none yet and
+     * renders them, plus all existing ones in the range when {@code reissue} is set.
+     *
+     * @throws CancellationException if {@code progress} reported cancellation; rendered files stay
+     */
+    public Run issueRange(LocalDate from, LocalDate to, boolean reissue, ProgressListener progress) throws SQLException, IOException {
+        long started = System.nanoTime();
+        int created = pool.inTransaction(c -> {
+            PreparedStatement ps = c.prepare("INSERT INTO Invoice(payment_id, booking_id) SELECT p.id, p.booking_id FROM Payment p "
+                    + "WHERE p.paid_on BETWEEN ? AND ? AND NOT EXISTS (SELECT 1 FROM Invoice i WHERE i.payment_id = p.id)");
+            ps.setDate(1, Date.valueOf(from));
+            ps.setDate(2, Date.valueOf(to));
+            return ps.executeUpdate();
+        });
+
+        String where = " WHERE p.paid_on BETWEEN ? AND ?" + (reissue ? "" : " AND i.file IS NULL");
+        ConcurrentLinkedQueue<Rendered> done = new ConcurrentLinkedQueue<>();
+        List<CompletableFuture<Void>> pending = new ArrayList<>();
+        AtomicLong finished = new AtomicLong();
+        try (PooledConnection c = pool.acquire()) {
+            long total = countDue(c, where, from, to);
+            progress.update(0, total);
+            setLazyExecution(c, true);
+            try {
+                PreparedStatement ps = c.prepare(DETAILS + where + " ORDER BY i.id");
+                ps.setDate(1, Date.valueOf(from));
+                ps.setDate(2, Date.valueOf(to));
+                ps.setFetchSize(FETCH_SIZE);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        if (progress.isCancelled()) {
+                            throw new CancellationException("Invoice run cancelled");
+                        }
+                        Details details = details(rs, false);
+                        permits.acquire(); // Back-pressure: reading never runs more than the permits ahead of rendering
+                        pending.add(CompletableFuture.runAsync(() -> {
+                            try {
+                                done.add(render(details));
+                                progress.update(finished.incrementAndGet(), total);
+                            } catch (IOException e) {
+                                throw new InvoiceException(e);
+                            } finally {
+                                permits.release();
+                            }
+                        }, renderers));
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CancellationException("Invoice run interrupted");
+            } finally {
+                setLazyExecution(c, false);
+            }
+        } finally {
+            awaitAll(pending);
+            markRendered("Invoice", new ArrayList<>(done)); // Whatever was written is recorded, even on cancel
+        }
+        Metrics.record("invoice.run", System.nanoTime() - started);
+        return new Run(created, done.size());
+    }
+
+    public void shutdown() {
+        renderers.shutdownNow();
+    }
+
+    // ----- Database -----
+
+    private Details createAndRead(int paymentId) throws SQLException {
+        return pool.inTransaction(c -> {
+            PreparedStatement insert = c.prepare("INSERT INTO Invoice(payment_id, booking_id) SELECT id, booking_id FROM Payment p "
+                    + "WHERE p.id = ? AND NOT EXISTS (SELECT 1 FROM Invoice i WHERE i.payment_id = p.id)");
+            insert.setInt(1, paymentId);
+            insert.executeUpdate();
+            PreparedStatement read = c.prepare(DETAILS + " WHERE i.payment_id = ?");
+            read.setInt(1, paymentId);
+            try (ResultSet rs = read.executeQuery()) {
+                if (rs.next()) {
+                    return details(rs, false);
+                }
+            }
+            return readArchived(c, paymentId);
+        });
+    }
+
+    // Nothing was inserted for an archived payment, since the insert only sees live ones
+    private static Details readArchived(PooledConnection c, int paymentId) throws SQLException {
+        PreparedStatement read = c.prepare(ARCHIVED_DETAILS + " WHERE i.payment_id = ?");
+        read.setInt(1, paymentId);
+        try (ResultSet rs = read.executeQuery()) {
+            if (rs.next()) {
+                return details(rs, true);
+            }
+        }
+        PreparedStatement archived = c.prepare("SELECT 1 FROM PaymentArchive WHERE id = ?");
+        archived.setInt(1, paymentId);
+        try (ResultSet rs = archived.executeQuery()) {
+            if (rs.next()) {
+                throw new SQLException("Payment " + paymentId + " was archived without an invoice; archived payments can only be re-issued");
+            }
+        }
+        throw new SQLException("No payment with id " + paymentId);
+    }
+
+    private void markRendered(String table, List<Rendered> rendered) throws SQLException {
+        if (rendered.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        pool.inTransaction(c -> {
+            PreparedStatement ps = c.prepare("UPDATE " + table + " SET file = ?, rendered_at = ? WHERE id = ?");
+            for (int i = 0; i < rendered.size(); i++) {
+                ps.setString(1, rendered.get(i).file().toString());
+                ps.setTimestamp(2, now);
+                ps.setInt(3, rendered.get(i).invoiceId());
+                ps.addBatch();
+                if ((i + 1) % UPDATE_BATCH == 0) {
+                    ps.executeBatch();
+                }
+            }
+            ps.executeBatch();
+            return null;
+        });
+    }
+
+    private static long countDue(PooledConnection c, String where, LocalDate from, LocalDate to) throws SQLException {
+        PreparedStatement ps = c.prepare("SELECT COUNT(*) FROM Invoice i JOIN Payment p ON p.id = i.payment_id" + where);
+        ps.setDate(1, Date.valueOf(from));
+        ps.setDate(2, Date.valueOf(to));
+        try (ResultSet rs = ps.executeQuery()) {
+            return rs.next() ? rs.getLong(1) : -1;
+        }
+    }
+
+    private static Details details(ResultSet rs, boolean archived) throws SQLException {
+        return new Details(rs.getInt(1), rs.getInt(2), rs.getDate(3).toLocalDate(), Money.of(rs.getLong(4), rs.getString(16)), rs.getString(5),
+                rs.getDate(6).toLocalDate(), rs.getInt(7), localDate(rs.getDate(8)), localDate(rs.getDate(9)),
+                rs.getString(10), rs.getString(11), rs.getString(12), rs.getInt(13), rs.getString(14), rs.getString(15), archived);
+    }
+
+    private static LocalDate localDate(Date date) {
+        return date == null ? null : date.toLocalDate();
+    }
+
+    // Same as HistoryExporter: stream the rows instead of materialising the whole result
+    private static void setLazyExecution(PooledConnection c, boolean lazy) throws SQLException {
+        try (Statement stmt = c.connection().createStatement()) {
+            stmt.execute("SET LAZY_QUERY_EXECUTION " + (lazy ? "TRUE" : "FALSE"));
+        }
+    }
+
+    private static void awaitAll(List<CompletableFuture<Void>> pending) throws IOException {
+        try {
+            CompletableFuture.allOf(pending.toArray(new CompletableFuture<?>[0])).join();
+        } catch (RuntimeException e) {
+            if (e.getCause() instanceof InvoiceException failure && failure.getCause() instanceof IOException io) {
+                throw io;
+            }
+            throw e;
+        }
+    }
+
+    // ----- Rendering -----
+
+    private Rendered render(Details d) throws IOException {
+        long start = System.nanoTime();
+        Path month = directory.resolve(d.issuedOn().toString().substring(0, 7));
+        if (monthDirectories.add(month)) {
+            Files.createDirectories(month);
+        }
+        Path file = month.resolve(number(d.invoiceId()) + ".html");
+        Path tmp = file.resolveSibling(file.getFileName() + ".part");
+        try {
+            Files.writeString(tmp, html(d), StandardCharsets.UTF_8);
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+        Metrics.record("invoice.render", System.nanoTime() - start);
+        return new Rendered(d.invoiceId(), file);
+    }
+
+    private static String html(Details d) {
+        long days = d.start() == null || d.end() == null ? 0 : ChronoUnit.DAYS.between(d.start(), d.end());
+        StringBuilder out = new StringBuilder(2048);
+        out.append("<!DOCTYPE html>\n<html lang=\"en\">\n<head>\n<meta charset=\"utf-8\">\n<title>Invoice ")
+                .append(number(d.invoiceId())).append("</title>\n")
+                .append("<style>body{font-family:'Segoe UI',Arial,sans-serif;margin:40px;color:#333}h1{color:#4a90e2}")
+                .append("table{border-collapse:collapse;width:100%}td,th{border:1px solid #dddddd;padding:8px;text-align:left}")
+                .append(".total{font-weight:bold;font-size:1.2em}</style>\n</head>\n<body>\n")
+                .append("<h1>Rental Invoice ").append(number(d.invoiceId())).append("</h1>\n")
+                .append("<p>Issued ").append(d.issuedOn()).append(" &middot; Paid ").append(d.paidOn())
+                .append(" by ").append(escape(d.method())).append("</p>\n")
+                .append("<h2>Customer</h2>\n<p>").append(escape(d.customer())).append("<br>").append(escape(d.contact()))
+                .append("<br>License ").append(escape(d.license())).append("</p>\n")
+                .append("<table>\n<tr><th>Booking</th><th>Vehicle</th><th>From</th><th>To</th><th>Days</th><th>Amount</th></tr>\n")
+                .append("<tr><td>#").append(d.bookingId()).append("</td><td>#").append(d.vehicleId()).append(' ')
+                .append(escape(d.brand())).append(" (").append(escape(d.category())).append(")</td><td>")
+                .append(d.start()).append("</td><td>").append(d.end()).append("</td><td>").append(days).append("</td><td>");
+        // Money formats straight into the buffer: no formatter to allocate or share between render threads
+        d.amount().appendTo(out).append("</td></tr>\n</table>\n<p class=\"total\">Total paid: ");
+        d.amount().appendTo(out).append("</p>\n")
+                .append("<p>Payment #").append(d.paymentId()).append("</p>\n</body>\n</html>\n");
+        return out.toString();
+    }
+
+    private static String escape(String text) {
+        if (text == null) {
+            return "";
+        }
+        StringBuilder out = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char ch = text.charAt(i);
+            switch (ch) {
+                case '<' -> out.append("&lt;");
+                case '>' -> out.append("&gt;");
+                case '&' -> out.append("&amp;");
+                case '"' -> out.append("&quot;");
+                default -> out.append(ch);
+            }
+        }
+        return out.toString();
+    }
+
+    // Carries checked failures out of the worker threads
+    private static final class InvoiceException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        InvoiceException(Exception cause) {
+            super(cause);
+        }
+
+        void rethrow() throws SQLException, IOException {
+            if (getCause() instanceof SQLException e) {
+                throw e;
+            }
+            throw (IOException) getCause();
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.demo;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * A paged view over one table. Pages are fetched with keyset pagination
+ * ({@code WHERE (sort, id) > (?, ?) ORDER BY sort, id LIMIT ?}), so fetching page 1000 costs
+ * the same as page 1, and sorting and filtering happen in the database rather than in the UI.
+ * Sort columns are whitelisted, so user input never ends up in the SQL text.
+ */
+public final class KeysetQuery<T> {
+
+    @FunctionalInterface
+    public interface RowMapper<T> {
+        T map(ResultSet rs) throws SQLException;
+    }
+
+    /** A sortable column: the SQL expression to order by and how to read its value from a row. */
+    public record SortColumn<T>(String expression, Function<T, Object> value) {
+    }
+
+    private final String select;
+    private final String where;
+    private final List<String> filterColumns;
+    private final Map<String, SortColumn<T>> sortColumns;
+    private final RowMapper<T> mapper;
+    private final ToIntFunction<T> idOf;
+
+    /**
+     * @param select        {@code SELECT ... FROM table} without a WHERE clause; must include {@code id}
+     * @param where         fixed condition applied to every page, or {@code null}
+     * @param filterColumns text columns matched against {@link PageRequest#filter()}
+     * @param sortColumns   sortable columns by name, in addition to the implicit id order
+     */
+    public KeysetQuery(String select, String where, List<String> filterColumns, Map<String, SortColumn<T>> sortColumns,
+                       RowMapper<T> mapper, ToIntFunction<T> idOf) {
+        this.select = select;
+        this.where = where;
+        this.filterColumns = filterColumns;
+        this.sortColumns = sortColumns;
+        this.mapper = mapper;
+        this.idOf = idOf;
+    }
+
+    public List<T> fetch(PooledConnection c, PageRequest<T> request) throws SQLException {
+        boolean byId = request.sortColumn() == null || request.sortColumn().equals("id");
+        SortColumn<T> sort = byId ? null : sortColumns.get(request.sortColumn());
+        if (!byId && sort == null) {
+            throw new IllegalArgumentException("Not a sortable column: " + request.sortColumn());
+        }
+        String op = request.ascending() ? ">" : "<";
+        String dir = request.ascending() ? " ASC" : " DESC";
+
+        List<String> conditions = new ArrayList<>();
+        List<Object> params = new ArrayList<>();
+        addViewConditions(request.filter(), conditions, params);
+        T after = request.after();
+        if (after != null) {
+            if (sort == null) {
+                conditions.add("id " + op + " ?");
+            } else {
+                conditions.add("(" + sort.expression() + ", id) " + op + " (?, ?)");
+                params.add(sort.value().apply(after));
+            }
+            params.add(idOf.applyAsInt(after));
+        }
+
+        StringBuilder sql = new StringBuilder(select);
+        if (!conditions.isEmpty()) {
+            sql.append(" WHERE ").append(String.join(" AND ", conditions));
+        }
+        sql.append(" ORDER BY ");
+        if (sort != null) {
+            sql.append(sort.expression()).append(dir).append(", ");
+        }
+        sql.append("id").append(dir).append(" LIMIT ?");
+        params.add(request.limit());
+
+        return query(c, sql.toString(), params);
+    }
+
+    /** The rows among {@code ids} that pass the fixed condition and {@code filter}, in no particular order. */
+    public List<T> fetchByIds(PooledConnection c, List<Integer> ids, String filter) throws SQLException {
+        List<String> conditions = new ArrayList<>();
+        List<Object> params = new ArrayList<>();
+        addViewConditions(filter, conditions, params);
+        conditions.add("id = ANY(?)"); // One array parameter keeps the SQL text, and so the cached statement, stable
+        params.add(ids.toArray(new Integer[0]));
+        return query(c, select + " WHERE " + String.join(" AND ", conditions), params);
+    }
+
+    public int idOf(T row) {
+        return idOf.applyAsInt(row);
+    }
+
+    /** The in-memory equivalent of the ORDER BY that {@link #fetch} uses for this sort. */
+    @SuppressWarnings("unchecked")
+    public Comparator<T> order(String sortColumn, boolean ascending) {
+        Comparator<T> byId = Comparator.comparingInt(idOf);
+        SortColumn<T> sort = sortColumn == null || sortColumn.equals("id") ? null : sortColumns.get(sortColumn);
+        Comparator<T> order = sort == null ? byId
+                : Comparator.comparing((T row) -> (Comparable<Object>) sort.value().apply(row)).thenComparing(byId);
+        return ascending ? order : order.reversed();
+    }
+
+    private void addViewConditions(String rawFilter, List<String> conditions, List<Object> params) {
+        if (where != null) {
+            conditions.add(where);
+        }
+        String filter = rawFilter == null ? "" : rawFilter.trim();
+        if (!filter.isEmpty()) {
+            String pattern = "%" + escapeLike(filter.toLowerCase()) + "%";
+            List<String> matches = new ArrayList<>();
+            for (String column : filterColumns) {
+                matches.add("LOWER(" + column + ") LIKE ?");
+                params.add(pattern);
+            }
+            conditions.add("(" + String.join(" OR ", matches) + ")");
+        }
+    }
+
+    private List<T> query(PooledConnection c, String sql, List<Object> params) throws SQLException {
+        PreparedStatement ps = c.prepare(sql);
+        for (int i = 0; i < params.size(); i++) {
+            ps.setObject(i + 1, params.get(i));
+        }
+        List<T> rows = new ArrayList<>();
+        try (ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                rows.add(mapper.map(rs));
+            }
+        }
+        return rows;
+    }
+
+    private static String escapeLike(String text) {
+        return text.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
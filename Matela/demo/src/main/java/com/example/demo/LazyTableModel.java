@@ -0,0 +1,224 @@
+package com.example.demo;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.concurrent.Task;
+import javafx.scene.control.Label;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableRow;
+import javafx.scene.control.TableView;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Backs a {@link TableView} with rows fetched page by page as the user scrolls. A refresh only
+ * loads the first page, so its cost does not depend on the size of the table. Sorting and
+ * filtering are re-run in the database instead of over the loaded rows.
+ * <p>
+ * Writes do not need a refresh: feed {@link ChangeFeed} batches to {@link #applyChanges} and only
+ * the affected rows are re-read and patched in place, so selection and scroll position survive.
+ * Must be used from the JavaFX Application Thread.
+ */
+public class LazyTableModel<T> {
+
+    private static final int PREFETCH_ROWS = 20;
+
+    private final AsyncDatabase db;
+    private final PagedSource<T> source;
+    private final int pageSize;
+    private final ObservableList<T> items = FXCollections.observableArrayList();
+
+    private String filter = "";
+    private String sortColumn;
+    private boolean ascending = true;
+    private boolean exhausted;
+    private Task<List<T>> pending;
+    private long version; // Bumped by refresh, so row patches read before it are dropped
+    private Label status;
+
+    public LazyTableModel(AsyncDatabase db, PagedSource<T> source, int pageSize) {
+        this.db = db;
+        this.source = source;
+        this.pageSize = pageSize;
+    }
+
+    public ObservableList<T> getItems() {
+        return items;
+    }
+
+    /** Shows a failed page or row fetch on {@code status}; {@link AsyncDatabase} records it in {@link Metrics} either way. */
+    public void reportErrorsTo(Label status) {
+        this.status = status;
+    }
+
+    /**
+     * Wires the model into {@code table}: rows come from {@link #getItems()}, scrolling near the
+     * end fetches the next page, and clicking a column header re-queries with that sort order.
+     * Sortable columns carry their sort column name in {@link TableColumn#getUserData()}.
+     */
+    public void attach(TableView<T> table) {
+        table.setItems(items);
+        table.setRowFactory(_ -> new TableRow<>() {
+            @Override
+            public void updateIndex(int index) {
+                super.updateIndex(index);
+                if (index >= 0 && index >= items.size() - PREFETCH_ROWS) {
+                    loadMore();
+                }
+            }
+        });
+        table.setSortPolicy(tv -> {
+            List<TableColumn<T, ?>> order = tv.getSortOrder();
+            if (order.isEmpty()) {
+                sortBy(null, true);
+            } else {
+                TableColumn<T, ?> column = order.get(0);
+                sortBy((String) column.getUserData(), column.getSortType() == TableColumn.SortType.ASCENDING);
+            }
+            return true;
+        });
+    }
+
+    public void setFilter(String filter) {
+        String normalized = filter == null ? "" : filter.trim();
+        if (!normalized.equals(this.filter)) {
+            this.filter = normalized;
+            refresh();
+        }
+    }
+
+    public void sortBy(String column, boolean ascending) {
+        if (!Objects.equals(column, sortColumn) || ascending != this.ascending) {
+            this.sortColumn = column;
+            this.ascending = ascending;
+            refresh();
+        }
+    }
+
+    /** Drops the loaded rows and fetches the first page again. */
+    public void refresh() {
+        if (pending != null) {
+            pending.cancel(false);
+            pending = null;
+        }
+        version++;
+        exhausted = false;
+        items.clear();
+        loadMore();
+    }
+
+    /** Fetches the next page unless one is already on its way or the end has been reached. */
+    public void loadMore() {
+        if (exhausted || (pending != null && !pending.isDone())) {
+            return;
+        }
+        T after = items.isEmpty() ? null : items.get(items.size() - 1);
+        PageRequest<T> request = new PageRequest<>(filter, sortColumn, ascending, after, pageSize);
+        pending = db.submit(() -> source.page(request), page -> {
+            pending = null;
+            exhausted = page.size() < pageSize;
+            items.addAll(page);
+        }, ex -> {
+            pending = null;
+            failed(ex);
+        });
+    }
+
+    /**
+     * Applies one pulse's worth of changes to this model's table. Deletes are removed at once;
+     * inserted and updated rows are re-read in one query and put where the current sort places
+     * them, or dropped if they no longer match the filter. A row that sorts past the loaded pages
+     * is left for {@link #loadMore} to fetch.
+     */
+    public void applyChanges(List<ChangeFeed.Change> batch) {
+        Set<Integer> reread = new LinkedHashSet<>();
+        Set<Integer> deleted = new HashSet<>();
+        for (ChangeFeed.Change change : batch) {
+            switch (change.op()) {
+                case RELOAD -> {
+                    refresh();
+                    return;
+                }
+                case DELETE -> {
+                    deleted.add(change.id());
+                    reread.remove(change.id());
+                }
+                case INSERT, UPDATE -> {
+                    deleted.remove(change.id());
+                    reread.add(change.id());
+                }
+            }
+        }
+        if (!deleted.isEmpty()) {
+            items.removeIf(row -> deleted.contains(source.idOf(row)));
+        }
+        if (reread.isEmpty()) {
+            return;
+        }
+
+        List<Integer> ids = new ArrayList<>(reread);
+        String currentFilter = filter;
+        long seenVersion = version;
+        db.submit(() -> source.rows(ids, currentFilter), rows -> {
+            if (seenVersion == version) {
+                patch(ids, rows);
+            }
+        }, this::failed);
+    }
+
+    private void failed(Throwable ex) {
+        if (status != null) {
+            status.setText("❌ Could not load rows: " + ex.getMessage());
+            Theme.Status.ERROR.applyTo(status);
+        }
+    }
+
+    private void patch(List<Integer> ids, List<T> rows) {
+        Set<Integer> changed = new HashSet<>(ids);
+        Map<Integer, Integer> positions = new HashMap<>();
+        for (int i = 0; i < items.size(); i++) {
+            int id = source.idOf(items.get(i));
+            if (changed.contains(id)) {
+                positions.put(id, i);
+            }
+        }
+        Comparator<T> order = source.order(sortColumn, ascending);
+        for (T row : rows) {
+            Integer at = positions.remove(source.idOf(row));
+            if (at != null && isInPlace(at, row, order)) {
+                items.set(at, row); // Same place: no remove/add, so a selected row stays selected
+                continue;
+            }
+            if (at != null) {
+                items.remove(at.intValue());
+                positions.replaceAll((_, i) -> i > at ? i - 1 : i);
+            }
+            int found = Collections.binarySearch(items, row, order);
+            int insertAt = found < 0 ? -found - 1 : found;
+            // Past the last loaded row it belongs to a page not fetched yet, unless there is none
+            if (insertAt < items.size() || exhausted) {
+                items.add(insertAt, row);
+                positions.replaceAll((_, i) -> i >= insertAt ? i + 1 : i);
+            }
+        }
+        // Loaded rows the re-read did not return were deleted or no longer match the filter
+        if (!positions.isEmpty()) {
+            Set<Integer> gone = positions.keySet();
+            items.removeIf(row -> gone.contains(source.idOf(row)));
+        }
+    }
+
+    private boolean isInPlace(int index, T row, Comparator<T> order) {
+        return (index == 0 || order.compare(items.get(index - 1), row) <= 0)
+                && (index == items.size() - 1 || order.compare(row, items.get(index + 1)) <= 0);
+    }
+}
@@ -0,0 +1,208 @@
+package com.example.demo;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+
+/** {@link RentalBackend} over a connection pool in this process; the server uses it too. */
+public class LocalBackend implements RentalBackend {
+
+    private final ConnectionPool pool;
+    private final RentalRepository repository;
+    private final BookingService bookingService;
+    private final AvailabilityService availabilityService;
+    private final SearchService searchService;
+    private final InvoiceService invoiceService;
+    private final FleetAnalytics fleetAnalytics;
+    private final PricingEngine pricing;
+    private final ReturnService returnService;
+    private final ArchiveService archiveService;
+
+    public LocalBackend(ConnectionPool pool, ChangeFeed changes) {
+        this.pool = pool;
+        this.repository = new RentalRepository(pool, changes);
+        this.pricing = new PricingEngine(pool);
+        this.bookingService = new BookingService(pool, repository.vehicleCache(), changes, pricing);
+        this.availabilityService = new AvailabilityService(pool);
+        this.searchService = new SearchService(pool);
+        this.invoiceService = new InvoiceService(pool, InvoiceService.DEFAULT_DIRECTORY);
+        this.fleetAnalytics = new FleetAnalytics(pool);
+        this.returnService = new ReturnService(pool, pricing, repository.vehicleCache(), changes);
+        this.archiveService = new ArchiveService(pool, changes);
+        // A tap rather than a listener: the index is updated off the FX thread, and a server has none
+        changes.tap(change -> searchService.onChanges(List.of(change)));
+        searchService.warmUp();
+        returnService.start();
+        archiveService.start();
+    }
+
+    public ConnectionPool pool() {
+        return pool;
+    }
+
+    public RentalRepository repository() {
+        return repository;
+    }
+
+    public InvoiceService invoices() {
+        return invoiceService;
+    }
+
+    public PricingEngine pricing() {
+        return pricing;
+    }
+
+    public ReturnService returns() {
+        return returnService;
+    }
+
+    public ArchiveService archiver() {
+        return archiveService;
+    }
+
+    @Override
+    public int addVehicle(String brand, String category, Money price) throws SQLException {
+        return repository.addVehicle(brand, category, price);
+    }
+
+    @Override
+    public int updateVehicle(int id, String brand, String category, Money price) throws SQLException {
+        return repository.updateVehicle(id, brand, category, price);
+    }
+
+    @Override
+    public int deleteVehicle(int id) throws SQLException {
+        return repository.deleteVehicle(id);
+    }
+
+    @Override
+    public VehicleRow findVehicle(int id) throws SQLException {
+        return repository.findVehicle(id);
+    }
+
+    @Override
+    public PagedSource<VehicleRow> availableVehicles() {
+        return repository.availableVehicles();
+    }
+
+    @Override
+    public List<VehicleRow> freeVehicles(LocalDate start, LocalDate end, int limit) throws SQLException {
+        return availabilityService.freeVehicles(start, end, limit);
+    }
+
+    @Override
+    public int addCustomer(String name, String contact, String license) throws SQLException {
+        return repository.addCustomer(name, contact, license);
+    }
+
+    @Override
+    public int updateCustomer(int id, String name, String contact, String license) throws SQLException {
+        return repository.updateCustomer(id, name, contact, license);
+    }
+
+    @Override
+    public int deleteCustomer(int id) throws SQLException {
+        return repository.deleteCustomer(id);
+    }
+
+    @Override
+    public CustomerRow findCustomer(int id) throws SQLException {
+        return repository.findCustomer(id);
+    }
+
+    @Override
+    public PagedSource<CustomerRow> customers() {
+        return repository.customers();
+    }
+
+    @Override
+    public BookingService.Result book(int customerId, int vehicleId, LocalDate start, LocalDate end, Set<String> extras, String method)
+            throws SQLException {
+        return bookingService.book(customerId, vehicleId, start, end, extras, method);
+    }
+
+    @Override
+    public PricingEngine.Quote quote(int vehicleId, LocalDate start, LocalDate end, Set<String> extras) throws SQLException {
+        VehicleRow vehicle = repository.findVehicle(vehicleId);
+        return vehicle == null ? null : pricing.quote(vehicle, start, end, extras);
+    }
+
+    @Override
+    public List<PricingEngine.Quote> quoteFree(LocalDate start, LocalDate end, Set<String> extras, int limit) throws SQLException {
+        return pricing.quote(availabilityService.freeVehicles(start, end, limit), start, end, extras);
+    }
+
+    @Override
+    public List<PricingEngine.Extra> extras() throws SQLException {
+        return pricing.extras();
+    }
+
+    @Override
+    public ReturnService.Return returnVehicle(int bookingId) throws SQLException {
+        return returnService.returnVehicle(bookingId);
+    }
+
+    @Override
+    public int addPayment(int bookingId, Money amount, String method) throws SQLException {
+        return repository.addPayment(bookingId, amount, method);
+    }
+
+    @Override
+    public PagedSource<PaymentRow> payments() {
+        return repository.payments();
+    }
+
+    @Override
+    public List<VehicleRow> fleet() throws SQLException {
+        return repository.fleet();
+    }
+
+    @Override
+    public List<BookingSpan> bookingSpans(int firstVehicleId, int lastVehicleId, LocalDate from, LocalDate to) throws SQLException {
+        return repository.bookingSpans(firstVehicleId, lastVehicleId, from, to);
+    }
+
+    @Override
+    public InvoiceService.Invoice issueInvoice(int paymentId) throws SQLException {
+        try {
+            return invoiceService.issueNow(paymentId);
+        } catch (IOException e) {
+            throw new SQLException("Could not write the invoice: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public Money totalRevenue() throws SQLException {
+        return repository.totalRevenue();
+    }
+
+    @Override
+    public List<RevenuePoint> monthlyRevenue(int months) throws SQLException {
+        return repository.monthlyRevenue(months);
+    }
+
+    @Override
+    public List<RevenuePoint> dailyRevenue(LocalDate from, LocalDate to) throws SQLException {
+        return repository.dailyRevenue(from, to);
+    }
+
+    @Override
+    public FleetAnalytics.Report fleetAnalytics(LocalDate from, LocalDate to) throws SQLException {
+        return fleetAnalytics.analyze(from, to);
+    }
+
+    @Override
+    public List<SearchService.Hit> search(SearchService.Kind kind, String query, int limit) throws SQLException {
+        return searchService.search(kind, query, limit);
+    }
+
+    @Override
+    public void close() {
+        returnService.shutdown();
+        archiveService.shutdown();
+        searchService.shutdown();
+        invoiceService.shutdown();
+    }
+}
@@ -0,0 +1,217 @@
+package com.example.demo;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Process-wide performance counters: latency histograms per SQL statement and UI action, plain
+ * counters, and gauges read on demand. Recording is cheap enough to stay on in production; the
+ * Diagnostics tab shows and exports the figures. Timed operations are also JFR events (category
+ * "Vehicle Rental"), which cost next to nothing unless a flight recording is running.
+ */
+public final class Metrics {
+
+    /** Past this many distinct timer names, new ones are folded into one "other" timer. */
+    private static final int MAX_TIMERS = 500;
+    private static final int RECENT_ERRORS = 50;
+    private static final DateTimeFormatter ERROR_TIME = DateTimeFormatter.ofPattern("HH:mm:ss");
+
+    private static final Map<String, LatencyHistogram> timers = new ConcurrentHashMap<>();
+    private static final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+    private static final Map<String, LongSupplier> gauges = new ConcurrentHashMap<>();
+    private static final Deque<String> recentErrors = new ArrayDeque<>(); // Guarded by itself
+
+    static {
+        Runtime runtime = Runtime.getRuntime();
+        gauge("heap.used.mb", () -> (runtime.totalMemory() - runtime.freeMemory()) >> 20);
+        gauge("heap.committed.mb", () -> runtime.totalMemory() >> 20);
+        gauge("heap.max.mb", () -> runtime.maxMemory() >> 20);
+    }
+
+    @Name("com.example.demo.Sql")
+    @Label("SQL Statement")
+    @Category("Vehicle Rental")
+    @Description("One execution of a pooled prepared statement")
+    static class SqlEvent extends Event {
+        @Label("SQL")
+        String sql;
+    }
+
+    @Name("com.example.demo.UiAction")
+    @Label("UI Action")
+    @Category("Vehicle Rental")
+    @Description("An action handler running on the JavaFX Application Thread")
+    static class UiActionEvent extends Event {
+        @Label("Action")
+        String action;
+    }
+
+    @Name("com.example.demo.FxStall")
+    @Label("FX Thread Stall")
+    @Category("Vehicle Rental")
+    @Description("The JavaFX Application Thread did not pick up queued work in time")
+    static class FxStallEvent extends Event {
+        @Label("Delay")
+        @Timespan(Timespan.NANOSECONDS)
+        long delay;
+    }
+
+    private Metrics() {
+    }
+
+    public static LatencyHistogram timer(String name) {
+        LatencyHistogram timer = timers.get(name);
+        if (timer != null) {
+            return timer;
+        }
+        String key = timers.size() < MAX_TIMERS ? name : name.substring(0, name.indexOf(':') + 1) + " other";
+        return timers.computeIfAbsent(key, LatencyHistogram::new);
+    }
+
+    public static void record(String name, long nanos) {
+        timer(name).record(nanos);
+    }
+
+    public static void increment(String name) {
+        counters.computeIfAbsent(name, _ -> new LongAdder()).increment();
+    }
+
+    public static void add(String name, long delta) {
+        counters.computeIfAbsent(name, _ -> new LongAdder()).add(delta);
+    }
+
+    /** Registers (or replaces) a value that is read each time the figures are shown or exported. */
+    public static void gauge(String name, LongSupplier value) {
+        gauges.put(name, value);
+    }
+
+    /** Counts a failure and keeps it for the Diagnostics tab, which is all most callers did with it. */
+    public static void error(String where, Throwable error) {
+        increment("errors");
+        String line = LocalDateTime.now().format(ERROR_TIME) + "  " + where + ": " + error;
+        synchronized (recentErrors) {
+            if (recentErrors.size() == RECENT_ERRORS) {
+                recentErrors.removeLast();
+            }
+            recentErrors.addFirst(line);
+        }
+    }
+
+    /**
+     * Records one execution of {@code sql}, whose JFR event was begun just before it started;
+     * the statement text is the timer name.
+     */
+    static void sql(String sql, SqlEvent event, long startNanos) {
+        record("sql: " + sql, System.nanoTime() - startNanos);
+        if (event.shouldCommit()) {
+            event.sql = sql;
+            event.commit();
+        }
+    }
+
+    static void uiAction(String action, UiActionEvent event, long startNanos) {
+        record("ui: " + action, System.nanoTime() - startNanos);
+        if (event.shouldCommit()) {
+            event.action = action;
+            event.commit();
+        }
+    }
+
+    static void fxStall(long delayNanos) {
+        increment("fx.stalls");
+        FxStallEvent event = new FxStallEvent();
+        if (event.shouldCommit()) {
+            event.delay = delayNanos;
+            event.commit();
+        }
+    }
+
+    /** Timers by total time spent, slowest first. */
+    public static List<LatencyHistogram.Snapshot> timers() {
+        List<LatencyHistogram.Snapshot> snapshots = new ArrayList<>();
+        for (LatencyHistogram timer : timers.values()) {
+            snapshots.add(timer.snapshot());
+        }
+        snapshots.sort(Comparator.comparingLong(LatencyHistogram.Snapshot::totalNanos).reversed());
+        return snapshots;
+    }
+
+    public static Map<String, Long> counters() {
+        Map<String, Long> values = new TreeMap<>();
+        counters.forEach((name, adder) -> values.put(name, adder.sum()));
+        return values;
+    }
+
+    public static Map<String, Long> gauges() {
+        Map<String, Long> values = new TreeMap<>();
+        gauges.forEach((name, gauge) -> values.put(name, gauge.getAsLong()));
+        return values;
+    }
+
+    public static List<String> recentErrors() {
+        synchronized (recentErrors) {
+            return List.copyOf(recentErrors);
+        }
+    }
+
+    /** Clears timers and counters, e.g. before reproducing a slowdown. Gauges are live and stay. */
+    public static void reset() {
+        timers.values().forEach(LatencyHistogram::reset);
+        counters.values().forEach(LongAdder::reset);
+        synchronized (recentErrors) {
+            recentErrors.clear();
+        }
+    }
+
+    /** Writes every figure to a CSV file, durations in milliseconds. */
+    public static void export(Path target) throws IOException {
+        try (BufferedWriter out = Files.newBufferedWriter(target, StandardCharsets.UTF_8)) {
+            out.write("kind,name,count,value,mean_ms,p50_ms,p95_ms,p99_ms,max_ms");
+            out.newLine();
+            for (LatencyHistogram.Snapshot t : timers()) {
+                out.write("timer," + quote(t.name()) + "," + t.count() + ",," + millis(t.meanNanos()) + "," + millis(t.p50())
+                        + "," + millis(t.p95()) + "," + millis(t.p99()) + "," + millis(t.max()));
+                out.newLine();
+            }
+            for (Map.Entry<String, Long> counter : counters().entrySet()) {
+                out.write("counter," + quote(counter.getKey()) + ",," + counter.getValue() + ",,,,,");
+                out.newLine();
+            }
+            for (Map.Entry<String, Long> gauge : gauges().entrySet()) {
+                out.write("gauge," + quote(gauge.getKey()) + ",," + gauge.getValue() + ",,,,,");
+                out.newLine();
+            }
+        }
+    }
+
+    public static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1_000_000.0);
+    }
+
+    private static String quote(String value) {
+        return "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+}
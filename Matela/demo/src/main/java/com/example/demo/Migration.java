@@ -0,0 +1,28 @@
+package com.example.demo;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * One versioned, forward-only schema change. Versions are applied in ascending order and
+ * recorded in {@code schema_version}, so each one runs exactly once per database file.
+ */
+public record Migration(int version, String description, Step step) {
+
+    @FunctionalInterface
+    public interface Step {
+        void apply(Connection connection) throws SQLException;
+    }
+
+    /** A migration made of plain SQL statements, executed in order. */
+    public static Migration sql(int version, String description, String... statements) {
+        return new Migration(version, description, connection -> {
+            try (Statement stmt = connection.createStatement()) {
+                for (String sql : statements) {
+                    stmt.execute(sql);
+                }
+            }
+        });
+    }
+}
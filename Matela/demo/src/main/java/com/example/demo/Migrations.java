@@ -0,0 +1,200 @@
+package com.example.demo;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/** Every schema migration the application knows about, oldest first. Only ever append. */
+public final class Migrations {
+
+    // Columns added without a currency of their own are in the desk's; read before ALL is built
+    private static final String DESK_CURRENCY = Money.DEFAULT_CURRENCY.getCurrencyCode();
+
+    public static final List<Migration> ALL = List.of(
+            // Tables as the application originally created them, so existing files baseline cleanly
+            Migration.sql(1, "Base rental tables",
+                    "CREATE TABLE IF NOT EXISTS Vehicle(id INT AUTO_INCREMENT PRIMARY KEY, brand VARCHAR(255), category VARCHAR(100), price DOUBLE, available BOOLEAN)",
+                    "CREATE TABLE IF NOT EXISTS Customer(id INT AUTO_INCREMENT PRIMARY KEY, name VARCHAR(255), contact VARCHAR(100), license VARCHAR(100))",
+                    "CREATE TABLE IF NOT EXISTS Booking(id INT AUTO_INCREMENT PRIMARY KEY, customer_id INT, vehicle_id INT, start_date DATE, end_date DATE, FOREIGN KEY(customer_id) REFERENCES Customer(id), FOREIGN KEY(vehicle_id) REFERENCES Vehicle(id))",
+                    "CREATE TABLE IF NOT EXISTS Payment(id INT AUTO_INCREMENT PRIMARY KEY, booking_id INT, amount DOUBLE, method VARCHAR(100), FOREIGN KEY(booking_id) REFERENCES Booking(id))"),
+
+            Migration.sql(2, "Indexes for hot lookups",
+                    // Available-vehicle list: WHERE available = true ORDER BY id
+                    "CREATE INDEX IF NOT EXISTS idx_vehicle_available ON Vehicle(available, id)",
+                    // Latest booking for a customer/vehicle pair: MAX(id) answered from the index alone
+                    "CREATE INDEX IF NOT EXISTS idx_booking_customer_vehicle ON Booking(customer_id, vehicle_id, id)",
+                    // Payments for a booking
+                    "CREATE INDEX IF NOT EXISTS idx_payment_booking ON Payment(booking_id, id)"),
+
+            Migration.sql(3, "Revenue rollup tables",
+                    "ALTER TABLE Payment ADD COLUMN IF NOT EXISTS paid_on DATE",
+                    // Older payments were never dated; the rental start is the best estimate we have
+                    "UPDATE Payment p SET paid_on = COALESCE((SELECT b.start_date FROM Booking b WHERE b.id = p.booking_id), CURRENT_DATE) WHERE paid_on IS NULL",
+                    "ALTER TABLE Payment ALTER COLUMN paid_on SET DEFAULT CURRENT_DATE",
+                    "ALTER TABLE Payment ALTER COLUMN paid_on SET NOT NULL",
+                    "CREATE TABLE IF NOT EXISTS RevenueDaily(period DATE PRIMARY KEY, total DOUBLE NOT NULL, payments INT NOT NULL)",
+                    "CREATE TABLE IF NOT EXISTS RevenueMonthly(period DATE PRIMARY KEY, total DOUBLE NOT NULL, payments INT NOT NULL)",
+                    "INSERT INTO RevenueDaily(period, total, payments) SELECT paid_on, SUM(amount), COUNT(*) FROM Payment GROUP BY paid_on",
+                    "INSERT INTO RevenueMonthly(period, total, payments) SELECT CAST(DATE_TRUNC('MONTH', paid_on) AS DATE) m, SUM(amount), COUNT(*) FROM Payment GROUP BY m"),
+
+            Migration.sql(4, "Booking period index for availability",
+                    // Overlap checks only need bookings that end after the requested start
+                    "CREATE INDEX IF NOT EXISTS idx_booking_vehicle_period ON Booking(vehicle_id, end_date, start_date)"),
+
+            Migration.sql(5, "Invoices",
+                    // One invoice per payment; file stays null until it has been rendered
+                    "CREATE TABLE IF NOT EXISTS Invoice(id INT AUTO_INCREMENT PRIMARY KEY, payment_id INT NOT NULL UNIQUE, booking_id INT NOT NULL, "
+                            + "issued_on DATE DEFAULT CURRENT_DATE NOT NULL, file VARCHAR(1024), rendered_at TIMESTAMP, "
+                            + "FOREIGN KEY(payment_id) REFERENCES Payment(id), FOREIGN KEY(booking_id) REFERENCES Booking(id))",
+                    "CREATE INDEX IF NOT EXISTS idx_invoice_booking ON Invoice(booking_id)",
+                    // Month-end runs select payments by date
+                    "CREATE INDEX IF NOT EXISTS idx_payment_paid_on ON Payment(paid_on, id)"),
+
+            Migration.sql(6, "Pricing rules",
+                    // Read by PricingEngine; seasons recur every year, so their dates are MM-DD
+                    "CREATE TABLE IF NOT EXISTS PricingRule(id INT AUTO_INCREMENT PRIMARY KEY, kind VARCHAR(20) NOT NULL, name VARCHAR(100), "
+                            + "category VARCHAR(100), starts_on CHAR(5), ends_on CHAR(5), min_days INT, amount DOUBLE NOT NULL)",
+                    "INSERT INTO PricingRule(kind, name, category, starts_on, ends_on, min_days, amount) VALUES "
+                            + "('SEASON', 'Summer', NULL, '06-15', '08-31', NULL, 1.25), "
+                            + "('SEASON', 'Holidays', NULL, '12-20', '01-05', NULL, 1.3), "
+                            + "('SEASON', 'Ski season', 'SUV', '12-01', '03-15', NULL, 1.15), "
+                            + "('CATEGORY', 'Luxury cover', 'Luxury', NULL, NULL, NULL, 1.1), "
+                            + "('LONG_RENTAL', 'Week', NULL, NULL, NULL, 7, 0.1), "
+                            + "('LONG_RENTAL', 'Month', NULL, NULL, NULL, 28, 0.2), "
+                            + "('EXTRA', 'GPS', NULL, NULL, NULL, NULL, 5), "
+                            + "('EXTRA', 'Child seat', NULL, NULL, NULL, NULL, 7), "
+                            + "('EXTRA', 'Full insurance', NULL, NULL, NULL, NULL, 15), "
+                            + "('LATE_FEE', 'Late return', NULL, NULL, NULL, NULL, 1.5)"),
+
+            Migration.sql(7, "Booking status for returns",
+                    // BOOKED until the start date, OUT while rented, OVERDUE once past end_date, RETURNED at the desk
+                    "ALTER TABLE Booking ADD COLUMN IF NOT EXISTS status VARCHAR(10) DEFAULT 'BOOKED' NOT NULL",
+                    "ALTER TABLE Booking ADD COLUMN IF NOT EXISTS returned_on DATE",
+                    // Late fees are charged up to, not including, this day
+                    "ALTER TABLE Booking ADD COLUMN IF NOT EXISTS late_fee_through DATE",
+                    // Returns were never recorded before; rentals that have ended are taken to have come back on time
+                    "UPDATE Booking SET status = 'RETURNED', returned_on = end_date WHERE end_date <= CURRENT_DATE",
+                    "UPDATE Booking SET status = 'OUT' WHERE start_date <= CURRENT_DATE AND end_date > CURRENT_DATE",
+                    // The return sweeper only reads the bookings that are due: by status, then date
+                    "CREATE INDEX IF NOT EXISTS idx_booking_status_end ON Booking(status, end_date)",
+                    "CREATE INDEX IF NOT EXISTS idx_booking_status_start ON Booking(status, start_date)"),
+
+            // Not plain SQL: the conversions read columns the same migration drops, so they only run while those exist
+            new Migration(8, "Money as exact cents", Migrations::moneyAsCents),
+
+            Migration.sql(9, "Archive tables for closed rentals",
+                    // Filled by ArchiveService; rows keep their ids, so references between them still resolve
+                    "CREATE TABLE IF NOT EXISTS BookingArchive(id INT PRIMARY KEY, customer_id INT, vehicle_id INT, start_date DATE, end_date DATE, "
+                            + "status VARCHAR(10) NOT NULL, returned_on DATE, late_fee_through DATE, "
+                            + "FOREIGN KEY(customer_id) REFERENCES Customer(id), FOREIGN KEY(vehicle_id) REFERENCES Vehicle(id))",
+                    "CREATE TABLE IF NOT EXISTS PaymentArchive(id INT PRIMARY KEY, booking_id INT NOT NULL, amount_cents BIGINT NOT NULL, "
+                            + "currency CHAR(3) NOT NULL, method VARCHAR(100), paid_on DATE NOT NULL, FOREIGN KEY(booking_id) REFERENCES BookingArchive(id))",
+                    "CREATE TABLE IF NOT EXISTS InvoiceArchive(id INT PRIMARY KEY, payment_id INT NOT NULL UNIQUE, booking_id INT NOT NULL, "
+                            + "issued_on DATE NOT NULL, file VARCHAR(1024), rendered_at TIMESTAMP, "
+                            + "FOREIGN KEY(payment_id) REFERENCES PaymentArchive(id), FOREIGN KEY(booking_id) REFERENCES BookingArchive(id))",
+                    // History export by start date; analytics by period overlap, whose MAX(end_date) also says whether a report needs the archive
+                    "CREATE INDEX IF NOT EXISTS idx_booking_archive_start ON BookingArchive(start_date)",
+                    "CREATE INDEX IF NOT EXISTS idx_booking_archive_end ON BookingArchive(end_date, start_date)",
+                    "CREATE INDEX IF NOT EXISTS idx_payment_archive_paid_on ON PaymentArchive(paid_on)",
+                    "CREATE INDEX IF NOT EXISTS idx_payment_archive_booking ON PaymentArchive(booking_id)"),
+
+            Migration.sql(10, "Extras as exact cents",
+                    // Extras are money, not factors: whole cents with their currency, as V8 did for prices and payments
+                    "ALTER TABLE PricingRule ADD COLUMN IF NOT EXISTS amount_cents BIGINT",
+                    "ALTER TABLE PricingRule ADD COLUMN IF NOT EXISTS currency CHAR(3)",
+                    "ALTER TABLE PricingRule ALTER COLUMN amount SET NULL",
+                    "UPDATE PricingRule SET amount_cents = CAST(ROUND(amount * 100) AS BIGINT), currency = '" + DESK_CURRENCY + "' "
+                            + "WHERE kind = 'EXTRA' AND amount_cents IS NULL",
+                    "UPDATE PricingRule SET amount = NULL WHERE kind = 'EXTRA'"),
+
+            Migration.sql(11, "Revenue per currency",
+                    // Rebuilt rather than altered, so the rows keyed by period alone are never left half converted.
+                    // Archived payments count too: their revenue stays in the rollup after ArchiveService moves them.
+                    "DROP TABLE IF EXISTS RevenueDaily",
+                    "DROP TABLE IF EXISTS RevenueMonthly",
+                    "CREATE TABLE RevenueDaily(period DATE NOT NULL, currency CHAR(3) NOT NULL, total_cents BIGINT NOT NULL, payments INT NOT NULL, "
+                            + "PRIMARY KEY(period, currency))",
+                    "CREATE TABLE RevenueMonthly(period DATE NOT NULL, currency CHAR(3) NOT NULL, total_cents BIGINT NOT NULL, payments INT NOT NULL, "
+                            + "PRIMARY KEY(period, currency))",
+                    "INSERT INTO RevenueDaily(period, currency, total_cents, payments) SELECT paid_on, currency, SUM(amount_cents), COUNT(*) "
+                            + "FROM (SELECT paid_on, currency, amount_cents FROM Payment UNION ALL SELECT paid_on, currency, amount_cents FROM PaymentArchive) "
+                            + "GROUP BY paid_on, currency",
+                    "INSERT INTO RevenueMonthly(period, currency, total_cents, payments) SELECT CAST(DATE_TRUNC('MONTH', period) AS DATE) m, currency, "
+                            + "SUM(total_cents), SUM(payments) FROM RevenueDaily GROUP BY m, currency")
+    );
+
+    private Migrations() {
+    }
+
+    // V8. Amounts become whole cents with their currency; existing rows are rounded to the cent once, here.
+    // H2 commits each DDL statement, so every step is safe to repeat after a failure part way through.
+    private static void moneyAsCents(Connection connection) throws SQLException {
+        execute(connection,
+                "ALTER TABLE Vehicle ADD COLUMN IF NOT EXISTS price_cents BIGINT",
+                "ALTER TABLE Vehicle ADD COLUMN IF NOT EXISTS currency CHAR(3) DEFAULT '" + DESK_CURRENCY + "' NOT NULL");
+        if (hasColumn(connection, "VEHICLE", "PRICE")) {
+            // A vehicle without a price would be rented out for nothing; someone has to set one first
+            List<Integer> unpriced = ids(connection, "SELECT id FROM Vehicle WHERE price IS NULL ORDER BY id");
+            if (!unpriced.isEmpty()) {
+                throw new SQLException("Vehicles " + unpriced + " have no price; set one for each, then restart to finish upgrading.");
+            }
+            execute(connection,
+                    "UPDATE Vehicle SET price_cents = CAST(ROUND(price * 100) AS BIGINT)",
+                    "ALTER TABLE Vehicle DROP COLUMN IF EXISTS price");
+        }
+        execute(connection,
+                "ALTER TABLE Vehicle ALTER COLUMN price_cents SET NOT NULL",
+                "ALTER TABLE Payment ADD COLUMN IF NOT EXISTS amount_cents BIGINT",
+                "ALTER TABLE Payment ADD COLUMN IF NOT EXISTS currency CHAR(3) DEFAULT '" + DESK_CURRENCY + "' NOT NULL");
+        if (hasColumn(connection, "PAYMENT", "AMOUNT")) {
+            execute(connection,
+                    "UPDATE Payment SET amount_cents = CAST(ROUND(COALESCE(amount, 0) * 100) AS BIGINT)",
+                    "ALTER TABLE Payment DROP COLUMN IF EXISTS amount");
+        }
+        execute(connection,
+                "ALTER TABLE Payment ALTER COLUMN amount_cents SET NOT NULL",
+                // Rebuilt from the payments rather than converted, so each total is the exact sum of its rows
+                "ALTER TABLE RevenueDaily DROP COLUMN IF EXISTS total",
+                "ALTER TABLE RevenueDaily ADD COLUMN IF NOT EXISTS total_cents BIGINT DEFAULT 0 NOT NULL",
+                "ALTER TABLE RevenueMonthly DROP COLUMN IF EXISTS total",
+                "ALTER TABLE RevenueMonthly ADD COLUMN IF NOT EXISTS total_cents BIGINT DEFAULT 0 NOT NULL",
+                "DELETE FROM RevenueDaily",
+                "DELETE FROM RevenueMonthly",
+                "INSERT INTO RevenueDaily(period, total_cents, payments) SELECT paid_on, SUM(amount_cents), COUNT(*) FROM Payment GROUP BY paid_on",
+                "INSERT INTO RevenueMonthly(period, total_cents, payments) SELECT CAST(DATE_TRUNC('MONTH', paid_on) AS DATE) m, SUM(amount_cents), COUNT(*) "
+                        + "FROM Payment GROUP BY m");
+    }
+
+    private static boolean hasColumn(Connection connection, String table, String column) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement("SELECT 1 FROM INFORMATION_SCHEMA.COLUMNS "
+                + "WHERE TABLE_SCHEMA = SCHEMA() AND TABLE_NAME = ? AND COLUMN_NAME = ?")) {
+            ps.setString(1, table);
+            ps.setString(2, column);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+
+    private static List<Integer> ids(Connection connection, String sql) throws SQLException {
+        List<Integer> ids = new ArrayList<>();
+        try (Statement stmt = connection.createStatement(); ResultSet rs = stmt.executeQuery(sql)) {
+            while (rs.next()) {
+                ids.add(rs.getInt(1));
+            }
+        }
+        return ids;
+    }
+
+    private static void execute(Connection connection, String... statements) throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            for (String sql : statements) {
+                stmt.execute(sql);
+            }
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.example.demo;
+
+import java.math.BigDecimal;
+import java.util.Currency;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An exact amount of money: a whole number of the currency's minor unit (cents for dollars and
+ * euros), stored as {@code BIGINT} next to a {@code CHAR(3)} currency code. Sums are plain
+ * {@code long} additions, so totals never drift the way summed {@code double}s did.
+ * <p>
+ * The desk runs in one currency, {@link #DEFAULT_CURRENCY}; the revenue reports and fleet analytics
+ * hold bare {@code long} cents in it. Arithmetic across currencies is refused rather than converted.
+ * Formatting is done with long math and a per-currency cache instead of a {@code DecimalFormat},
+ * so it is thread-safe and {@link #appendTo} allocates nothing.
+ */
+public record Money(long cents, Currency currency) implements Comparable<Money> {
+
+    /** The desk's currency; {@code -Drental.currency=EUR} changes it. */
+    public static final Currency DEFAULT_CURRENCY = Currency.getInstance(System.getProperty("rental.currency", "USD"));
+
+    public static final Money ZERO = new Money(0, DEFAULT_CURRENCY);
+
+    // Symbol and scale per currency; looked up once, then read without locking
+    private static final Map<Currency, Style> STYLES = new ConcurrentHashMap<>();
+
+    private record Style(String symbol, int scale, long unit) {
+    }
+
+    public Money {
+        Objects.requireNonNull(currency, "currency");
+    }
+
+    /** {@code cents} in the {@link #DEFAULT_CURRENCY}. */
+    public static Money of(long cents) {
+        return new Money(cents, DEFAULT_CURRENCY);
+    }
+
+    /** Reads the {@code currency} column, falling back to the desk's currency where it is missing. */
+    public static Money of(long cents, String currencyCode) {
+        return new Money(cents, currencyCode == null ? DEFAULT_CURRENCY : Currency.getInstance(currencyCode.trim()));
+    }
+
+    /** Parses a decimal amount such as {@code 49.9} in the {@link #DEFAULT_CURRENCY}. */
+    public static Money parse(String text) {
+        return parse(text, DEFAULT_CURRENCY);
+    }
+
+    /**
+     * Parses a decimal amount such as {@code 49.9}; more decimals than the currency has are an
+     * error rather than silently rounded away.
+     */
+    public static Money parse(String text, Currency currency) {
+        if (text == null || text.isBlank()) {
+            throw new IllegalArgumentException("Amount is required");
+        }
+        try {
+            return new Money(new BigDecimal(text.trim()).movePointRight(style(currency).scale()).longValueExact(), currency);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Not an amount: " + text);
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Too many decimals or too large: " + text);
+        }
+    }
+
+    public Money plus(Money other) {
+        return new Money(Math.addExact(cents, sameCurrency(other).cents), currency);
+    }
+
+    public Money minus(Money other) {
+        return new Money(Math.subtractExact(cents, sameCurrency(other).cents), currency);
+    }
+
+    public Money times(long factor) {
+        return new Money(Math.multiplyExact(cents, factor), currency);
+    }
+
+    public boolean isPositive() {
+        return cents > 0;
+    }
+
+    public boolean isZero() {
+        return cents == 0;
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(cents, sameCurrency(other).cents);
+    }
+
+    /** The amount as the desk shows it, e.g. {@code $1,234.50}. */
+    @Override
+    public String toString() {
+        return appendTo(new StringBuilder(16)).toString();
+    }
+
+    /** Appends {@link #toString()} without building an intermediate string. */
+    public StringBuilder appendTo(StringBuilder out) {
+        return format(out, cents, currency);
+    }
+
+    /** The amount without symbol or grouping, e.g. {@code 1234.50}, as typed into a form or a CSV file. */
+    public String toPlainString() {
+        Style style = style(currency);
+        StringBuilder out = new StringBuilder(20);
+        if (cents < 0) {
+            out.append('-');
+        }
+        out.append(Math.abs(cents / style.unit()));
+        appendFraction(out, style, Math.abs(cents % style.unit()));
+        return out.toString();
+    }
+
+    /** Formats bare {@code cents} of {@code currency} like {@link #toString()}; for rollup and analytics totals. */
+    public static StringBuilder format(StringBuilder out, long cents, Currency currency) {
+        Style style = style(currency);
+        if (cents < 0) {
+            out.append('-');
+        }
+        out.append(style.symbol());
+        appendGrouped(out, Math.abs(cents / style.unit()));
+        appendFraction(out, style, Math.abs(cents % style.unit()));
+        return out;
+    }
+
+    /** The symbol amounts in {@code currency} are shown with, e.g. {@code $}; for labels such as a chart axis. */
+    public static String symbol(Currency currency) {
+        return style(currency).symbol();
+    }
+
+    private Money sameCurrency(Money other) {
+        if (!currency.equals(other.currency)) {
+            throw new IllegalArgumentException("Cannot mix " + currency + " and " + other.currency);
+        }
+        return other;
+    }
+
+    private static Style style(Currency currency) {
+        Style style = STYLES.get(currency);
+        if (style == null) {
+            int scale = Math.max(currency.getDefaultFractionDigits(), 0);
+            long unit = 1;
+            for (int i = 0; i < scale; i++) {
+                unit *= 10;
+            }
+            style = new Style(currency.getSymbol(Locale.getDefault(Locale.Category.FORMAT)), scale, unit);
+            STYLES.putIfAbsent(currency, style);
+        }
+        return style;
+    }
+
+    // Thousands separated by commas, e.g. 1,234,567
+    private static void appendGrouped(StringBuilder out, long value) {
+        if (value < 1000) {
+            out.append(value);
+            return;
+        }
+        appendGrouped(out, value / 1000);
+        int rest = (int) (value % 1000);
+        out.append(',');
+        if (rest < 100) {
+            out.append('0');
+        }
+        if (rest < 10) {
+            out.append('0');
+        }
+        out.append(rest);
+    }
+
+    private static void appendFraction(StringBuilder out, Style style, long fraction) {
+        if (style.scale() == 0) {
+            return;
+        }
+        out.append('.');
+        for (long digit = style.unit() / 10; digit > 1 && fraction < digit; digit /= 10) {
+            out.append('0');
+        }
+        out.append(fraction);
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.demo;
+
+/**
+ * Asks for the next page of a {@link KeysetQuery}: up to {@code limit} rows that sort after
+ * {@code after} (or from the start when it is {@code null}).
+ *
+ * @param filter     case-insensitive substring to match, blank for none
+ * @param sortColumn one of the query's sortable columns, or {@code null} or {@code "id"} to sort by id
+ */
+public record PageRequest<T>(String filter, String sortColumn, boolean ascending, T after, int limit) {
+}
@@ -0,0 +1,23 @@
+package com.example.demo;
+
+import java.sql.SQLException;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * A table as a {@link LazyTableModel} sees it: pages in a chosen order, plus single rows
+ * re-read by id when the {@link ChangeFeed} reports them changed. Methods other than
+ * {@link #idOf} and {@link #order} block and must not be called on the FX thread.
+ */
+public interface PagedSource<T> {
+
+    List<T> page(PageRequest<T> request) throws SQLException;
+
+    /** Those of {@code ids} that exist and belong in the view under {@code filter}, in any order. */
+    List<T> rows(List<Integer> ids, String filter) throws SQLException;
+
+    int idOf(T row);
+
+    /** The order {@link #page} returns rows in for this sort, matching the database's. */
+    Comparator<T> order(String sortColumn, boolean ascending);
+}
@@ -0,0 +1,5 @@
+package com.example.demo;
+
+/** One row of the {@code Payment} table. */
+public record PaymentRow(int id, int bookingId, Money amount, String method) {
+}
@@ -0,0 +1,155 @@
+package com.example.demo;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A connection borrowed from a {@link ConnectionPool}. Closing it hands it back to the pool.
+ * <p>
+ * Statements returned by {@link #prepare} are cached per connection and reused across
+ * borrows, so callers must close the {@code ResultSet}s they open but never the statement itself.
+ * Their {@code execute*} calls are timed into {@link Metrics} under the statement's SQL text.
+ * A pooled connection is owned by one thread between {@code acquire()} and {@code close()}.
+ */
+public class PooledConnection implements AutoCloseable {
+
+    private final ConnectionPool pool;
+    private final Connection connection;
+    private final Map<String, PreparedStatement> statements;
+    // Set by acquire(), cleared by the first close(), so a second close() cannot release the permit twice
+    private final AtomicBoolean borrowed = new AtomicBoolean();
+    private long lastUsed = System.nanoTime();
+
+    PooledConnection(ConnectionPool pool, Connection connection, int statementCacheSize) {
+        this.pool = pool;
+        this.connection = connection;
+        this.statements = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+                if (size() <= statementCacheSize) {
+                    return false;
+                }
+                closeQuietly(eldest.getValue());
+                return true;
+            }
+        };
+    }
+
+    /** Returns a cached prepared statement for {@code sql}, parsing it only on first use. */
+    public PreparedStatement prepare(String sql) throws SQLException {
+        return prepare(sql, Statement.NO_GENERATED_KEYS);
+    }
+
+    public PreparedStatement prepare(String sql, int autoGeneratedKeys) throws SQLException {
+        String key = autoGeneratedKeys == Statement.RETURN_GENERATED_KEYS ? "K:" + sql : sql;
+        PreparedStatement ps = statements.get(key);
+        if (ps == null || ps.isClosed()) {
+            pool.statementMiss();
+            ps = timed(connection.prepareStatement(sql, autoGeneratedKeys), sql);
+            statements.put(key, ps);
+        } else {
+            pool.statementHit();
+            ps.clearParameters();
+        }
+        return ps;
+    }
+
+    // Proxy rather than a hand-written wrapper: PreparedStatement has over a hundred methods
+    private static PreparedStatement timed(PreparedStatement target, String sql) {
+        String name = sql.strip().replaceAll("\\s+", " ");
+        InvocationHandler handler = (_, method, args) -> {
+            if (!method.getName().startsWith("execute")) {
+                return invoke(target, method, args);
+            }
+            Metrics.SqlEvent event = new Metrics.SqlEvent();
+            event.begin();
+            long start = System.nanoTime();
+            try {
+                return invoke(target, method, args);
+            } catch (SQLException e) {
+                Metrics.increment("sql.errors");
+                throw e;
+            } finally {
+                Metrics.sql(name, event, start);
+            }
+        };
+        return (PreparedStatement) Proxy.newProxyInstance(PooledConnection.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class}, handler);
+    }
+
+    private static Object invoke(PreparedStatement target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause(); // Callers expect the SQLException itself
+        }
+    }
+
+    /** The underlying JDBC connection, for transaction control and one-off DDL. */
+    public Connection connection() {
+        return connection;
+    }
+
+    /** Hands the connection back to the pool; closing it again is a no-op. */
+    @Override
+    public void close() {
+        if (!borrowed.compareAndSet(true, false)) {
+            return;
+        }
+        lastUsed = System.nanoTime();
+        pool.release(this);
+    }
+
+    // Called by the pool as it hands the connection out
+    PooledConnection borrow() {
+        borrowed.set(true);
+        return this;
+    }
+
+    long idleNanos() {
+        return System.nanoTime() - lastUsed;
+    }
+
+    int cachedStatements() {
+        return statements.size();
+    }
+
+    /** Puts the connection back into the state a fresh borrower expects. */
+    boolean reset() {
+        try {
+            if (connection.isClosed()) {
+                return false;
+            }
+            if (!connection.getAutoCommit()) {
+                connection.rollback();
+                connection.setAutoCommit(true);
+            }
+            return true;
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    void destroy() {
+        statements.values().forEach(PooledConnection::closeQuietly);
+        statements.clear();
+        closeQuietly(connection);
+    }
+
+    private static void closeQuietly(AutoCloseable closeable) {
+        try {
+            closeable.close();
+        } catch (Exception ignored) {
+            // Nothing useful to do when tearing down
+        }
+    }
+}
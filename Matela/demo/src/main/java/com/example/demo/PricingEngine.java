@@ -0,0 +1,362 @@
+package com.example.demo;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.MonthDay;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Currency;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Prices rentals from the rules in {@code PricingRule}: seasonal multipliers (optionally for one
+ * category), category multipliers, long-rental discounts, per-day extras and the late-fee rate.
+ * <p>
+ * The rules are compiled once into a per-day rate table per category, held as prefix sums over
+ * {@link #HISTORY_DAYS} back to {@link #HORIZON_DAYS} ahead, so pricing any period inside it is two
+ * array reads and a quote for every free vehicle costs about as much as listing them. The table
+ * is rebuilt from the same rules when the date changes, so it keeps following today in a
+ * long-running server; periods still outside it are priced day by day. Rules are read on first
+ * use; {@link #addRule} and {@link #removeRule} recompile them, and {@link #reload} picks up edits
+ * made elsewhere. Amounts are whole cents; the factors are applied in {@code double} and each part
+ * of a quote is rounded to the cent once. Thread-safe.
+ */
+public class PricingEngine {
+
+    static final int HISTORY_DAYS = 92;   // Covers the late fees of overdue rentals
+    static final int HORIZON_DAYS = 731;  // How far ahead the desk takes bookings, give or take
+
+    public enum Kind {
+        /** {@code amount} multiplies the day rate from {@code startsOn} to {@code endsOn}, every year. */
+        SEASON,
+        /** {@code amount} multiplies the day rate of every vehicle in {@code category}. */
+        CATEGORY,
+        /** {@code amount} is the fraction taken off rentals of at least {@code minDays} days. */
+        LONG_RENTAL,
+        /** {@code charge} is the price per rental day of the extra called {@code name}. */
+        EXTRA,
+        /** {@code amount} multiplies the day rate for each day a vehicle comes back late. */
+        LATE_FEE
+    }
+
+    /**
+     * One row of {@code PricingRule}; fields a kind does not use are {@code null} or 0. Factors are
+     * in {@code amount}, money in {@code charge}, stored as exact cents like every other amount.
+     */
+    public record Rule(Kind kind, String name, String category, MonthDay startsOn, MonthDay endsOn, int minDays, double amount,
+                       Money charge) {
+
+        boolean covers(String vehicleCategory, MonthDay day) {
+            if (category != null && !category.equals(vehicleCategory)) {
+                return false;
+            }
+            return startsOn.compareTo(endsOn) <= 0
+                    ? day.compareTo(startsOn) >= 0 && day.compareTo(endsOn) <= 0
+                    : day.compareTo(startsOn) >= 0 || day.compareTo(endsOn) <= 0; // Runs over New Year
+        }
+    }
+
+    public record Extra(String name, Money perDay) {
+    }
+
+    /** A priced rental; {@code total} is exactly {@code rental - discount + extras}. */
+    public record Quote(int vehicleId, String brand, String category, Money pricePerDay, long days,
+                        Money rental, Money discount, Money extras, Money total) {
+    }
+
+    private final ConnectionPool pool;
+    private volatile Rates rates;
+
+    public PricingEngine(ConnectionPool pool) {
+        this.pool = pool;
+    }
+
+    /** Re-reads the rules and recompiles the rate tables; quotes in flight finish on the old ones. */
+    public synchronized void reload() throws SQLException {
+        // Synchronized, so a concurrent rates() cannot roll the old rules forward over these
+        rates = compile(loadRules(), LocalDate.now());
+    }
+
+    /** Stores {@code rule} and recompiles, so the next quote includes it; returns the rule's id. */
+    public int addRule(Rule rule) throws SQLException {
+        int id;
+        try (PooledConnection c = pool.acquire()) {
+            PreparedStatement ps = c.prepare("INSERT INTO PricingRule(kind, name, category, starts_on, ends_on, min_days, amount, amount_cents, currency) "
+                    + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)", Statement.RETURN_GENERATED_KEYS);
+            ps.setString(1, rule.kind().name());
+            ps.setString(2, rule.name());
+            ps.setString(3, rule.category());
+            ps.setString(4, rule.startsOn() == null ? null : rule.startsOn().toString().substring(2)); // --MM-DD to MM-DD
+            ps.setString(5, rule.endsOn() == null ? null : rule.endsOn().toString().substring(2));
+            ps.setInt(6, rule.minDays());
+            if (rule.kind() == Kind.EXTRA) {
+                ps.setNull(7, Types.DOUBLE);
+                ps.setLong(8, rule.charge().cents());
+                ps.setString(9, rule.charge().currency().getCurrencyCode());
+            } else {
+                ps.setDouble(7, rule.amount());
+                ps.setNull(8, Types.BIGINT);
+                ps.setNull(9, Types.CHAR);
+            }
+            ps.executeUpdate();
+            try (ResultSet keys = ps.getGeneratedKeys()) {
+                keys.next();
+                id = keys.getInt(1);
+            }
+        }
+        reload();
+        return id;
+    }
+
+    /** Deletes rule {@code id} and recompiles; false if there was no such rule. */
+    public boolean removeRule(int id) throws SQLException {
+        int deleted;
+        try (PooledConnection c = pool.acquire()) {
+            PreparedStatement ps = c.prepare("DELETE FROM PricingRule WHERE id = ?");
+            ps.setInt(1, id);
+            deleted = ps.executeUpdate();
+        }
+        if (deleted > 0) {
+            reload();
+        }
+        return deleted > 0;
+    }
+
+    /** The extras a rental can add, in the order they were defined. */
+    public List<Extra> extras() throws SQLException {
+        return rates().extras.entrySet().stream().map(e -> new Extra(e.getKey(), e.getValue())).toList();
+    }
+
+    /** Prices renting {@code vehicle} for {@code [start, end)} with the named extras. */
+    public Quote quote(VehicleRow vehicle, LocalDate start, LocalDate end, Set<String> extras) throws SQLException {
+        if (!end.isAfter(start)) {
+            throw new IllegalArgumentException("End date must be after start date.");
+        }
+        Rates current = rates();
+        return current.quote(vehicle, start, end, current.extrasPerDay(extras));
+    }
+
+    /** Prices each vehicle for the same period and extras; the rules are applied once for all of them. */
+    public List<Quote> quote(List<VehicleRow> vehicles, LocalDate start, LocalDate end, Set<String> extras) throws SQLException {
+        if (!end.isAfter(start)) {
+            throw new IllegalArgumentException("End date must be after start date.");
+        }
+        long begin = System.nanoTime();
+        Rates current = rates();
+        Money extrasPerDay = current.extrasPerDay(extras);
+        List<Quote> quotes = new ArrayList<>(vehicles.size());
+        for (VehicleRow vehicle : vehicles) {
+            quotes.add(current.quote(vehicle, start, end, extrasPerDay));
+        }
+        Metrics.record("pricing.bulkQuote", System.nanoTime() - begin);
+        return quotes;
+    }
+
+    /** What is owed for a vehicle due back on {@code dueOn} and returned on {@code returnedOn}; 0 if on time. */
+    public Money lateFee(VehicleRow vehicle, LocalDate dueOn, LocalDate returnedOn) throws SQLException {
+        return rates().lateFee(vehicle, dueOn, returnedOn);
+    }
+
+    // The compiled rules, read on first use
+    Rates rates() throws SQLException {
+        return rates(LocalDate.now());
+    }
+
+    // The compiled rules with the table around today, rebuilt from the rules already read once the date moves on
+    Rates rates(LocalDate today) throws SQLException {
+        Rates current = rates;
+        if (current == null || !current.today.equals(today)) {
+            synchronized (this) {
+                current = rates;
+                if (current == null) {
+                    current = compile(loadRules(), today);
+                    rates = current;
+                } else if (!current.today.equals(today)) {
+                    current = compile(current.rules, today);
+                    rates = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    private List<Rule> loadRules() throws SQLException {
+        try (PooledConnection c = pool.acquire()) {
+            PreparedStatement ps = c.prepare("SELECT kind, name, category, starts_on, ends_on, min_days, amount, amount_cents, currency "
+                    + "FROM PricingRule ORDER BY id");
+            List<Rule> rules = new ArrayList<>();
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    String startsOn = rs.getString("starts_on");
+                    String endsOn = rs.getString("ends_on");
+                    long cents = rs.getLong("amount_cents");
+                    Money charge = rs.wasNull() ? null : Money.of(cents, rs.getString("currency"));
+                    rules.add(new Rule(Kind.valueOf(rs.getString("kind")), rs.getString("name"), rs.getString("category"),
+                            startsOn == null ? null : MonthDay.parse("--" + startsOn), endsOn == null ? null : MonthDay.parse("--" + endsOn),
+                            rs.getInt("min_days"), rs.getDouble("amount"), charge));
+                }
+            }
+            return rules;
+        }
+    }
+
+    /** Compiles {@code rules} into tables starting {@link #HISTORY_DAYS} before {@code today}. */
+    static Rates compile(Collection<Rule> rules, LocalDate today) {
+        long started = System.nanoTime();
+        List<Rule> seasons = new ArrayList<>();
+        Map<String, Double> categoryFactors = new HashMap<>();
+        Map<String, Money> extras = new LinkedHashMap<>();
+        Map<Integer, Double> discountFrom = new HashMap<>();
+        double lateFactor = 1;
+        for (Rule rule : rules) {
+            switch (rule.kind()) {
+                case SEASON -> seasons.add(rule);
+                case CATEGORY -> categoryFactors.merge(rule.category(), rule.amount(), (a, b) -> a * b);
+                case LONG_RENTAL -> discountFrom.merge(rule.minDays(), rule.amount(), Math::max);
+                case EXTRA -> {
+                    if (rule.charge() == null) {
+                        throw new IllegalArgumentException("Extra " + rule.name() + " has no charge");
+                    }
+                    extras.put(rule.name(), rule.charge());
+                }
+                case LATE_FEE -> lateFactor = rule.amount();
+            }
+        }
+
+        // Best discount for each rental length up to the longest threshold; longer rentals use the last
+        int longest = discountFrom.keySet().stream().mapToInt(Integer::intValue).max().orElse(0);
+        double[] discounts = new double[longest + 1];
+        for (int days = 1; days <= longest; days++) {
+            discounts[days] = Math.max(discounts[days - 1], discountFrom.getOrDefault(days, 0.0));
+        }
+
+        int length = HISTORY_DAYS + HORIZON_DAYS;
+        Rates compiled = new Rates(List.copyOf(rules), today, seasons, categoryFactors, discounts, extras, lateFactor);
+        // Categories with rules of their own get their own table; every other category shares the default one
+        compiled.prefixes.put(null, compiled.prefixSums(null, length));
+        for (Rule season : seasons) {
+            if (season.category() != null) {
+                compiled.prefixes.computeIfAbsent(season.category(), category -> compiled.prefixSums(category, length));
+            }
+        }
+        for (String category : categoryFactors.keySet()) {
+            compiled.prefixes.computeIfAbsent(category, _ -> compiled.prefixSums(category, length));
+        }
+        Metrics.record("pricing.compile", System.nanoTime() - started);
+        return compiled;
+    }
+
+    // The compiled form of one set of rules; never changed once built
+    static final class Rates {
+        final List<Rule> rules;
+        final LocalDate today;
+        private final long origin;
+        private final List<Rule> seasons;
+        private final Map<String, Double> categoryFactors;
+        private final double[] discounts;
+        private final Map<String, Money> extras;
+        private final double lateFactor;
+        // prefix[i] is the sum of day factors from origin up to, not including, origin + i
+        private final Map<String, double[]> prefixes = new HashMap<>();
+
+        private Rates(List<Rule> rules, LocalDate today, List<Rule> seasons, Map<String, Double> categoryFactors, double[] discounts,
+                      Map<String, Money> extras, double lateFactor) {
+            this.rules = rules;
+            this.today = today;
+            this.origin = today.minusDays(HISTORY_DAYS).toEpochDay();
+            this.seasons = seasons;
+            this.categoryFactors = categoryFactors;
+            this.discounts = discounts;
+            this.extras = extras;
+            this.lateFactor = lateFactor;
+        }
+
+        // extrasPerDay as extrasPerDay(Set) returns it; extras in another currency than the vehicle are refused, not converted
+        Quote quote(VehicleRow vehicle, LocalDate start, LocalDate end, Money extrasPerDay) {
+            long days = ChronoUnit.DAYS.between(start, end);
+            Currency currency = vehicle.price().currency();
+            if (!extrasPerDay.isZero() && !extrasPerDay.currency().equals(currency)) {
+                throw new IllegalArgumentException("Extras are priced in " + extrasPerDay.currency() + ", vehicle "
+                        + vehicle.id() + " in " + currency);
+            }
+            long rental = Math.round(vehicle.price().cents() * rateSum(vehicle.category(), start, end));
+            long discount = Math.round(rental * discountFor(days));
+            long extrasTotal = Math.multiplyExact(extrasPerDay.cents(), days);
+            return new Quote(vehicle.id(), vehicle.brand(), vehicle.category(), vehicle.price(), days, new Money(rental, currency),
+                    new Money(discount, currency), new Money(extrasTotal, currency), new Money(rental - discount + extrasTotal, currency));
+        }
+
+        // The late fee for the days [from, to), zero if there are none
+        Money lateFee(VehicleRow vehicle, LocalDate from, LocalDate to) {
+            long fee = to.isAfter(from) ? Math.round(vehicle.price().cents() * rateSum(vehicle.category(), from, to) * lateFactor) : 0;
+            return new Money(fee, vehicle.price().currency());
+        }
+
+        // Whether [start, end) is priced from the table rather than day by day
+        boolean inTable(LocalDate start, LocalDate end) {
+            return start.toEpochDay() >= origin && end.toEpochDay() - origin <= HISTORY_DAYS + HORIZON_DAYS;
+        }
+
+        // Sum of the day factors over [start, end): two reads when the period is inside the table
+        double rateSum(String category, LocalDate start, LocalDate end) {
+            if (inTable(start, end)) {
+                double[] prefix = prefixes.getOrDefault(category, prefixes.get(null));
+                return prefix[(int) (end.toEpochDay() - origin)] - prefix[(int) (start.toEpochDay() - origin)];
+            }
+            double sum = 0;
+            for (LocalDate day = start; day.isBefore(end); day = day.plusDays(1)) {
+                sum += dayFactor(category, day);
+            }
+            return sum;
+        }
+
+        // The named extras together; plus() refuses extras priced in different currencies
+        Money extrasPerDay(Set<String> names) {
+            Money perDay = null;
+            for (String name : names) {
+                Money price = extras.get(name);
+                if (price == null) {
+                    throw new IllegalArgumentException("Unknown extra: " + name);
+                }
+                perDay = perDay == null ? price : perDay.plus(price);
+            }
+            return perDay == null ? Money.ZERO : perDay;
+        }
+
+        private double discountFor(long days) {
+            return discounts[(int) Math.min(days, discounts.length - 1)];
+        }
+
+        private double[] prefixSums(String category, int length) {
+            double[] prefix = new double[length + 1];
+            LocalDate day = LocalDate.ofEpochDay(origin);
+            for (int i = 0; i < length; i++, day = day.plusDays(1)) {
+                prefix[i + 1] = prefix[i] + dayFactor(category, day);
+            }
+            return prefix;
+        }
+
+        // Overlapping seasons do not stack: the steepest one applies
+        private double dayFactor(String category, LocalDate day) {
+            MonthDay monthDay = MonthDay.from(day);
+            double season = 1;
+            boolean inSeason = false;
+            for (Rule rule : seasons) {
+                if (rule.covers(category, monthDay) && (!inSeason || rule.amount() > season)) {
+                    season = rule.amount();
+                    inSeason = true;
+                }
+            }
+            return season * categoryFactors.getOrDefault(category, 1.0);
+        }
+    }
+}
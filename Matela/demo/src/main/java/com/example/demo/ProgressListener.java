@@ -0,0 +1,21 @@
+package com.example.demo;
+
+/** Lets long-running background work report how far it has got and notice when it should stop. */
+public interface ProgressListener {
+
+    ProgressListener NONE = new ProgressListener() {
+        @Override
+        public void update(long done, long total) {
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return false;
+        }
+    };
+
+    /** {@code total} is -1 when unknown. */
+    void update(long done, long total);
+
+    boolean isCancelled();
+}
@@ -0,0 +1,333 @@
+package com.example.demo;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+/**
+ * {@link RentalBackend} over a {@link RentalServer}'s HTTP API. Writes made by any terminal reach
+ * this one's {@link ChangeFeed} through a long-poll on {@code /api/changes}, run on a virtual
+ * thread for as long as the backend is open; this terminal's own writes arrive the same way.
+ */
+public class RemoteBackend implements RentalBackend {
+
+    private static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(5);
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+    private static final long RETRY_MILLIS = 2_000;
+
+    private record Response(int status, Object body) {
+    }
+
+    private final URI base;
+    private final ChangeFeed changes;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final HttpClient client;
+    private final Thread poller;
+    private volatile boolean closed;
+
+    /** @param server e.g. {@code http://desk1:8085}; the long-poll starts at once */
+    public RemoteBackend(String server, ChangeFeed changes) {
+        this.base = URI.create(server.endsWith("/") ? server : server + "/").resolve("api/");
+        this.changes = changes;
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1) // The JDK server does not speak HTTP/2
+                .connectTimeout(CONNECT_TIMEOUT)
+                .executor(executor)
+                .build();
+        this.poller = Thread.ofVirtual().name("rental-changes").start(this::pollChanges);
+    }
+
+    /** Fails with the server's reason if it cannot be reached. */
+    public void checkHealth() throws SQLException {
+        expect(call("GET", "health", null, REQUEST_TIMEOUT));
+    }
+
+    // ----- Vehicles -----
+
+    @Override
+    public int addVehicle(String brand, String category, Money price) throws SQLException {
+        return intField(post("vehicles", RentalApi.object("brand", brand, "category", category, "price", RentalApi.money(price))), "id");
+    }
+
+    @Override
+    public int updateVehicle(int id, String brand, String category, Money price) throws SQLException {
+        return intField(expect(call("PUT", "vehicles/" + id, RentalApi.object("brand", brand, "category", category, "price", RentalApi.money(price)), REQUEST_TIMEOUT)), "updated");
+    }
+
+    @Override
+    public int deleteVehicle(int id) throws SQLException {
+        return intField(expect(call("DELETE", "vehicles/" + id, null, REQUEST_TIMEOUT)), "deleted");
+    }
+
+    @Override
+    public VehicleRow findVehicle(int id) throws SQLException {
+        Map<String, Object> row = find("vehicles/" + id);
+        return row == null ? null : RentalApi.vehicle(row);
+    }
+
+    @Override
+    public PagedSource<VehicleRow> availableVehicles() {
+        return pagedSource("vehicles", RentalRepository.AVAILABLE_VEHICLES, RentalApi::vehicle, RentalApi::vehicle);
+    }
+
+    @Override
+    public List<VehicleRow> freeVehicles(LocalDate start, LocalDate end, int limit) throws SQLException {
+        return RentalApi.parseList(get("vehicles/free?start=" + start + "&end=" + end + "&limit=" + limit), RentalApi::vehicle);
+    }
+
+    // ----- Customers -----
+
+    @Override
+    public int addCustomer(String name, String contact, String license) throws SQLException {
+        return intField(post("customers", RentalApi.object("name", name, "contact", contact, "license", license)), "id");
+    }
+
+    @Override
+    public int updateCustomer(int id, String name, String contact, String license) throws SQLException {
+        return intField(expect(call("PUT", "customers/" + id, RentalApi.object("name", name, "contact", contact, "license", license), REQUEST_TIMEOUT)), "updated");
+    }
+
+    @Override
+    public int deleteCustomer(int id) throws SQLException {
+        return intField(expect(call("DELETE", "customers/" + id, null, REQUEST_TIMEOUT)), "deleted");
+    }
+
+    @Override
+    public CustomerRow findCustomer(int id) throws SQLException {
+        Map<String, Object> row = find("customers/" + id);
+        return row == null ? null : RentalApi.customer(row);
+    }
+
+    @Override
+    public PagedSource<CustomerRow> customers() {
+        return pagedSource("customers", RentalRepository.CUSTOMERS, RentalApi::customer, RentalApi::customer);
+    }
+
+    // ----- Bookings and payments -----
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public BookingService.Result book(int customerId, int vehicleId, LocalDate start, LocalDate end, Set<String> extras, String method)
+            throws SQLException {
+        Response response = call("POST", "bookings", RentalApi.object("customerId", customerId, "vehicleId", vehicleId,
+                "start", start, "end", end, "extras", List.copyOf(extras), "method", method), REQUEST_TIMEOUT);
+        return RentalApi.bookingResult((Map<String, Object>) expect(response));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public PricingEngine.Quote quote(int vehicleId, LocalDate start, LocalDate end, Set<String> extras) throws SQLException {
+        Response response = call("POST", "quotes", RentalApi.object("vehicleId", vehicleId, "start", start, "end", end,
+                "extras", List.copyOf(extras)), REQUEST_TIMEOUT);
+        return response.status() == 404 ? null : RentalApi.quote((Map<String, Object>) expect(response));
+    }
+
+    @Override
+    public List<PricingEngine.Quote> quoteFree(LocalDate start, LocalDate end, Set<String> extras, int limit) throws SQLException {
+        return RentalApi.parseList(post("quotes/free", RentalApi.object("start", start, "end", end, "extras", List.copyOf(extras), "limit", limit)),
+                RentalApi::quote);
+    }
+
+    @Override
+    public List<PricingEngine.Extra> extras() throws SQLException {
+        return RentalApi.parseList(get("extras"), RentalApi::extra);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public ReturnService.Return returnVehicle(int bookingId) throws SQLException {
+        Response response = call("POST", "returns", RentalApi.object("bookingId", bookingId), REQUEST_TIMEOUT);
+        return response.status() == 404 ? null : RentalApi.vehicleReturn((Map<String, Object>) expect(response));
+    }
+
+    @Override
+    public int addPayment(int bookingId, Money amount, String method) throws SQLException {
+        return intField(post("payments", RentalApi.object("bookingId", bookingId, "amount", RentalApi.money(amount), "method", method)), "id");
+    }
+
+    @Override
+    public PagedSource<PaymentRow> payments() {
+        return pagedSource("payments", RentalRepository.PAYMENTS, RentalApi::payment, RentalApi::payment);
+    }
+
+    @Override
+    public List<VehicleRow> fleet() throws SQLException {
+        return RentalApi.parseList(get("vehicles/fleet"), RentalApi::vehicle);
+    }
+
+    @Override
+    public List<BookingSpan> bookingSpans(int firstVehicleId, int lastVehicleId, LocalDate from, LocalDate to) throws SQLException {
+        return RentalApi.parseList(get("bookings?firstVehicle=" + firstVehicleId + "&lastVehicle=" + lastVehicleId + "&from=" + from + "&to=" + to),
+                RentalApi::bookingSpan);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public InvoiceService.Invoice issueInvoice(int paymentId) throws SQLException {
+        return RentalApi.invoice((Map<String, Object>) post("invoices", RentalApi.object("paymentId", paymentId)));
+    }
+
+    // ----- Reports and search -----
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Money totalRevenue() throws SQLException {
+        return RentalApi.moneyOf((Map<String, Object>) get("revenue"), "total");
+    }
+
+    @Override
+    public List<RevenuePoint> monthlyRevenue(int months) throws SQLException {
+        return RentalApi.parseList(get("revenue/monthly?months=" + months), RentalApi::revenuePoint);
+    }
+
+    @Override
+    public List<RevenuePoint> dailyRevenue(LocalDate from, LocalDate to) throws SQLException {
+        return RentalApi.parseList(get("revenue/daily?from=" + from + "&to=" + to), RentalApi::revenuePoint);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public FleetAnalytics.Report fleetAnalytics(LocalDate from, LocalDate to) throws SQLException {
+        return RentalApi.analytics((Map<String, Object>) get("analytics?from=" + from + "&to=" + to));
+    }
+
+    @Override
+    public List<SearchService.Hit> search(SearchService.Kind kind, String query, int limit) throws SQLException {
+        return RentalApi.parseList(get("search?kind=" + kind + "&q=" + URLEncoder.encode(query, StandardCharsets.UTF_8) + "&limit=" + limit),
+                RentalApi::hit);
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        poller.interrupt();
+        executor.shutdownNow();
+    }
+
+    // ----- Paging -----
+
+    // Ordering stays client-side: the same comparators the server's queries are written against
+    private <T> PagedSource<T> pagedSource(String resource, KeysetQuery<T> query, Function<T, Map<String, Object>> encoder,
+                                           Function<Map<String, Object>, T> decoder) {
+        return new PagedSource<>() {
+            @Override
+            public List<T> page(PageRequest<T> request) throws SQLException {
+                return RentalApi.parseList(post(resource + "/page", RentalApi.pageRequest(request, encoder)), decoder);
+            }
+
+            @Override
+            public List<T> rows(List<Integer> ids, String filter) throws SQLException {
+                return RentalApi.parseList(post(resource + "/rows", RentalApi.object("ids", ids, "filter", filter)), decoder);
+            }
+
+            @Override
+            public int idOf(T row) {
+                return query.idOf(row);
+            }
+
+            @Override
+            public Comparator<T> order(String sortColumn, boolean ascending) {
+                return query.order(sortColumn, ascending);
+            }
+        };
+    }
+
+    // ----- Change feed -----
+
+    // Republishes the server's changes locally; a restarted server or a gap too long to replay reloads everything
+    @SuppressWarnings("unchecked")
+    private void pollChanges() {
+        long since = -1;
+        String server = null;
+        while (!closed) {
+            try {
+                Map<String, Object> batch = (Map<String, Object>) expect(call("GET", "changes?since=" + since, null,
+                        Duration.ofMillis(RentalServer.POLL_TIMEOUT_MILLIS).plus(REQUEST_TIMEOUT)));
+                String current = RentalApi.stringOf(batch, "server");
+                if (Boolean.TRUE.equals(batch.get("reset")) || (server != null && !server.equals(current))) {
+                    for (ChangeFeed.Table table : ChangeFeed.Table.values()) {
+                        changes.publishReload(table);
+                    }
+                }
+                server = current;
+                since = ((Number) batch.get("next")).longValue();
+                for (ChangeFeed.Change change : RentalApi.parseList(batch.get("changes"), RentalApi::change)) {
+                    changes.publish(change.table(), change.op(), change.id());
+                }
+            } catch (SQLException | RuntimeException e) {
+                if (closed) {
+                    return;
+                }
+                Metrics.error("change poll", e);
+                try {
+                    Thread.sleep(RETRY_MILLIS);
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+            }
+        }
+    }
+
+    // ----- HTTP -----
+
+    private Object get(String path) throws SQLException {
+        return expect(call("GET", path, null, REQUEST_TIMEOUT));
+    }
+
+    private Object post(String path, Object body) throws SQLException {
+        return expect(call("POST", path, body, REQUEST_TIMEOUT));
+    }
+
+    // The row, or null on 404
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> find(String path) throws SQLException {
+        Response response = call("GET", path, null, REQUEST_TIMEOUT);
+        return response.status() == 404 ? null : (Map<String, Object>) expect(response);
+    }
+
+    private Response call(String method, String path, Object body, Duration timeout) throws SQLException {
+        HttpRequest request = HttpRequest.newBuilder(base.resolve(path))
+                .timeout(timeout)
+                .header("Content-Type", "application/json")
+                .method(method, body == null ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofString(Json.write(body)))
+                .build();
+        try {
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            return new Response(response.statusCode(), Json.parse(response.body()));
+        } catch (IOException | IllegalArgumentException e) {
+            throw new SQLException("Cannot reach the rental server at " + base + ": " + e.getMessage(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for the rental server", e);
+        }
+    }
+
+    // The body of a 2xx response; anything else becomes an SQLException with the server's message
+    @SuppressWarnings("unchecked")
+    private static Object expect(Response response) throws SQLException {
+        if (response.status() / 100 == 2) {
+            return response.body();
+        }
+        Object error = response.body() instanceof Map<?, ?> map ? ((Map<String, Object>) map).get("error") : null;
+        throw new SQLException(error != null ? error.toString() : "Rental server answered HTTP " + response.status());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static int intField(Object body, String field) {
+        return RentalApi.intOf((Map<String, Object>) body, field);
+    }
+}
@@ -0,0 +1,274 @@
+package com.example.demo;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * The JSON shapes of the HTTP API, shared by {@link RentalServer} and {@link RemoteBackend} so
+ * the two cannot drift apart. Field names match the record components; dates are ISO strings.
+ */
+final class RentalApi {
+
+    private RentalApi() {
+    }
+
+    // ----- Rows -----
+
+    static Map<String, Object> vehicle(VehicleRow v) {
+        return object("id", v.id(), "brand", v.brand(), "category", v.category(), "price", money(v.price()), "available", v.available());
+    }
+
+    static VehicleRow vehicle(Map<String, Object> m) {
+        return new VehicleRow(intOf(m, "id"), stringOf(m, "brand"), stringOf(m, "category"), moneyOf(m, "price"), Boolean.TRUE.equals(m.get("available")));
+    }
+
+    static Map<String, Object> customer(CustomerRow c) {
+        return object("id", c.id(), "name", c.name(), "contact", c.contact(), "license", c.license());
+    }
+
+    static CustomerRow customer(Map<String, Object> m) {
+        return new CustomerRow(intOf(m, "id"), stringOf(m, "name"), stringOf(m, "contact"), stringOf(m, "license"));
+    }
+
+    static Map<String, Object> payment(PaymentRow p) {
+        return object("id", p.id(), "bookingId", p.bookingId(), "amount", money(p.amount()), "method", p.method());
+    }
+
+    static PaymentRow payment(Map<String, Object> m) {
+        return new PaymentRow(intOf(m, "id"), intOf(m, "bookingId"), moneyOf(m, "amount"), stringOf(m, "method"));
+    }
+
+    static Map<String, Object> confirmation(BookingService.Confirmation c) {
+        return object("bookingId", c.bookingId(), "paymentId", c.paymentId(), "pricePerDay", money(c.pricePerDay()), "days", c.days(),
+                "amount", money(c.amount()));
+    }
+
+    static BookingService.Confirmation confirmation(Map<String, Object> m) {
+        return new BookingService.Confirmation(intOf(m, "bookingId"), intOf(m, "paymentId"), moneyOf(m, "pricePerDay"),
+                ((Number) m.get("days")).longValue(), moneyOf(m, "amount"));
+    }
+
+    static Map<String, Object> bookingResult(BookingService.Result r) {
+        return r.isBooked() ? object("confirmation", confirmation(r.confirmation())) : object("refusal", r.refusal().name());
+    }
+
+    @SuppressWarnings("unchecked")
+    static BookingService.Result bookingResult(Map<String, Object> m) {
+        return m.get("confirmation") instanceof Map<?, ?> c
+                ? BookingService.Result.of(confirmation((Map<String, Object>) c))
+                : BookingService.Result.refused(BookingService.Refusal.valueOf(stringOf(m, "refusal")));
+    }
+
+    static Map<String, Object> quote(PricingEngine.Quote q) {
+        return object("vehicleId", q.vehicleId(), "brand", q.brand(), "category", q.category(), "pricePerDay", money(q.pricePerDay()),
+                "days", q.days(), "rental", money(q.rental()), "discount", money(q.discount()), "extras", money(q.extras()), "total", money(q.total()));
+    }
+
+    static PricingEngine.Quote quote(Map<String, Object> m) {
+        return new PricingEngine.Quote(intOf(m, "vehicleId"), stringOf(m, "brand"), stringOf(m, "category"), moneyOf(m, "pricePerDay"),
+                ((Number) m.get("days")).longValue(), moneyOf(m, "rental"), moneyOf(m, "discount"), moneyOf(m, "extras"), moneyOf(m, "total"));
+    }
+
+    static Map<String, Object> extra(PricingEngine.Extra e) {
+        return object("name", e.name(), "perDay", money(e.perDay()));
+    }
+
+    static PricingEngine.Extra extra(Map<String, Object> m) {
+        return new PricingEngine.Extra(stringOf(m, "name"), moneyOf(m, "perDay"));
+    }
+
+    static Map<String, Object> vehicleReturn(ReturnService.Return r) {
+        return object("bookingId", r.bookingId(), "vehicleId", r.vehicleId(), "daysLate", r.daysLate(), "lateFee", money(r.lateFee()));
+    }
+
+    static ReturnService.Return vehicleReturn(Map<String, Object> m) {
+        return new ReturnService.Return(intOf(m, "bookingId"), intOf(m, "vehicleId"), ((Number) m.get("daysLate")).longValue(), moneyOf(m, "lateFee"));
+    }
+
+    static Map<String, Object> bookingSpan(BookingSpan b) {
+        return object("bookingId", b.bookingId(), "vehicleId", b.vehicleId(), "customerId", b.customerId(),
+                "start", b.start().toString(), "end", b.end().toString());
+    }
+
+    static BookingSpan bookingSpan(Map<String, Object> m) {
+        return new BookingSpan(intOf(m, "bookingId"), intOf(m, "vehicleId"), intOf(m, "customerId"),
+                LocalDate.parse(stringOf(m, "start")), LocalDate.parse(stringOf(m, "end")));
+    }
+
+    static Map<String, Object> revenuePoint(RevenuePoint r) {
+        return object("period", r.period().toString(), "totalCents", r.totalCents(), "payments", r.payments());
+    }
+
+    static RevenuePoint revenuePoint(Map<String, Object> m) {
+        return new RevenuePoint(LocalDate.parse(stringOf(m, "period")), longOf(m, "totalCents"), intOf(m, "payments"));
+    }
+
+    static Map<String, Object> invoice(InvoiceService.Invoice i) {
+        return object("id", i.id(), "paymentId", i.paymentId(), "number", i.number(), "file", i.file().toString());
+    }
+
+    static InvoiceService.Invoice invoice(Map<String, Object> m) {
+        return new InvoiceService.Invoice(intOf(m, "id"), intOf(m, "paymentId"), stringOf(m, "number"), Path.of(stringOf(m, "file")));
+    }
+
+    static Map<String, Object> analytics(FleetAnalytics.Report r) {
+        return object("from", r.from().toString(), "to", r.to().toString(), "days", r.days(),
+                "vehicles", list(r.vehicles(), RentalApi::vehicleStats), "categories", list(r.categories(), RentalApi::categoryStats));
+    }
+
+    static FleetAnalytics.Report analytics(Map<String, Object> m) {
+        return new FleetAnalytics.Report(LocalDate.parse(stringOf(m, "from")), LocalDate.parse(stringOf(m, "to")), intOf(m, "days"),
+                parseList(m.get("vehicles"), RentalApi::vehicleStats), parseList(m.get("categories"), RentalApi::categoryStats));
+    }
+
+    static Map<String, Object> vehicleStats(FleetAnalytics.VehicleStats v) {
+        return object("vehicleId", v.vehicleId(), "label", v.label(), "category", v.category(), "bookings", v.bookings(),
+                "rentedDays", v.rentedDays(), "idleDays", v.idleDays(), "utilization", v.utilization(), "revenueCents", v.revenueCents());
+    }
+
+    static FleetAnalytics.VehicleStats vehicleStats(Map<String, Object> m) {
+        return new FleetAnalytics.VehicleStats(intOf(m, "vehicleId"), stringOf(m, "label"), stringOf(m, "category"), intOf(m, "bookings"),
+                intOf(m, "rentedDays"), intOf(m, "idleDays"), doubleOf(m, "utilization"), longOf(m, "revenueCents"));
+    }
+
+    static Map<String, Object> categoryStats(FleetAnalytics.CategoryStats c) {
+        return object("category", c.category(), "vehicles", c.vehicles(), "bookings", c.bookings(), "rentedDays", c.rentedDays(),
+                "idleDays", c.idleDays(), "utilization", c.utilization(), "revenueCents", c.revenueCents());
+    }
+
+    static FleetAnalytics.CategoryStats categoryStats(Map<String, Object> m) {
+        return new FleetAnalytics.CategoryStats(stringOf(m, "category"), intOf(m, "vehicles"), intOf(m, "bookings"),
+                ((Number) m.get("rentedDays")).longValue(), ((Number) m.get("idleDays")).longValue(), doubleOf(m, "utilization"),
+                longOf(m, "revenueCents"));
+    }
+
+    static Map<String, Object> hit(SearchService.Hit h) {
+        return object("id", h.id(), "label", h.label());
+    }
+
+    static SearchService.Hit hit(Map<String, Object> m) {
+        return new SearchService.Hit(intOf(m, "id"), stringOf(m, "label"));
+    }
+
+    static Map<String, Object> change(ChangeFeed.Change c) {
+        return object("table", c.table().name(), "op", c.op().name(), "id", c.id());
+    }
+
+    static ChangeFeed.Change change(Map<String, Object> m) {
+        return new ChangeFeed.Change(ChangeFeed.Table.valueOf(stringOf(m, "table")), ChangeFeed.Op.valueOf(stringOf(m, "op")), intOf(m, "id"));
+    }
+
+    // ----- Paging -----
+
+    static <T> Map<String, Object> pageRequest(PageRequest<T> request, Function<T, Map<String, Object>> encoder) {
+        return object("filter", request.filter(), "sort", request.sortColumn(), "ascending", request.ascending(),
+                "after", request.after() == null ? null : encoder.apply(request.after()), "limit", request.limit());
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T> PageRequest<T> pageRequest(Map<String, Object> m, Function<Map<String, Object>, T> decoder) {
+        Object after = m.get("after");
+        return new PageRequest<>(stringOf(m, "filter"), stringOf(m, "sort"), !Boolean.FALSE.equals(m.get("ascending")),
+                after == null ? null : decoder.apply((Map<String, Object>) after), intOf(m, "limit"));
+    }
+
+    // ----- Helpers -----
+
+    static <T> List<Map<String, Object>> list(List<T> rows, Function<T, Map<String, Object>> encoder) {
+        List<Map<String, Object>> out = new ArrayList<>(rows.size());
+        for (T row : rows) {
+            out.add(encoder.apply(row));
+        }
+        return out;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T> List<T> parseList(Object json, Function<Map<String, Object>, T> decoder) {
+        if (!(json instanceof List<?> items)) {
+            throw new IllegalArgumentException("Expected a JSON array");
+        }
+        List<T> out = new ArrayList<>(items.size());
+        for (Object item : items) {
+            out.add(decoder.apply((Map<String, Object>) item));
+        }
+        return out;
+    }
+
+    static List<Integer> ints(Object json) {
+        if (!(json instanceof List<?> items)) {
+            throw new IllegalArgumentException("Expected a JSON array of ids");
+        }
+        List<Integer> out = new ArrayList<>(items.size());
+        for (Object item : items) {
+            out.add(((Number) item).intValue());
+        }
+        return out;
+    }
+
+    static List<String> strings(Object json) {
+        if (!(json instanceof List<?> items)) {
+            throw new IllegalArgumentException("Expected a JSON array of strings");
+        }
+        List<String> out = new ArrayList<>(items.size());
+        for (Object item : items) {
+            out.add(item.toString());
+        }
+        return out;
+    }
+
+    /** Alternating names and values, in order. */
+    static Map<String, Object> object(Object... namesAndValues) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        for (int i = 0; i < namesAndValues.length; i += 2) {
+            map.put((String) namesAndValues[i], namesAndValues[i + 1]);
+        }
+        return map;
+    }
+
+    static int intOf(Map<String, Object> m, String field) {
+        if (!(m.get(field) instanceof Number n)) {
+            throw new IllegalArgumentException(field + " must be a number");
+        }
+        return n.intValue();
+    }
+
+    static long longOf(Map<String, Object> m, String field) {
+        if (!(m.get(field) instanceof Number n)) {
+            throw new IllegalArgumentException(field + " must be a number");
+        }
+        return n.longValue();
+    }
+
+    /** Money goes over the wire as exact cents and a currency code, never as a JSON decimal. */
+    static Map<String, Object> money(Money money) {
+        return object("cents", money.cents(), "currency", money.currency().getCurrencyCode());
+    }
+
+    static Money moneyOf(Map<String, Object> m, String field) {
+        if (!(m.get(field) instanceof Map<?, ?> value) || !(value.get("cents") instanceof Long cents)) {
+            throw new IllegalArgumentException(field + " must be an object with whole cents and a currency");
+        }
+        try {
+            return Money.of(cents, value.get("currency") instanceof String code ? code : null);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(field + " has an unknown currency");
+        }
+    }
+
+    static double doubleOf(Map<String, Object> m, String field) {
+        if (!(m.get(field) instanceof Number n)) {
+            throw new IllegalArgumentException(field + " must be a number");
+        }
+        return n.doubleValue();
+    }
+
+    static String stringOf(Map<String, Object> m, String field) {
+        Object value = m.get(field);
+        return value == null ? null : value.toString();
+    }
+}
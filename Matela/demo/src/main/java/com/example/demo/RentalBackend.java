@@ -0,0 +1,97 @@
+package com.example.demo;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Everything the front desk does, independent of where the database is: {@link LocalBackend}
+ * runs it against an embedded H2 file, {@link RemoteBackend} against a {@link RentalServer}
+ * shared by several terminals. Methods block and must not be called on the FX thread.
+ * <p>
+ * Both report failures as {@link SQLException}s whose message is fit to show the user.
+ */
+public interface RentalBackend extends AutoCloseable {
+
+    // ----- Vehicles -----
+
+    int addVehicle(String brand, String category, Money price) throws SQLException;
+
+    /** @return the number of rows updated, 0 if there is no such vehicle */
+    int updateVehicle(int id, String brand, String category, Money price) throws SQLException;
+
+    int deleteVehicle(int id) throws SQLException;
+
+    /** The vehicle, or {@code null} if there is none with that id. */
+    VehicleRow findVehicle(int id) throws SQLException;
+
+    PagedSource<VehicleRow> availableVehicles();
+
+    /** Vehicles with no booking overlapping {@code [start, end)}, lowest id first. */
+    List<VehicleRow> freeVehicles(LocalDate start, LocalDate end, int limit) throws SQLException;
+
+    // ----- Customers -----
+
+    int addCustomer(String name, String contact, String license) throws SQLException;
+
+    int updateCustomer(int id, String name, String contact, String license) throws SQLException;
+
+    int deleteCustomer(int id) throws SQLException;
+
+    CustomerRow findCustomer(int id) throws SQLException;
+
+    PagedSource<CustomerRow> customers();
+
+    // ----- Bookings and payments -----
+
+    /** Books and pays in one transaction, or says why it could not; the period may not start in the past. */
+    BookingService.Result book(int customerId, int vehicleId, LocalDate start, LocalDate end, Set<String> extras, String method)
+            throws SQLException;
+
+    default BookingService.Result book(int customerId, int vehicleId, LocalDate start, LocalDate end, String method) throws SQLException {
+        return book(customerId, vehicleId, start, end, Set.of(), method);
+    }
+
+    /** What booking the vehicle would cost, or {@code null} if there is no such vehicle. */
+    PricingEngine.Quote quote(int vehicleId, LocalDate start, LocalDate end, Set<String> extras) throws SQLException;
+
+    /** {@link #freeVehicles} with each one priced for the period, lowest id first. */
+    List<PricingEngine.Quote> quoteFree(LocalDate start, LocalDate end, Set<String> extras, int limit) throws SQLException;
+
+    /** The extras a booking can add. */
+    List<PricingEngine.Extra> extras() throws SQLException;
+
+    /** Checks the booking's vehicle back in today and charges any late fee still owed; {@code null} if there is no such booking. */
+    ReturnService.Return returnVehicle(int bookingId) throws SQLException;
+
+    int addPayment(int bookingId, Money amount, String method) throws SQLException;
+
+    PagedSource<PaymentRow> payments();
+
+    /** Every vehicle, lowest id first. */
+    List<VehicleRow> fleet() throws SQLException;
+
+    /** Bookings of vehicles {@code firstVehicleId..lastVehicleId} overlapping {@code [from, to)}, by vehicle then start. */
+    List<BookingSpan> bookingSpans(int firstVehicleId, int lastVehicleId, LocalDate from, LocalDate to) throws SQLException;
+
+    /** Creates and renders the payment's invoice, or re-renders it; the file is where the database is. */
+    InvoiceService.Invoice issueInvoice(int paymentId) throws SQLException;
+
+    // ----- Reports and search -----
+
+    Money totalRevenue() throws SQLException;
+
+    List<RevenuePoint> monthlyRevenue(int months) throws SQLException;
+
+    /** Days without payments are left out. */
+    List<RevenuePoint> dailyRevenue(LocalDate from, LocalDate to) throws SQLException;
+
+    /** Utilization and revenue per vehicle and category over {@code [from, to]}. */
+    FleetAnalytics.Report fleetAnalytics(LocalDate from, LocalDate to) throws SQLException;
+
+    List<SearchService.Hit> search(SearchService.Kind kind, String query, int limit) throws SQLException;
+
+    @Override
+    void close();
+}
@@ -0,0 +1,378 @@
+package com.example.demo;
+
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Blocking JDBC access to the rental tables. Nothing in here may be called on the
+ * JavaFX Application Thread; UI code goes through {@link AsyncDatabase}.
+ * <p>
+ * Each call borrows its own pooled connection, so background tasks can run concurrently.
+ * Statements come from the connection's statement cache and must not be closed here.
+ */
+public class RentalRepository {
+
+    static final KeysetQuery<VehicleRow> AVAILABLE_VEHICLES = new KeysetQuery<>(
+            "SELECT id, brand, category, price_cents, currency, available FROM Vehicle", "available = true",
+            List.of("brand", "category"),
+            Map.of("brand", new KeysetQuery.SortColumn<>("COALESCE(brand, '')", v -> nullToEmpty(v.brand())),
+                    "category", new KeysetQuery.SortColumn<>("COALESCE(category, '')", v -> nullToEmpty(v.category())),
+                    "price", new KeysetQuery.SortColumn<>("price_cents", v -> v.price().cents())),
+            rs -> new VehicleRow(rs.getInt("id"), rs.getString("brand"), rs.getString("category"),
+                    Money.of(rs.getLong("price_cents"), rs.getString("currency")), rs.getBoolean("available")),
+            VehicleRow::id);
+
+    static final KeysetQuery<CustomerRow> CUSTOMERS = new KeysetQuery<>(
+            "SELECT id, name, contact, license FROM Customer", null,
+            List.of("name", "contact", "license"),
+            Map.of("name", new KeysetQuery.SortColumn<>("COALESCE(name, '')", c -> nullToEmpty(c.name())),
+                    "license", new KeysetQuery.SortColumn<>("COALESCE(license, '')", c -> nullToEmpty(c.license()))),
+            rs -> new CustomerRow(rs.getInt("id"), rs.getString("name"), rs.getString("contact"), rs.getString("license")),
+            CustomerRow::id);
+
+    static final KeysetQuery<PaymentRow> PAYMENTS = new KeysetQuery<>(
+            "SELECT id, booking_id, amount_cents, currency, method FROM Payment", null,
+            List.of("method"),
+            Map.of("booking_id", new KeysetQuery.SortColumn<>("booking_id", PaymentRow::bookingId),
+                    "amount", new KeysetQuery.SortColumn<>("amount_cents", p -> p.amount().cents()),
+                    "method", new KeysetQuery.SortColumn<>("COALESCE(method, '')", p -> nullToEmpty(p.method()))),
+            rs -> new PaymentRow(rs.getInt("id"), rs.getInt("booking_id"), Money.of(rs.getLong("amount_cents"), rs.getString("currency")),
+                    rs.getString("method")),
+            PaymentRow::id);
+
+    private static final int VEHICLE_CACHE_SIZE = 5_000;
+    private static final int CUSTOMER_CACHE_SIZE = 20_000;
+
+    private final ConnectionPool pool;
+    private final ChangeFeed changes;
+    // Vehicles and customers are read far more often than they change; writes below invalidate
+    private final EntityCache<Integer, VehicleRow> vehicleCache = new EntityCache<>(VEHICLE_CACHE_SIZE);
+    private final EntityCache<Integer, CustomerRow> customerCache = new EntityCache<>(CUSTOMER_CACHE_SIZE);
+
+    public RentalRepository(ConnectionPool pool, ChangeFeed changes) {
+        this.pool = pool;
+        this.changes = changes;
+    }
+
+    /** Shared with {@link BookingService}, which changes a vehicle's availability. */
+    public EntityCache<Integer, VehicleRow> vehicleCache() {
+        return vehicleCache;
+    }
+
+    public EntityCache<Integer, CustomerRow> customerCache() {
+        return customerCache;
+    }
+
+    // ----- Vehicles -----
+
+    /** Adds an available vehicle and returns its generated id. */
+    public int addVehicle(String brand, String category, Money price) throws SQLException {
+        int id;
+        try (PooledConnection c = pool.acquire()) {
+            PreparedStatement ps = c.prepare("INSERT INTO Vehicle(brand, category, price_cents, currency, available) VALUES (?, ?, ?, ?, true)",
+                    Statement.RETURN_GENERATED_KEYS);
+            ps.setString(1, brand);
+            ps.setString(2, category);
+            ps.setLong(3, price.cents());
+            ps.setString(4, price.currency().getCurrencyCode());
+            ps.executeUpdate();
+            id = generatedKey(ps);
+        }
+        vehicleChanged(ChangeFeed.Op.INSERT, id);
+        return id;
+    }
+
+    public int updateVehicle(int id, String brand, String category, Money price) throws SQLException {
+        int updated;
+        try (PooledConnection c = pool.acquire()) {
+            PreparedStatement ps = c.prepare("UPDATE Vehicle SET brand=?, category=?, price_cents=?, currency=? WHERE id=?");
+            ps.setString(1, brand);
+            ps.setString(2, category);
+            ps.setLong(3, price.cents());
+            ps.setString(4, price.currency().getCurrencyCode());
+            ps.setInt(5, id);
+            updated = ps.executeUpdate();
+        }
+        if (updated > 0) {
+            vehicleChanged(ChangeFeed.Op.UPDATE, id);
+        }
+        return updated;
+    }
+
+    public int deleteVehicle(int id) throws SQLException {
+        int deleted;
+        try (PooledConnection c = pool.acquire()) {
+            PreparedStatement ps = c.prepare("DELETE FROM Vehicle WHERE id=?");
+            ps.setInt(1, id);
+            deleted = ps.executeUpdate();
+        }
+        if (deleted > 0) {
+            vehicleChanged(ChangeFeed.Op.DELETE, id);
+        }
+        return deleted;
+    }
+
+    /** The vehicle with this id, or {@code null}; served from the cache when possible. */
+    public VehicleRow findVehicle(int id) throws SQLException {
+        return vehicleCache.get(id, key -> {
+            try (PooledConnection c = pool.acquire()) {
+                PreparedStatement ps = c.prepare("SELECT id, brand, category, price_cents, currency, available FROM Vehicle WHERE id = ?");
+                ps.setInt(1, key);
+                try (ResultSet rs = ps.executeQuery()) {
+                    return rs.next() ? new VehicleRow(rs.getInt("id"), rs.getString("brand"), rs.getString("category"),
+                            Money.of(rs.getLong("price_cents"), rs.getString("currency")), rs.getBoolean("available")) : null;
+                }
+            }
+        });
+    }
+
+    public List<VehicleRow> availableVehiclePage(PageRequest<VehicleRow> request) throws SQLException {
+        return fetchPage(AVAILABLE_VEHICLES, vehicleCache, request);
+    }
+
+    /** The available-vehicle list, for {@link LazyTableModel}. */
+    public PagedSource<VehicleRow> availableVehicles() {
+        return pagedSource(AVAILABLE_VEHICLES, vehicleCache);
+    }
+
+    // After a committed write: drop the cached row and let the lists patch themselves
+    private void vehicleChanged(ChangeFeed.Op op, int id) {
+        vehicleCache.invalidate(id);
+        changes.publish(ChangeFeed.Table.VEHICLE, op, id);
+    }
+
+    // ----- Customers -----
+
+    /** Registers a customer and returns the generated id. */
+    public int addCustomer(String name, String contact, String license) throws SQLException {
+        int id;
+        try (PooledConnection c = pool.acquire()) {
+            PreparedStatement ps = c.prepare("INSERT INTO Customer(name, contact, license) VALUES (?, ?, ?)", Statement.RETURN_GENERATED_KEYS);
+            ps.setString(1, name);
+            ps.setString(2, contact);
+            ps.setString(3, license);
+            ps.executeUpdate();
+            id = generatedKey(ps);
+        }
+        customerChanged(ChangeFeed.Op.INSERT, id);
+        return id;
+    }
+
+    public int updateCustomer(int id, String name, String contact, String license) throws SQLException {
+        int updated;
+        try (PooledConnection c = pool.acquire()) {
+            PreparedStatement ps = c.prepare("UPDATE Customer SET name=?, contact=?, license=? WHERE id=?");
+            ps.setString(1, name);
+            ps.setString(2, contact);
+            ps.setString(3, license);
+            ps.setInt(4, id);
+            updated = ps.executeUpdate();
+        }
+        if (updated > 0) {
+            customerChanged(ChangeFeed.Op.UPDATE, id);
+        }
+        return updated;
+    }
+
+    public int deleteCustomer(int id) throws SQLException {
+        int deleted;
+        try (PooledConnection c = pool.acquire()) {
+            PreparedStatement ps = c.prepare("DELETE FROM Customer WHERE id=?");
+            ps.setInt(1, id);
+            deleted = ps.executeUpdate();
+        }
+        if (deleted > 0) {
+            customerChanged(ChangeFeed.Op.DELETE, id);
+        }
+        return deleted;
+    }
+
+    /** The customer with this id, or {@code null}; served from the cache when possible. */
+    public CustomerRow findCustomer(int id) throws SQLException {
+        return customerCache.get(id, key -> {
+            try (PooledConnection c = pool.acquire()) {
+                PreparedStatement ps = c.prepare("SELECT id, name, contact, license FROM Customer WHERE id = ?");
+                ps.setInt(1, key);
+                try (ResultSet rs = ps.executeQuery()) {
+                    return rs.next() ? new CustomerRow(rs.getInt("id"), rs.getString("name"), rs.getString("contact"), rs.getString("license")) : null;
+                }
+            }
+        });
+    }
+
+    public List<CustomerRow> customerPage(PageRequest<CustomerRow> request) throws SQLException {
+        return fetchPage(CUSTOMERS, customerCache, request);
+    }
+
+    public PagedSource<CustomerRow> customers() {
+        return pagedSource(CUSTOMERS, customerCache);
+    }
+
+    private void customerChanged(ChangeFeed.Op op, int id) {
+        customerCache.invalidate(id);
+        changes.publish(ChangeFeed.Table.CUSTOMER, op, id);
+    }
+
+    // ----- Payments -----
+
+    /**
+     * Records a payment dated today and adds it to the revenue rollup in the same transaction.
+     *
+     * @return the generated payment id
+     */
+    public int addPayment(int bookingId, Money amount, String method) throws SQLException {
+        LocalDate today = LocalDate.now();
+        int id = pool.inTransaction(c -> {
+            PreparedStatement ps = c.prepare("INSERT INTO Payment(booking_id, amount_cents, currency, method, paid_on) VALUES (?, ?, ?, ?, ?)",
+                    Statement.RETURN_GENERATED_KEYS);
+            ps.setInt(1, bookingId);
+            ps.setLong(2, amount.cents());
+            ps.setString(3, amount.currency().getCurrencyCode());
+            ps.setString(4, method);
+            ps.setDate(5, Date.valueOf(today));
+            ps.executeUpdate();
+            RevenueRollup.record(c, today, amount);
+            return generatedKey(ps);
+        });
+        changes.publish(ChangeFeed.Table.PAYMENT, ChangeFeed.Op.INSERT, id);
+        return id;
+    }
+
+    public List<PaymentRow> paymentPage(PageRequest<PaymentRow> request) throws SQLException {
+        return fetchPage(PAYMENTS, null, request);
+    }
+
+    public PagedSource<PaymentRow> payments() {
+        return pagedSource(PAYMENTS, null);
+    }
+
+    // ----- Reports -----
+
+    public Money totalRevenue() throws SQLException {
+        try (PooledConnection c = pool.acquire()) {
+            return RevenueRollup.total(c);
+        }
+    }
+
+    /** Revenue per month for the last {@code count} months, including the current one. */
+    public List<RevenuePoint> monthlyRevenue(int count) throws SQLException {
+        LocalDate thisMonth = LocalDate.now().withDayOfMonth(1);
+        try (PooledConnection c = pool.acquire()) {
+            return RevenueRollup.months(c, thisMonth.minusMonths(count - 1), thisMonth);
+        }
+    }
+
+    /** Revenue per day in {@code [from, to]}, for charts that pick their own granularity. */
+    public List<RevenuePoint> dailyRevenue(LocalDate from, LocalDate to) throws SQLException {
+        try (PooledConnection c = pool.acquire()) {
+            return RevenueRollup.days(c, from, to);
+        }
+    }
+
+    // ----- Fleet calendar -----
+
+    /** Every vehicle, lowest id first: the rows of the fleet calendar. */
+    public List<VehicleRow> fleet() throws SQLException {
+        try (PooledConnection c = pool.acquire()) {
+            PreparedStatement ps = c.prepare("SELECT id, brand, category, price_cents, currency, available FROM Vehicle ORDER BY id");
+            List<VehicleRow> fleet = new ArrayList<>();
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    fleet.add(new VehicleRow(rs.getInt("id"), rs.getString("brand"), rs.getString("category"),
+                            Money.of(rs.getLong("price_cents"), rs.getString("currency")), rs.getBoolean("available")));
+                }
+            }
+            return fleet;
+        }
+    }
+
+    /**
+     * Bookings of vehicles {@code firstVehicleId..lastVehicleId} that overlap {@code [from, to)}, by
+     * vehicle then start: one window of the fleet calendar, read off the vehicle period index.
+     */
+    public List<BookingSpan> bookingSpans(int firstVehicleId, int lastVehicleId, LocalDate from, LocalDate to) throws SQLException {
+        try (PooledConnection c = pool.acquire()) {
+            // Like FleetAnalytics: the archive is only read when the window reaches back into it
+            List<String> tables = ArchiveService.bookingsReach(c, from) ? List.of("Booking", "BookingArchive") : List.of("Booking");
+            PreparedStatement ps = c.prepare(tables.stream()
+                    .map(table -> "SELECT id, vehicle_id, customer_id, start_date, end_date FROM " + table
+                            + " WHERE vehicle_id BETWEEN ? AND ? AND end_date > ? AND start_date < ?")
+                    .collect(Collectors.joining(" UNION ALL ", "", " ORDER BY vehicle_id, start_date")));
+            for (int i = 0; i < tables.size(); i++) {
+                ps.setInt(4 * i + 1, firstVehicleId);
+                ps.setInt(4 * i + 2, lastVehicleId);
+                ps.setDate(4 * i + 3, Date.valueOf(from));
+                ps.setDate(4 * i + 4, Date.valueOf(to));
+            }
+            List<BookingSpan> spans = new ArrayList<>();
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    spans.add(new BookingSpan(rs.getInt("id"), rs.getInt("vehicle_id"), rs.getInt("customer_id"),
+                            rs.getDate("start_date").toLocalDate(), rs.getDate("end_date").toLocalDate()));
+                }
+            }
+            return spans;
+        }
+    }
+
+    // ----- Paging -----
+
+    // Rows read for a page are cached too, so a lookup by id right after a refresh is a hit
+    private <T> List<T> fetchPage(KeysetQuery<T> query, EntityCache<Integer, T> cache, PageRequest<T> request) throws SQLException {
+        long generation = cache == null ? 0 : cache.generation();
+        List<T> page;
+        try (PooledConnection c = pool.acquire()) {
+            page = query.fetch(c, request);
+        }
+        if (cache != null) {
+            for (T row : page) {
+                cache.putIfCurrent(query.idOf(row), row, generation);
+            }
+        }
+        return page;
+    }
+
+    private <T> PagedSource<T> pagedSource(KeysetQuery<T> query, EntityCache<Integer, T> cache) {
+        return new PagedSource<>() {
+            @Override
+            public List<T> page(PageRequest<T> request) throws SQLException {
+                return fetchPage(query, cache, request);
+            }
+
+            @Override
+            public List<T> rows(List<Integer> ids, String filter) throws SQLException {
+                try (PooledConnection c = pool.acquire()) {
+                    return query.fetchByIds(c, ids, filter);
+                }
+            }
+
+            @Override
+            public int idOf(T row) {
+                return query.idOf(row);
+            }
+
+            @Override
+            public Comparator<T> order(String sortColumn, boolean ascending) {
+                return query.order(sortColumn, ascending);
+            }
+        };
+    }
+
+    private static int generatedKey(Statement statement) throws SQLException {
+        try (ResultSet keys = statement.getGeneratedKeys()) {
+            if (!keys.next()) {
+                throw new SQLException("No generated key returned");
+            }
+            return keys.getInt(1);
+        }
+    }
+
+    private static String nullToEmpty(String value) {
+        return value == null ? "" : value;
+    }
+}
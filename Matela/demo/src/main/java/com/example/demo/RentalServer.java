@@ -0,0 +1,361 @@
+package com.example.demo;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Headless server mode: owns the H2 file and serves the {@link RentalBackend} operations as JSON
+ * over HTTP, so several front desks running {@link RemoteBackend} can share one fleet database.
+ * Every request runs on its own virtual thread; the connection pool bounds how many reach H2.
+ * <p>
+ * Start it with {@code -m com.example.demo/com.example.demo.RentalServer} and point the terminals
+ * at it with {@code -Drental.server=http://host:8085}. There is no authentication, so it listens
+ * on loopback unless {@code -Drental.host} says otherwise; only widen that on a trusted network.
+ * <p>
+ * Terminals learn about each other's writes by long-polling {@code GET /api/changes?since=N},
+ * which returns the {@link ChangeLog} entries from {@code N} on, waiting up to
+ * {@link #POLL_TIMEOUT_MILLIS} for the first one.
+ */
+public class RentalServer implements AutoCloseable {
+
+    static final long POLL_TIMEOUT_MILLIS = 25_000;
+    private static final int MAX_BODY_BYTES = 1 << 20;
+    private static final int DEFAULT_LIMIT = 100;
+
+    // Errors that map to a status other than 500; the message goes back as {"error": ...}
+    private static final class HttpError extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        final int status;
+
+        HttpError(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    private final LocalBackend backend;
+    private final ChangeLog changeLog = new ChangeLog();
+    private final String serverId = Long.toHexString(ThreadLocalRandom.current().nextLong()); // Tells terminals we restarted
+    private final HttpServer http;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    /** Serves {@code pool}, whose schema must be migrated, on {@code address}; port 0 picks a free one. */
+    public RentalServer(ConnectionPool pool, InetSocketAddress address) throws IOException {
+        ChangeFeed changes = new ChangeFeed();
+        changes.tap(changeLog::append);
+        this.backend = new LocalBackend(pool, changes);
+        this.http = HttpServer.create(address, 0);
+        http.createContext("/api/", this::handle);
+        http.setExecutor(executor);
+    }
+
+    public static void main(String[] args) throws Exception {
+        String url = System.getProperty("rental.db", "jdbc:h2:~/vehiclerental");
+        String host = System.getProperty("rental.host", "127.0.0.1");
+        int port = Integer.getInteger("rental.port", 8085);
+        int poolSize = Integer.getInteger("rental.poolSize", 16);
+
+        ConnectionPool pool = new ConnectionPool(url, "sa", "1234", poolSize);
+        new SchemaMigrator(pool, Migrations.ALL).migrate();
+        RentalServer server = new RentalServer(pool, new InetSocketAddress(host, port));
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.close();
+            pool.close();
+        }));
+        server.start();
+        System.out.println("✅ Rental server listening on http://" + host + ":" + server.port() + "/api/ (" + url + ")");
+    }
+
+    public void start() {
+        http.start();
+    }
+
+    /** The port actually bound, for servers started on port 0. */
+    public int port() {
+        return http.getAddress().getPort();
+    }
+
+    public LocalBackend backend() {
+        return backend;
+    }
+
+    @Override
+    public void close() {
+        http.stop(1);
+        executor.shutdownNow(); // Wakes any long-polls still waiting
+        backend.close();
+    }
+
+    // ----- Dispatch -----
+
+    private void handle(HttpExchange exchange) throws IOException {
+        long start = System.nanoTime();
+        String method = exchange.getRequestMethod();
+        String[] path = exchange.getRequestURI().getPath().substring("/api/".length()).split("/");
+        String route = route(method, path);
+        int status = 200;
+        Object response;
+        try {
+            response = dispatch(exchange, method, path);
+        } catch (HttpError e) {
+            status = e.status;
+            response = RentalApi.object("error", e.getMessage());
+        } catch (IllegalArgumentException | DateTimeParseException | ClassCastException e) {
+            status = 400;
+            response = RentalApi.object("error", e.getMessage() == null ? "Bad request" : e.getMessage());
+        } catch (SQLException e) {
+            status = 500;
+            response = RentalApi.object("error", e.getMessage());
+        } catch (InterruptedException e) {
+            status = 503;
+            response = RentalApi.object("error", "Server is shutting down");
+        } catch (RuntimeException e) {
+            Metrics.error(route, e);
+            status = 500;
+            response = RentalApi.object("error", "Internal error: " + e);
+        }
+        byte[] body = Json.write(response).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+        if (status >= 500) {
+            Metrics.increment("http.errors");
+        }
+        Metrics.record(route, System.nanoTime() - start);
+    }
+
+    // The timer name, with ids folded so there is one timer per endpoint, e.g. "http: GET /vehicles/{id}"
+    private static String route(String method, String[] path) {
+        StringBuilder route = new StringBuilder("http: ").append(method).append(' ');
+        for (String segment : path) {
+            route.append('/').append(!segment.isEmpty() && Character.isDigit(segment.charAt(0)) ? "{id}" : segment);
+        }
+        return route.toString();
+    }
+
+    private Object dispatch(HttpExchange exchange, String method, String[] path) throws IOException, SQLException, InterruptedException {
+        Map<String, String> query = query(exchange);
+        String resource = path[0];
+        String action = path.length > 1 ? path[1] : "";
+        switch (method + " " + resource) {
+            case "GET health" -> {
+                return RentalApi.object("status", "ok", "server", serverId);
+            }
+            case "GET changes" -> {
+                ChangeLog.Batch batch = changeLog.since(longParam(query, "since", -1), POLL_TIMEOUT_MILLIS);
+                return RentalApi.object("server", serverId, "next", batch.next(), "reset", batch.reset(),
+                        "changes", RentalApi.list(batch.changes(), RentalApi::change));
+            }
+            case "GET revenue" -> {
+                if (action.equals("monthly")) {
+                    return RentalApi.list(backend.monthlyRevenue(intParam(query, "months", 12)), RentalApi::revenuePoint);
+                }
+                if (action.equals("daily")) {
+                    return RentalApi.list(backend.dailyRevenue(LocalDate.parse(required(query, "from")), LocalDate.parse(required(query, "to"))),
+                            RentalApi::revenuePoint);
+                }
+                return RentalApi.object("total", RentalApi.money(backend.totalRevenue()));
+            }
+            case "GET analytics" -> {
+                return RentalApi.analytics(backend.fleetAnalytics(LocalDate.parse(required(query, "from")), LocalDate.parse(required(query, "to"))));
+            }
+            case "GET search" -> {
+                SearchService.Kind kind = SearchService.Kind.valueOf(required(query, "kind").toUpperCase(Locale.ROOT));
+                return RentalApi.list(backend.search(kind, query.getOrDefault("q", ""), intParam(query, "limit", 10)), RentalApi::hit);
+            }
+            case "GET bookings" -> {
+                return RentalApi.list(backend.bookingSpans(intParam(query, "firstVehicle", 0), intParam(query, "lastVehicle", Integer.MAX_VALUE),
+                        LocalDate.parse(required(query, "from")), LocalDate.parse(required(query, "to"))), RentalApi::bookingSpan);
+            }
+            case "POST bookings" -> {
+                Map<String, Object> body = body(exchange);
+                // A refusal is an answer, not an error: the terminal shows it like LocalBackend's
+                return RentalApi.bookingResult(backend.book(RentalApi.intOf(body, "customerId"), RentalApi.intOf(body, "vehicleId"),
+                        LocalDate.parse(RentalApi.stringOf(body, "start")), LocalDate.parse(RentalApi.stringOf(body, "end")),
+                        extras(body), RentalApi.stringOf(body, "method")));
+            }
+            case "POST quotes" -> {
+                Map<String, Object> body = body(exchange);
+                LocalDate start = LocalDate.parse(RentalApi.stringOf(body, "start"));
+                LocalDate end = LocalDate.parse(RentalApi.stringOf(body, "end"));
+                if (action.equals("free")) {
+                    return RentalApi.list(backend.quoteFree(start, end, extras(body), RentalApi.intOf(body, "limit")), RentalApi::quote);
+                }
+                PricingEngine.Quote quote = backend.quote(RentalApi.intOf(body, "vehicleId"), start, end, extras(body));
+                if (quote == null) {
+                    throw new HttpError(404, "No vehicle with id " + body.get("vehicleId"));
+                }
+                return RentalApi.quote(quote);
+            }
+            case "GET extras" -> {
+                return RentalApi.list(backend.extras(), RentalApi::extra);
+            }
+            case "GET vehicles" -> {
+                if (action.equals("fleet")) {
+                    return RentalApi.list(backend.fleet(), RentalApi::vehicle);
+                }
+                if (action.equals("free")) {
+                    return RentalApi.list(backend.freeVehicles(LocalDate.parse(required(query, "start")), LocalDate.parse(required(query, "end")),
+                            intParam(query, "limit", DEFAULT_LIMIT)), RentalApi::vehicle);
+                }
+                VehicleRow vehicle = backend.findVehicle(id(action));
+                if (vehicle == null) {
+                    throw new HttpError(404, "No vehicle with id " + action);
+                }
+                return RentalApi.vehicle(vehicle);
+            }
+            case "POST vehicles" -> {
+                Map<String, Object> body = body(exchange);
+                return switch (action) {
+                    case "" -> RentalApi.object("id", backend.addVehicle(RentalApi.stringOf(body, "brand"), RentalApi.stringOf(body, "category"),
+                            RentalApi.moneyOf(body, "price")));
+                    case "page" -> RentalApi.list(backend.availableVehicles().page(RentalApi.pageRequest(body, RentalApi::vehicle)), RentalApi::vehicle);
+                    case "rows" -> RentalApi.list(backend.availableVehicles().rows(RentalApi.ints(body.get("ids")), RentalApi.stringOf(body, "filter")),
+                            RentalApi::vehicle);
+                    default -> throw notFound(method, path);
+                };
+            }
+            case "PUT vehicles" -> {
+                Map<String, Object> body = body(exchange);
+                return RentalApi.object("updated", backend.updateVehicle(id(action), RentalApi.stringOf(body, "brand"),
+                        RentalApi.stringOf(body, "category"), RentalApi.moneyOf(body, "price")));
+            }
+            case "DELETE vehicles" -> {
+                return RentalApi.object("deleted", backend.deleteVehicle(id(action)));
+            }
+            case "GET customers" -> {
+                CustomerRow customer = backend.findCustomer(id(action));
+                if (customer == null) {
+                    throw new HttpError(404, "No customer with id " + action);
+                }
+                return RentalApi.customer(customer);
+            }
+            case "POST customers" -> {
+                Map<String, Object> body = body(exchange);
+                return switch (action) {
+                    case "" -> RentalApi.object("id", backend.addCustomer(RentalApi.stringOf(body, "name"), RentalApi.stringOf(body, "contact"),
+                            RentalApi.stringOf(body, "license")));
+                    case "page" -> RentalApi.list(backend.customers().page(RentalApi.pageRequest(body, RentalApi::customer)), RentalApi::customer);
+                    case "rows" -> RentalApi.list(backend.customers().rows(RentalApi.ints(body.get("ids")), RentalApi.stringOf(body, "filter")),
+                            RentalApi::customer);
+                    default -> throw notFound(method, path);
+                };
+            }
+            case "PUT customers" -> {
+                Map<String, Object> body = body(exchange);
+                return RentalApi.object("updated", backend.updateCustomer(id(action), RentalApi.stringOf(body, "name"),
+                        RentalApi.stringOf(body, "contact"), RentalApi.stringOf(body, "license")));
+            }
+            case "DELETE customers" -> {
+                return RentalApi.object("deleted", backend.deleteCustomer(id(action)));
+            }
+            case "POST payments" -> {
+                Map<String, Object> body = body(exchange);
+                return switch (action) {
+                    case "" -> RentalApi.object("id", backend.addPayment(RentalApi.intOf(body, "bookingId"), RentalApi.moneyOf(body, "amount"),
+                            RentalApi.stringOf(body, "method")));
+                    case "page" -> RentalApi.list(backend.payments().page(RentalApi.pageRequest(body, RentalApi::payment)), RentalApi::payment);
+                    case "rows" -> RentalApi.list(backend.payments().rows(RentalApi.ints(body.get("ids")), RentalApi.stringOf(body, "filter")),
+                            RentalApi::payment);
+                    default -> throw notFound(method, path);
+                };
+            }
+            case "POST returns" -> {
+                int bookingId = RentalApi.intOf(body(exchange), "bookingId");
+                ReturnService.Return done = backend.returnVehicle(bookingId);
+                if (done == null) {
+                    throw new HttpError(404, "No booking with id " + bookingId);
+                }
+                return RentalApi.vehicleReturn(done);
+            }
+            case "POST invoices" -> {
+                return RentalApi.invoice(backend.issueInvoice(RentalApi.intOf(body(exchange), "paymentId")));
+            }
+            default -> throw notFound(method, path);
+        }
+    }
+
+    // ----- Request parsing -----
+
+    private static Map<String, Object> body(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            byte[] bytes = in.readNBytes(MAX_BODY_BYTES + 1);
+            if (bytes.length > MAX_BODY_BYTES) {
+                throw new HttpError(413, "Request body is larger than " + MAX_BODY_BYTES + " bytes");
+            }
+            return Json.parseObject(new String(bytes, StandardCharsets.UTF_8));
+        }
+    }
+
+    // Booking and quote bodies may leave the extras out
+    private static Set<String> extras(Map<String, Object> body) {
+        return body.get("extras") == null ? Set.of() : Set.copyOf(RentalApi.strings(body.get("extras")));
+    }
+
+    private static Map<String, String> query(HttpExchange exchange) {
+        Map<String, String> params = new HashMap<>();
+        String raw = exchange.getRequestURI().getRawQuery();
+        if (raw == null) {
+            return params;
+        }
+        for (String pair : raw.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0) {
+                params.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return params;
+    }
+
+    private static String required(Map<String, String> query, String name) {
+        String value = query.get(name);
+        if (value == null || value.isBlank()) {
+            throw new IllegalArgumentException("Missing query parameter: " + name);
+        }
+        return value;
+    }
+
+    private static int intParam(Map<String, String> query, String name, int fallback) {
+        String value = query.get(name);
+        return value == null ? fallback : Integer.parseInt(value);
+    }
+
+    private static long longParam(Map<String, String> query, String name, long fallback) {
+        String value = query.get(name);
+        return value == null ? fallback : Long.parseLong(value);
+    }
+
+    private static int id(String segment) {
+        try {
+            return Integer.parseInt(segment);
+        } catch (NumberFormatException e) {
+            throw new HttpError(404, "Not found: " + segment);
+        }
+    }
+
+    private static HttpError notFound(String method, String[] path) {
+        return new HttpError(404, "No such endpoint: " + method + " /api/" + String.join("/", List.of(path)));
+    }
+}
@@ -0,0 +1,385 @@
+package com.example.demo;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Currency;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Moves bookings from {@code BOOKED} to {@code OUT}, {@code OVERDUE} and {@code RETURNED}, and keeps
+ * {@code Vehicle.available} in step with them. The desk records a return with {@link #returnVehicle};
+ * everything else is done by a sweep every {@link #SWEEP_MINUTES} minutes, which
+ * <ul>
+ *     <li>picks up bookings whose start date has come, marking their vehicles out,</li>
+ *     <li>charges rentals past their end date the late fee for each day since the last charge, and</li>
+ *     <li>makes vehicles available again once no rental of theirs is running.</li>
+ * </ul>
+ * Each step reads only the due rows, through the {@code (status, start_date)} and
+ * {@code (status, end_date)} indexes, and commits every {@link #SWEEP_BATCH} rows, so a sweep
+ * costs little when nothing is due and never holds locks for long when a lot is. Sweeps are timed
+ * as {@code returns.sweep} and counted under {@code returns.*}.
+ */
+public class ReturnService {
+
+    static final String BOOKED = "BOOKED";
+    static final String OUT = "OUT";
+    static final String OVERDUE = "OVERDUE";
+    static final String RETURNED = "RETURNED";
+    static final String LATE_FEE_METHOD = "Late fee";
+
+    /** {@code -Drental.sweepMinutes} overrides it. */
+    static final long SWEEP_MINUTES = Long.getLong("rental.sweepMinutes", 15);
+    static final int SWEEP_BATCH = 500;
+    private static final long FIRST_SWEEP_SECONDS = 10; // Leaves startup to itself
+
+    /** A return made at the desk; {@code lateFee} is what was still owed, on top of charges already swept. */
+    public record Return(int bookingId, int vehicleId, long daysLate, Money lateFee) {
+    }
+
+    /** What one sweep did; {@code lateFees} holds one total per currency charged. */
+    public record Sweep(int pickedUp, int charged, Map<Currency, Money> lateFees, int released) {
+    }
+
+    // A booking past its end date, with what its late fee is computed from
+    private record Due(int bookingId, LocalDate chargeFrom, VehicleRow vehicle) {
+    }
+
+    // Running totals of one sweep
+    private static final class Tally {
+        int pickedUp;
+        int charged;
+        final Map<Currency, Money> lateFees = new HashMap<>();
+        int released;
+    }
+
+    private final ConnectionPool pool;
+    private final PricingEngine pricing;
+    private final EntityCache<Integer, VehicleRow> vehicleCache;
+    private final ChangeFeed changes;
+    private final ScheduledExecutorService scheduler =
+            Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().daemon().name("return-sweeper").factory());
+
+    public ReturnService(ConnectionPool pool, PricingEngine pricing, EntityCache<Integer, VehicleRow> vehicleCache, ChangeFeed changes) {
+        this.pool = pool;
+        this.pricing = pricing;
+        this.vehicleCache = vehicleCache;
+        this.changes = changes;
+    }
+
+    /** Starts sweeping in the background until {@link #shutdown}. */
+    public void start() {
+        scheduler.scheduleWithFixedDelay(this::sweepQuietly, FIRST_SWEEP_SECONDS, TimeUnit.MINUTES.toSeconds(SWEEP_MINUTES), TimeUnit.SECONDS);
+    }
+
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    // ----- Desk -----
+
+    /**
+     * Records that the booking's vehicle came back today, charges whatever late fee is still owed
+     * and makes the vehicle available unless another rental of it is running.
+     *
+     * @return the return, or {@code null} if there is no such booking
+     */
+    public Return returnVehicle(int bookingId) throws SQLException {
+        LocalDate today = LocalDate.now();
+        // Read before the transaction, so loading the rules never needs a second connection inside it
+        PricingEngine.Rates rates = pricing.rates();
+        int[] paymentId = {0};
+        boolean[] released = {false};
+        Return done = pool.inTransaction(c -> {
+            PreparedStatement lock = c.prepare("SELECT vehicle_id, start_date, end_date, status, returned_on, late_fee_through FROM Booking WHERE id = ? FOR UPDATE");
+            lock.setInt(1, bookingId);
+            int vehicleId;
+            LocalDate end;
+            LocalDate chargeFrom;
+            try (ResultSet rs = lock.executeQuery()) {
+                if (!rs.next()) {
+                    return null;
+                }
+                if (RETURNED.equals(rs.getString("status"))) {
+                    throw new IllegalArgumentException("Booking " + bookingId + " was already returned on " + rs.getDate("returned_on") + ".");
+                }
+                if (rs.getDate("start_date").toLocalDate().isAfter(today)) {
+                    throw new IllegalArgumentException("Booking " + bookingId + " has not started yet.");
+                }
+                vehicleId = rs.getInt("vehicle_id");
+                end = rs.getDate("end_date").toLocalDate();
+                Date through = rs.getDate("late_fee_through");
+                chargeFrom = through == null ? end : through.toLocalDate();
+            }
+
+            Money fee = rates.lateFee(vehicle(c, vehicleId), chargeFrom, today);
+            if (fee.isPositive()) {
+                paymentId[0] = chargeLateFee(c, bookingId, fee, today);
+                RevenueRollup.record(c, today, fee);
+            }
+            PreparedStatement returned = c.prepare("UPDATE Booking SET status = ?, returned_on = ?, late_fee_through = ? WHERE id = ?");
+            returned.setString(1, RETURNED);
+            returned.setDate(2, Date.valueOf(today));
+            returned.setDate(3, Date.valueOf(today.isAfter(chargeFrom) ? today : chargeFrom));
+            returned.setInt(4, bookingId);
+            returned.executeUpdate();
+            released[0] = release(c, vehicleId) > 0;
+            return new Return(bookingId, vehicleId, Math.max(0, ChronoUnit.DAYS.between(end, today)), fee);
+        });
+        if (done == null) {
+            return null;
+        }
+        Metrics.increment("returns.desk");
+        changes.publish(ChangeFeed.Table.BOOKING, ChangeFeed.Op.UPDATE, bookingId);
+        if (paymentId[0] != 0) {
+            changes.publish(ChangeFeed.Table.PAYMENT, ChangeFeed.Op.INSERT, paymentId[0]);
+        }
+        if (released[0]) {
+            vehicleCache.invalidate(done.vehicleId());
+            changes.publish(ChangeFeed.Table.VEHICLE, ChangeFeed.Op.UPDATE, done.vehicleId());
+        }
+        return done;
+    }
+
+    // ----- Sweep -----
+
+    /** One sweep as of {@code today}; the scheduler runs it with the current date. */
+    public Sweep sweep(LocalDate today) throws SQLException {
+        long start = System.nanoTime();
+        PricingEngine.Rates rates = pricing.rates();
+        Tally tally = new Tally();
+        // Each step repeats until a short batch shows the due rows have run out
+        int read;
+        do {
+            read = pickUpBatch(today, tally);
+        } while (read == SWEEP_BATCH);
+        for (String status : List.of(OUT, OVERDUE)) {
+            do {
+                read = chargeBatch(status, today, rates, tally);
+            } while (read == SWEEP_BATCH);
+        }
+        do {
+            read = releaseBatch(tally);
+        } while (read == SWEEP_BATCH);
+        Metrics.record("returns.sweep", System.nanoTime() - start);
+        Metrics.add("returns.pickedUp", tally.pickedUp);
+        Metrics.add("returns.overdueCharged", tally.charged);
+        Metrics.add("returns.released", tally.released);
+        return new Sweep(tally.pickedUp, tally.charged, Map.copyOf(tally.lateFees), tally.released);
+    }
+
+    private void sweepQuietly() {
+        try {
+            sweep(LocalDate.now());
+        } catch (Exception e) {
+            Metrics.error("Return sweep", e); // The next sweep picks up where this one failed
+        }
+    }
+
+    // Bookings whose start date has come: marked out, and so are their vehicles
+    private int pickUpBatch(LocalDate today, Tally tally) throws SQLException {
+        List<Integer> bookings = new ArrayList<>();
+        List<Integer> vehicles = new ArrayList<>();
+        int found = pool.inTransaction(c -> {
+            PreparedStatement due = c.prepare("SELECT id, vehicle_id FROM Booking WHERE status = ? AND start_date <= ? LIMIT ?");
+            due.setString(1, BOOKED);
+            due.setDate(2, Date.valueOf(today));
+            due.setInt(3, SWEEP_BATCH);
+            List<int[]> rows = new ArrayList<>();
+            try (ResultSet rs = due.executeQuery()) {
+                while (rs.next()) {
+                    rows.add(new int[]{rs.getInt(1), rs.getInt(2)});
+                }
+            }
+            // Guarded by status, so a booking the desk has just returned is left alone
+            PreparedStatement out = c.prepare("UPDATE Booking SET status = ? WHERE id = ? AND status = ?");
+            for (int[] row : rows) {
+                out.setString(1, OUT);
+                out.setInt(2, row[0]);
+                out.setString(3, BOOKED);
+                out.addBatch();
+            }
+            int[] updated = out.executeBatch();
+            PreparedStatement taken = c.prepare("UPDATE Vehicle SET available = FALSE WHERE id = ? AND available = TRUE");
+            for (int i = 0; i < rows.size(); i++) {
+                if (updated[i] > 0) {
+                    bookings.add(rows.get(i)[0]);
+                    taken.setInt(1, rows.get(i)[1]);
+                    taken.addBatch();
+                }
+            }
+            int[] flagged = taken.executeBatch();
+            for (int i = 0, row = 0; i < rows.size(); i++) {
+                if (updated[i] > 0 && flagged[row++] > 0) {
+                    vehicles.add(rows.get(i)[1]);
+                }
+            }
+            return rows.size();
+        });
+        tally.pickedUp += bookings.size();
+        publish(ChangeFeed.Table.BOOKING, ChangeFeed.Op.UPDATE, bookings);
+        invalidateVehicles(vehicles);
+        return found;
+    }
+
+    // Rentals in status past their end date and not yet charged through today: charged and marked overdue
+    private int chargeBatch(String status, LocalDate today, PricingEngine.Rates rates, Tally tally) throws SQLException {
+        List<Integer> bookings = new ArrayList<>();
+        List<Integer> payments = new ArrayList<>();
+        Map<Currency, Money> charged = new HashMap<>();
+        int found = pool.inTransaction(c -> {
+            PreparedStatement due = c.prepare("SELECT b.id, b.end_date, b.late_fee_through, v.id, v.brand, v.category, v.price_cents, v.currency, v.available "
+                    + "FROM Booking b JOIN Vehicle v ON v.id = b.vehicle_id "
+                    + "WHERE b.status = ? AND b.end_date < ? AND (b.late_fee_through IS NULL OR b.late_fee_through < ?) LIMIT ?");
+            due.setString(1, status);
+            due.setDate(2, Date.valueOf(today));
+            due.setDate(3, Date.valueOf(today));
+            due.setInt(4, SWEEP_BATCH);
+            List<Due> rows = new ArrayList<>();
+            try (ResultSet rs = due.executeQuery()) {
+                while (rs.next()) {
+                    Date through = rs.getDate(3);
+                    rows.add(new Due(rs.getInt(1), (through == null ? rs.getDate(2) : through).toLocalDate(),
+                            new VehicleRow(rs.getInt(4), rs.getString(5), rs.getString(6), Money.of(rs.getLong(7), rs.getString(8)), rs.getBoolean(9))));
+                }
+            }
+            PreparedStatement overdue = c.prepare("UPDATE Booking SET status = ?, late_fee_through = ? WHERE id = ? AND status = ?");
+            for (Due row : rows) {
+                overdue.setString(1, OVERDUE);
+                overdue.setDate(2, Date.valueOf(today));
+                overdue.setInt(3, row.bookingId());
+                overdue.setString(4, status);
+                overdue.addBatch();
+            }
+            int[] updated = overdue.executeBatch();
+            PreparedStatement pay = c.prepare("INSERT INTO Payment(booking_id, amount_cents, currency, method, paid_on) VALUES (?, ?, ?, ?, ?)",
+                    Statement.RETURN_GENERATED_KEYS);
+            Map<Currency, Integer> fees = new HashMap<>();
+            for (int i = 0; i < rows.size(); i++) {
+                if (updated[i] == 0) {
+                    continue;
+                }
+                Due row = rows.get(i);
+                bookings.add(row.bookingId());
+                Money fee = rates.lateFee(row.vehicle(), row.chargeFrom(), today);
+                if (fee.isPositive()) {
+                    pay.setInt(1, row.bookingId());
+                    pay.setLong(2, fee.cents());
+                    pay.setString(3, fee.currency().getCurrencyCode());
+                    pay.setString(4, LATE_FEE_METHOD);
+                    pay.setDate(5, Date.valueOf(today));
+                    pay.addBatch();
+                    charged.merge(fee.currency(), fee, Money::plus);
+                    fees.merge(fee.currency(), 1, Integer::sum);
+                }
+            }
+            if (!fees.isEmpty()) {
+                pay.executeBatch();
+                try (ResultSet keys = pay.getGeneratedKeys()) {
+                    while (keys.next()) {
+                        payments.add(keys.getInt(1));
+                    }
+                }
+                for (Map.Entry<Currency, Integer> currency : fees.entrySet()) {
+                    // One rollup update per currency for the whole batch
+                    RevenueRollup.record(c, today, charged.get(currency.getKey()), currency.getValue());
+                }
+            }
+            return rows.size();
+        });
+        tally.charged += bookings.size();
+        charged.forEach((currency, fee) -> tally.lateFees.merge(currency, fee, Money::plus));
+        publish(ChangeFeed.Table.BOOKING, ChangeFeed.Op.UPDATE, bookings);
+        publish(ChangeFeed.Table.PAYMENT, ChangeFeed.Op.INSERT, payments);
+        return found;
+    }
+
+    // Vehicles marked out with no rental running, e.g. after their last return or from before returns were recorded
+    private int releaseBatch(Tally tally) throws SQLException {
+        List<Integer> vehicles = new ArrayList<>();
+        pool.inTransaction(c -> {
+            PreparedStatement stuck = c.prepare("SELECT v.id FROM Vehicle v WHERE v.available = FALSE AND NOT EXISTS "
+                    + "(SELECT 1 FROM Booking b WHERE b.vehicle_id = v.id AND b.status IN ('OUT', 'OVERDUE')) LIMIT ?");
+            stuck.setInt(1, SWEEP_BATCH);
+            try (ResultSet rs = stuck.executeQuery()) {
+                while (rs.next()) {
+                    vehicles.add(rs.getInt(1));
+                }
+            }
+            PreparedStatement available = c.prepare("UPDATE Vehicle SET available = TRUE WHERE id = ?");
+            for (int vehicleId : vehicles) {
+                available.setInt(1, vehicleId);
+                available.addBatch();
+            }
+            available.executeBatch();
+            return null;
+        });
+        tally.released += vehicles.size();
+        invalidateVehicles(vehicles);
+        return vehicles.size();
+    }
+
+    // ----- Shared -----
+
+    private static VehicleRow vehicle(PooledConnection c, int vehicleId) throws SQLException {
+        PreparedStatement ps = c.prepare("SELECT id, brand, category, price_cents, currency, available FROM Vehicle WHERE id = ?");
+        ps.setInt(1, vehicleId);
+        try (ResultSet rs = ps.executeQuery()) {
+            if (!rs.next()) {
+                throw new SQLException("Vehicle " + vehicleId + " of a booking no longer exists");
+            }
+            return new VehicleRow(rs.getInt("id"), rs.getString("brand"), rs.getString("category"),
+                    Money.of(rs.getLong("price_cents"), rs.getString("currency")), rs.getBoolean("available"));
+        }
+    }
+
+    private static int chargeLateFee(PooledConnection c, int bookingId, Money fee, LocalDate today) throws SQLException {
+        PreparedStatement pay = c.prepare("INSERT INTO Payment(booking_id, amount_cents, currency, method, paid_on) VALUES (?, ?, ?, ?, ?)",
+                Statement.RETURN_GENERATED_KEYS);
+        pay.setInt(1, bookingId);
+        pay.setLong(2, fee.cents());
+        pay.setString(3, fee.currency().getCurrencyCode());
+        pay.setString(4, LATE_FEE_METHOD);
+        pay.setDate(5, Date.valueOf(today));
+        pay.executeUpdate();
+        try (ResultSet keys = pay.getGeneratedKeys()) {
+            if (!keys.next()) {
+                throw new SQLException("No generated key returned");
+            }
+            return keys.getInt(1);
+        }
+    }
+
+    // Available again unless another rental of the vehicle is running
+    private static int release(PooledConnection c, int vehicleId) throws SQLException {
+        PreparedStatement ps = c.prepare("UPDATE Vehicle SET available = TRUE WHERE id = ? AND available = FALSE AND NOT EXISTS "
+                + "(SELECT 1 FROM Booking b WHERE b.vehicle_id = ? AND b.status IN ('OUT', 'OVERDUE'))");
+        ps.setInt(1, vehicleId);
+        ps.setInt(2, vehicleId);
+        return ps.executeUpdate();
+    }
+
+    private void invalidateVehicles(List<Integer> vehicleIds) {
+        for (int vehicleId : vehicleIds) {
+            vehicleCache.invalidate(vehicleId);
+        }
+        publish(ChangeFeed.Table.VEHICLE, ChangeFeed.Op.UPDATE, vehicleIds);
+    }
+
+    // After commit only, like every other writer
+    private void publish(ChangeFeed.Table table, ChangeFeed.Op op, List<Integer> ids) {
+        for (int id : ids) {
+            changes.publish(table, op, id);
+        }
+    }
+}
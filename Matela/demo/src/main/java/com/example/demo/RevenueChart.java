@@ -0,0 +1,339 @@
+package com.example.demo;
+
+import javafx.collections.FXCollections;
+import javafx.geometry.Pos;
+import javafx.scene.Node;
+import javafx.scene.chart.LineChart;
+import javafx.scene.chart.NumberAxis;
+import javafx.scene.chart.XYChart;
+import javafx.scene.control.Button;
+import javafx.scene.control.ChoiceBox;
+import javafx.scene.control.Label;
+import javafx.scene.input.MouseButton;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.input.ScrollEvent;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.Pane;
+import javafx.scene.layout.Priority;
+import javafx.scene.layout.StackPane;
+import javafx.scene.layout.VBox;
+import javafx.scene.shape.Rectangle;
+import javafx.util.StringConverter;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * The Reports tab's revenue chart. It owns one series for its lifetime and replaces that series'
+ * points in place, so reloading never adds nodes to the scene. The daily rollup is bucketed into
+ * days, weeks or months, and only the visible part is drawn, downsampled with
+ * {@link Downsampler#lttb} to about one point per horizontal pixel.
+ * <p>
+ * Drag across the chart to zoom into that range, scroll to zoom around the pointer, and
+ * double-click (or Reset Zoom) to see everything again. FX thread only.
+ */
+public final class RevenueChart {
+
+    public enum Granularity {
+        DAY("Day"), WEEK("Week"), MONTH("Month");
+
+        private final String label;
+
+        Granularity(String label) {
+            this.label = label;
+        }
+
+        LocalDate bucketOf(LocalDate day) {
+            return switch (this) {
+                case DAY -> day;
+                case WEEK -> day.with(DayOfWeek.MONDAY);
+                case MONTH -> day.withDayOfMonth(1);
+            };
+        }
+
+        LocalDate next(LocalDate bucket) {
+            return switch (this) {
+                case DAY -> bucket.plusDays(1);
+                case WEEK -> bucket.plusWeeks(1);
+                case MONTH -> bucket.plusMonths(1);
+            };
+        }
+
+        @Override
+        public String toString() {
+            return label;
+        }
+    }
+
+    private static final DateTimeFormatter DAY_LABEL = DateTimeFormatter.ofPattern("d MMM yyyy", Locale.ROOT);
+    private static final DateTimeFormatter MONTH_LABEL = DateTimeFormatter.ofPattern("MMM yyyy", Locale.ROOT);
+    private static final int MIN_POINTS = 3; // Smallest span a zoom may narrow to, in buckets
+    private static final int TICKS = 8;
+    private static final double UNLAID_WIDTH = 800; // Point budget before the first layout; redrawn once the axis has a width
+    private static final double DRAG_THRESHOLD = 5; // Pixels; shorter drags are clicks
+    private static final double SCROLL_ZOOM = 1.25;
+
+    private final NumberAxis xAxis = new NumberAxis();
+    private final NumberAxis yAxis = new NumberAxis();
+    private final LineChart<Number, Number> chart = new LineChart<>(xAxis, yAxis);
+    private final XYChart.Series<Number, Number> series = new XYChart.Series<>();
+    private final Rectangle selection = new Rectangle();
+    private final ChoiceBox<Granularity> granularityChoice = new ChoiceBox<>(FXCollections.observableArrayList(Granularity.values()));
+    private final Label summary = new Label();
+    private final VBox node;
+
+    private List<RevenuePoint> daily = List.of();
+    private Granularity granularity = Granularity.MONTH;
+    // The current granularity's buckets: x is the bucket's first day as an epoch day
+    private double[] xs = new double[0];
+    private double[] ys = new double[0];
+    private double visibleFrom;
+    private double visibleTo;
+    private boolean zoomed;
+    private double dragStartX = Double.NaN;
+
+    public RevenueChart() {
+        xAxis.setLabel("Period");
+        xAxis.setAutoRanging(false);
+        xAxis.setForceZeroInRange(false);
+        xAxis.setMinorTickVisible(false);
+        xAxis.setTickLabelFormatter(new StringConverter<>() {
+            @Override
+            public String toString(Number epochDay) {
+                LocalDate day = LocalDate.ofEpochDay(Math.round(epochDay.doubleValue()));
+                return day.format(granularity == Granularity.MONTH ? MONTH_LABEL : DAY_LABEL);
+            }
+
+            @Override
+            public Number fromString(String text) {
+                try {
+                    return LocalDate.parse(text, DAY_LABEL).toEpochDay();
+                } catch (DateTimeParseException e) {
+                    return YearMonth.parse(text, MONTH_LABEL).atDay(1).toEpochDay();
+                }
+            }
+        });
+        yAxis.setLabel("Revenue (" + Money.symbol(Money.DEFAULT_CURRENCY) + ")");
+
+        chart.setTitle("Revenue");
+        chart.getStyleClass().addAll("panel", "tinted");
+        chart.setAnimated(false);    // Animating hundreds of points on every zoom is what made it crawl
+        chart.setCreateSymbols(false); // One path per series instead of a node per point
+        chart.setLegendVisible(false);
+        chart.getData().add(series); // The only series; redraws replace its points
+
+        selection.setManaged(false);
+        selection.setVisible(false);
+        selection.setMouseTransparent(true);
+        selection.getStyleClass().add("zoom-selection");
+        Pane overlay = new Pane(selection);
+        overlay.setMouseTransparent(true);
+        StackPane plot = new StackPane(chart, overlay);
+        VBox.setVgrow(plot, Priority.ALWAYS);
+
+        chart.addEventHandler(MouseEvent.MOUSE_PRESSED, this::startDrag);
+        chart.addEventHandler(MouseEvent.MOUSE_DRAGGED, this::drag);
+        chart.addEventHandler(MouseEvent.MOUSE_RELEASED, this::endDrag);
+        chart.addEventHandler(ScrollEvent.SCROLL, this::scroll);
+        // Re-sample when the plot is resized, as the point budget follows its width
+        xAxis.widthProperty().addListener((_, _, _) -> redraw());
+
+        granularityChoice.setValue(granularity);
+        granularityChoice.setOnAction(_ -> {
+            if (granularityChoice.getValue() != granularity) { // setValue from setGranularity fires this too
+                setGranularity(granularityChoice.getValue());
+            }
+        });
+
+        Button resetZoomBtn = new Button("Reset Zoom");
+        resetZoomBtn.getStyleClass().addAll("primary", "compact");
+        resetZoomBtn.setOnAction(_ -> resetZoom());
+
+        summary.getStyleClass().add("hint");
+        HBox controls = new HBox(10, new Label("Group by"), granularityChoice, resetZoomBtn, summary);
+        controls.setAlignment(Pos.CENTER_LEFT);
+        node = new VBox(5, controls, plot);
+    }
+
+    public Node node() {
+        return node;
+    }
+
+    /** Replaces the data with {@code days} from the daily rollup, oldest first, and shows all of it. */
+    public void setData(List<RevenuePoint> days) {
+        daily = days;
+        zoomed = false;
+        rebucket();
+    }
+
+    public void setGranularity(Granularity granularity) {
+        this.granularity = granularity;
+        granularityChoice.setValue(granularity);
+        rebucket();
+    }
+
+    public void resetZoom() {
+        zoomed = false;
+        showAll();
+        redraw();
+    }
+
+    // ----- Data -----
+
+    // Sums the daily rows into buckets; buckets with no payments are zero, not missing, so dips show
+    private void rebucket() {
+        List<double[]> buckets = new ArrayList<>();
+        if (!daily.isEmpty()) {
+            int i = 0;
+            LocalDate last = granularity.bucketOf(daily.getLast().period());
+            for (LocalDate bucket = granularity.bucketOf(daily.getFirst().period()); !bucket.isAfter(last); bucket = granularity.next(bucket)) {
+                LocalDate end = granularity.next(bucket);
+                long cents = 0; // Summed exactly; only the plotted value is a double
+                while (i < daily.size() && daily.get(i).period().isBefore(end)) {
+                    cents += daily.get(i).totalCents();
+                    i++;
+                }
+                buckets.add(new double[]{bucket.toEpochDay(), cents / 100.0});
+            }
+        }
+        xs = new double[buckets.size()];
+        ys = new double[buckets.size()];
+        for (int i = 0; i < xs.length; i++) {
+            xs[i] = buckets.get(i)[0];
+            ys[i] = buckets.get(i)[1];
+        }
+        if (zoomed) {
+            clampVisible(); // Keep the zoomed dates while switching granularity
+        } else {
+            showAll();
+        }
+        redraw();
+    }
+
+    private void showAll() {
+        visibleFrom = xs.length == 0 ? 0 : xs[0];
+        visibleTo = xs.length == 0 ? 1 : Math.max(xs[xs.length - 1], xs[0] + 1);
+    }
+
+    private void clampVisible() {
+        if (xs.length == 0) {
+            showAll();
+            return;
+        }
+        double minSpan = MIN_POINTS * (granularity == Granularity.DAY ? 1 : granularity == Granularity.WEEK ? 7 : 31);
+        double span = Math.max(visibleTo - visibleFrom, minSpan);
+        double first = xs[0];
+        double last = Math.max(xs[xs.length - 1], first + 1);
+        if (span >= last - first) {
+            zoomed = false;
+            showAll();
+            return;
+        }
+        double from = Math.max(first, Math.min(visibleFrom, last - span));
+        visibleFrom = from;
+        visibleTo = from + span;
+    }
+
+    // Replaces the series' points with the downsampled visible range, in one change
+    private void redraw() {
+        xAxis.setLowerBound(visibleFrom);
+        xAxis.setUpperBound(visibleTo);
+        xAxis.setTickUnit(Math.max(1, (visibleTo - visibleFrom) / TICKS));
+
+        // One point either side of the window, so the line runs to the plot's edges
+        int from = Math.max(lowerIndex(visibleFrom) - 1, 0);
+        int to = Math.min(lowerIndex(visibleTo) + 1, xs.length);
+        int budget = Math.max(MIN_POINTS, (int) (xAxis.getWidth() > 0 ? xAxis.getWidth() : UNLAID_WIDTH));
+        int[] picked = Downsampler.lttb(xs, ys, from, Math.max(to, from), budget);
+
+        List<XYChart.Data<Number, Number>> points = new ArrayList<>(picked.length);
+        for (int i : picked) {
+            points.add(new XYChart.Data<>(xs[i], ys[i]));
+        }
+        series.getData().setAll(points);
+        summary.setText(xs.length == 0 ? "No payments yet."
+                : (to - from) + " " + granularity.label.toLowerCase(Locale.ROOT) + "s shown"
+                + (picked.length < to - from ? ", drawn as " + picked.length + " points" : ""));
+    }
+
+    // First index whose x is >= value, or xs.length
+    private int lowerIndex(double value) {
+        int lo = 0;
+        int hi = xs.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (xs[mid] < value) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    // ----- Zoom -----
+
+    private void zoomTo(double from, double to) {
+        visibleFrom = Math.min(from, to);
+        visibleTo = Math.max(from, to);
+        zoomed = true;
+        clampVisible();
+        redraw();
+    }
+
+    private void startDrag(MouseEvent e) {
+        if (e.getButton() != MouseButton.PRIMARY) {
+            return;
+        }
+        if (e.getClickCount() == 2) {
+            resetZoom();
+            return;
+        }
+        dragStartX = e.getX();
+    }
+
+    private void drag(MouseEvent e) {
+        if (Double.isNaN(dragStartX)) {
+            return;
+        }
+        selection.setX(Math.min(dragStartX, e.getX()));
+        selection.setY(0);
+        selection.setWidth(Math.abs(e.getX() - dragStartX));
+        selection.setHeight(chart.getHeight());
+        selection.setVisible(true);
+    }
+
+    private void endDrag(MouseEvent e) {
+        if (Double.isNaN(dragStartX)) {
+            return;
+        }
+        selection.setVisible(false);
+        double startX = dragStartX;
+        dragStartX = Double.NaN;
+        if (Math.abs(e.getX() - startX) >= DRAG_THRESHOLD) {
+            zoomTo(valueAt(startX), valueAt(e.getX()));
+        }
+    }
+
+    private void scroll(ScrollEvent e) {
+        if (e.getDeltaY() == 0 || xs.length == 0) {
+            return;
+        }
+        double factor = e.getDeltaY() > 0 ? 1 / SCROLL_ZOOM : SCROLL_ZOOM;
+        double anchor = valueAt(e.getX());
+        zoomTo(anchor - (anchor - visibleFrom) * factor, anchor + (visibleTo - anchor) * factor);
+        e.consume();
+    }
+
+    // The epoch day under a point given in the chart's own coordinates
+    private double valueAt(double chartX) {
+        double axisX = xAxis.sceneToLocal(chart.localToScene(chartX, 0)).getX();
+        return xAxis.getValueForDisplay(axisX).doubleValue();
+    }
+}
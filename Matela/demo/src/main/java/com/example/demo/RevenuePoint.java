@@ -0,0 +1,14 @@
+package com.example.demo;
+
+import java.time.LocalDate;
+
+/**
+ * Revenue for one period of the rollup, identified by the period's first day. {@code totalCents}
+ * is in {@link Money#DEFAULT_CURRENCY}.
+ */
+public record RevenuePoint(LocalDate period, long totalCents, int payments) {
+
+    public Money total() {
+        return Money.of(totalCents);
+    }
+}
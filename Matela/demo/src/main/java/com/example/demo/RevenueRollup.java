@@ -0,0 +1,102 @@
+package com.example.demo;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps the {@code RevenueDaily} and {@code RevenueMonthly} rollup tables in step with
+ * {@code Payment}. Every payment insert must call {@link #record} in the same transaction,
+ * so reports can read a handful of pre-aggregated rows instead of scanning all payments.
+ * Each period keeps one row per currency, totalled in whole cents as {@code BIGINT}; the
+ * reports read the rows in {@link Money#DEFAULT_CURRENCY}.
+ */
+public final class RevenueRollup {
+
+    private static final String DUPLICATE_KEY = "23505";
+
+    private RevenueRollup() {
+    }
+
+    /** Adds one payment to its day and month. Runs inside the caller's transaction. */
+    public static void record(PooledConnection c, LocalDate paidOn, Money amount) throws SQLException {
+        record(c, paidOn, amount, 1);
+    }
+
+    /** Adds {@code payments} payments made on the same day in one currency, totalling {@code total}, in one go. */
+    public static void record(PooledConnection c, LocalDate paidOn, Money total, int payments) throws SQLException {
+        add(c, "RevenueDaily", paidOn, total, payments);
+        add(c, "RevenueMonthly", paidOn.withDayOfMonth(1), total, payments);
+    }
+
+    /** Total revenue over all time, summed from the monthly rollup. */
+    public static Money total(PooledConnection c) throws SQLException {
+        PreparedStatement ps = c.prepare("SELECT COALESCE(SUM(total_cents), 0) FROM RevenueMonthly WHERE currency = ?");
+        ps.setString(1, Money.DEFAULT_CURRENCY.getCurrencyCode());
+        try (ResultSet rs = ps.executeQuery()) {
+            return Money.of(rs.next() ? rs.getLong(1) : 0);
+        }
+    }
+
+    /** Monthly totals for months starting in {@code [from, to]}, oldest first. Months without payments are omitted. */
+    public static List<RevenuePoint> months(PooledConnection c, LocalDate from, LocalDate to) throws SQLException {
+        PreparedStatement ps = c.prepare("SELECT period, total_cents, payments FROM RevenueMonthly WHERE currency = ? AND period BETWEEN ? AND ? ORDER BY period");
+        ps.setString(1, Money.DEFAULT_CURRENCY.getCurrencyCode());
+        ps.setDate(2, Date.valueOf(from));
+        ps.setDate(3, Date.valueOf(to));
+        List<RevenuePoint> points = new ArrayList<>();
+        try (ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                points.add(new RevenuePoint(rs.getDate("period").toLocalDate(), rs.getLong("total_cents"), rs.getInt("payments")));
+            }
+        }
+        return points;
+    }
+
+    /** Daily totals for {@code [from, to]}, oldest first. Days without payments are omitted. */
+    public static List<RevenuePoint> days(PooledConnection c, LocalDate from, LocalDate to) throws SQLException {
+        PreparedStatement ps = c.prepare("SELECT period, total_cents, payments FROM RevenueDaily WHERE currency = ? AND period BETWEEN ? AND ? ORDER BY period");
+        ps.setString(1, Money.DEFAULT_CURRENCY.getCurrencyCode());
+        ps.setDate(2, Date.valueOf(from));
+        ps.setDate(3, Date.valueOf(to));
+        List<RevenuePoint> points = new ArrayList<>();
+        try (ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                points.add(new RevenuePoint(rs.getDate("period").toLocalDate(), rs.getLong("total_cents"), rs.getInt("payments")));
+            }
+        }
+        return points;
+    }
+
+    private static void add(PooledConnection c, String table, LocalDate period, Money total, int payments) throws SQLException {
+        if (increment(c, table, period, total, payments)) {
+            return;
+        }
+        PreparedStatement insert = c.prepare("INSERT INTO " + table + "(period, currency, total_cents, payments) VALUES (?, ?, ?, ?)");
+        insert.setDate(1, Date.valueOf(period));
+        insert.setString(2, total.currency().getCurrencyCode());
+        insert.setLong(3, total.cents());
+        insert.setInt(4, payments);
+        try {
+            insert.executeUpdate();
+        } catch (SQLException e) {
+            // Another transaction created the row first; add to it instead
+            if (!DUPLICATE_KEY.equals(e.getSQLState()) || !increment(c, table, period, total, payments)) {
+                throw e;
+            }
+        }
+    }
+
+    private static boolean increment(PooledConnection c, String table, LocalDate period, Money total, int payments) throws SQLException {
+        PreparedStatement update = c.prepare("UPDATE " + table + " SET total_cents = total_cents + ?, payments = payments + ? WHERE period = ? AND currency = ?");
+        update.setLong(1, total.cents());
+        update.setInt(2, payments);
+        update.setDate(3, Date.valueOf(period));
+        update.setString(4, total.currency().getCurrencyCode());
+        return update.executeUpdate() > 0;
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.demo;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Brings a database file up to the latest schema at startup. The current version lives in
+ * {@code schema_version}; each pending {@link Migration} runs in its own transaction and is
+ * recorded together with how long it took.
+ * <p>
+ * Note that H2 commits DDL implicitly, so a migration that fails half way through its DDL
+ * is not rolled back. Keep DDL idempotent ({@code IF NOT EXISTS}) so it can simply be re-run.
+ */
+public class SchemaMigrator {
+
+    /** A migration that has been applied by {@link #migrate()}. */
+    public record Applied(int version, String description, long executionMillis) {
+    }
+
+    private final ConnectionPool pool;
+    private final List<Migration> migrations;
+
+    public SchemaMigrator(ConnectionPool pool, List<Migration> migrations) {
+        this.pool = pool;
+        this.migrations = migrations.stream().sorted(Comparator.comparingInt(Migration::version)).toList();
+    }
+
+    /** Applies every migration newer than the database's current version. */
+    public List<Applied> migrate() throws SQLException {
+        List<Applied> applied = new ArrayList<>();
+        try (PooledConnection pc = pool.acquire()) {
+            Connection connection = pc.connection();
+            try (Statement stmt = connection.createStatement()) {
+                stmt.execute("CREATE TABLE IF NOT EXISTS schema_version(version INT PRIMARY KEY, description VARCHAR(255), installed_on TIMESTAMP, execution_ms BIGINT)");
+            }
+
+            int current = currentVersion(connection);
+            for (Migration migration : migrations) {
+                if (migration.version() <= current) {
+                    continue;
+                }
+                long start = System.nanoTime();
+                connection.setAutoCommit(false);
+                try {
+                    migration.step().apply(connection);
+                    long millis = (System.nanoTime() - start) / 1_000_000;
+                    try (PreparedStatement ps = connection.prepareStatement("INSERT INTO schema_version(version, description, installed_on, execution_ms) VALUES (?, ?, ?, ?)")) {
+                        ps.setInt(1, migration.version());
+                        ps.setString(2, migration.description());
+                        ps.setTimestamp(3, new Timestamp(System.currentTimeMillis()));
+                        ps.setLong(4, millis);
+                        ps.executeUpdate();
+                    }
+                    connection.commit();
+                    applied.add(new Applied(migration.version(), migration.description(), millis));
+                    System.out.println("✅ Applied migration V" + migration.version() + " (" + migration.description() + ") in " + millis + " ms");
+                } catch (SQLException | RuntimeException e) {
+                    connection.rollback();
+                    throw new SQLException("Migration V" + migration.version() + " (" + migration.description() + ") failed: " + e.getMessage(), e);
+                } finally {
+                    connection.setAutoCommit(true);
+                }
+            }
+        }
+        return applied;
+    }
+
+    private int currentVersion(Connection connection) throws SQLException {
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COALESCE(MAX(version), 0) FROM schema_version")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+}
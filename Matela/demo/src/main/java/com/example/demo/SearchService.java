@@ -0,0 +1,259 @@
+package com.example.demo;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Search-as-you-type over customers, vehicles and bookings, answered from one {@link TrigramIndex}
+ * per kind instead of a {@code LIKE '%...%'} scan. An index is loaded from the database by
+ * {@link #warmUp} or its first search, whichever comes first, and then kept current from the {@link ChangeFeed}: changed rows are re-read by id
+ * on a single background thread, so updates to the same row are applied in commit order.
+ * <p>
+ * A booking's label carries its customer's name and vehicle's brand as they were when the booking
+ * was indexed; renaming a customer does not touch their bookings' labels until the next reload.
+ */
+public class SearchService {
+
+    public enum Kind {
+        CUSTOMER(ChangeFeed.Table.CUSTOMER, "id", "SELECT id, name, contact, license FROM Customer"),
+        VEHICLE(ChangeFeed.Table.VEHICLE, "id", "SELECT id, brand, category FROM Vehicle"),
+        BOOKING(ChangeFeed.Table.BOOKING, "b.id", "SELECT b.id, c.name, v.brand, b.start_date, b.end_date FROM Booking b "
+                + "JOIN Customer c ON c.id = b.customer_id JOIN Vehicle v ON v.id = b.vehicle_id");
+
+        final ChangeFeed.Table table;
+        final String idColumn;
+        final String select;
+
+        Kind(ChangeFeed.Table table, String idColumn, String select) {
+            this.table = table;
+            this.idColumn = idColumn;
+            this.select = select;
+        }
+
+        static Kind of(ChangeFeed.Table table) {
+            for (Kind kind : values()) {
+                if (kind.table == table) {
+                    return kind;
+                }
+            }
+            return null;
+        }
+    }
+
+    public record Hit(int id, String label) {
+        @Override
+        public String toString() {
+            return "#" + id + "  " + label;
+        }
+    }
+
+    private static final int LOAD_BATCH = 10_000;
+
+    // The lock is held while loading, so concurrent first searches wait for one load
+    private static final class Entry {
+        final ReentrantLock lock = new ReentrantLock();
+        TrigramIndex index = new TrigramIndex();
+        boolean loaded;
+    }
+
+    private final ConnectionPool pool;
+    private final Map<Kind, Entry> entries = new EnumMap<>(Kind.class);
+    private final ExecutorService updater = Executors.newSingleThreadExecutor(Thread.ofVirtual().name("search-index").factory());
+
+    public SearchService(ConnectionPool pool) {
+        this.pool = pool;
+        for (Kind kind : Kind.values()) {
+            entries.put(kind, new Entry());
+        }
+    }
+
+    /** The best {@code limit} matches for {@code query}; blocks to load the index on first use. */
+    public List<Hit> search(Kind kind, String query, int limit) throws SQLException {
+        if (query == null || query.isBlank()) {
+            return List.of();
+        }
+        TrigramIndex index = ready(kind);
+        long start = System.nanoTime();
+        List<Hit> hits = new ArrayList<>();
+        for (TrigramIndex.Match match : index.search(query, limit)) {
+            hits.add(new Hit(match.id(), match.label()));
+        }
+        Metrics.record("search: " + kind.name().toLowerCase(Locale.ROOT), System.nanoTime() - start);
+        return hits;
+    }
+
+    /** {@link ChangeFeed} listener for the customer, vehicle and booking tables. */
+    public void onChanges(List<ChangeFeed.Change> batch) {
+        Set<Integer> changed = new LinkedHashSet<>();
+        Set<Integer> deleted = new LinkedHashSet<>();
+        Kind kind = null;
+        boolean reload = false;
+        for (ChangeFeed.Change change : batch) {
+            kind = Kind.of(change.table());
+            switch (change.op()) {
+                case RELOAD -> reload = true;
+                case DELETE -> {
+                    deleted.add(change.id());
+                    changed.remove(change.id());
+                }
+                case INSERT, UPDATE -> {
+                    changed.add(change.id());
+                    deleted.remove(change.id());
+                }
+            }
+        }
+        if (kind == null) {
+            return;
+        }
+        Kind target = kind;
+        boolean reloadAll = reload;
+        updater.execute(() -> {
+            try {
+                apply(target, reloadAll, new ArrayList<>(changed), deleted);
+            } catch (SQLException e) {
+                Metrics.error("search index", e);
+                invalidate(target); // Rebuilt from scratch on the next search
+            }
+        });
+    }
+
+    /** Loads every index in the background, so the first search does not pay for it. */
+    public void warmUp() {
+        updater.execute(() -> {
+            for (Kind kind : Kind.values()) {
+                try {
+                    ready(kind);
+                } catch (SQLException e) {
+                    Metrics.error("search index", e); // The first search tries again
+                }
+            }
+        });
+    }
+
+    public void shutdown() {
+        updater.shutdownNow();
+    }
+
+    private TrigramIndex ready(Kind kind) throws SQLException {
+        Entry entry = entries.get(kind);
+        entry.lock.lock();
+        try {
+            if (!entry.loaded) {
+                long start = System.nanoTime();
+                loadAll(kind, entry.index);
+                entry.loaded = true;
+                Metrics.record("search.load: " + kind.name().toLowerCase(Locale.ROOT), System.nanoTime() - start);
+            }
+            return entry.index;
+        } finally {
+            entry.lock.unlock();
+        }
+    }
+
+    private void apply(Kind kind, boolean reload, List<Integer> changed, Set<Integer> deleted) throws SQLException {
+        Entry entry = entries.get(kind);
+        TrigramIndex index;
+        entry.lock.lock();
+        try {
+            if (!entry.loaded) {
+                return; // The first search will read the current rows anyway
+            }
+            index = entry.index;
+        } finally {
+            entry.lock.unlock();
+        }
+        if (reload) {
+            invalidate(kind);
+            return;
+        }
+        for (int id : deleted) {
+            index.remove(id);
+        }
+        if (!changed.isEmpty()) {
+            reread(kind, index, changed);
+        }
+    }
+
+    private void invalidate(Kind kind) {
+        Entry entry = entries.get(kind);
+        entry.lock.lock();
+        try {
+            entry.index = new TrigramIndex();
+            entry.loaded = false;
+        } finally {
+            entry.lock.unlock();
+        }
+    }
+
+    private void loadAll(Kind kind, TrigramIndex index) throws SQLException {
+        try (PooledConnection c = pool.acquire()) {
+            read(c.prepare(kind.select), index, null);
+        }
+    }
+
+    // Ids that no longer come back were deleted after the change was published
+    private void reread(Kind kind, TrigramIndex index, List<Integer> ids) throws SQLException {
+        Set<Integer> found = new HashSet<>();
+        try (PooledConnection c = pool.acquire()) {
+            PreparedStatement ps = c.prepare(kind.select + " WHERE " + kind.idColumn + " = ANY(?)");
+            ps.setObject(1, ids.toArray(new Integer[0]));
+            read(ps, index, found);
+        }
+        for (int id : ids) {
+            if (!found.contains(id)) {
+                index.remove(id);
+            }
+        }
+    }
+
+    private static void read(PreparedStatement ps, TrigramIndex index, Set<Integer> found) throws SQLException {
+        Map<Integer, String> batch = new HashMap<>();
+        try (ResultSet rs = ps.executeQuery()) {
+            int columns = rs.getMetaData().getColumnCount();
+            while (rs.next()) {
+                batch.put(rs.getInt(1), label(rs, columns));
+                if (batch.size() == LOAD_BATCH) {
+                    flush(batch, index, found);
+                }
+            }
+        }
+        flush(batch, index, found);
+    }
+
+    // In batches, so searches running during a long load only wait for one batch at a time
+    private static void flush(Map<Integer, String> batch, TrigramIndex index, Set<Integer> found) {
+        index.putAll(batch);
+        if (found != null) {
+            found.addAll(batch.keySet());
+        }
+        batch.clear();
+    }
+
+    // Every column after the id, blanks skipped, e.g. "Jane Doe · 555-0101 · DL-2231"
+    private static String label(ResultSet rs, int columns) throws SQLException {
+        StringBuilder label = new StringBuilder();
+        for (int i = 2; i <= columns; i++) {
+            String value = rs.getString(i);
+            if (value != null && !value.isBlank()) {
+                if (!label.isEmpty()) {
+                    label.append(" · ");
+                }
+                label.append(value.strip());
+            }
+        }
+        return label.toString();
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.demo;
+
+import javafx.application.Platform;
+import javafx.scene.Scene;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Measures cold start from process launch: time to the first rendered frame and time until the
+ * application is ready for a login (database open and schema checked).
+ * <p>
+ * Run with {@code -Drental.exitWhenReady=true} to quit as soon as the app is ready, for scripted
+ * start-up measurements and for the AppCDS training run.
+ */
+public final class StartupTimer {
+
+    private static final Instant PROCESS_START = ProcessHandle.current().info().startInstant().orElseGet(Instant::now);
+
+    private StartupTimer() {
+    }
+
+    /** Logs the time to the first pulse that lays out {@code scene}, i.e. the first frame. */
+    public static void reportFirstFrame(Scene scene) {
+        Runnable listener = new Runnable() {
+            @Override
+            public void run() {
+                scene.removePostLayoutPulseListener(this);
+                System.out.println("⏱ First frame after " + sinceStart() + " ms");
+            }
+        };
+        scene.addPostLayoutPulseListener(listener);
+    }
+
+    /** Logs the time to ready; must be called on the FX thread. */
+    public static void reportReady() {
+        System.out.println("⏱ Ready after " + sinceStart() + " ms");
+        if (Boolean.getBoolean("rental.exitWhenReady")) {
+            Platform.exit();
+        }
+    }
+
+    private static long sinceStart() {
+        return Duration.between(PROCESS_START, Instant.now()).toMillis();
+    }
+}
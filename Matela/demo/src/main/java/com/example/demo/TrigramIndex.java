@@ -0,0 +1,242 @@
+package com.example.demo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory substring index over short labels keyed by a dense int id (a table's auto-increment
+ * key). Every three-character window of a label, lower-cased, points at the ids containing it; a
+ * query walks the shortest such list among its terms and checks each candidate's label, so
+ * its cost follows the rarest trigram rather than the number of rows. Only a query whose terms
+ * are all shorter than three characters falls back to a scan.
+ * <p>
+ * Updates append postings and leave the old ones to be filtered out by that check; the lists are
+ * rebuilt once stale entries outnumber live ones. Thread-safe: many searches, one writer at a time.
+ */
+public class TrigramIndex {
+
+    public record Match(int id, String label) {
+    }
+
+    // Misses a word start, then longer labels, then higher ids rank lower
+    private record Ranked(int id, String label, int misses) {
+    }
+
+    private static final Comparator<Ranked> BEST_FIRST = Comparator.comparingInt(Ranked::misses)
+            .thenComparingInt(r -> r.label().length())
+            .thenComparingInt(Ranked::id);
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, IntList> postings = new HashMap<>();
+    private String[] labels = new String[1024]; // Indexed by id; null when absent
+    private int size;
+    private long livePostings;
+    private long stalePostings;
+
+    public TrigramIndex() {
+    }
+
+    /** Adds or replaces the label for {@code id}. */
+    public void put(int id, String label) {
+        lock.writeLock().lock();
+        try {
+            putLocked(id, label);
+            compactIfStale();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Adds or replaces many labels under one lock, e.g. the initial load. */
+    public void putAll(Map<Integer, String> batch) {
+        lock.writeLock().lock();
+        try {
+            batch.forEach(this::putLocked);
+            compactIfStale();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(int id) {
+        lock.writeLock().lock();
+        try {
+            if (id < labels.length && labels[id] != null) {
+                stalePostings += trigramCount(labels[id]);
+                labels[id] = null;
+                size--;
+                compactIfStale();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Up to {@code limit} labels containing every whitespace-separated term of {@code query},
+     * ignoring case; labels where each term starts a word come first, then shorter labels.
+     */
+    public List<Match> search(String query, int limit) {
+        String[] terms = query.strip().toLowerCase(Locale.ROOT).split("\\s+");
+        if (terms[0].isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        PriorityQueue<Ranked> best = new PriorityQueue<>(BEST_FIRST.reversed()); // Worst on top, to evict
+        lock.readLock().lock();
+        try {
+            IntList candidates = shortestPostings(terms);
+            if (candidates == null) {
+                for (int id = 0; id < labels.length; id++) {
+                    offer(best, id, terms, limit);
+                }
+            } else {
+                BitSet seen = new BitSet(labels.length); // A list may name an id twice after updates
+                for (int i = 0; i < candidates.size; i++) {
+                    int id = candidates.values[i];
+                    if (!seen.get(id)) {
+                        seen.set(id);
+                        offer(best, id, terms, limit);
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        List<Ranked> ranked = new ArrayList<>(best);
+        ranked.sort(BEST_FIRST);
+        List<Match> matches = new ArrayList<>(ranked.size());
+        for (Ranked r : ranked) {
+            matches.add(new Match(r.id(), r.label()));
+        }
+        return matches;
+    }
+
+    private void offer(PriorityQueue<Ranked> best, int id, String[] terms, int limit) {
+        String label = labels[id];
+        if (label == null) {
+            return;
+        }
+        int misses = 0;
+        for (String term : terms) {
+            int at = indexOfIgnoreCase(label, term);
+            if (at < 0) {
+                return;
+            }
+            if (at > 0 && Character.isLetterOrDigit(label.charAt(at - 1))) {
+                misses++;
+            }
+        }
+        Ranked candidate = new Ranked(id, label, misses);
+        if (best.size() < limit) {
+            best.add(candidate);
+        } else if (BEST_FIRST.compare(candidate, best.peek()) < 0) {
+            best.poll();
+            best.add(candidate);
+        }
+    }
+
+    // The smallest posting list over all terms' trigrams; null if every term is too short to have one
+    private IntList shortestPostings(String[] terms) {
+        IntList shortest = null;
+        for (String term : terms) {
+            for (int i = 0; i + 3 <= term.length(); i++) {
+                IntList list = postings.get(trigram(term, i));
+                if (list == null) {
+                    return IntList.EMPTY; // No label has this trigram, so nothing can match
+                }
+                if (shortest == null || list.size < shortest.size) {
+                    shortest = list;
+                }
+            }
+        }
+        return shortest;
+    }
+
+    private void putLocked(int id, String label) {
+        if (id >= labels.length) {
+            labels = Arrays.copyOf(labels, Math.max(id + 1, labels.length * 2));
+        }
+        String old = labels[id];
+        if (old == null) {
+            size++;
+        } else {
+            stalePostings += trigramCount(old);
+        }
+        labels[id] = label;
+        addPostings(id, label);
+    }
+
+    private void addPostings(int id, String label) {
+        String lower = label.toLowerCase(Locale.ROOT);
+        for (int i = 0; i + 3 <= lower.length(); i++) {
+            postings.computeIfAbsent(trigram(lower, i), _ -> new IntList()).add(id);
+            livePostings++;
+        }
+    }
+
+    private void compactIfStale() {
+        if (stalePostings <= livePostings / 2) {
+            return;
+        }
+        postings.clear();
+        livePostings = 0;
+        stalePostings = 0;
+        for (int id = 0; id < labels.length; id++) {
+            if (labels[id] != null) {
+                addPostings(id, labels[id]);
+            }
+        }
+    }
+
+    private static int trigramCount(String label) {
+        return Math.max(0, label.length() - 2);
+    }
+
+    private static long trigram(String lower, int at) {
+        return ((long) lower.charAt(at) << 32) | ((long) lower.charAt(at + 1) << 16) | lower.charAt(at + 2);
+    }
+
+    // Case-insensitive indexOf without lower-casing (and so copying) every candidate label
+    private static int indexOfIgnoreCase(String label, String lowerTerm) {
+        int last = label.length() - lowerTerm.length();
+        for (int i = 0; i <= last; i++) {
+            if (label.regionMatches(true, i, lowerTerm, 0, lowerTerm.length())) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /** Growable int array; boxing every posting would triple the index's size. */
+    private static final class IntList {
+        static final IntList EMPTY = new IntList();
+
+        int[] values = new int[4];
+        int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+    }
+}
@@ -0,0 +1,5 @@
+package com.example.demo;
+
+/** One row of the {@code Vehicle} table; {@code price} is per day. */
+public record VehicleRow(int id, String brand, String category, Money price, boolean available) {
+}
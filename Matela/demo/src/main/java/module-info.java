@@ -1,7 +1,12 @@
+// H2 ships without a module descriptor, so it is required by its automatic module name
+@SuppressWarnings("requires-automatic")
 module com.example.demo {
-    requires javafx.controls;
+    requires transitive javafx.controls;
     requires javafx.fxml;
-    requires java.sql;
+    requires transitive java.sql;
+    requires jdk.jfr;
+    requires jdk.httpserver;
+    requires java.net.http;
     requires com.h2database;
 
     opens com.example.demo to javafx.fxml;
@@ -0,0 +1,100 @@
+package com.example.demo;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ArchiveServiceTest {
+
+    private final LocalDate today = LocalDate.now();
+    private final LocalDate longAgo = today.minusDays(ArchiveService.ARCHIVE_AFTER_DAYS + 30);
+
+    @TempDir
+    Path invoices;
+
+    private TestDatabase db;
+    private ArchiveService archive;
+    private InvoiceService invoiceService;
+    private int customerId;
+    private int vehicleId;
+
+    @BeforeEach
+    void openDatabase() throws SQLException {
+        db = TestDatabase.open();
+        archive = new ArchiveService(db.pool, db.changes);
+        invoiceService = new InvoiceService(db.pool, invoices);
+        customerId = db.customer("Ada Clerk");
+        vehicleId = db.vehicle("Sedan", 4_500);
+    }
+
+    @AfterEach
+    void closeDatabase() throws SQLException {
+        invoiceService.shutdown();
+        db.close();
+    }
+
+    @Test
+    void movesOldReturnedRentalsWithTheirPaymentsAndInvoices() throws SQLException, IOException {
+        int old = db.booking(customerId, vehicleId, longAgo.minusDays(3), longAgo, ReturnService.RETURNED);
+        int recent = db.booking(customerId, vehicleId, today.minusDays(10), today.minusDays(8), ReturnService.RETURNED);
+        int stillOut = db.booking(customerId, vehicleId, longAgo.minusDays(3), longAgo, ReturnService.OVERDUE);
+        int paid = db.repository.addPayment(old, Money.of(13_500), "Cash");
+        db.repository.addPayment(recent, Money.of(9_000), "Cash");
+        invoiceService.issueNow(paid);
+        Money revenue = db.repository.totalRevenue();
+
+        assertEquals(new ArchiveService.Run(1, 1, 1), archive.archive(today));
+
+        assertEquals(recent + stillOut, db.queryLong("SELECT SUM(id) FROM Booking")); // Both left where they were
+        assertEquals(old, db.queryLong("SELECT id FROM BookingArchive"));
+        assertEquals(paid, db.queryLong("SELECT id FROM PaymentArchive"));
+        assertEquals(0, db.queryLong("SELECT COUNT(*) FROM Invoice"));
+        assertEquals(revenue, db.repository.totalRevenue()); // The rollups already counted it
+        assertEquals(new ArchiveService.Run(0, 0, 0), archive.archive(today));
+    }
+
+    @Test
+    void fleetCalendarStillShowsArchivedRentals() throws SQLException {
+        int old = db.booking(customerId, vehicleId, longAgo.minusDays(3), longAgo, ReturnService.RETURNED);
+        int live = db.booking(customerId, vehicleId, longAgo.plusDays(1), longAgo.plusDays(4), ReturnService.OVERDUE);
+        archive.archive(today);
+
+        List<BookingSpan> spans = db.repository.bookingSpans(vehicleId, vehicleId, longAgo.minusDays(10), longAgo.plusDays(10));
+
+        assertEquals(List.of(old, live), spans.stream().map(BookingSpan::bookingId).toList());
+        assertEquals(List.of(live), db.repository.bookingSpans(vehicleId, vehicleId, longAgo.plusDays(1), longAgo.plusDays(10))
+                .stream().map(BookingSpan::bookingId).toList());
+    }
+
+    @Test
+    void archivedInvoicesAreReissuedFromTheArchive() throws SQLException, IOException {
+        int old = db.booking(customerId, vehicleId, longAgo.minusDays(3), longAgo, ReturnService.RETURNED);
+        int invoiced = db.repository.addPayment(old, Money.of(13_500), "Cash");
+        int notInvoiced = db.repository.addPayment(old, Money.of(2_000), "Cash");
+        int invoiceId = invoiceService.issueNow(invoiced).id();
+        archive.archive(today);
+        db.execute("UPDATE InvoiceArchive SET file = NULL");
+
+        InvoiceService.Invoice again = invoiceService.issueNow(invoiced);
+
+        assertEquals(invoiceId, again.id());
+        assertTrue(Files.readString(again.file()).contains("Payment #" + invoiced));
+        assertEquals(again.file().toString(), db.queryString("SELECT file FROM InvoiceArchive WHERE id = " + invoiceId));
+        assertEquals(0, db.queryLong("SELECT COUNT(*) FROM Invoice"));
+
+        SQLException refused = assertThrows(SQLException.class, () -> invoiceService.issueNow(notInvoiced));
+        assertTrue(refused.getMessage().contains("archived"), refused.getMessage());
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.demo;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AvailabilityServiceTest {
+
+    private final LocalDate today = LocalDate.now();
+
+    private TestDatabase db;
+    private AvailabilityService availability;
+    private BookingService bookingService;
+    private int customerId;
+    private int vehicleId;
+
+    @BeforeEach
+    void openDatabase() throws SQLException {
+        db = TestDatabase.open();
+        availability = new AvailabilityService(db.pool);
+        bookingService = new BookingService(db.pool, db.repository.vehicleCache(), db.changes, new PricingEngine(db.pool));
+        customerId = db.customer("Ada Clerk");
+        vehicleId = db.vehicle("Sedan", 4_500);
+    }
+
+    @AfterEach
+    void closeDatabase() throws SQLException {
+        db.close();
+    }
+
+    @Test
+    void overdueRentalHoldsTheVehicleUntilReturned() throws SQLException {
+        db.booking(customerId, vehicleId, today.minusDays(5), today.minusDays(2), ReturnService.OVERDUE);
+
+        assertFalse(isFree(today, today.plusDays(2)));
+        assertFalse(isFree(today.plusMonths(1), today.plusMonths(1).plusDays(2)));
+        assertTrue(availability.freeVehicles(today, today.plusDays(2), 10).isEmpty());
+        assertEquals(BookingService.Refusal.TAKEN, bookingService.book(customerId, vehicleId, today, today.plusDays(2), "Cash").refusal());
+    }
+
+    @Test
+    void rentalStillOutPastItsEndDateHoldsTheVehicle() throws SQLException {
+        // Not swept to OVERDUE yet
+        db.booking(customerId, vehicleId, today.minusDays(5), today.minusDays(1), ReturnService.OUT);
+
+        assertFalse(isFree(today, today.plusDays(2)));
+    }
+
+    @Test
+    void rentalOutOnTimeOnlyBlocksItsOwnPeriod() throws SQLException {
+        db.booking(customerId, vehicleId, today.minusDays(2), today.plusDays(3), ReturnService.OUT);
+
+        assertFalse(isFree(today, today.plusDays(2)));
+        assertTrue(isFree(today.plusDays(3), today.plusDays(5)));
+        assertEquals(1, availability.freeVehicles(today.plusDays(3), today.plusDays(5), 10).size());
+    }
+
+    @Test
+    void returnedRentalFreesTheVehicle() throws SQLException {
+        db.booking(customerId, vehicleId, today.minusDays(5), today.minusDays(2), ReturnService.RETURNED);
+
+        assertTrue(isFree(today, today.plusDays(2)));
+    }
+
+    @Test
+    void rentalReturnedEarlyFreesTheRestOfItsPeriod() throws SQLException {
+        int bookingId = db.booking(customerId, vehicleId, today.minusDays(3), today.plusDays(4), ReturnService.RETURNED);
+        db.execute("UPDATE Booking SET returned_on = CURRENT_DATE WHERE id = " + bookingId);
+
+        assertTrue(isFree(today, today.plusDays(2)));
+        assertEquals(1, availability.freeVehicles(today, today.plusDays(2), 10).size());
+        assertTrue(bookingService.book(customerId, vehicleId, today, today.plusDays(2), "Cash").isBooked());
+        // Still blocks the days it was actually out
+        assertFalse(isFree(today.minusDays(2), today.plusDays(1)));
+    }
+
+    private boolean isFree(LocalDate start, LocalDate end) throws SQLException {
+        try (PooledConnection c = db.pool.acquire()) {
+            return AvailabilityService.isFree(c, vehicleId, start, end);
+        }
+    }
+}
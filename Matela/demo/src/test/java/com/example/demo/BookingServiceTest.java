@@ -0,0 +1,105 @@
+package com.example.demo;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BookingServiceTest {
+
+    private static final int CLERKS = 16;
+
+    private TestDatabase db;
+    private BookingService bookingService;
+    private int customerId;
+    private int vehicleId;
+
+    @BeforeEach
+    void openDatabase() throws SQLException {
+        db = TestDatabase.open();
+        bookingService = new BookingService(db.pool, db.repository.vehicleCache(), db.changes, new PricingEngine(db.pool));
+        customerId = db.customer("Ada Clerk");
+        vehicleId = db.vehicle("Sedan", 4_500);
+    }
+
+    @AfterEach
+    void closeDatabase() throws SQLException {
+        db.close();
+    }
+
+    @Test
+    void concurrentBookingsForTheSameDatesHaveOneWinner() throws Exception {
+        LocalDate start = LocalDate.now().plusDays(10);
+        LocalDate end = start.plusDays(3);
+        CountDownLatch go = new CountDownLatch(1);
+        List<Future<BookingService.Result>> attempts = new ArrayList<>();
+        try (ExecutorService clerks = Executors.newFixedThreadPool(CLERKS)) {
+            for (int i = 0; i < CLERKS; i++) {
+                attempts.add(clerks.submit(() -> {
+                    go.await();
+                    return bookingService.book(customerId, vehicleId, start, end, "Cash");
+                }));
+            }
+            go.countDown();
+        }
+
+        int winners = 0;
+        for (Future<BookingService.Result> attempt : attempts) {
+            BookingService.Result result = attempt.get();
+            if (result.isBooked()) {
+                winners++;
+            } else {
+                assertEquals(BookingService.Refusal.TAKEN, result.refusal());
+            }
+        }
+        assertEquals(1, winners);
+        assertEquals(1, db.queryLong("SELECT COUNT(*) FROM Booking WHERE vehicle_id = " + vehicleId));
+        assertEquals(1, db.queryLong("SELECT COUNT(*) FROM Payment"));
+        assertEquals(0, db.queryLong("SELECT COUNT(*) FROM Booking a JOIN Booking b ON b.vehicle_id = a.vehicle_id AND b.id > a.id "
+                + "AND b.start_date < a.end_date AND b.end_date > a.start_date"));
+    }
+
+    @Test
+    void overlappingPeriodsAreRefusedAndAdjacentOnesBooked() throws SQLException {
+        LocalDate start = LocalDate.now().plusDays(10);
+        assertTrue(bookingService.book(customerId, vehicleId, start, start.plusDays(3), "Cash").isBooked());
+        assertEquals(BookingService.Refusal.TAKEN,
+                bookingService.book(customerId, vehicleId, start.plusDays(2), start.plusDays(5), "Cash").refusal());
+        // Half-open periods: picked up again the day it comes back
+        assertTrue(bookingService.book(customerId, vehicleId, start.plusDays(3), start.plusDays(5), "Cash").isBooked());
+    }
+
+    @Test
+    void missingCustomerOrVehicleIsRefusedAsSuch() throws SQLException {
+        LocalDate start = LocalDate.now().plusDays(1);
+        assertEquals(BookingService.Refusal.NO_VEHICLE,
+                bookingService.book(customerId, vehicleId + 1, start, start.plusDays(1), "Cash").refusal());
+        assertEquals(BookingService.Refusal.NO_CUSTOMER,
+                bookingService.book(customerId + 1, vehicleId, start, start.plusDays(1), "Cash").refusal());
+        assertEquals(0, db.queryLong("SELECT COUNT(*) FROM Booking"));
+    }
+
+    @Test
+    void rentalsCannotStartInThePast() throws SQLException {
+        LocalDate today = LocalDate.now();
+        assertThrows(IllegalArgumentException.class,
+                () -> bookingService.book(customerId, vehicleId, today.minusDays(1), today.plusDays(2), "Cash"));
+        assertEquals(0, db.queryLong("SELECT COUNT(*) FROM Booking"));
+
+        BookingService.Result fromToday = bookingService.book(customerId, vehicleId, today, today.plusDays(2), "Cash");
+        assertTrue(fromToday.isBooked());
+        assertEquals(1, db.queryLong("SELECT COUNT(*) FROM Booking WHERE status = '" + ReturnService.OUT + "'"));
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.demo;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ConnectionPoolTest {
+
+    private ConnectionPool pool;
+
+    @BeforeEach
+    void openPool() {
+        pool = new ConnectionPool("jdbc:h2:mem:pool-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "", 1, 8, 200);
+    }
+
+    @AfterEach
+    void closePool() {
+        pool.close();
+    }
+
+    @Test
+    void closingTwiceReleasesOnce() throws SQLException {
+        PooledConnection first = pool.acquire();
+        first.close();
+        first.close();
+        assertEquals(0, pool.busyConnections());
+
+        try (PooledConnection again = pool.acquire()) {
+            assertSame(first, again); // Reused, and the pool is full again
+            assertEquals(1, pool.busyConnections());
+            assertThrows(SQLTimeoutException.class, pool::acquire);
+        }
+    }
+}
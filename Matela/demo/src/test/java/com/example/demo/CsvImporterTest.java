@@ -0,0 +1,114 @@
+package com.example.demo;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CsvImporterTest {
+
+    @TempDir
+    Path dir;
+
+    private TestDatabase db;
+
+    @BeforeEach
+    void openDatabase() throws SQLException {
+        db = TestDatabase.open();
+    }
+
+    @AfterEach
+    void closeDatabase() throws SQLException {
+        db.close();
+    }
+
+    @Test
+    void splitsQuotedFieldsWithCommasAndEscapedQuotes() {
+        assertEquals(List.of("a", "b, c", "say \"hi\"", ""), CsvImporter.splitCsv("a,\"b, c\",\"say \"\"hi\"\"\","));
+        assertThrows(IllegalArgumentException.class, () -> CsvImporter.splitCsv("a,\"b"));
+    }
+
+    @Test
+    void importsValidRowsAndReportsTheRest() throws IOException, SQLException {
+        Path file = csv("vehicles.csv",
+                "\uFEFFBrand,Category,Price",
+                "Toyota,Sedan,45.00",
+                "",
+                "\"Ford, F-150\",Truck,80",
+                ",SUV,60.00",
+                "Kia,SUV,0",
+                "Fiat,Compact,cheap",
+                "Mini,Compact");
+
+        CsvImporter.Result result = new CsvImporter(db.pool, db.changes, 2).importFile(file, CsvImporter.VEHICLES, ProgressListener.NONE);
+
+        assertEquals(2, result.imported());
+        assertEquals(2, db.queryLong("SELECT COUNT(*) FROM Vehicle"));
+        assertEquals(8_000, db.queryLong("SELECT price_cents FROM Vehicle WHERE brand = 'Ford, F-150'"));
+        assertEquals(List.of(5L, 6L, 7L, 8L), result.rejected().stream().map(CsvImporter.Rejected::line).toList());
+        assertEquals("brand is required", result.rejected().get(0).reason());
+        assertEquals("price must be positive", result.rejected().get(1).reason());
+        assertEquals("expected 3 fields but found 2", result.rejected().get(3).reason());
+        List<String> report = Files.readAllLines(result.rejectedFile());
+        assertEquals(5, report.size());
+        assertEquals("5,\"brand is required\",\",SUV,60.00\"", report.get(1));
+    }
+
+    @Test
+    void cleanFileLeavesNoReport() throws IOException, SQLException {
+        Path file = csv("customers.csv", "name,license", "Ada Clerk,L-1", "Bo Driver,L-2");
+
+        CsvImporter.Result result = new CsvImporter(db.pool, db.changes).importFile(file, CsvImporter.CUSTOMERS, ProgressListener.NONE);
+
+        assertEquals(2, result.imported());
+        assertTrue(result.rejected().isEmpty());
+        assertNull(result.rejectedFile());
+        assertEquals(2, db.queryLong("SELECT COUNT(*) FROM Customer WHERE contact = ''")); // Optional column
+    }
+
+    @Test
+    void missingRequiredColumnFailsBeforeAnyRow() throws IOException, SQLException {
+        Path file = csv("vehicles.csv", "brand,price", "Toyota,45.00");
+
+        assertThrows(IOException.class, () -> new CsvImporter(db.pool, db.changes).importFile(file, CsvImporter.VEHICLES, ProgressListener.NONE));
+        assertEquals(0, db.queryLong("SELECT COUNT(*) FROM Vehicle"));
+    }
+
+    @Test
+    void cancellingKeepsTheChunksAlreadyCommitted() throws IOException, SQLException {
+        Path file = csv("customers.csv", "name,license", "A,L-1", "B,L-2", "C,L-3", "D,L-4", "E,L-5");
+        ProgressListener cancelAfterFirstChunk = new ProgressListener() {
+            private boolean started;
+
+            @Override
+            public void update(long done, long total) {
+                started = true;
+            }
+
+            @Override
+            public boolean isCancelled() {
+                return started;
+            }
+        };
+
+        assertThrows(CancellationException.class,
+                () -> new CsvImporter(db.pool, db.changes, 2).importFile(file, CsvImporter.CUSTOMERS, cancelAfterFirstChunk));
+        assertEquals(2, db.queryLong("SELECT COUNT(*) FROM Customer"));
+    }
+
+    private Path csv(String name, String... lines) throws IOException {
+        return Files.write(dir.resolve(name), List.of(lines));
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.demo;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DownsamplerTest {
+
+    @Test
+    void keepsEveryPointWhenThereAreNoMoreThanTheThreshold() {
+        double[] x = {0, 1, 2, 3, 4};
+        double[] y = {5, 1, 4, 2, 3};
+
+        assertArrayEquals(new int[]{0, 1, 2, 3, 4}, Downsampler.lttb(x, y, 0, 5, 5));
+        assertArrayEquals(new int[]{1, 2, 3}, Downsampler.lttb(x, y, 1, 4, 10));
+        assertArrayEquals(new int[0], Downsampler.lttb(x, y, 3, 3, 10));
+    }
+
+    @Test
+    void picksAtMostTheThresholdAscendingWithBothEnds() {
+        int n = 10_000;
+        double[] x = new double[n];
+        double[] y = new double[n];
+        for (int i = 0; i < n; i++) {
+            x[i] = i;
+            y[i] = Math.sin(i / 50.0) * 100;
+        }
+
+        int[] picked = Downsampler.lttb(x, y, 2_000, 8_000, 300);
+
+        assertEquals(300, picked.length);
+        assertEquals(2_000, picked[0]);
+        assertEquals(7_999, picked[picked.length - 1]);
+        for (int i = 1; i < picked.length; i++) {
+            assertTrue(picked[i] > picked[i - 1], "indices ascend");
+        }
+    }
+
+    @Test
+    void keepsASingleDaySpikeThatAveragingWouldFlatten() {
+        int n = 1_000;
+        double[] x = new double[n];
+        double[] y = new double[n];
+        for (int i = 0; i < n; i++) {
+            x[i] = i;
+            y[i] = 10;
+        }
+        y[637] = 5_000;
+        y[211] = -5_000;
+
+        int[] picked = Downsampler.lttb(x, y, 0, n, 20);
+
+        assertTrue(contains(picked, 637), "spike kept");
+        assertTrue(contains(picked, 211), "dip kept");
+    }
+
+    private static boolean contains(int[] values, int wanted) {
+        for (int value : values) {
+            if (value == wanted) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
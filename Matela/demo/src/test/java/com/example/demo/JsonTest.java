@@ -0,0 +1,58 @@
+package com.example.demo;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class JsonTest {
+
+    @Test
+    void parsesNestedValuesIntoMapsListsAndNumbers() {
+        Object parsed = Json.parse(" {\"id\": 7, \"rate\": 45.5, \"big\": 1e3, \"ok\": true, \"none\": null,"
+                + " \"tags\": [\"a\", [], {}], \"name\": \"Ada \\\"A\\\" \\u00e9\\n\"} ");
+
+        Map<String, Object> expected = new LinkedHashMap<>();
+        expected.put("id", 7L);
+        expected.put("rate", 45.5);
+        expected.put("big", 1000.0);
+        expected.put("ok", true);
+        expected.put("none", null);
+        expected.put("tags", List.of("a", List.of(), Map.of()));
+        expected.put("name", "Ada \"A\" é\n");
+        assertEquals(expected, parsed);
+    }
+
+    @Test
+    void writesWhatItParses() {
+        Map<String, Object> value = new LinkedHashMap<>();
+        value.put("text", "tab\there, quote \" and \\ and \u0001");
+        value.put("list", Arrays.asList(1L, 2.5, false, null));
+        value.put("nested", Map.of("k", "v"));
+
+        String text = Json.write(value);
+
+        assertEquals("{\"text\":\"tab\\there, quote \\\" and \\\\ and \\u0001\",\"list\":[1,2.5,false,null],\"nested\":{\"k\":\"v\"}}", text);
+        assertEquals(value, Json.parseObject(text));
+    }
+
+    @Test
+    void writesDatesAndEnumsAsTextAndNonFiniteNumbersAsNull() {
+        assertEquals("[\"2026-01-31\",\"BOOKING\",null]",
+                Json.write(List.of(LocalDate.of(2026, 1, 31), ChangeFeed.Table.BOOKING, Double.NaN)));
+    }
+
+    @Test
+    void rejectsMalformedInput() {
+        for (String bad : List.of("", "{", "{\"a\" 1}", "[1,]", "\"open", "tru", "1 2", "{\"a\":1}x", "\"\\q\"", "-")) {
+            assertThrows(IllegalArgumentException.class, () -> Json.parse(bad), bad);
+        }
+        assertThrows(IllegalArgumentException.class, () -> Json.parseObject("[1]"));
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.demo;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MigrationsTest {
+
+    private TestDatabase db;
+
+    @AfterEach
+    void closeDatabase() throws SQLException {
+        if (db != null) {
+            db.close();
+        }
+    }
+
+    @Test
+    void freshDatabaseIsMigratedOnceAndThenLeftAlone() throws SQLException {
+        db = TestDatabase.open();
+
+        assertEquals(Migrations.ALL.size(), db.queryLong("SELECT COUNT(*) FROM schema_version"));
+        assertEquals(List.of(), new SchemaMigrator(db.pool, Migrations.ALL).migrate());
+        assertEquals(Migrations.ALL.size(), db.queryLong("SELECT MAX(version) FROM schema_version"));
+    }
+
+    @Test
+    void versionsAreUniqueAndAscending() {
+        for (int i = 0; i < Migrations.ALL.size(); i++) {
+            assertEquals(i + 1, Migrations.ALL.get(i).version());
+        }
+    }
+
+    @Test
+    void databaseFromTheOriginalReleaseKeepsItsData() throws SQLException {
+        db = TestDatabase.open(1);
+        LocalDate start = LocalDate.now().minusDays(10);
+        db.execute("INSERT INTO Vehicle(id, brand, category, price, available) VALUES (1, 'Toyota', 'Sedan', 45.5, TRUE), (2, 'Ford', 'SUV', 80, FALSE)",
+                "INSERT INTO Customer(id, name, contact, license) VALUES (1, 'Ada Clerk', 'ada@example.com', 'L-1')",
+                "INSERT INTO Booking(id, customer_id, vehicle_id, start_date, end_date) VALUES "
+                        + "(1, 1, 1, DATE '" + start + "', DATE '" + start.plusDays(3) + "'), "
+                        + "(2, 1, 2, DATE '" + start + "', DATE '" + start.plusDays(30) + "')",
+                "INSERT INTO Payment(id, booking_id, amount, method) VALUES (1, 1, 136.5, 'Cash'), (2, 2, 0.1, 'Card'), (3, 2, 0.2, 'Card')");
+
+        migrateToLatest();
+
+        assertEquals(4_550, db.queryLong("SELECT price_cents FROM Vehicle WHERE id = 1"));
+        assertEquals(Money.DEFAULT_CURRENCY.getCurrencyCode(), db.queryString("SELECT currency FROM Vehicle WHERE id = 2"));
+        assertEquals(30, db.queryLong("SELECT SUM(amount_cents) FROM Payment WHERE booking_id = 2")); // Not 0.30000000000000004
+        // Undated payments are dated at the rental start; the rollups are rebuilt from them exactly
+        assertEquals(3, db.queryLong("SELECT COUNT(*) FROM Payment WHERE paid_on = DATE '" + start + "'"));
+        assertEquals(13_680, db.queryLong("SELECT total_cents FROM RevenueDaily WHERE period = DATE '" + start + "'"));
+        assertEquals(Money.of(13_680), db.repository.totalRevenue());
+        // Ended rentals count as returned on time, running ones as out
+        assertEquals(ReturnService.RETURNED, db.queryString("SELECT status FROM Booking WHERE id = 1"));
+        assertEquals(ReturnService.OUT, db.queryString("SELECT status FROM Booking WHERE id = 2"));
+        assertEquals(3, db.queryLong("SELECT COUNT(*) FROM PricingRule WHERE kind = 'EXTRA' AND amount_cents IS NOT NULL AND amount IS NULL"));
+        assertEquals(1, db.queryLong("SELECT COUNT(*) FROM INFORMATION_SCHEMA.INDEXES WHERE INDEX_NAME = 'IDX_BOOKING_VEHICLE_PERIOD'"));
+    }
+
+    @Test
+    void revenueRollupIsRebuiltPerCurrencyIncludingTheArchive() throws SQLException {
+        db = TestDatabase.open(10);
+        LocalDate paidOn = LocalDate.now().minusYears(2);
+        int customerId = db.customer("Ada Clerk");
+        int vehicleId = db.vehicle("Sedan", 4_500);
+        db.execute("INSERT INTO BookingArchive(id, customer_id, vehicle_id, start_date, end_date, status) VALUES "
+                        + "(100, " + customerId + ", " + vehicleId + ", DATE '" + paidOn + "', DATE '" + paidOn.plusDays(2) + "', 'RETURNED')",
+                "INSERT INTO PaymentArchive(id, booking_id, amount_cents, currency, method, paid_on) VALUES "
+                        + "(100, 100, 9000, 'USD', 'Cash', DATE '" + paidOn + "'), (101, 100, 500, 'EUR', 'Cash', DATE '" + paidOn + "')");
+
+        migrateToLatest();
+
+        assertEquals(9_000, db.queryLong("SELECT total_cents FROM RevenueMonthly WHERE currency = 'USD'"));
+        assertEquals(500, db.queryLong("SELECT total_cents FROM RevenueDaily WHERE currency = 'EUR'"));
+        assertEquals(2, db.queryLong("SELECT COUNT(*) FROM RevenueDaily"));
+    }
+
+    @Test
+    void moneyMigrationStopsAtVehiclesWithoutAPrice() throws SQLException {
+        db = TestDatabase.open(7);
+        db.execute("INSERT INTO Vehicle(id, brand, category, price, available) VALUES "
+                + "(1, 'Toyota', 'Sedan', 45.555, TRUE), (2, 'Ford', 'SUV', NULL, TRUE), (3, 'Kia', 'Compact', NULL, FALSE)");
+
+        SQLException failed = assertThrows(SQLException.class, this::migrateToLatest);
+
+        assertTrue(failed.getMessage().contains("[2, 3]"), failed.getMessage());
+        assertEquals(7, db.queryLong("SELECT MAX(version) FROM schema_version"));
+
+        db.execute("UPDATE Vehicle SET price = 60 WHERE price IS NULL");
+        migrateToLatest(); // Picks up where it stopped
+
+        assertEquals(Migrations.ALL.size(), db.queryLong("SELECT MAX(version) FROM schema_version"));
+        assertEquals(4_556, db.queryLong("SELECT price_cents FROM Vehicle WHERE id = 1"));
+        assertEquals(12_000, db.queryLong("SELECT SUM(price_cents) FROM Vehicle WHERE id IN (2, 3)"));
+    }
+
+    private void migrateToLatest() throws SQLException {
+        new SchemaMigrator(db.pool, Migrations.ALL).migrate();
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.demo;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Currency;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MoneyTest {
+
+    private static final Currency EUR = Currency.getInstance("EUR");
+    private static final Currency YEN = Currency.getInstance("JPY");
+
+    @Test
+    void parsesExactlyAndRefusesWhatWouldBeRounded() {
+        assertEquals(Money.of(4_990, "EUR"), Money.parse("49.9", EUR));
+        assertEquals(Money.of(-5, "EUR"), Money.parse(" -0.05 ", EUR));
+        assertEquals(Money.of(1_200, "JPY"), Money.parse("1200", YEN));
+
+        for (String bad : List.of("", "  ", "4,50", "abc", "0.001", "99999999999999999999")) {
+            assertThrows(IllegalArgumentException.class, () -> Money.parse(bad, EUR), bad);
+        }
+        assertThrows(IllegalArgumentException.class, () -> Money.parse("1.5", YEN));
+    }
+
+    @Test
+    void formatsWithGroupingAndTheCurrencyScale() {
+        Money amount = Money.of(123_456_705, "EUR");
+
+        assertTrue(amount.toString().endsWith("1,234,567.05"), amount.toString());
+        assertTrue(Money.of(-100_050, "EUR").toString().startsWith("-"));
+        assertEquals("1234567.05", amount.toPlainString());
+        assertEquals("-0.07", Money.of(-7, "EUR").toPlainString());
+        assertEquals("1200", Money.of(1_200, "JPY").toPlainString());
+        assertEquals(Money.parse(amount.toPlainString(), EUR), amount);
+        assertEquals(Money.symbol(YEN) + "1,000", Money.of(1_000, "JPY").toString()); // No minor unit
+    }
+
+    @Test
+    void arithmeticStaysInOneCurrencyAndNeverOverflowsSilently() {
+        Money ten = Money.of(1_000, "EUR");
+
+        assertEquals(Money.of(1_250, "EUR"), ten.plus(Money.of(250, "EUR")));
+        assertEquals(Money.of(-250, "EUR"), Money.of(750, "EUR").minus(ten));
+        assertEquals(Money.of(7_000, "EUR"), ten.times(7));
+        assertTrue(ten.compareTo(Money.of(999, "EUR")) > 0);
+
+        assertThrows(IllegalArgumentException.class, () -> ten.plus(Money.of(1_000, "USD")));
+        assertThrows(IllegalArgumentException.class, () -> ten.compareTo(Money.of(1_000, "USD")));
+        assertThrows(ArithmeticException.class, () -> Money.of(Long.MAX_VALUE, "EUR").plus(Money.of(1, "EUR")));
+        assertThrows(ArithmeticException.class, () -> ten.times(Long.MAX_VALUE));
+    }
+
+    @Test
+    void missingCurrencyColumnMeansTheDesksCurrency() {
+        assertEquals(Money.of(500), Money.of(500, null));
+        assertEquals(Money.DEFAULT_CURRENCY, Money.ZERO.currency());
+        assertEquals(EUR, Money.of(1, "EUR ").currency()); // CHAR(3) comes back padded on some drivers
+    }
+}
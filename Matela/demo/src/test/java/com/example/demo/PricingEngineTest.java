@@ -0,0 +1,128 @@
+package com.example.demo;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.MonthDay;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PricingEngineTest {
+
+    private static final VehicleRow SEDAN = new VehicleRow(1, "Toyota", "Sedan", Money.of(10_000, "USD"), true);
+    private static final List<PricingEngine.Rule> RULES = List.of(
+            new PricingEngine.Rule(PricingEngine.Kind.SEASON, "Summer", null, MonthDay.of(6, 15), MonthDay.of(8, 31), 0, 1.25, null),
+            new PricingEngine.Rule(PricingEngine.Kind.LONG_RENTAL, "Week", null, null, null, 7, 0.1, null),
+            new PricingEngine.Rule(PricingEngine.Kind.EXTRA, "GPS", null, null, null, 0, 0, Money.of(500, "USD")),
+            new PricingEngine.Rule(PricingEngine.Kind.LATE_FEE, "Late return", null, null, null, 0, 1.5, null));
+
+    private TestDatabase db;
+    private PricingEngine engine;
+
+    @BeforeEach
+    void openDatabase() throws SQLException {
+        db = TestDatabase.open();
+        engine = new PricingEngine(db.pool);
+    }
+
+    @AfterEach
+    void closeDatabase() throws SQLException {
+        db.close();
+    }
+
+    @Test
+    void quotesSeasonDiscountAndExtrasInExactCents() {
+        PricingEngine.Rates rates = PricingEngine.compile(RULES, LocalDate.of(2027, 1, 1));
+        LocalDate start = LocalDate.of(2027, 6, 12);
+
+        // Three plain days and four summer days at 1.25: 8 day rates
+        PricingEngine.Quote quote = rates.quote(SEDAN, start, start.plusDays(7), rates.extrasPerDay(Set.of("GPS")));
+
+        assertEquals(7, quote.days());
+        assertEquals(Money.of(80_000, "USD"), quote.rental());
+        assertEquals(Money.of(8_000, "USD"), quote.discount());
+        assertEquals(Money.of(3_500, "USD"), quote.extras());
+        assertEquals(Money.of(75_500, "USD"), quote.total());
+    }
+
+    @Test
+    void periodsOutsideTheTableArePricedTheSameDayByDay() {
+        LocalDate start = LocalDate.of(2027, 6, 12);
+        PricingEngine.Rates around = PricingEngine.compile(RULES, start);
+        PricingEngine.Rates farAway = PricingEngine.compile(RULES, start.minusYears(10));
+
+        assertTrue(around.inTable(start, start.plusDays(30)));
+        assertFalse(farAway.inTable(start, start.plusDays(30)));
+        assertEquals(around.quote(SEDAN, start, start.plusDays(30), Money.ZERO), farAway.quote(SEDAN, start, start.plusDays(30), Money.ZERO));
+    }
+
+    @Test
+    void lateFeesFollowTheLateRate() {
+        PricingEngine.Rates rates = PricingEngine.compile(RULES, LocalDate.of(2027, 1, 1));
+        LocalDate due = LocalDate.of(2027, 3, 1);
+
+        assertEquals(Money.of(30_000, "USD"), rates.lateFee(SEDAN, due, due.plusDays(2)));
+        assertEquals(Money.of(0, "USD"), rates.lateFee(SEDAN, due, due));
+    }
+
+    @Test
+    void extrasInAnotherCurrencyAreRefused() {
+        PricingEngine.Rates rates = PricingEngine.compile(RULES, LocalDate.of(2027, 1, 1));
+        VehicleRow inEuros = new VehicleRow(2, "Renault", "Compact", Money.of(4_000, "EUR"), true);
+        LocalDate start = LocalDate.of(2027, 2, 1);
+
+        assertThrows(IllegalArgumentException.class, () -> rates.quote(inEuros, start, start.plusDays(2), rates.extrasPerDay(Set.of("GPS"))));
+        assertThrows(IllegalArgumentException.class, () -> rates.extrasPerDay(Set.of("Jetpack")));
+    }
+
+    @Test
+    void tableRollsForwardWithTheDate() throws SQLException {
+        LocalDate today = LocalDate.now();
+        PricingEngine.Rates first = engine.rates(today);
+        assertSame(first, engine.rates(today));
+
+        LocalDate later = today.plusDays(400);
+        PricingEngine.Rates rolled = engine.rates(later);
+
+        assertNotSame(first, rolled);
+        assertEquals(later, rolled.today);
+        assertSame(first.rules, rolled.rules); // Rebuilt from the rules already read, not the database
+        assertTrue(rolled.inTable(later.plusDays(PricingEngine.HORIZON_DAYS - 10), later.plusDays(PricingEngine.HORIZON_DAYS)));
+        assertFalse(first.inTable(later.plusDays(PricingEngine.HORIZON_DAYS - 10), later.plusDays(PricingEngine.HORIZON_DAYS)));
+    }
+
+    @Test
+    void addingAndRemovingRulesRecompiles() throws SQLException {
+        LocalDate start = LocalDate.now().plusDays(1);
+        assertEquals(List.of("GPS", "Child seat", "Full insurance"), engine.extras().stream().map(PricingEngine.Extra::name).toList());
+
+        int roofBox = engine.addRule(new PricingEngine.Rule(PricingEngine.Kind.EXTRA, "Roof box", null, null, null, 0, 0, Money.of(1_250, "USD")));
+
+        assertEquals(new PricingEngine.Extra("Roof box", Money.of(1_250, "USD")), engine.extras().getLast());
+        assertEquals(Money.of(2_500, "USD"), engine.quote(SEDAN, start, start.plusDays(2), Set.of("Roof box")).extras());
+
+        assertTrue(engine.removeRule(roofBox));
+        assertFalse(engine.removeRule(roofBox));
+        assertThrows(IllegalArgumentException.class, () -> engine.quote(SEDAN, start, start.plusDays(2), Set.of("Roof box")));
+    }
+
+    @Test
+    void newSeasonAppliesToTheNextQuote() throws SQLException {
+        LocalDate start = LocalDate.now().plusDays(1);
+        MonthDay day = MonthDay.from(start);
+        engine.addRule(new PricingEngine.Rule(PricingEngine.Kind.SEASON, "Festival", "Sedan", day, day, 0, 3, null));
+
+        // Steeper than any seeded season, which do not stack with it
+        assertEquals(Money.of(30_000, "USD"), engine.quote(SEDAN, start, start.plusDays(1), Set.of()).rental());
+    }
+}
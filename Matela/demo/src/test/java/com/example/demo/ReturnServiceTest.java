@@ -0,0 +1,136 @@
+package com.example.demo;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ReturnServiceTest {
+
+    private final LocalDate today = LocalDate.now();
+
+    private TestDatabase db;
+    private PricingEngine pricing;
+    private ReturnService returns;
+    private int customerId;
+    private int vehicleId;
+    private VehicleRow vehicle;
+
+    @BeforeEach
+    void openDatabase() throws SQLException {
+        db = TestDatabase.open();
+        pricing = new PricingEngine(db.pool);
+        returns = new ReturnService(db.pool, pricing, db.repository.vehicleCache(), db.changes);
+        customerId = db.customer("Ada Clerk");
+        vehicleId = db.vehicle("Sedan", 4_500);
+        vehicle = db.repository.findVehicle(vehicleId);
+    }
+
+    @AfterEach
+    void closeDatabase() throws SQLException {
+        db.close();
+    }
+
+    @Test
+    void sweepPicksUpBookingsThatHaveStarted() throws SQLException {
+        int started = db.booking(customerId, vehicleId, today, today.plusDays(3), ReturnService.BOOKED);
+        int later = db.booking(customerId, db.vehicle("Sedan", 5_000), today.plusDays(1), today.plusDays(3), ReturnService.BOOKED);
+
+        ReturnService.Sweep sweep = returns.sweep(today);
+
+        assertEquals(new ReturnService.Sweep(1, 0, Map.of(), 0), sweep);
+        assertEquals(ReturnService.OUT, status(started));
+        assertEquals(ReturnService.BOOKED, status(later));
+        assertEquals(1, db.queryLong("SELECT COUNT(*) FROM Vehicle WHERE available = FALSE"));
+    }
+
+    @Test
+    void overdueRentalsAreChargedOncePerDay() throws SQLException {
+        LocalDate end = today.minusDays(3);
+        int booking = db.booking(customerId, vehicleId, today.minusDays(6), end, ReturnService.OUT);
+        Money firstFee = pricing.lateFee(vehicle, end, today);
+
+        ReturnService.Sweep first = returns.sweep(today);
+
+        assertEquals(new ReturnService.Sweep(0, 1, Map.of(firstFee.currency(), firstFee), 0), first);
+        assertEquals(ReturnService.OVERDUE, status(booking));
+        assertEquals(firstFee.cents(), lateFeesCharged(booking));
+
+        assertEquals(new ReturnService.Sweep(0, 0, Map.of(), 0), returns.sweep(today)); // Already charged through today
+
+        Money nextDay = pricing.lateFee(vehicle, today, today.plusDays(1));
+        assertEquals(new ReturnService.Sweep(0, 1, Map.of(nextDay.currency(), nextDay), 0), returns.sweep(today.plusDays(1)));
+        assertEquals(firstFee.plus(nextDay).cents(), lateFeesCharged(booking));
+        assertEquals(firstFee.plus(nextDay).cents(), db.queryLong("SELECT SUM(total_cents) FROM RevenueDaily"));
+    }
+
+    @Test
+    void feesInAnotherCurrencyAreRolledUpSeparately() throws SQLException {
+        int inEuros = db.vehicle("Compact", 3_000);
+        db.execute("UPDATE Vehicle SET currency = 'EUR' WHERE id = " + inEuros);
+        LocalDate end = today.minusDays(2);
+        db.booking(customerId, vehicleId, today.minusDays(4), end, ReturnService.OUT);
+        db.booking(customerId, inEuros, today.minusDays(4), end, ReturnService.OUT);
+        Money dollars = pricing.lateFee(vehicle, end, today);
+        Money euros = pricing.lateFee(db.repository.findVehicle(inEuros), end, today);
+
+        ReturnService.Sweep sweep = returns.sweep(today);
+
+        assertEquals(Map.of(dollars.currency(), dollars, euros.currency(), euros), sweep.lateFees());
+        assertEquals(dollars.cents(), db.queryLong("SELECT total_cents FROM RevenueDaily WHERE currency = '" + dollars.currency() + "'"));
+        assertEquals(euros.cents(), db.queryLong("SELECT total_cents FROM RevenueMonthly WHERE currency = 'EUR'"));
+        assertEquals(dollars, db.repository.totalRevenue()); // Reports stay in the desk's currency
+    }
+
+    @Test
+    void sweepReleasesVehiclesWithNoRentalRunning() throws SQLException {
+        db.booking(customerId, vehicleId, today.minusDays(6), today.minusDays(3), ReturnService.RETURNED);
+        db.execute("UPDATE Vehicle SET available = FALSE");
+
+        assertEquals(1, returns.sweep(today).released());
+        assertEquals(1, db.queryLong("SELECT COUNT(*) FROM Vehicle WHERE available = TRUE"));
+    }
+
+    @Test
+    void deskReturnChargesWhatIsStillOwedAndFreesTheVehicle() throws SQLException {
+        LocalDate end = today.minusDays(2);
+        int booking = db.booking(customerId, vehicleId, today.minusDays(5), end, ReturnService.OUT);
+        db.execute("UPDATE Vehicle SET available = FALSE");
+        Money owed = pricing.lateFee(vehicle, end, today);
+
+        ReturnService.Return done = returns.returnVehicle(booking);
+
+        assertEquals(new ReturnService.Return(booking, vehicleId, 2, owed), done);
+        assertEquals(ReturnService.RETURNED, status(booking));
+        assertEquals(owed.cents(), lateFeesCharged(booking));
+        assertEquals(1, db.queryLong("SELECT COUNT(*) FROM Vehicle WHERE available = TRUE"));
+        assertEquals(new ReturnService.Sweep(0, 0, Map.of(), 0), returns.sweep(today)); // Nothing left to charge
+    }
+
+    @Test
+    void deskReturnRefusesBookingsItCannotReturn() throws SQLException {
+        int returned = db.booking(customerId, vehicleId, today.minusDays(6), today.minusDays(3), ReturnService.RETURNED);
+        int upcoming = db.booking(customerId, vehicleId, today.plusDays(2), today.plusDays(4), ReturnService.BOOKED);
+
+        assertThrows(IllegalArgumentException.class, () -> returns.returnVehicle(returned));
+        assertThrows(IllegalArgumentException.class, () -> returns.returnVehicle(upcoming));
+        assertNull(returns.returnVehicle(upcoming + 1));
+        assertEquals(0, db.queryLong("SELECT COUNT(*) FROM Payment"));
+    }
+
+    private String status(int bookingId) throws SQLException {
+        return db.queryString("SELECT status FROM Booking WHERE id = " + bookingId);
+    }
+
+    private long lateFeesCharged(int bookingId) throws SQLException {
+        return db.queryLong("SELECT COALESCE(SUM(amount_cents), 0) FROM Payment WHERE booking_id = " + bookingId
+                + " AND method = '" + ReturnService.LATE_FEE_METHOD + "'");
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.demo;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * A fresh in-memory rental database, migrated to the latest schema, for one test. Opened in
+ * {@code @BeforeEach} and closed in {@code @AfterEach}; the helpers insert rows directly, bypassing
+ * the services under test.
+ */
+final class TestDatabase implements AutoCloseable {
+
+    final ConnectionPool pool;
+    final ChangeFeed changes = new ChangeFeed();
+    final RentalRepository repository;
+
+    private TestDatabase(ConnectionPool pool) {
+        this.pool = pool;
+        this.repository = new RentalRepository(pool, changes);
+    }
+
+    static TestDatabase open() throws SQLException {
+        return open(Migrations.ALL.size());
+    }
+
+    /** Migrated up to and including the first {@code migrations} versions only. */
+    static TestDatabase open(int migrations) throws SQLException {
+        ConnectionPool pool = new ConnectionPool("jdbc:h2:mem:test-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "", 16);
+        new SchemaMigrator(pool, Migrations.ALL.subList(0, migrations)).migrate();
+        return new TestDatabase(pool);
+    }
+
+    int customer(String name) throws SQLException {
+        return repository.addCustomer(name, name.toLowerCase().replace(' ', '.') + "@example.com", "L-" + name.hashCode());
+    }
+
+    int vehicle(String category, long priceCents) throws SQLException {
+        return repository.addVehicle(category + " " + priceCents, category, Money.of(priceCents));
+    }
+
+    int booking(int customerId, int vehicleId, LocalDate start, LocalDate end, String status) throws SQLException {
+        try (PooledConnection c = pool.acquire()) {
+            PreparedStatement ps = c.prepare("INSERT INTO Booking(customer_id, vehicle_id, start_date, end_date, status) VALUES (?, ?, ?, ?, ?)",
+                    Statement.RETURN_GENERATED_KEYS);
+            ps.setInt(1, customerId);
+            ps.setInt(2, vehicleId);
+            ps.setDate(3, Date.valueOf(start));
+            ps.setDate(4, Date.valueOf(end));
+            ps.setString(5, status);
+            ps.executeUpdate();
+            try (ResultSet keys = ps.getGeneratedKeys()) {
+                keys.next();
+                return keys.getInt(1);
+            }
+        }
+    }
+
+    /** Runs statements as they are, e.g. to set up a state no service would produce. */
+    void execute(String... statements) throws SQLException {
+        try (PooledConnection c = pool.acquire(); Statement stmt = c.connection().createStatement()) {
+            for (String sql : statements) {
+                stmt.execute(sql);
+            }
+        }
+    }
+
+    /** The single number {@code sql} selects. */
+    long queryLong(String sql) throws SQLException {
+        try (PooledConnection c = pool.acquire(); Statement stmt = c.connection().createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    /** The single text value {@code sql} selects. */
+    String queryString(String sql) throws SQLException {
+        try (PooledConnection c = pool.acquire(); Statement stmt = c.connection().createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            rs.next();
+            return rs.getString(1);
+        }
+    }
+
+    @Override
+    public void close() throws SQLException {
+        execute("SHUTDOWN");
+        pool.close();
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.demo;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TrigramIndexTest {
+
+    @Test
+    void findsLabelsContainingEveryTermIgnoringCase() {
+        TrigramIndex index = new TrigramIndex();
+        index.putAll(Map.of(1, "Toyota Corolla", 2, "Toyota Yaris", 3, "Ford Focus"));
+
+        assertEquals(List.of(1), ids(index.search("COROLLA toy", 10)));
+        assertEquals(List.of(2, 1), ids(index.search("toyota", 10)));
+        assertTrue(index.search("corolla ford", 10).isEmpty());
+        assertTrue(index.search("   ", 10).isEmpty());
+    }
+
+    @Test
+    void ranksWordStartsFirstThenShorterLabels() {
+        TrigramIndex index = new TrigramIndex();
+        index.put(1, "Hyundai Kona Electric");
+        index.put(2, "Skona");
+        index.put(3, "Kona");
+
+        assertEquals(List.of(3, 1, 2), ids(index.search("kona", 10)));
+        assertEquals(List.of(3, 1), ids(index.search("kona", 2)));
+    }
+
+    @Test
+    void termsShorterThanATrigramStillMatch() {
+        TrigramIndex index = new TrigramIndex();
+        index.putAll(Map.of(1, "VW Golf", 2, "Audi A4", 3, "Fiat 500"));
+
+        assertEquals(List.of(1), ids(index.search("vw", 10)));
+        assertEquals(List.of(2), ids(index.search("a4 aud", 10)));
+    }
+
+    @Test
+    void updatesAndRemovalsReplaceOldLabels() {
+        TrigramIndex index = new TrigramIndex();
+        index.put(5, "Ada Clerk");
+        index.put(5, "Ada Lovelace");
+        index.put(2000, "Grace Hopper"); // Past the initial capacity
+
+        assertTrue(index.search("clerk", 10).isEmpty());
+        assertEquals(List.of(5), ids(index.search("lovelace", 10)));
+        assertEquals(List.of(2000), ids(index.search("hopper", 10)));
+
+        index.remove(5);
+        index.remove(5);
+        assertEquals(1, index.size());
+        assertTrue(index.search("ada", 10).isEmpty());
+    }
+
+    @Test
+    void manyUpdatesLeaveOneMatchPerId() {
+        TrigramIndex index = new TrigramIndex();
+        for (int i = 0; i < 1_000; i++) {
+            index.put(i % 10, "Customer " + (i % 10) + " revision " + i); // Enough stale postings to compact
+        }
+
+        assertEquals(10, index.size());
+        assertEquals(List.of(3), ids(index.search("revision 993", 10)));
+        assertEquals(10, index.search("customer", 100).size());
+        assertTrue(index.search("revision 13", 10).isEmpty());
+    }
+
+    private static List<Integer> ids(List<TrigramIndex.Match> matches) {
+        return matches.stream().map(TrigramIndex.Match::id).toList();
+    }
+}